@@ -0,0 +1,138 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分阶段测量模型构建耗时，阶段与GurobiSolution.prepare()记录的phaseTimes相同：
+ * prepareData(读取数据、生成工作流)、buildBlocks(并行构建各工作流的变量和约束描述)、
+ * addBlocks(批量加入模型)、setObjective(负载变量、负载定义约束和目标函数)，以及完整的prepare。
+ * 参数为工作流数量、线程数和拓扑(路径文件:链路文件)；每个阶段之前的步骤在@Setup中完成，不计入测量。
+ * 默认使用纯Java的分支定界后端，不需要Gurobi运行库和许可证；有许可证时可以用 -p backend=GUROBI
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModelBuildBenchmark {
+    static final String NODE_INFO_FILE = "data/info_of_nodes.txt";
+
+    @State(Scope.Thread)
+    public static class Params {
+        @Param({"5", "20", "50"})
+        public int workflows;
+
+        /** 并行构建模型的线程数，只影响buildBlocks */
+        @Param({"1", "2", "4"})
+        public int threads;
+
+        @Param({"data/pathInfo2.txt:data/info_cap_links2.txt", "data/pathInfo.txt:data/info_cap_links.txt"})
+        public String topology;
+
+        @Param({"BRANCH_AND_BOUND"})
+        public Backend backend;
+
+        GurobiSolution newSolution() {
+            WorkflowGenerator.resetWorkflowIdx();
+            GurobiSolution solution = new GurobiSolution();
+            String[] files = topology.split(":");
+            solution.setDataFiles(files[0], NODE_INFO_FILE, files[1]);
+            solution.setWorkflowNum(workflows);
+            solution.setParallelism(threads);
+            solution.setBackend(backend);
+            return solution;
+        }
+    }
+
+    /** buildBlocks不修改模型，数据只需读取一次 */
+    @State(Scope.Thread)
+    public static class DataReady {
+        GurobiSolution solution;
+
+        @Setup(Level.Trial)
+        public void setup(Params params) {
+            solution = params.newSolution();
+            solution.prepareData();
+        }
+    }
+
+    /** 每次调用都在新的空模型上加入已构建好的块 */
+    @State(Scope.Thread)
+    public static class BlocksReady {
+        GurobiSolution solution;
+        List<WorkflowBlock> blocks;
+
+        @Setup(Level.Invocation)
+        public void setup(Params params) throws SolverException {
+            solution = params.newSolution();
+            solution.prepareData();
+            solution.createModel();
+            blocks = solution.buildBlocks(solution.workflows);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws SolverException {
+            solution.dispose();
+        }
+    }
+
+    /** 每次调用都在已加入全部块的新模型上设置目标函数 */
+    @State(Scope.Thread)
+    public static class ModelReady {
+        GurobiSolution solution;
+
+        @Setup(Level.Invocation)
+        public void setup(Params params) throws SolverException {
+            solution = params.newSolution();
+            solution.prepareData();
+            solution.createModel();
+            solution.addBlocks(solution.buildBlocks(solution.workflows));
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws SolverException {
+            solution.dispose();
+        }
+    }
+
+    @Benchmark
+    public GurobiSolution prepareData(Params params) {
+        GurobiSolution solution = params.newSolution();
+        solution.prepareData();
+        return solution;
+    }
+
+    // WorkflowBlock只在包内可见，由Blackhole接收结果
+    @Benchmark
+    public void buildBlocks(DataReady state, Blackhole blackhole) throws SolverException {
+        blackhole.consume(state.solution.buildBlocks(state.solution.workflows));
+    }
+
+    @Benchmark
+    public int addBlocks(BlocksReady state) throws SolverException {
+        state.solution.addBlocks(state.blocks);
+        return state.solution.xVars.size() + state.solution.getYVarNum();
+    }
+
+    @Benchmark
+    public GurobiSolution setObjective(ModelReady state) throws SolverException {
+        state.solution.setObjective();
+        return state.solution;
+    }
+
+    @Benchmark
+    public int prepare(Params params) throws SolverException {
+        GurobiSolution solution = params.newSolution();
+        solution.prepare();
+        int varNum = solution.xVars.size() + solution.getYVarNum();
+        solution.dispose();
+        return varNum;
+    }
+}
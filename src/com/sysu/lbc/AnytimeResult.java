@@ -0,0 +1,28 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.dataStructure.Placement;
+import com.sysu.lbc.model.SolveProgress;
+
+/**
+ * 限时求解(GurobiSolution.solveAnytime)的结果：截止时间到达或间隙达到目标时的最好放置及其间隙
+ */
+public class AnytimeResult {
+    /** 最好的放置，截止前没有找到可行解时为null */
+    public Placement placement;
+    public double objVal = Double.POSITIVE_INFINITY;
+    public double objBound = Double.NEGATIVE_INFINITY;
+    /** 求解耗时(ms) */
+    public long time;
+    /** 求解过程中找到更好可行解的次数 */
+    public int incumbentNum;
+    /** 间隙是否达到了目标；为false时求解因截止时间而停止 */
+    public boolean targetReached;
+
+    public boolean hasPlacement() {
+        return null != placement;
+    }
+
+    public double getGap() {
+        return SolveProgress.gap(objVal, objBound);
+    }
+}
@@ -0,0 +1,66 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import com.sysu.lbc.model.SolverException;
+
+/**
+ * 在同一组数据上对比不同建模方式的变量规模、目标值和耗时
+ * 用法：Compare [GUROBI|BRANCH_AND_BOUND]，默认在Gurobi可用时使用Gurobi
+ */
+public class Compare {
+    /** {路径文件, 链路文件}，节点文件共用 */
+    static final String[][] TOPOLOGIES = {
+            {"data/pathInfo2.txt", "data/info_cap_links2.txt"},
+            {"data/pathInfo.txt", "data/info_cap_links.txt"}
+    };
+
+    static Backend backend;
+
+    public static void main(String[] args) throws SolverException {
+        backend = args.length > 0 ? Backend.valueOf(args[0])
+                : Backend.isGurobiAvailable() ? Backend.GUROBI : Backend.BRANCH_AND_BOUND;
+        for (String[] topology : TOPOLOGIES) {
+            System.out.println("==================");
+            System.out.println(topology[0] + " / " + topology[1]);
+            System.out.println("formulation\tpruned\tyVars\tprepare(ms)\toptimize(ms)\tobj");
+            GurobiSolution baseline = null;
+            for (Formulation formulation : Formulation.values()) {
+                for (boolean pruneYVar : new boolean[]{false, true}) {
+                    GurobiSolution solution = run(topology, formulation, pruneYVar);
+                    print(formulation, pruneYVar, solution);
+                    if (null == baseline) {
+                        baseline = solution;
+                        continue;
+                    }
+                    System.out.println("\t相对" + Formulation.QUADRATIC + "节省准备耗时："
+                            + (baseline.getPrepareTime() - solution.getPrepareTime()) + "ms，节省求解耗时："
+                            + (baseline.getOptimizeTime() - solution.getOptimizeTime()) + "ms，裁剪y变量："
+                            + solution.getPrunedYVarNum());
+                    solution.dispose();
+                }
+            }
+            baseline.dispose();
+        }
+    }
+
+    private static GurobiSolution run(String[] topology, Formulation formulation, boolean pruneYVar) throws SolverException {
+        WorkflowGenerator.resetWorkflowIdx();
+        GurobiSolution solution = new GurobiSolution();
+        solution.setDataFiles(topology[0], GurobiSolution.NODE_INFO_FILE, topology[1]);
+        solution.setFormulation(formulation);
+        solution.setPruneYVar(pruneYVar);
+        solution.setBackend(backend);
+        if (Backend.BRANCH_AND_BOUND == backend) {
+            solution.setTimeLimit(Main.FALLBACK_TIME_LIMIT);
+        }
+        solution.prepare();
+        solution.doOptimize();
+        return solution;
+    }
+
+    private static void print(Formulation formulation, boolean pruneYVar, GurobiSolution solution) throws SolverException {
+        System.out.println(formulation + "\t" + pruneYVar + "\t" + solution.getYVarNum() + "\t"
+                + solution.getPrepareTime() + "\t" + solution.getOptimizeTime() + "\t" + solution.getObjVal());
+    }
+}
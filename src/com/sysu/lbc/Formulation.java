@@ -0,0 +1,13 @@
+package com.sysu.lbc;
+
+/**
+ * y^{w,p}_{s,s'}与x^w_{s,v}之间耦合约束的建模方式
+ */
+public enum Formulation {
+    /** sum(y) == x_u * x_v，二次等式约束，非凸MIQCP */
+    QUADRATIC,
+    /** 对x_u * x_v做McCormick线性化：sum(y) <= x_u, sum(y) <= x_v, sum(y) >= x_u + x_v - 1 */
+    MCCORMICK,
+    /** 聚合流约束：以节点u为起点的路径之和 == x_u，以节点v为终点的路径之和 == x_v */
+    AGGREGATED
+}
@@ -1,416 +1,1263 @@
 package com.sysu.lbc;
 
+import com.sysu.lbc.cache.SolutionCache;
+import com.sysu.lbc.capacity.CapacityLedger;
 import com.sysu.lbc.dataStructure.*;
-import com.sysu.lbc.tool.Tool;
+import com.sysu.lbc.decomposition.DecompositionResult;
+import com.sysu.lbc.decomposition.LagrangianDecomposition;
+import com.sysu.lbc.heuristic.PlacementHeuristic;
+import com.sysu.lbc.metrics.SolveMetrics;
+import com.sysu.lbc.model.*;
+import com.sysu.lbc.path.KShortestPaths;
+import com.sysu.lbc.path.PathMetric;
+import com.sysu.lbc.presolve.PresolveStats;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.solver.EnvPool;
+import com.sysu.lbc.symmetry.Symmetry;
+import com.sysu.lbc.tool.DataFileReader;
+import com.sysu.lbc.tool.Snapshot;
 import com.sysu.lbc.tool.WorkflowGenerator;
-import gurobi.*;
+import com.sysu.lbc.tool.WorkloadGenerator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class GurobiSolution {
     static final String PATH_INFO_FILE = "data/pathInfo2.txt";
     static final String NODE_INFO_FILE = "data/info_of_nodes.txt";
     static final String LINKS_INFO_FILE = "data/info_cap_links2.txt";
     static final String GUROBI_LOG_NAME = "solution.log";
+    // 列生成时检验数小于-REDUCED_COST_EPS的路径才加入；最短路径的链路权重加上MIN_LINK_WEIGHT保证为正
+    static final double REDUCED_COST_EPS = 1e-6;
+    static final double MIN_LINK_WEIGHT = 1e-9;
 
     List<Workflow> workflows = new ArrayList<>();
-    Map<Integer, String> paths = new HashMap<>();   //<pathId, pathContent>, such as <1, 1>2>3 >
+    PathTable paths = new PathTable();   //pathId -> pathContent, such as 1 -> [1, 2, 3]
     Map<Integer, Double> nodes = new HashMap<>();  //<nodeId, nodeCapacity>
     List<Link> links = new ArrayList<>();
+    List<Integer> uavNodes = new ArrayList<>();   //类型为U_ID的节点，工作流的起始任务放在这些节点上
 
-    List<XVar> xVars = new ArrayList<>();    //<w_s_v, var>
-    List<YVar> yVars = new ArrayList<>();    //<w_p_s_s', var>
+    Set<XVar> xVars = new LinkedHashSet<>();    //<w_s_v, var>
+    Set<YVar> yVars = new LinkedHashSet<>();    //<w_p_s_s', var>
+    ModelIndex index = new ModelIndex();
+    // 每个工作流的约束，在线删除工作流时一并删除
+    Map<Integer, List<ModelConstr>> constrsOfWorkflow = new HashMap<>();
 
-    GRBEnv env;
-    GRBModel model;
-    GRBQuadExpr nodeLoadInfo;
-    GRBQuadExpr linkLoadInfo;
+    Backend backend = Backend.GUROBI;
+    // 设置后从环境池创建模型，多个GurobiSolution共用Gurobi环境
+    EnvPool envPool;
+    // 求解器的线程数，0表示由求解器决定
+    int solverThreads = 0;
+    SolverModel model;
+    // 各节点、链路的负载变量和定义约束，setObjective时创建
+    LoadConstraints loads;
 
-    public void prepare() throws GRBException {
-        long starTime = System.currentTimeMillis();
-        env = new GRBEnv(GUROBI_LOG_NAME);
-        model = new GRBModel(env);
-        prepareWorkflows();
-        prepareNodes();
-        preparePaths();
-        prepareOneHopLinks();
-        prepareXVar();
-        prepareYVar();
-        prepareConstraint();
-        setObjective();
-        long endTime = System.currentTimeMillis();
-        long dur = endTime - starTime;
-        System.out.println("准备耗时：" + (dur / 1000) + "s");
+    String pathInfoFile = PATH_INFO_FILE;
+    String nodeInfoFile = NODE_INFO_FILE;
+    String linksInfoFile = LINKS_INFO_FILE;
+    // 大于0时不读取路径文件，由链路为每对节点生成至多pathNum条无环路径
+    int pathNum = 0;
+    int maxPathHops = Integer.MAX_VALUE;
+    PathMetric pathMetric = PathMetric.HOPS;
+    // 大于0时开启列生成，prepare建好模型后最多定价columnRounds轮
+    int columnRounds = 0;
+    int generatedPathNum = 0;
+    // 列生成时按名称索引每个工作流的线性约束，新路径的y变量按名称加入约束
+    Map<Integer, Map<String, ModelConstr>> namedConstrsOfWorkflow = new HashMap<>();
+    // 设置后prepareData从二进制快照读取节点、链路、路径和工作流，不再解析文本文件和生成工作流
+    String snapshotFile;
+    Formulation formulation = Formulation.QUADRATIC;
+    int workflowNum = 5;
+    // 设置后由它生成workflowNum个工作流，否则使用WorkflowGenerator的第0个模板
+    WorkloadGenerator workloadGenerator;
+    // 大于0时生成的工作流id从它开始，不占用WorkflowGenerator的全局计数
+    int firstWorkflowId = 0;
+    // 是否用启发式放置结果作为初始解
+    boolean warmStart = false;
+    Placement startPlacement;
+    PlacementHeuristic heuristic;
+    LagrangianDecomposition decomposition;
+    // 求解时间上限(秒)，默认不限
+    double timeLimit = Double.POSITIVE_INFINITY;
+
+    // 是否把变量、约束名称传给求解器；关闭后不再为每个变量构造名称字符串，输出时通过varOfIndex查名称
+    boolean useNames = true;
+    // 名称表：模型变量编号 -> x、y变量，负载变量等其他变量为null
+    List<Var> varOfIndex = new ArrayList<>();
+    // 构建模型的线程数
+    int parallelism = Runtime.getRuntime().availableProcessors();
+
+    // 是否检测可互换的工作流和节点并加入对称性约束；开启后初始解先变换为满足这些约束的等价放置
+    boolean symmetryBreaking = false;
+    Symmetry symmetry;
+    List<ModelConstr> symmetryConstrs = new ArrayList<>();
+
+    // 是否在建模前做预处理：按任务的可行节点删去和固定x、y变量，省去空的负载项；列生成时不做
+    boolean presolve = false;
+    PresolveStats presolveStats = new PresolveStats();
+
+    // 是否加入硬容量约束：各节点、链路的负载(含已提交的负载)不超过1；开启后在线加入工作流前先做准入检查
+    boolean hardCapacity = false;
+    // 已提交(放置固定、已从模型中删除)的工作流占用的容量，按需创建
+    CapacityLedger capacityLedger;
 
+    // 是否只为端点可行的路径生成y变量
+    boolean pruneYVar = false;
+    int prunedYVarNum = 0;
+    long prepareTime = 0;
+    // 各准备阶段的耗时(ns)，按执行顺序记录
+    Map<String, Long> phaseTimes = new LinkedHashMap<>();
+    // 求解指标，按需创建；recordProgress为true时求解过程中的进度报告也记录在其中
+    SolveMetrics metrics;
+    boolean recordProgress = false;
+
+    // 求解循环和解缓存；在线增删工作流
+    final ModelSolver solver = new ModelSolver(this);
+    final OnlineUpdater updater = new OnlineUpdater(this, solver);
+
+    public void setPruneYVar(boolean pruneYVar) {
+        this.pruneYVar = pruneYVar;
     }
 
-    public void doOptimize() throws GRBException {
-        model.update();
-        model.optimize();
+    boolean isPruneYVar() {
+        return pruneYVar;
+    }
+
+    public void setFormulation(Formulation formulation) {
+        this.formulation = formulation;
+    }
+
+    public void setDataFiles(String pathInfoFile, String nodeInfoFile, String linksInfoFile) {
+        this.pathInfoFile = pathInfoFile;
+        this.nodeInfoFile = nodeInfoFile;
+        this.linksInfoFile = linksInfoFile;
+    }
+
+    /**
+     * 不读取路径文件，改为按链路文件为每对节点(src < dst，与路径文件相同)生成前k条最短的无环路径
+     *
+     * @param k       每对节点的路径数，为0时读取路径文件
+     * @param maxHops 路径的最大跳数
+     */
+    public void setPathGeneration(int k, int maxHops, PathMetric metric) {
+        this.pathNum = k;
+        this.maxPathHops = maxHops;
+        this.pathMetric = metric;
+    }
+
+    /**
+     * 列生成模式：初始路径集合只有每对节点前initialPaths条跳数最少的路径，prepare建好模型后调用generateColumns，
+     * 按链路价格补充检验数为负的路径，最后由doOptimize求解整数模型。需要MCCORMICK或AGGREGATED模型
+     *
+     * @param maxRounds 最多定价的轮数
+     * @param maxHops   路径的最大跳数
+     */
+    public void setColumnGeneration(int initialPaths, int maxRounds, int maxHops) {
+        setPathGeneration(initialPaths, maxHops, PathMetric.HOPS);
+        this.columnRounds = maxRounds;
+    }
+
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public void setBackend(Backend backend) {
+        this.backend = backend;
+    }
+
+    public void setEnvPool(EnvPool envPool) {
+        this.envPool = envPool;
+    }
+
+    public void setSolverThreads(int solverThreads) {
+        this.solverThreads = solverThreads;
+    }
+
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * @param reuse 命中时是否不求解、直接返回缓存的放置(solvePlacement)；为false时只把它作为初始解
+     */
+    public void setSolutionCache(SolutionCache cache, boolean reuse) {
+        solver.setSolutionCache(cache, reuse);
+    }
+
+    public SolutionCache getSolutionCache() {
+        return solver.getSolutionCache();
+    }
+
+    public void setTimeLimit(double timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * 并行构建模型时使用的线程数，为1时串行构建
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setUseNames(boolean useNames) {
+        this.useNames = useNames;
+    }
+
+    /**
+     * 是否加入对称性约束：结构相同的工作流按关键任务所在节点排序，可互换的节点按负载排序。
+     * 开启列生成时路径集合会变化，只处理工作流的对称性
+     */
+    public void setSymmetryBreaking(boolean symmetryBreaking) {
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    /**
+     * 是否在建模前做预处理：由起始任务的位置和路径的端点推出各任务可放置的节点，只为这些节点创建x变量，
+     * 只剩一个节点的任务由变量下界固定并省去它的约束，删去两端不可行的路径的y变量，表达式为空的负载不建变量和约束。
+     * 列生成依赖完整的约束名称和不变的路径端点，开启列生成时不做预处理
+     */
+    public void setPresolve(boolean presolve) {
+        this.presolve = presolve;
+    }
+
+    /**
+     * 预处理的缩减统计，在线加入的工作流也计入其中
+     */
+    public PresolveStats getPresolveStats() {
+        return presolveStats;
+    }
+
+    /**
+     * 是否加入硬容量约束：各节点、链路的负载变量(含已提交工作流的负载)上界为1，即占用不超过容量。
+     * 开启后模型可能不可行，admitWorkflow在求解前先用容量账本检查新工作流，明显放不下时直接拒绝
+     */
+    public void setHardCapacity(boolean hardCapacity) {
+        this.hardCapacity = hardCapacity;
+    }
+
+    // 负载变量的上界，LoadConstraints的getSumCost和addLoadVar都用它。
+    // 负载定义约束中任务资源除以节点容量、流带宽除以链路带宽，负载是归一化的占用，所以上界1才表示"不超过容量"；
+    // 不归一化的系数要把上界换成容量
+    double getLoadUpperBound() {
+        return hardCapacity ? 1.0 : SolverModel.INFINITY;
     }
 
-    public void printResult() throws GRBException {
-        System.out.println("Obj is: " + model.get(GRB.DoubleAttr.ObjVal));
-        System.out.println("cCost is: " + nodeLoadInfo.getValue());
-        System.out.println("rCost is:" + linkLoadInfo.getValue());
-        for (XVar var : xVars) {
-            if (var.var.get(GRB.DoubleAttr.X) > 0)
-                System.out.println(var.getVarName());
+    /**
+     * 记录已提交工作流占用的容量账本，需要先调用prepareData()
+     */
+    public CapacityLedger getCapacityLedger() {
+        if (null == capacityLedger) {
+            capacityLedger = new CapacityLedger(nodes, links, paths);
         }
-        System.out.println("==================");
-        for (YVar var : yVars) {
-            if (var.var.get(GRB.DoubleAttr.X) > 0)
-                System.out.println(var.getVarName());
+        return capacityLedger;
+    }
+
+    boolean isHardCapacity() {
+        return hardCapacity;
+    }
+
+    // 容量账本中是否有已提交的工作流
+    boolean hasCommittedWorkflows() {
+        return null != capacityLedger && !capacityLedger.isEmpty();
+    }
+
+    // 开启列生成时不做预处理
+    private boolean isPresolveEnabled() {
+        return presolve && 0 == columnRounds;
+    }
+
+    /**
+     * 最近一次检测到的对称性，未开启时为null
+     */
+    public Symmetry getSymmetry() {
+        return symmetry;
+    }
+
+    public int getSymmetryConstrNum() {
+        return symmetryConstrs.size();
+    }
+
+    /**
+     * 是否在求解时记录目标值、下界、间隙和节点数随时间的变化，结果由getMetrics返回
+     */
+    public void setRecordProgress(boolean recordProgress) {
+        this.recordProgress = recordProgress;
+    }
+
+    public void setWorkloadGenerator(WorkloadGenerator workloadGenerator) {
+        this.workloadGenerator = workloadGenerator;
+    }
+
+    /**
+     * prepareData生成的工作流的id为[firstWorkflowId, firstWorkflowId + workflowNum)，
+     * 不从WorkflowGenerator的全局计数中预留，相同的设置每次生成相同的工作流。为0时使用全局计数
+     */
+    public void setFirstWorkflowId(int firstWorkflowId) {
+        this.firstWorkflowId = firstWorkflowId;
+    }
+
+    public void setWorkflowNum(int workflowNum) {
+        this.workflowNum = workflowNum;
+    }
+
+    public int getPrunedYVarNum() {
+        return prunedYVarNum;
+    }
+
+    public int getYVarNum() {
+        return yVars.size();
+    }
+
+    public int getGeneratedPathNum() {
+        return generatedPathNum;
+    }
+
+    public long getPrepareTime() {
+        return prepareTime;
+    }
+
+    public long getOptimizeTime() {
+        return solver.getOptimizeTime();
+    }
+
+    public Map<String, Long> getPhaseTimes() {
+        return phaseTimes;
+    }
+
+    public void prepare() throws SolverException {
+        long starTime = System.currentTimeMillis();
+        prepareData();
+        createModel();
+        prepareModel();
+        if (warmStart) {
+            applyStart(placeHeuristically());
         }
+        if (columnRounds > 0) {
+            generateColumns();
+        }
+        prepareTime = System.currentTimeMillis() - starTime;
     }
 
+    // 按后端创建空模型并设置时间上限
+    void createModel() throws SolverException {
+        model = null == envPool ? backend.create(GUROBI_LOG_NAME) : envPool.create(backend);
+        if (solverThreads > 0) {
+            model.setThreads(solverThreads);
+        }
+        if (!Double.isInfinite(timeLimit)) {
+            model.setTimeLimit(timeLimit);
+        }
+    }
 
-    private void setObjective() throws GRBException {
-//        double throughput = prepareThroughput();
-        nodeLoadInfo = prepareExprNode();
-        linkLoadInfo = prepareExprLink();
-        GRBQuadExpr objective = new GRBQuadExpr();
+    // 读取数据、生成工作流，不依赖Gurobi
+    public void prepareData() {
+        long t = System.nanoTime();
+        if (null != snapshotFile) {
+            loadSnapshot();
+            index.setNodes(nodes.keySet());
+            recordPhase("loadSnapshot", t);
+            return;
+        }
+        prepareWorkflows();
+        t = recordPhase("prepareWorkflows", t);
+        prepareNodes();
+        index.setNodes(nodes.keySet());
+        t = recordPhase("prepareNodes", t);
+        if (pathNum > 0) {
+            prepareOneHopLinks();
+            t = recordPhase("prepareOneHopLinks", t);
+            generatePaths();
+            recordPhase("generatePaths", t);
+            return;
+        }
+        preparePaths();
+        t = recordPhase("preparePaths", t);
+        prepareOneHopLinks();
+        recordPhase("prepareOneHopLinks", t);
+    }
 
-//        objective.addConstant(throughput);
-        objective.add(nodeLoadInfo);
-        objective.add(linkLoadInfo);
+    // 先并行构建各工作流的变量与约束描述，再按工作流顺序批量加入模型
+    private void prepareModel() throws SolverException {
+        long t = System.nanoTime();
+        presolveStats = new PresolveStats();
+        presolveStats.skipped = presolve && !isPresolveEnabled();
+        List<WorkflowBlock> blocks = buildBlocks(workflows);
+        t = recordPhase("buildBlocks", t);
+        addBlocks(blocks);
+        t = recordPhase("addBlocks", t);
+        if (symmetryBreaking) {
+            addSymmetryConstraints();
+            t = recordPhase("symmetry", t);
+        }
+        setObjective();
+        recordPhase("setObjective", t);
+    }
 
-        model.setObjective(objective, GRB.MINIMIZE);
+    // 重新检测对称性并替换原有的对称性约束，工作流增删后调用
+    private void addSymmetryConstraints() throws SolverException {
+        for (ModelConstr constr : symmetryConstrs) {
+            model.remove(constr);
+        }
+        symmetryConstrs.clear();
+        // 已提交的负载使容量相同的节点不再等价，账本不为空时不检测节点对称
+        symmetry = Symmetry.detect(workflows, nodes, links, paths,
+                0 == columnRounds && !hasCommittedWorkflows());
+        // 组内相邻的工作流：sum_v v * x[a, k, v] - sum_v v * x[b, k, v] <= 0
+        for (int g = 0; g < symmetry.workflowGroups.size(); g++) {
+            List<Workflow> group = symmetry.workflowGroups.get(g);
+            int keyTaskId = symmetry.keyTaskIds.get(g);
+            for (int i = 0; i + 1 < group.size(); i++) {
+                LinExpr expr = new LinExpr();
+                for (int nodeId : nodes.keySet()) {
+                    addSymmetryTerm(expr, nodeId, index.getXVar(group.get(i).getWF_ID(), keyTaskId, nodeId));
+                    addSymmetryTerm(expr, -nodeId, index.getXVar(group.get(i + 1).getWF_ID(), keyTaskId, nodeId));
+                }
+                symmetryConstrs.add(model.addConstr(expr, SolverModel.LESS_EQUAL, 0, useNames
+                        ? "symWorkflow" + group.get(i).getWF_ID() + "_" + group.get(i + 1).getWF_ID() : null));
+            }
+        }
+        // 轨道内相邻的节点(容量相同)：sum 资源 * x[., ., o_i] - sum 资源 * x[., ., o_{i + 1}] >= 0
+        for (int[] orbit : symmetry.nodeOrbits) {
+            for (int i = 0; i + 1 < orbit.length; i++) {
+                LinExpr expr = new LinExpr();
+                for (XVar x : index.getXVarsOfNode(orbit[i])) {
+                    expr.addTerm(index.getTask(x.workflowId, x.taskId).neededResource, x.var);
+                }
+                for (XVar x : index.getXVarsOfNode(orbit[i + 1])) {
+                    expr.addTerm(-index.getTask(x.workflowId, x.taskId).neededResource, x.var);
+                }
+                symmetryConstrs.add(model.addConstr(expr, SolverModel.GREATER_EQUAL, 0, useNames
+                        ? "symNode" + orbit[i] + "_" + orbit[i + 1] : null));
+            }
+        }
         model.update();
     }
 
-    // 计算吞吐量
-    private double prepareThroughput() {
-        double throughput = 0.0;
-        for (Workflow wf : workflows) {
-            ArrayList<Flow> flows = wf.getFlows();
-            for (Flow f : flows) {
-                throughput += f.neededBandwidth;
-            }
+    // 预处理删去的x变量为null，不加项
+    private static void addSymmetryTerm(LinExpr expr, double coeff, XVar x) {
+        if (null != x) {
+            expr.addTerm(coeff, x.var);
         }
-        return throughput;
     }
 
-    // 检查并记录节点上的工作负载情况
-    private GRBQuadExpr prepareExprNode() throws GRBException {
-        List<GRBLinExpr> loadExprOfEachNode = new ArrayList<>();
-        for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
-            int nodeId = nodeEntry.getKey();
-            double capacity = nodeEntry.getValue();
-            GRBLinExpr nodeLoadExpr = new GRBLinExpr();
-            for (XVar x : xVars) {
-                int assignNodeId = x.nodeId;
-                if (nodeId != assignNodeId) {
-                    continue;
-                }
-                Task task = getTaskFormWorkFlows(x.workflowId, x.taskId);
-                double neededResource = task.neededResource;
-                double coeff = neededResource / capacity;
-                nodeLoadExpr.addTerm(coeff, x.var);
+    // 各工作流的变量与约束互不依赖，在parallelism个线程的ForkJoinPool中用并行流构建，结果与wfs的顺序相同
+    List<WorkflowBlock> buildBlocks(List<Workflow> wfs) throws SolverException {
+        // 列生成按名称查找约束，此时总是生成名称，是否传给求解器仍由useNames决定
+        WorkflowModelBuilder builder = new WorkflowModelBuilder(new WorkflowBatch(wfs, nodes), paths, formulation,
+                pruneYVar, useNames || columnRounds > 0, isPresolveEnabled());
+        presolveStats.infeasibleWorkflowNum += builder.getInfeasibleWorkflowNum();
+        if (parallelism <= 1 || wfs.size() <= 1) {
+            List<WorkflowBlock> result = new ArrayList<>();
+            for (int w = 0; w < wfs.size(); w++) {
+                result.add(builder.build(w));
             }
-            loadExprOfEachNode.add(nodeLoadExpr);
+            return result;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> IntStream.range(0, wfs.size()).parallel().mapToObj(builder::build)
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new SolverException("并行构建模型失败", e);
+        } finally {
+            pool.shutdown();
         }
-        return getSumCost(loadExprOfEachNode, "nodeLoad");
     }
 
+    void addBlocks(List<WorkflowBlock> blocks) throws SolverException {
+        prunedYVarNum = 0;
+        for (WorkflowBlock block : blocks) {
+            addBlock(block);
+        }
+        model.update();
+    }
 
-    // 检查并记录每段one-hop link上的链路负载情况
-    private GRBQuadExpr prepareExprLink() throws GRBException {
-        List<GRBLinExpr> loadExprOfEachLink = new ArrayList<>();
-        for (Link link : links) {
-            double bandwidth = link.bandwidth;
-            GRBLinExpr linkLoadExpr = new GRBLinExpr();
-            for (YVar y : yVars) {
-                int pathId = y.pathId;
-                String pathContent = paths.get(pathId);
-                String linkKey = link.getLinkKey();
-                if (!isPathContainOneHopLink(pathContent, linkKey)) {
-                    continue;
+    // 批量添加一个工作流的变量和约束，并登记到索引中
+    private void addBlock(WorkflowBlock block) throws SolverException {
+        int varNum = block.getVarNum();
+        double[] lb = new double[varNum];
+        double[] ub = new double[varNum];
+        char[] types = new char[varNum];
+        Arrays.fill(ub, 1.0);
+        Arrays.fill(types, SolverModel.BINARY);
+        for (int i : block.fixedVars) {
+            lb[i] = 1.0;
+        }
+        ModelVar[] vars = model.addVars(lb, ub, types, useNames ? block.varNames.toArray(new String[varNum]) : null);
+        for (XVar x : block.xVars) {
+            x.var = vars[x.var.index];
+            xVars.add(x);
+            index.addXVar(x);
+            setVarOfIndex(x);
+        }
+        for (YVar y : block.yVars) {
+            y.var = vars[y.var.index];
+            yVars.add(y);
+            index.addYVar(y);
+            setVarOfIndex(y);
+        }
+        prunedYVarNum += block.prunedYVarNum;
+        presolveStats.add(block.presolveStats);
+
+        int linNum = block.linExprs.size();
+        LinExpr[] exprs = new LinExpr[linNum];
+        char[] senses = new char[linNum];
+        double[] rhs = new double[linNum];
+        for (int i = 0; i < linNum; i++) {
+            exprs[i] = WorkflowBlock.remap(block.linExprs.get(i), vars);
+            senses[i] = block.linSenses.get(i);
+            rhs[i] = block.linRhs.get(i);
+        }
+        List<ModelConstr> constrs = new ArrayList<>(Arrays.asList(
+                model.addConstrs(exprs, senses, rhs, useNames ? block.linNames.toArray(new String[linNum]) : null)));
+        for (int i = 0; i < block.quadExprs.size(); i++) {
+            constrs.add(model.addQConstr(WorkflowBlock.remap(block.quadExprs.get(i), vars),
+                    block.quadSenses.get(i), block.quadRhs.get(i), useNames ? block.quadNames.get(i) : null));
+        }
+        constrsOfWorkflow.put(block.wf.getWF_ID(), constrs);
+        if (columnRounds > 0) {
+            Map<String, ModelConstr> named = new HashMap<>();
+            for (int i = 0; i < linNum; i++) {
+                if (null != block.linNames.get(i)) {
+                    named.put(block.linNames.get(i), constrs.get(i));
                 }
-                Flow flow = getFlowFromWorkflows(y.workflowId, y.currTaskId, y.succTaskId);
-                double neededBandwidth = flow.neededBandwidth;
-                double coeff = neededBandwidth / bandwidth;
-                linkLoadExpr.addTerm(coeff, y.var);
             }
-            loadExprOfEachLink.add(linkLoadExpr);
+            namedConstrsOfWorkflow.put(block.wf.getWF_ID(), named);
+        }
+    }
+
+    private void setVarOfIndex(Var var) {
+        while (varOfIndex.size() <= var.var.index) {
+            varOfIndex.add(null);
         }
-        return getSumCost(loadExprOfEachLink, "linkLoad");
+        varOfIndex.set(var.var.index, var);
     }
 
-    private GRBQuadExpr getSumCost(List<GRBLinExpr> loadExprOfEachNode, String costPreFix) throws GRBException {
-        int nodeNum = 1;
-        List<GRBVar> nodeLoadInfo = new ArrayList<>();
-        for (GRBLinExpr nodeLoadExpr : loadExprOfEachNode) {
-            GRBVar nodeLoad = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, costPreFix + "Var" + nodeNum);
-            GRBLinExpr tempConsExpr = new GRBLinExpr();
-            tempConsExpr.addTerm(-1.0, nodeLoad);
-            tempConsExpr.add(nodeLoadExpr);
-            model.addConstr(tempConsExpr, GRB.EQUAL, 0.0, costPreFix + "Constr" + nodeNum);
-            nodeLoadInfo.add(nodeLoad);
-            nodeNum++;
+    /**
+     * 只用启发式算法放置当前的工作流，需要先调用prepareData()
+     */
+    public Placement placeHeuristically() {
+        long t = System.nanoTime();
+        Placement placement = getHeuristic().place(workflows);
+        recordPhase("placeHeuristically", t);
+        return placement;
+    }
+
+    /**
+     * 基于当前节点、链路和路径数据的启发式算法，需要先调用prepareData()
+     */
+    public PlacementHeuristic getHeuristic() {
+        if (null == heuristic) {
+            heuristic = new PlacementHeuristic(nodes, links, paths);
         }
-        GRBQuadExpr result = new GRBQuadExpr();
-        for (GRBVar var : nodeLoadInfo) {
-            result.addTerm(1, var, var);
+        return heuristic;
+    }
+
+    /**
+     * 按工作流分解的拉格朗日松弛，需要先调用prepareData()；迭代次数、目标间隙可以在返回的对象上设置
+     */
+    public LagrangianDecomposition getDecomposition() {
+        if (null == decomposition) {
+            decomposition = new LagrangianDecomposition(nodes, links, paths);
+            decomposition.setParallelism(parallelism);
         }
+        return decomposition;
+    }
+
+    /**
+     * 不建整体模型，用分解方法求解当前的工作流，以启发式放置作为初始上界，需要先调用prepareData()
+     */
+    public DecompositionResult solveByDecomposition() throws SolverException {
+        Placement initial = placeHeuristically();
+        long t = System.nanoTime();
+        getDecomposition().setUseCandidateNodes(pruneYVar);
+        DecompositionResult result = getDecomposition().solve(workflows, initial);
+        recordPhase("decomposition", t);
         return result;
     }
 
-    private Task getTaskFormWorkFlows(int wfId, int taskId) {
-        for (Workflow wf : workflows) {
-            if (wfId != wf.getWF_ID()) {
-                continue;
-            }
-            Set<Task> tasks = wf.getTasks();
-            for (Task task : tasks) {
-                if (taskId == task.taskId) {
-                    return task;
-                }
-            }
+    /**
+     * 在线模式：向已建好的模型中加入一个工作流。只添加该工作流的x、y变量和约束，
+     * 并在各节点、链路的负载定义约束中加入它的变量；下一次求解以上一次的解加上新工作流的启发式放置作为初始解
+     */
+    public void addWorkflow(Workflow wf) throws SolverException {
+        updater.addWorkflow(wf);
+    }
+
+    /**
+     * 在线模式：从模型中删除一个工作流的x、y变量和约束，变量删除后也不再出现在负载定义中；
+     * 其余工作流以上一次的解作为下一次求解的初始解
+     *
+     * @return 工作流不在模型中时返回false
+     */
+    public boolean removeWorkflow(int wfId) throws SolverException {
+        return updater.removeWorkflow(wfId);
+    }
+
+    List<Workflow> getWorkflows() {
+        return workflows;
+    }
+
+    // 把工作流的x、y变量、约束和负载项加入已建好的模型
+    void addWorkflowModel(Workflow wf) throws SolverException {
+        workflows.add(wf);
+        index.addWorkflow(wf);
+        addBlock(buildBlocks(Collections.singletonList(wf)).get(0));
+        model.update();
+        loads.addWorkflowTerms(wf.getWF_ID());
+        model.update();
+        if (symmetryBreaking) {
+            addSymmetryConstraints();
         }
-        return null;
+        solver.markModified();
     }
 
-    private Flow getFlowFromWorkflows(int wfId, int currTaskId, int succTaskId) {
-        Flow result = null;
-        for (Workflow wf : workflows) {
-            if (wfId != wf.getWF_ID()) {
-                continue;
-            }
-            ArrayList<Flow> flows = wf.getFlows();
-            for (Flow flow : flows) {
-                if (currTaskId == flow.currTask.taskId && succTaskId == flow.succTask.taskId) {
-                    return flow;
-                }
-            }
+    // 从模型中删除工作流的x、y变量和约束，变量删除后也不再出现在负载定义中
+    void removeWorkflowModel(Workflow wf) throws SolverException {
+        int wfId = wf.getWF_ID();
+        for (ModelConstr constr : constrsOfWorkflow.remove(wfId)) {
+            model.remove(constr);
+        }
+        namedConstrsOfWorkflow.remove(wfId);
+        solver.forgetArrival(wfId);
+        for (XVar x : index.getXVarsOfWorkflow(wfId)) {
+            model.remove(x.var);
+            xVars.remove(x);
+            varOfIndex.set(x.var.index, null);
+        }
+        for (YVar y : index.getYVarsOfWorkflow(wfId)) {
+            model.remove(y.var);
+            yVars.remove(y);
+            varOfIndex.set(y.var.index, null);
+        }
+        index.removeWorkflow(wf);
+        workflows.remove(wf);
+        model.update();
+        if (symmetryBreaking) {
+            addSymmetryConstraints();
         }
-        return null;
+        solver.markModified();
     }
 
-    private boolean isPathContainOneHopLink(String pathContent, String oneHopLinkKey) {
-        String[] pathNodes = pathContent.split(">");
-        String[] oneHopLinkNodes = oneHopLinkKey.split("_");
-        String nodeU = oneHopLinkNodes[0].trim();
-        String nodeV = oneHopLinkNodes[1].trim();
-        for (int i = 0; i <= pathNodes.length - 2; i++) {
-            String pathNodeU = pathNodes[i].trim();
-            String pathNodeV = pathNodes[i + 1].trim();
-            if (nodeU.equals(pathNodeU) && nodeV.equals(pathNodeV) || nodeV.equals(pathNodeU) && nodeU.equals(pathNodeV)) {
-                return true;
-            }
+    /**
+     * 在线模式的准入控制：开启硬容量约束时先用容量账本检查，明显放不下时不修改模型、直接拒绝；
+     * 否则加入工作流并求解，没有可行解(或在时间上限内没有找到)时再删除它。
+     * 返回时模型已经求解过，可以读取负载
+     *
+     * @return 是否接纳
+     */
+    public boolean admitWorkflow(Workflow wf) throws SolverException {
+        return updater.admitWorkflow(wf);
+    }
+
+    /**
+     * 把工作流在上一次求解结果中的放置提交到容量账本并从模型中删除，之后的求解不再移动它，
+     * 它的负载作为常数留在各节点、链路的负载中。上一次求解之后模型不能被修改过
+     *
+     * @return 提交的工作流数，不在模型中的工作流不提交
+     */
+    public int commitWorkflows(Collection<Integer> wfIds) throws SolverException {
+        return updater.commitWorkflows(wfIds);
+    }
+
+    public boolean commitWorkflow(int wfId) throws SolverException {
+        return 1 == commitWorkflows(Collections.singletonList(wfId));
+    }
+
+    /**
+     * 释放已提交的工作流占用的容量(工作流结束)
+     *
+     * @return 工作流未提交时返回false
+     */
+    public boolean releaseWorkflow(int wfId) throws SolverException {
+        return updater.releaseWorkflow(wfId);
+    }
+
+    // 把账本中的已提交负载写入负载定义约束的右端项
+    void refreshCommittedLoads() throws SolverException {
+        loads.refresh(getCapacityLedger());
+        model.update();
+    }
+
+    /**
+     * 当前解对应的放置结果，需要先求解
+     */
+    public Placement getPlacement() throws SolverException {
+        Placement placement = buildPlacement(false);
+        placement.cost = model.getObjVal();
+        return placement;
+    }
+
+    // incumbent为true时读取进度监听器中刚找到的可行解，否则读取求解结果
+    Placement buildPlacement(boolean incumbent) throws SolverException {
+        Placement placement = new Placement();
+        for (ModelVar var : getSelectedVars(xVars, incumbent)) {
+            XVar x = (XVar) varOfIndex.get(var.index);
+            placement.taskNodes.put(index.getTask(x.workflowId, x.taskId), x.nodeId);
+        }
+        for (ModelVar var : getSelectedVars(yVars, incumbent)) {
+            YVar y = (YVar) varOfIndex.get(var.index);
+            placement.flowPaths.put(index.getFlow(y.workflowId, y.currTaskId, y.succTaskId), y.pathId);
         }
-        return false;
+        return placement;
     }
 
+    public List<Integer> getUavNodes() {
+        return uavNodes;
+    }
 
-    private void prepareConstraint() throws GRBException {
-        // 每个任务只能放置在一个节点上
-        addAssignmentConstraint(groupXVar(xVars));
-        // 每个任务对只能采用一条通讯路径
-        addAssignmentConstraint(groupYVar(yVars));
-        // 起始任务只能放在无人机节点上
-        fixOriginTask();
-        // y^{w,p}_{s,s'} == x^w_{s,v} * x^w_{s',v}
-        addLinkNodeConstraint();
+    public int getNodeNum() {
+        return nodes.size();
     }
 
-    private void addLinkNodeConstraint() throws GRBException {
-        Map<String, List<YVar>> groupYVarByPath = new HashMap<>();
-        for (YVar y : yVars) {
-            String pathContent = paths.get(y.pathId);
-            String[] pathNodes = pathContent.split(">");
-            int uTaskNodeId = Integer.parseInt(pathNodes[0]);
-            int vTaskNodeId = Integer.parseInt(pathNodes[pathNodes.length - 1].trim());
-            String groupKey = y.workflowId + "_" + y.currTaskId + "_" + y.succTaskId + "_" + uTaskNodeId + "_" + vTaskNodeId;
-            List<YVar> groupedYVars = groupYVarByPath.get(groupKey);
-            if (null == groupedYVars) {
-                groupedYVars = new ArrayList<>();
-                groupYVarByPath.put(groupKey, groupedYVars);
+    public int getLinkNum() {
+        return links.size();
+    }
+
+    /**
+     * 当前解中各节点、链路的负载，顺序与nodeLoadVar、linkLoadVar的编号相同，需要先求解
+     */
+    public void getLoads(double[] nodeLoad, double[] linkLoad) throws SolverException {
+        loads.getValues(nodeLoad, linkLoad);
+    }
+
+    // 上一次求解得到的放置结果；求解后模型又被修改过(解已失效)或没有解时，用最近一次设置的初始解
+    Placement getCurrentPlacement() throws SolverException {
+        if (!solver.isModified() && model.hasSolution()) {
+            return getPlacement();
+        }
+        return startPlacement;
+    }
+
+    /**
+     * 列生成：每轮求解当前模型，以链路价格为权重为已有路径的每对节点求一条最短路径，检验数为负时把它加入路径集合，
+     * 并为端点在这对节点上的每个任务对加入新的y变量；没有新路径或达到columnRounds轮时停止，之后由doOptimize求解整数模型。
+     * <p>
+     * 后端支持对偶值时求解连续松弛：负载定义约束 -R_e + sum(...) == 0 的对偶值为-2R_e，取负作为链路价格；
+     * 同一组(任务对和路径两端相同)的y变量出现在相同的约束中，新路径的检验数 = 带宽 * 新路径的单位价格 - K，
+     * K由同组已有y变量的检验数换算得到。
+     * 否则(纯Java后端没有连续松弛)用拉格朗日分解求解当前路径集合上的凸包松弛，链路价格取给出最好下界的μ_e；
+     * 松弛最优时每个流只使用这对节点最便宜的路径，新路径比这对节点已有的最便宜路径更便宜时检验数为负。
+     * 最后一轮分解得到的最好放置作为整数求解的初始解
+     *
+     * @return 加入的路径数
+     */
+    public int generateColumns() throws SolverException {
+        if (Formulation.QUADRATIC == formulation) {
+            throw new SolverException("列生成需要MCCORMICK或AGGREGATED模型");
+        }
+        long t = System.nanoTime();
+        boolean useDuals = model.supportsDuals();
+        int added = 0;
+        Placement last = null;
+        for (int round = 0; round < columnRounds; round++) {
+            double[] prices = new double[links.size()];
+            if (useDuals) {
+                model.setRelaxed(true);
+                model.optimize();
+                for (int j = 0; j < links.size(); j++) {
+                    prices[j] = -model.getDual(loads.getLinkConstr(j));
+                }
+            } else {
+                DecompositionResult relaxed = solveByDecomposition();
+                if (null == relaxed.linkPrices) {
+                    break;
+                }
+                prices = relaxed.linkPrices;
+                if (relaxed.placement.complete) {
+                    last = relaxed.placement;
+                }
             }
-            groupedYVars.add(y);
-        }
-        for (Map.Entry<String, List<YVar>> groupedYVarEntry : groupYVarByPath.entrySet()) {
-            String[] keyItems = groupedYVarEntry.getKey().split("_");
-            int wfId = Integer.parseInt(keyItems[0]);
-            int currTaskId = Integer.parseInt(keyItems[1]);
-            int succTaskId = Integer.parseInt(keyItems[2]);
-            int uTaskNodeId = Integer.parseInt(keyItems[3]);
-            int vTaskNodeId = Integer.parseInt(keyItems[4]);
-            GRBQuadExpr sumExpr1 = new GRBQuadExpr();
-            for (YVar y : groupedYVarEntry.getValue()) {
-                sumExpr1.addTerm(1, y.var);
+            double[] unitCost = new double[links.size()];
+            for (int j = 0; j < links.size(); j++) {
+                unitCost[j] = Math.max(prices[j], 0) / links.get(j).bandwidth;
             }
-            XVar uXVar = null, vXVar = null;
-            for (XVar x : xVars) {
-                if (wfId == x.workflowId && currTaskId == x.taskId && uTaskNodeId == x.nodeId) {
-                    uXVar = x;
+            // 节点对 -> 每个任务对在这对节点上的一个y变量，及其K值(只在使用对偶值时计算)
+            Map<Long, Map<String, YVar>> groupsOfPair = new HashMap<>();
+            Map<YVar, Double> baseOf = new HashMap<>();
+            for (YVar y : yVars) {
+                long pair = ModelIndex.key(paths.getSrc(y.pathId), paths.getDst(y.pathId));
+                Map<String, YVar> groups = groupsOfPair.get(pair);
+                if (null == groups) {
+                    groups = new LinkedHashMap<>();
+                    groupsOfPair.put(pair, groups);
                 }
-                if (wfId == x.workflowId && succTaskId == x.taskId && vTaskNodeId == x.nodeId) {
-                    vXVar = x;
+                String flowKey = y.workflowId + "_" + y.currTaskId + "_" + y.succTaskId;
+                if (!groups.containsKey(flowKey)) {
+                    groups.put(flowKey, y);
+                    if (useDuals) {
+                        double bandwidth = index.getFlow(y.workflowId, y.currTaskId, y.succTaskId).neededBandwidth;
+                        baseOf.put(y, bandwidth * pathCost(y.pathId, unitCost) - model.getReducedCost(y.var));
+                    }
                 }
-                if (null != uXVar && null != vXVar) {
+            }
+            if (useDuals) {
+                model.setRelaxed(false);
+            }
+            List<int[]> newPaths = priceColumns(groupsOfPair, baseOf, unitCost, useDuals);
+            if (newPaths.isEmpty()) {
+                break;
+            }
+            addColumns(newPaths, groupsOfPair);
+            added += newPaths.size();
+        }
+        generatedPathNum += added;
+        if (null != last) {
+            applyStart(last);
+        } else if (null != startPlacement) {
+            applyStart(startPlacement);
+        }
+        recordPhase("generateColumns", t);
+        return added;
+    }
+
+    // 为每对节点求当前价格下的最短路径，返回检验数为负且不在路径集合中的路径
+    private List<int[]> priceColumns(Map<Long, Map<String, YVar>> groupsOfPair, Map<YVar, Double> baseOf,
+                                     double[] unitCost, boolean useDuals) {
+        double[] weights = new double[links.size()];
+        Map<Long, Integer> linkIdxOf = new HashMap<>();
+        for (int j = 0; j < links.size(); j++) {
+            weights[j] = unitCost[j] + MIN_LINK_WEIGHT;
+            Link link = links.get(j);
+            linkIdxOf.put(ModelIndex.key(Math.min(link.srcNodeId, link.dstNodeId), Math.max(link.srcNodeId, link.dstNodeId)), j);
+        }
+        KShortestPaths engine = new KShortestPaths(links, weights);
+        List<int[]> result = new ArrayList<>();
+        for (Map.Entry<Long, Map<String, YVar>> pairEntry : groupsOfPair.entrySet()) {
+            int src = (int) (pairEntry.getKey() >> 32);
+            int dst = (int) (long) pairEntry.getKey();
+            List<int[]> found = engine.find(src, dst, 1, maxPathHops);
+            if (found.isEmpty()) {
+                continue;
+            }
+            int[] candidate = found.get(0);
+            double cost = 0;
+            for (int i = 0; i + 1 < candidate.length; i++) {
+                int a = candidate[i], b = candidate[i + 1];
+                cost += unitCost[linkIdxOf.get(ModelIndex.key(Math.min(a, b), Math.max(a, b)))];
+            }
+            boolean inPool = false;
+            double minPoolCost = Double.POSITIVE_INFINITY;
+            for (int pathId : paths.getPathsBetween(src, dst)) {
+                if (Arrays.equals(candidate, pathNodes(pathId))) {
+                    inPool = true;
                     break;
                 }
+                minPoolCost = Math.min(minPoolCost, pathCost(pathId, unitCost));
+            }
+            if (inPool) {
+                continue;
+            }
+            boolean improving = !useDuals && cost < minPoolCost - REDUCED_COST_EPS;
+            if (useDuals) {
+                for (YVar y : pairEntry.getValue().values()) {
+                    double bandwidth = index.getFlow(y.workflowId, y.currTaskId, y.succTaskId).neededBandwidth;
+                    if (bandwidth * cost - baseOf.get(y) < -REDUCED_COST_EPS) {
+                        improving = true;
+                        break;
+                    }
+                }
+            }
+            if (improving) {
+                result.add(candidate);
             }
-            sumExpr1.addTerm(-1, uXVar.var, vXVar.var);
-            model.addQConstr(sumExpr1, GRB.EQUAL, 0, groupedYVarEntry.getKey() + "srcNodeConstr");
         }
+        return result;
     }
 
-    private XVar findXVar(int wfId, int taskId, int nodeId, List<XVar> xVars) {
-        for (XVar x : xVars) {
-            if (x.workflowId == wfId && x.taskId == taskId && x.nodeId == nodeId) {
-                return x;
+    // 把新路径加入路径集合，并为端点在同一对节点上的每个任务对加入y变量及其所在的约束项
+    private void addColumns(List<int[]> newPaths, Map<Long, Map<String, YVar>> groupsOfPair) throws SolverException {
+        List<YVar> added = new ArrayList<>();
+        for (int[] pathNodes : newPaths) {
+            int pathId = paths.add(pathNodes);
+            long pair = ModelIndex.key(pathNodes[0], pathNodes[pathNodes.length - 1]);
+            for (YVar group : groupsOfPair.get(pair).values()) {
+                YVar y = new YVar(group.workflowId, pathId, group.currTaskId, group.succTaskId, null);
+                y.var = model.addVar(0, 1, SolverModel.BINARY, useNames ? y.getVarName() : null);
+                yVars.add(y);
+                index.addYVar(y);
+                setVarOfIndex(y);
+                added.add(y);
+            }
+        }
+        paths.buildLinkIncidence(links);
+        solver.invalidateTopology();
+        model.update();
+        for (YVar y : added) {
+            Map<String, ModelConstr> named = namedConstrsOfWorkflow.get(y.workflowId);
+            for (String name : WorkflowModelBuilder.pathConstrNames(formulation, y.workflowId, y.currTaskId, y.succTaskId,
+                    paths.getSrc(y.pathId), paths.getDst(y.pathId))) {
+                model.chgCoeff(named.get(name), y.var, 1.0);
             }
+            loads.addLinkTerms(y);
         }
-        return null;
+        model.update();
+        solver.markModified();
     }
 
-    private void addAssignmentConstraint(Map<String, List<Var>> varMap) throws GRBException {
-        Map<String, List<Var>> groupedVar = varMap;
-        for (Map.Entry<String, List<Var>> varsEntry : groupedVar.entrySet()) {
-            List<Var> vars = varsEntry.getValue();
-            GRBLinExpr expr = new GRBLinExpr();
-            for (Var var : vars) {
-                expr.addTerm(1.0, var.var);
+    private double pathCost(int pathId, double[] unitCost) {
+        double result = 0;
+        int hops = paths.getHopNum(pathId);
+        for (int i = 0; i < hops; i++) {
+            int link = paths.getHopLink(pathId, i);
+            if (link >= 0) {
+                result += unitCost[link];
             }
-            model.addConstr(expr, GRB.EQUAL, 1.0, varsEntry.getKey());
         }
+        return result;
     }
 
-    // 将变量y^{w,p}_{s,s'}按w_s_s'进行分类
-    private Map<String, List<Var>> groupYVar(List<YVar> yVars) {
-        Map<String, List<Var>> result = new HashMap<>();
-        for (YVar y : yVars) {
-            String varNameIndex = y.workflowId + "_" + y.currTaskId + "_" + y.succTaskId;
-            List<Var> vars = result.get(varNameIndex);
-            if (null == vars) {
-                vars = new ArrayList<>();
-                result.put(varNameIndex, vars);
-            }
-            vars.add(y);
+    private int[] pathNodes(int pathId) {
+        int[] result = new int[paths.getHopNum(pathId) + 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = paths.getNode(pathId, i);
         }
         return result;
     }
 
-    // 将变量x^w_{s,v}按w_s进行分类
-    private Map<String, List<Var>> groupXVar(List<XVar> xVars) {
-        Map<String, List<Var>> result = new HashMap<>();
+    // 把放置结果设为x、y变量的初始值，不完整的放置结果不作为初始解
+    void applyStart(Placement placement) throws SolverException {
+        if (null != symmetry) {
+            placement = symmetry.canonicalize(placement);
+        }
+        startPlacement = placement;
+        if (!placement.complete) {
+            return;
+        }
         for (XVar x : xVars) {
-            String varNameIndex = x.workflowId + "_" + x.taskId;
-            List<Var> vars = result.get(varNameIndex);
-            if (null == vars) {
-                vars = new ArrayList<>();
-                result.put(varNameIndex, vars);
+            Integer node = placement.getNode(index.getTask(x.workflowId, x.taskId));
+            model.setStart(x.var, null != node && node == x.nodeId ? 1.0 : 0.0);
+        }
+        for (YVar y : yVars) {
+            Integer pathId = placement.getPath(index.getFlow(y.workflowId, y.currTaskId, y.succTaskId));
+            model.setStart(y.var, null != pathId && pathId == y.pathId ? 1.0 : 0.0);
+        }
+    }
+
+    long recordPhase(String phase, long starTime) {
+        long now = System.nanoTime();
+        phaseTimes.put(phase, now - starTime);
+        return now;
+    }
+
+    public void doOptimize() throws SolverException {
+        solver.optimize();
+    }
+
+    /**
+     * 限时求解：最迟在deadline(System.currentTimeMillis的时刻)停止，相对间隙不超过targetGap时提前停止。
+     * 求解过程中每找到一个更好的可行解，就把对应的放置交给listener(可以为null)；
+     * 返回停止时最好的放置及其间隙。setTimeLimit设置的时间上限和求解器原来的目标间隙在求解后恢复
+     */
+    public AnytimeResult solveAnytime(long deadline, double targetGap, PlacementListener listener) throws SolverException {
+        return solver.solveAnytime(deadline, targetGap, listener);
+    }
+
+    /**
+     * 求解当前的全部工作流并返回放置结果，没有找到可行解时返回null。
+     * 设置了解缓存时先按工作流和拓扑的指纹查找：命中且允许直接复用时不求解，返回缓存的放置；
+     * 否则把缓存的放置作为初始解再求解，求解后把结果写入缓存
+     */
+    public Placement solvePlacement() throws SolverException {
+        return solver.solvePlacement();
+    }
+
+    double getTimeLimit() {
+        return timeLimit;
+    }
+
+    Map<Integer, Double> getNodes() {
+        return nodes;
+    }
+
+    List<Link> getLinks() {
+        return links;
+    }
+
+    PathTable getPaths() {
+        return paths;
+    }
+
+    ModelIndex getIndex() {
+        return index;
+    }
+
+    // 把容量账本中已提交的负载累加到nodeLoad、linkLoad，顺序与getLoads相同
+    void addCommittedLoads(double[] nodeLoad, double[] linkLoad) {
+        if (null == capacityLedger) {
+            return;
+        }
+        int i = 0;
+        for (int nodeId : nodes.keySet()) {
+            nodeLoad[i++] += capacityLedger.getNodeLoad(nodeId);
+        }
+        for (int link = 0; link < links.size(); link++) {
+            linkLoad[link] += capacityLedger.getLinkLoad(link);
+        }
+    }
+
+    public double getObjVal() throws SolverException {
+        return model.getObjVal();
+    }
+
+    /**
+     * 当前模型的规模、各阶段耗时和上一次求解的结果。返回的对象在多次调用之间复用，每次调用时刷新
+     */
+    public SolveMetrics getMetrics() throws SolverException {
+        SolveMetrics result = getMetricsObj();
+        result.backend = backend.name();
+        result.formulation = formulation.name();
+        result.workflowNum = workflows.size();
+        result.pathNum = paths.size();
+        model.update();
+        result.varNum = model.getVarNum();
+        result.xVarNum = xVars.size();
+        result.yVarNum = yVars.size();
+        result.prunedYVarNum = prunedYVarNum;
+        result.generatedPathNum = generatedPathNum;
+        result.symmetryConstrNum = symmetryConstrs.size();
+        result.presolve = presolve ? presolveStats : null;
+        result.quadConstrNum = model.getQConstrNum();
+        result.linConstrNum = model.getConstrNum() - result.quadConstrNum;
+        result.nonZeroNum = model.getNonZeroNum();
+        result.phaseTimes = new LinkedHashMap<>(phaseTimes);
+        result.prepareTime = prepareTime;
+        result.optimizeTime = solver.getOptimizeTime();
+        if (solver.isOptimized()) {
+            result.hasSolution = model.hasSolution();
+            result.objVal = result.hasSolution ? model.getObjVal() : Double.POSITIVE_INFINITY;
+            result.objBound = model.getObjBound();
+            result.nodeCount = model.getNodeCount();
+        }
+        return result;
+    }
+
+    private SolveMetrics getMetricsObj() {
+        if (null == metrics) {
+            metrics = new SolveMetrics();
+        }
+        return metrics;
+    }
+
+    // recordProgress为true时返回记录求解进度的指标对象，否则返回null
+    SolveMetrics getProgressMetrics() {
+        return recordProgress ? getMetricsObj() : null;
+    }
+
+    public SolverModel getModel() {
+        return model;
+    }
+
+    public void dispose() throws SolverException {
+        model.dispose();
+    }
+
+    public void printResult() throws SolverException {
+        System.out.println("Obj is: " + model.getObjVal());
+        System.out.println("cCost is: " + model.getValue(loads.getNodeCost()));
+        System.out.println("rCost is:" + model.getValue(loads.getLinkCost()));
+        for (ModelVar var : getSelectedVars(xVars, false)) {
+            System.out.println(getVarName(var));
+        }
+        System.out.println("==================");
+        for (ModelVar var : getSelectedVars(yVars, false)) {
+            System.out.println(getVarName(var));
+        }
+    }
+
+    // 取值为1的变量，变量值一次批量读取
+    private List<ModelVar> getSelectedVars(Collection<? extends Var> vars, boolean incumbent) throws SolverException {
+        ModelVar[] modelVars = new ModelVar[vars.size()];
+        int i = 0;
+        for (Var var : vars) {
+            modelVars[i++] = var.var;
+        }
+        double[] values = incumbent ? model.getIncumbentValues(modelVars) : model.getValues(modelVars);
+        List<ModelVar> result = new ArrayList<>();
+        for (i = 0; i < modelVars.length; i++) {
+            if (values[i] > 0.5) {
+                result.add(modelVars[i]);
             }
-            vars.add(x);
         }
         return result;
     }
 
-    // 变量x^w_{s,v},属于工作流w的任务s是否放置在节点v上，
-    // 变量的名称用"w_s_v"表示，
-    // 起始任务分配节点固定；
-    private void prepareXVar() throws GRBException {
+    /**
+     * 名称表：按变量在模型中的编号查出x、y变量的名称("w_s_v"、"w_p_s_s'")。
+     * 关闭setUseNames后求解器中的变量没有名称(日志、导出的模型中为C0、C1...)，用这个方法对照
+     */
+    public String getVarName(ModelVar var) {
+        Var v = var.index < varOfIndex.size() ? varOfIndex.get(var.index) : null;
+        if (v instanceof XVar) {
+            return ((XVar) v).getVarName();
+        }
+        if (v instanceof YVar) {
+            return ((YVar) v).getVarName();
+        }
+        return null == var.name ? "C" + var.index : var.name;
+    }
+
+
+    public void printPlacement(Placement placement) {
+        System.out.println("Cost is: " + placement.cost + (placement.complete ? "" : " (incomplete)"));
         for (Workflow wf : workflows) {
-            Integer wfId = wf.getWF_ID();
-            Set<Task> tasks = wf.getTasks();
-            for (Task task : tasks) {
-                for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
-                    XVar xVar = new XVar(wfId, task.taskId, nodeEntry.getKey(), null);
-                    String varName = xVar.getVarName();
-                    GRBVar v = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-                    xVar.var = v;
-                    xVars.add(xVar);
-                }
+            for (Task task : wf.getTasks()) {
+                System.out.println(wf.getWF_ID() + "_" + task.taskId + "_" + placement.getNode(task));
             }
         }
+        System.out.println("==================");
+        for (Workflow wf : workflows) {
+            for (Flow flow : wf.getFlows()) {
+                Integer pathId = placement.getPath(flow);
+                System.out.println(wf.getWF_ID() + "_" + pathId + "_" + flow.currTask.taskId + "_" + flow.succTask.taskId
+                        + (null == pathId ? "" : "\t" + paths.getContent(pathId)));
+            }
+        }
+    }
+
+    void setObjective() throws SolverException {
+//        double throughput = prepareThroughput();
+        loads = new LoadConstraints(model, nodes, links, paths, index, useNames);
+        presolveStats.emptyLoadNum += loads.build(isPresolveEnabled(), getLoadUpperBound(), capacityLedger);
+        QuadExpr objective = new QuadExpr();
+
+//        objective.addConstant(throughput);
+        objective.add(loads.getNodeCost());
+        objective.add(loads.getLinkCost());
+
+        model.setObjective(objective);
         model.update();
     }
 
-    // 变量y^{w,p}_{s,s'}，属于工作流w的任务对(s,s')是否采用路径p进行通讯；
-    // 变量的名称用"w_p_s_s'"表示；
-    private void prepareYVar() throws GRBException {
+    // 计算吞吐量
+    private double prepareThroughput() {
+        double throughput = 0.0;
         for (Workflow wf : workflows) {
-            Integer wfId = wf.getWF_ID();
             ArrayList<Flow> flows = wf.getFlows();
-            for (Flow flow : flows) {
-                int currTaskId = flow.currTask.taskId;
-                int succTaskId = flow.succTask.taskId;
-                for (Map.Entry<Integer, String> pathEntry : paths.entrySet()) {
-                    int pathId = pathEntry.getKey();
-                    YVar y = new YVar(wfId, pathId, currTaskId, succTaskId, null);
-                    String varName = y.getVarName();
-                    GRBVar yVar = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-                    y.var = yVar;
-                    yVars.add(y);
-                }
+            for (Flow f : flows) {
+                throughput += f.neededBandwidth;
             }
         }
-        model.update();
+        return throughput;
     }
 
-
     private void prepareOneHopLinks() {
-        String stringFromFile = Tool.getStringFromFile(LINKS_INFO_FILE);
-        String[] lines = stringFromFile.split("\n");
-        for (String aline : lines) {
-            if (aline.trim().equals("")) {
-                continue;
+        try (DataFileReader reader = new DataFileReader(linksInfoFile)) {
+            while (reader.nextLine()) {
+                links.add(new Link(reader.getInt(1), reader.getInt(3), reader.getDouble(5)));
             }
-            String[] items = aline.split("\t");
-            int u = Integer.parseInt(items[1]);
-            int v = Integer.parseInt(items[3]);
-            double capacity = Double.valueOf(items[5]);
-            Link link = new Link(u, v, capacity);
-            links.add(link);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取链路文件失败：" + linksInfoFile, e);
         }
+        paths.buildLinkIncidence(links);
     }
 
-    private void prepareNodes() {
-        String stringFromFile = Tool.getStringFromFile(NODE_INFO_FILE);
-        String[] lines = stringFromFile.split("\n");
-        for (String aline : lines) {
-            if (aline.trim().equals("")) {
-                continue;
+    void prepareNodes() {
+        try (DataFileReader reader = new DataFileReader(nodeInfoFile)) {
+            while (reader.nextLine()) {
+                int nodeId = reader.getInt(1);
+                nodes.put(nodeId, reader.getDouble(3));
+                if (reader.fieldEquals(0, "U_ID")) {
+                    uavNodes.add(nodeId);
+                }
             }
-            String[] items = aline.split("\t");
-            nodes.put(Integer.valueOf(items[1]), Double.valueOf(items[3]));
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取节点文件失败：" + nodeInfoFile, e);
         }
     }
 
-    private void preparePaths() {
-        String stringFromFile = Tool.getStringFromFile(PATH_INFO_FILE);
-        String[] lines = stringFromFile.split("\n");
-        int pathIdx = 1;
-        for (String aline : lines) {
-            if (aline.trim().equals("")) {
-                continue;
-            }
-            String[] items = aline.split("\t");
-            if (items[1].equals(items[3])) {
-                continue;
+    // 用Yen算法为节点列表中的每对节点生成路径，路径端点都在节点列表中，中间节点可以是只出现在链路中的节点
+    private void generatePaths() {
+        KShortestPaths engine = new KShortestPaths(links, pathMetric.weights(links));
+        List<Integer> nodeIds = new ArrayList<>(nodes.keySet());
+        Collections.sort(nodeIds);
+        for (int src : nodeIds) {
+            for (int dst : nodeIds) {
+                if (src >= dst) {
+                    continue;
+                }
+                for (int[] pathNodes : engine.find(src, dst, pathNum, maxPathHops)) {
+                    paths.add(pathNodes);
+                }
             }
-            paths.put(pathIdx++, items[5]);
         }
+        paths.buildLinkIncidence(links);
     }
 
-    private void fixOriginTask() throws GRBException {
-        for (XVar x : xVars) {
-            if (1 == x.taskId && x.nodeId == x.workflowId) {
-                GRBLinExpr expr = new GRBLinExpr();
-                expr.addTerm(1, x.var);
-                model.addConstr(expr, GRB.EQUAL, 1.0, "fixOriginTask" + x.workflowId + "_" + x.taskId);
+    // 路径文件可能有数百万行，节点序列直接解析到复用的int数组再拷入PathTable
+    void preparePaths() {
+        try (DataFileReader reader = new DataFileReader(pathInfoFile)) {
+            while (reader.nextLine()) {
+                int src = reader.getInt(1);
+                int dst = reader.getInt(3);
+                if (src == dst) {
+                    continue;
+                }
+                // 端点不在节点列表中的路径无法对应任何x变量
+                if (!nodes.containsKey(src) || !nodes.containsKey(dst)) {
+                    continue;
+                }
+                int nodeNum = reader.readInts(5);
+                paths.add(reader.getInts(), nodeNum);
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取路径文件失败：" + pathInfoFile, e);
+        }
+    }
+
+    private void loadSnapshot() {
+        Snapshot snapshot;
+        try {
+            snapshot = Snapshot.read(snapshotFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取快照失败：" + snapshotFile, e);
+        }
+        nodes = snapshot.nodes;
+        uavNodes = snapshot.uavNodes;
+        links = snapshot.links;
+        paths = snapshot.paths;
+        for (Workflow wf : snapshot.workflows) {
+            workflows.add(wf);
+            index.addWorkflow(wf);
+            WorkflowGenerator.skipWorkflowIdx(wf.getWF_ID());
         }
     }
 
-    private void prepareWorkflows() {
+    /**
+     * 把当前的节点、链路、路径和工作流写成二进制快照，需要先调用prepareData()
+     */
+    public void saveSnapshot(String file) throws IOException {
+        Snapshot snapshot = new Snapshot();
+        snapshot.nodes = nodes;
+        snapshot.uavNodes = uavNodes;
+        snapshot.links = links;
+        snapshot.paths = paths;
+        snapshot.workflows = workflows;
+        snapshot.write(file);
+    }
+
+    void prepareWorkflows() {
+        if (null != workloadGenerator) {
+            List<Workflow> generated = firstWorkflowId > 0
+                    ? workloadGenerator.generate(0, workflowNum, firstWorkflowId) : workloadGenerator.generate(workflowNum);
+            for (Workflow wf : generated) {
+                workflows.add(wf);
+                index.addWorkflow(wf);
+            }
+            return;
+        }
         int workflowTemplateIdx = 0;
-        int originWFNum = 5;
         WorkflowGenerator workflowGenerator = WorkflowGenerator.getWorkflowGenerator();
-        for (int i = 0; i < originWFNum; i++) {
-            workflows.add(workflowGenerator.generateAWorkflow_V2(workflowTemplateIdx));
+        for (int i = 0; i < workflowNum; i++) {
+            Workflow wf = firstWorkflowId > 0 ? workflowGenerator.generateAWorkflow_V2(workflowTemplateIdx, firstWorkflowId + i)
+                    : workflowGenerator.generateAWorkflow_V2(workflowTemplateIdx);
+            workflows.add(wf);
+            index.addWorkflow(wf);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,306 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.capacity.CapacityLedger;
+import com.sysu.lbc.dataStructure.*;
+import com.sysu.lbc.model.*;
+
+import java.util.*;
+
+/**
+ * 各节点、链路的负载变量及其定义约束 -load + sum(资源 / 容量 * 变量) == 0，目标函数为负载的平方和。
+ * build按当前的x、y变量一次建好；在线加入工作流时由addWorkflowTerms把它的变量逐项加入定义约束，
+ * 删除的变量自动从约束中消失。预处理时表达式为空的负载恒为0，不建变量和约束，之后有变量用到时再创建。
+ * 已提交工作流的负载是常数，放在定义约束的右端项：-load + sum(...) == -已提交的负载
+ */
+class LoadConstraints {
+    private final SolverModel model;
+    private final Map<Integer, Double> nodes;
+    private final List<Link> links;
+    private final PathTable paths;
+    private final ModelIndex index;
+    // 是否把负载变量、约束名称传给求解器
+    private final boolean useNames;
+    // 各节点的负载定义约束，各链路(按links的顺序)的负载定义约束
+    private final Map<Integer, ModelConstr> nodeLoadConstrs = new HashMap<>();
+    private final List<ModelConstr> linkLoadConstrs = new ArrayList<>();
+    // 各节点(按nodes的遍历顺序)、链路的负载变量，预处理省去的空负载项为null
+    private ModelVar[] nodeLoadVars;
+    private ModelVar[] linkLoadVars;
+    // 负载定义约束中已经计入的已提交负载，顺序与nodeLoadVars、linkLoadVars相同；与账本不同时修改约束的右端项
+    private double[] nodeBackground;
+    private double[] linkBackground;
+    // 节点负载、链路负载的平方和
+    private QuadExpr nodeLoadInfo;
+    private QuadExpr linkLoadInfo;
+    // 是否省去表达式为空的负载项，以及省去的个数
+    private boolean skipEmpty;
+    // 负载变量的上界，见GurobiSolution.getLoadUpperBound
+    private double loadUpperBound;
+    private int emptyLoadNum;
+
+    LoadConstraints(SolverModel model, Map<Integer, Double> nodes, List<Link> links, PathTable paths, ModelIndex index,
+                    boolean useNames) {
+        this.model = model;
+        this.nodes = nodes;
+        this.links = links;
+        this.paths = paths;
+        this.index = index;
+        this.useNames = useNames;
+    }
+
+    /**
+     * @param skipEmpty      是否省去表达式为空的负载项(预处理)
+     * @param loadUpperBound 负载变量的上界
+     * @param ledger         已提交工作流的容量账本，可以为null
+     * @return 省去的负载项个数
+     */
+    int build(boolean skipEmpty, double loadUpperBound, CapacityLedger ledger) throws SolverException {
+        this.skipEmpty = skipEmpty;
+        this.loadUpperBound = loadUpperBound;
+        emptyLoadNum = 0;
+        nodeLoadInfo = prepareExprNode(ledger);
+        linkLoadInfo = prepareExprLink(ledger);
+        return emptyLoadNum;
+    }
+
+    // 把账本中的已提交负载写入负载定义约束的右端项，只修改变化了的约束；预处理省去的负载项此时创建
+    void refresh(CapacityLedger ledger) throws SolverException {
+        boolean created = false;
+        int i = 0;
+        for (int nodeId : nodes.keySet()) {
+            double load = ledger.getNodeLoad(nodeId);
+            if (load != nodeBackground[i]) {
+                nodeBackground[i] = load;
+                if (!ensureNodeLoad(nodeId)) {
+                    model.setRhs(nodeLoadConstrs.get(nodeId), -load);
+                } else {
+                    created = true;
+                }
+            }
+            i++;
+        }
+        for (int link = 0; link < links.size(); link++) {
+            double load = ledger.getLinkLoad(link);
+            if (load != linkBackground[link]) {
+                linkBackground[link] = load;
+                if (!ensureLinkLoad(link)) {
+                    model.setRhs(linkLoadConstrs.get(link), -load);
+                } else {
+                    created = true;
+                }
+            }
+        }
+        if (created) {
+            resetObjective();
+        }
+    }
+
+    QuadExpr getNodeCost() {
+        return nodeLoadInfo;
+    }
+
+    QuadExpr getLinkCost() {
+        return linkLoadInfo;
+    }
+
+    // 第linkIdx条链路的负载定义约束，列生成用它的对偶值作为链路价格
+    ModelConstr getLinkConstr(int linkIdx) {
+        return linkLoadConstrs.get(linkIdx);
+    }
+
+    // 当前解中各节点、链路的负载，顺序与负载变量的编号相同
+    void getValues(double[] nodeLoad, double[] linkLoad) throws SolverException {
+        for (int i = 0; i < nodeLoadVars.length; i++) {
+            nodeLoad[i] = null == nodeLoadVars[i] ? 0 : model.getValue(nodeLoadVars[i]);
+        }
+        for (int i = 0; i < linkLoadVars.length; i++) {
+            linkLoad[i] = null == linkLoadVars[i] ? 0 : model.getValue(linkLoadVars[i]);
+        }
+    }
+
+    // 检查并记录节点上的工作负载情况
+    private QuadExpr prepareExprNode(CapacityLedger ledger) throws SolverException {
+        List<LinExpr> loadExprOfEachNode = new ArrayList<>();
+        List<Integer> nodeIds = new ArrayList<>();
+        for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
+            int nodeId = nodeEntry.getKey();
+            double capacity = nodeEntry.getValue();
+            LinExpr nodeLoadExpr = new LinExpr();
+            for (XVar x : index.getXVarsOfNode(nodeId)) {
+                Task task = index.getTask(x.workflowId, x.taskId);
+                double neededResource = task.neededResource;
+                double coeff = neededResource / capacity;
+                nodeLoadExpr.addTerm(coeff, x.var);
+            }
+            loadExprOfEachNode.add(nodeLoadExpr);
+            nodeIds.add(nodeId);
+        }
+        List<ModelConstr> loadConstrs = new ArrayList<>();
+        nodeLoadVars = new ModelVar[nodeIds.size()];
+        nodeBackground = new double[nodeIds.size()];
+        for (int i = 0; null != ledger && i < nodeIds.size(); i++) {
+            nodeBackground[i] = ledger.getNodeLoad(nodeIds.get(i));
+        }
+        QuadExpr result = getSumCost(loadExprOfEachNode, "nodeLoad", loadConstrs, nodeLoadVars, nodeBackground);
+        for (int i = 0; i < nodeIds.size(); i++) {
+            if (null != loadConstrs.get(i)) {
+                nodeLoadConstrs.put(nodeIds.get(i), loadConstrs.get(i));
+            }
+        }
+        return result;
+    }
+
+
+    // 检查并记录每段one-hop link上的链路负载情况
+    private QuadExpr prepareExprLink(CapacityLedger ledger) throws SolverException {
+        List<LinExpr> loadExprOfEachLink = new ArrayList<>();
+        for (int linkIdx = 0; linkIdx < links.size(); linkIdx++) {
+            double bandwidth = links.get(linkIdx).bandwidth;
+            LinExpr linkLoadExpr = new LinExpr();
+            int end = paths.getLinkPathEnd(linkIdx);
+            for (int k = paths.getLinkPathStart(linkIdx); k < end; k++) {
+                for (YVar y : index.getYVarsOfPath(paths.getLinkPath(k))) {
+                    Flow flow = index.getFlow(y.workflowId, y.currTaskId, y.succTaskId);
+                    double neededBandwidth = flow.neededBandwidth;
+                    double coeff = neededBandwidth / bandwidth;
+                    linkLoadExpr.addTerm(coeff, y.var);
+                }
+            }
+            loadExprOfEachLink.add(linkLoadExpr);
+        }
+        linkLoadVars = new ModelVar[links.size()];
+        linkBackground = new double[links.size()];
+        for (int j = 0; null != ledger && j < links.size(); j++) {
+            linkBackground[j] = ledger.getLinkLoad(j);
+        }
+        return getSumCost(loadExprOfEachLink, "linkLoad", linkLoadConstrs, linkLoadVars, linkBackground);
+    }
+
+    // loadConstrs、loadVars按顺序记录各负载的定义约束和负载变量，background为各负载中已提交的部分(常数)
+    // 负载变量和定义约束各用一次批量调用添加；skipEmpty时表达式为空且没有已提交负载的负载不建变量和约束，对应位置为null；
+    // 开启硬容量约束时负载变量的上界为1，这只在loadExprOfEachNode的系数已按容量(带宽)归一化时表示容量，见GurobiSolution.getLoadUpperBound
+    private QuadExpr getSumCost(List<LinExpr> loadExprOfEachNode, String costPreFix, List<ModelConstr> loadConstrs,
+                                ModelVar[] loadVars, double[] background) throws SolverException {
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < loadExprOfEachNode.size(); i++) {
+            if (!skipEmpty || loadExprOfEachNode.get(i).size() > 0 || 0 != background[i]) {
+                kept.add(i);
+            }
+        }
+        emptyLoadNum += loadExprOfEachNode.size() - kept.size();
+        int loadNum = kept.size();
+        double[] lb = new double[loadNum];
+        double[] ub = new double[loadNum];
+        char[] types = new char[loadNum];
+        String[] varNames = useNames ? new String[loadNum] : null;
+        String[] constrNames = useNames ? new String[loadNum] : null;
+        Arrays.fill(ub, loadUpperBound);
+        Arrays.fill(types, SolverModel.CONTINUOUS);
+        for (int i = 0; useNames && i < loadNum; i++) {
+            varNames[i] = costPreFix + "Var" + (kept.get(i) + 1);
+            constrNames[i] = costPreFix + "Constr" + (kept.get(i) + 1);
+        }
+        ModelVar[] nodeLoadInfo = model.addVars(lb, ub, types, varNames);
+        LinExpr[] exprs = new LinExpr[loadNum];
+        char[] senses = new char[loadNum];
+        double[] rhs = new double[loadNum];
+        Arrays.fill(senses, SolverModel.EQUAL);
+        for (int i = 0; i < loadNum; i++) {
+            LinExpr nodeLoadExpr = loadExprOfEachNode.get(kept.get(i));
+            LinExpr tempConsExpr = new LinExpr(nodeLoadExpr.size() + 1);
+            tempConsExpr.addTerm(-1.0, nodeLoadInfo[i]);
+            tempConsExpr.add(nodeLoadExpr);
+            exprs[i] = tempConsExpr;
+            rhs[i] = -background[kept.get(i)];
+        }
+        ModelConstr[] constrs = model.addConstrs(exprs, senses, rhs, constrNames);
+        ModelConstr[] aligned = new ModelConstr[loadExprOfEachNode.size()];
+        for (int i = 0; i < loadNum; i++) {
+            loadVars[kept.get(i)] = nodeLoadInfo[i];
+            aligned[kept.get(i)] = constrs[i];
+        }
+        loadConstrs.addAll(Arrays.asList(aligned));
+        QuadExpr result = new QuadExpr();
+        for (ModelVar var : nodeLoadInfo) {
+            result.addTerm(1, var, var);
+        }
+        return result;
+    }
+
+    // 把工作流的x、y变量加入各节点、链路的负载定义约束，系数与prepareExprNode、prepareExprLink相同；
+    // 预处理省去的负载项此时才创建，并重新设置目标函数
+    void addWorkflowTerms(int wfId) throws SolverException {
+        boolean created = false;
+        for (XVar x : index.getXVarsOfWorkflow(wfId)) {
+            Task task = index.getTask(x.workflowId, x.taskId);
+            created |= ensureNodeLoad(x.nodeId);
+            model.chgCoeff(nodeLoadConstrs.get(x.nodeId), x.var, task.neededResource / nodes.get(x.nodeId));
+        }
+        for (YVar y : index.getYVarsOfWorkflow(wfId)) {
+            created |= addLinkTerms(y);
+        }
+        if (created) {
+            resetObjective();
+        }
+    }
+
+    // 把y变量加入它的路径经过的各链路的负载定义约束，在线加入工作流和列生成加入新路径时使用；返回是否创建了新的负载项
+    boolean addLinkTerms(YVar y) throws SolverException {
+        boolean created = false;
+        Flow flow = index.getFlow(y.workflowId, y.currTaskId, y.succTaskId);
+        int hops = paths.getHopNum(y.pathId);
+        for (int i = 0; i < hops; i++) {
+            int link = paths.getHopLink(y.pathId, i);
+            if (link < 0) {
+                continue;
+            }
+            created |= ensureLinkLoad(link);
+            model.chgCoeff(linkLoadConstrs.get(link), y.var, flow.neededBandwidth / links.get(link).bandwidth);
+        }
+        return created;
+    }
+
+    // 节点的负载项不存在(预处理省去)时创建，返回是否创建
+    private boolean ensureNodeLoad(int nodeId) throws SolverException {
+        if (nodeLoadConstrs.containsKey(nodeId)) {
+            return false;
+        }
+        int i = index.getNodeIdx(nodeId);
+        nodeLoadVars[i] = addLoadVar("nodeLoad", i, nodeLoadInfo);
+        nodeLoadConstrs.put(nodeId, addLoadConstr("nodeLoad", i, nodeLoadVars[i], nodeBackground[i]));
+        return true;
+    }
+
+    private boolean ensureLinkLoad(int link) throws SolverException {
+        if (null != linkLoadConstrs.get(link)) {
+            return false;
+        }
+        linkLoadVars[link] = addLoadVar("linkLoad", link, linkLoadInfo);
+        linkLoadConstrs.set(link, addLoadConstr("linkLoad", link, linkLoadVars[link], linkBackground[link]));
+        return true;
+    }
+
+    // 单独添加第i个负载变量，名称、上界与getSumCost相同，并把它的平方加入sumCost；
+    // 上界1依赖addWorkflowTerms中按容量归一化的系数，见GurobiSolution.getLoadUpperBound
+    private ModelVar addLoadVar(String costPreFix, int i, QuadExpr sumCost) throws SolverException {
+        ModelVar var = model.addVar(0, loadUpperBound, SolverModel.CONTINUOUS,
+                useNames ? costPreFix + "Var" + (i + 1) : null);
+        sumCost.addTerm(1, var, var);
+        return var;
+    }
+
+    // 负载定义约束 -load == -已提交的负载，之后由chgCoeff加入各项
+    private ModelConstr addLoadConstr(String costPreFix, int i, ModelVar loadVar, double background) throws SolverException {
+        LinExpr expr = new LinExpr();
+        expr.addTerm(-1.0, loadVar);
+        return model.addConstr(expr, SolverModel.EQUAL, -background, useNames ? costPreFix + "Constr" + (i + 1) : null);
+    }
+
+    // 新建负载项后平方和多了一项，重新设置目标函数
+    private void resetObjective() throws SolverException {
+        QuadExpr objective = new QuadExpr();
+        objective.add(nodeLoadInfo);
+        objective.add(linkLoadInfo);
+        model.setObjective(objective);
+    }
+}
@@ -1,13 +1,74 @@
 package com.sysu.lbc;
 
-import gurobi.GRBException;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.decomposition.DecompositionResult;
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
 
 public class Main {
+    static final double FALLBACK_TIME_LIMIT = 60;
+    static final int COLUMN_ROUNDS = 10;
+    static final long ANYTIME_BUDGET = 5000;
+    static final double ANYTIME_GAP = 0.05;
 
-    public static void main(String[] args) throws GRBException {
+    public static void main(String[] args) throws SolverException {
         GurobiSolution solution = new GurobiSolution();
+        // Main heuristic：只用启发式算法放置，不建模求解
+        if (args.length > 0 && "heuristic".equals(args[0])) {
+            solution.prepareData();
+            solution.printPlacement(solution.placeHeuristically());
+            return;
+        }
+        // Main decompose：分解求解，再对相同的工作流求解整体模型，输出下界相对整体模型目标值的间隙
+        DecompositionResult decomposed = null;
+        if (args.length > 0 && "decompose".equals(args[0])) {
+            GurobiSolution decomposition = new GurobiSolution();
+            decomposition.prepareData();
+            decomposed = decomposition.solveByDecomposition();
+            decomposed.print();
+            WorkflowGenerator.resetWorkflowIdx();
+        }
+        // Main colgen：列生成，每对节点只从一条最短路径开始，按链路价格补充路径后再求解整数模型
+        if (args.length > 0 && "colgen".equals(args[0])) {
+            solution.setFormulation(Formulation.AGGREGATED);
+            solution.setColumnGeneration(1, COLUMN_ROUNDS, Integer.MAX_VALUE);
+        }
+        solution.setWarmStart(true);
+        // 没有Gurobi时使用纯Java后端，限定求解时间后输出当前最好解
+        if (Backend.isGurobiAvailable()) {
+            solution.setBackend(Backend.GUROBI);
+        } else {
+            solution.setBackend(Backend.BRANCH_AND_BOUND);
+            solution.setTimeLimit(FALLBACK_TIME_LIMIT);
+        }
         solution.prepare();
+        // Main anytime：限时ANYTIME_BUDGET毫秒求解，间隙达到ANYTIME_GAP时提前停止，输出求解过程中每个更好的解
+        if (args.length > 0 && "anytime".equals(args[0])) {
+            AnytimeResult result = solution.solveAnytime(System.currentTimeMillis() + ANYTIME_BUDGET, ANYTIME_GAP,
+                    (placement, progress) -> System.out.println(progress.time + "s：Obj is " + placement.cost
+                            + "，间隙" + progress.getGap()));
+            System.out.println("耗时" + result.time + "ms，Obj is " + result.objVal + "，间隙" + result.getGap()
+                    + "，" + (result.targetReached ? "达到目标间隙" : "到达截止时间"));
+            return;
+        }
         solution.doOptimize();
         solution.printResult();
+        if (null != decomposed && solution.getModel().hasSolution()) {
+            System.out.println("整体模型 Obj is: " + solution.getObjVal() + "，分解下界的间隙：" + decomposed.getGap(solution.getObjVal()));
+        }
+        // Main online：在已求解的模型上依次加入一个新工作流、删除最早的工作流，每次修改后重新求解
+        if (args.length > 0 && "online".equals(args[0])) {
+            Workflow arrival = WorkflowGenerator.getWorkflowGenerator().generateAWorkflow_V2(0);
+            solution.addWorkflow(arrival);
+            solution.doOptimize();
+            System.out.println("加入工作流" + arrival.getWF_ID() + "：Obj is " + solution.getObjVal()
+                    + "，修改耗时" + solution.getPhaseTimes().get("addWorkflow") / 1000 + "us，求解耗时" + solution.getOptimizeTime() + "ms");
+            int departure = solution.workflows.get(0).getWF_ID();
+            solution.removeWorkflow(departure);
+            solution.doOptimize();
+            System.out.println("删除工作流" + departure + "：Obj is " + solution.getObjVal()
+                    + "，修改耗时" + solution.getPhaseTimes().get("removeWorkflow") / 1000 + "us，求解耗时" + solution.getOptimizeTime() + "ms");
+        }
     }
 }
@@ -0,0 +1,149 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.dataStructure.*;
+
+import java.util.*;
+
+/**
+ * 建模过程中共用的索引，按(workflowId, taskId, nodeId)、(workflowId, currTaskId, succTaskId)、
+ * 节点和路径查找任务、流与变量，避免在各个prepare步骤中反复遍历整个列表
+ */
+public class ModelIndex {
+    private static final Set<XVar> NO_XVARS = Collections.emptySet();
+    private static final Set<YVar> NO_YVARS = Collections.emptySet();
+    private static final List<XVar> NO_WF_XVARS = Collections.emptyList();
+    private static final List<YVar> NO_WF_YVARS = Collections.emptyList();
+
+    private final Map<Long, Task> tasks = new HashMap<>();
+    private final Map<Long, Flow> flows = new HashMap<>();
+    private final Map<Long, XVar> xVars = new HashMap<>();
+    // 在线模式下工作流会被删除，按节点、路径分组的变量用LinkedHashSet保存，删除时不需要遍历整组
+    private final Map<Integer, Set<XVar>> xVarsOfNode = new HashMap<>();
+    private final Map<Integer, Set<YVar>> yVarsOfPath = new HashMap<>();
+    private final Map<Integer, List<XVar>> xVarsOfWorkflow = new HashMap<>();
+    private final Map<Integer, List<YVar>> yVarsOfWorkflow = new HashMap<>();
+    // 节点id -> 节点在nodes遍历顺序中的下标，与负载变量数组的下标相同
+    private final Map<Integer, Integer> nodeIdx = new HashMap<>();
+
+    static long key(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    static long key(int a, int b, int c) {
+        return ((long) a << 42) | ((long) (b & 0x1fffff) << 21) | (c & 0x1fffff);
+    }
+
+    /**
+     * 按遍历顺序登记节点的下标，节点数据读取后调用一次
+     */
+    public void setNodes(Collection<Integer> nodeIds) {
+        nodeIdx.clear();
+        for (int nodeId : nodeIds) {
+            nodeIdx.put(nodeId, nodeIdx.size());
+        }
+    }
+
+    /**
+     * 节点的下标，不在节点列表中时返回-1
+     */
+    public int getNodeIdx(int nodeId) {
+        Integer result = nodeIdx.get(nodeId);
+        return null == result ? -1 : result;
+    }
+
+    public void addWorkflow(Workflow wf) {
+        int wfId = wf.getWF_ID();
+        for (Flow flow : wf.getFlows()) {
+            tasks.put(key(wfId, flow.currTask.taskId), flow.currTask);
+            tasks.put(key(wfId, flow.succTask.taskId), flow.succTask);
+            flows.put(key(wfId, flow.currTask.taskId, flow.succTask.taskId), flow);
+        }
+    }
+
+    /**
+     * 删除工作流及其全部x、y变量的索引
+     */
+    public void removeWorkflow(Workflow wf) {
+        int wfId = wf.getWF_ID();
+        for (Flow flow : wf.getFlows()) {
+            tasks.remove(key(wfId, flow.currTask.taskId));
+            tasks.remove(key(wfId, flow.succTask.taskId));
+            flows.remove(key(wfId, flow.currTask.taskId, flow.succTask.taskId));
+        }
+        for (XVar x : getXVarsOfWorkflow(wfId)) {
+            xVars.remove(key(x.workflowId, x.taskId, x.nodeId));
+            xVarsOfNode.get(x.nodeId).remove(x);
+        }
+        for (YVar y : getYVarsOfWorkflow(wfId)) {
+            yVarsOfPath.get(y.pathId).remove(y);
+        }
+        xVarsOfWorkflow.remove(wfId);
+        yVarsOfWorkflow.remove(wfId);
+    }
+
+    public void addXVar(XVar x) {
+        xVars.put(key(x.workflowId, x.taskId, x.nodeId), x);
+        Set<XVar> nodeXVars = xVarsOfNode.get(x.nodeId);
+        if (null == nodeXVars) {
+            nodeXVars = new LinkedHashSet<>();
+            xVarsOfNode.put(x.nodeId, nodeXVars);
+        }
+        nodeXVars.add(x);
+        List<XVar> wfXVars = xVarsOfWorkflow.get(x.workflowId);
+        if (null == wfXVars) {
+            wfXVars = new ArrayList<>();
+            xVarsOfWorkflow.put(x.workflowId, wfXVars);
+        }
+        wfXVars.add(x);
+    }
+
+    public void addYVar(YVar y) {
+        Set<YVar> pathYVars = yVarsOfPath.get(y.pathId);
+        if (null == pathYVars) {
+            pathYVars = new LinkedHashSet<>();
+            yVarsOfPath.put(y.pathId, pathYVars);
+        }
+        pathYVars.add(y);
+        List<YVar> wfYVars = yVarsOfWorkflow.get(y.workflowId);
+        if (null == wfYVars) {
+            wfYVars = new ArrayList<>();
+            yVarsOfWorkflow.put(y.workflowId, wfYVars);
+        }
+        wfYVars.add(y);
+    }
+
+    public Task getTask(int wfId, int taskId) {
+        return tasks.get(key(wfId, taskId));
+    }
+
+    public Flow getFlow(int wfId, int currTaskId, int succTaskId) {
+        return flows.get(key(wfId, currTaskId, succTaskId));
+    }
+
+    public XVar getXVar(int wfId, int taskId, int nodeId) {
+        return xVars.get(key(wfId, taskId, nodeId));
+    }
+
+    public Set<XVar> getXVarsOfNode(int nodeId) {
+        Set<XVar> result = xVarsOfNode.get(nodeId);
+        return null == result ? NO_XVARS : result;
+    }
+
+    public List<XVar> getXVarsOfWorkflow(int wfId) {
+        List<XVar> result = xVarsOfWorkflow.get(wfId);
+        return null == result ? NO_WF_XVARS : result;
+    }
+
+    public List<YVar> getYVarsOfWorkflow(int wfId) {
+        List<YVar> result = yVarsOfWorkflow.get(wfId);
+        return null == result ? NO_WF_YVARS : result;
+    }
+
+    /**
+     * 某条路径上的y变量，链路上的y变量通过PathTable中链路到路径的关联得到
+     */
+    public Set<YVar> getYVarsOfPath(int pathId) {
+        Set<YVar> result = yVarsOfPath.get(pathId);
+        return null == result ? NO_YVARS : result;
+    }
+}
@@ -0,0 +1,266 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.cache.CachedPlacement;
+import com.sysu.lbc.cache.Fingerprint;
+import com.sysu.lbc.cache.SolutionCache;
+import com.sysu.lbc.dataStructure.*;
+import com.sysu.lbc.metrics.SolveMetrics;
+import com.sysu.lbc.model.SolveProgress;
+import com.sysu.lbc.model.SolveProgressListener;
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.model.SolverModel;
+
+import java.util.*;
+
+/**
+ * GurobiSolution的求解循环：普通求解、限时求解(逐个报告新的可行解)和带解缓存的求解，以及解缓存的键(工作流、拓扑和已有负载的指纹)。
+ * 模型和变量属于GurobiSolution，这里只通过它的方法读取模型、结果和拓扑
+ */
+class ModelSolver {
+    private final GurobiSolution solution;
+    // 解缓存，可以在多个GurobiSolution之间共用；命中时reuseCachedPlacement为true则直接返回缓存的放置，否则作为初始解
+    private SolutionCache solutionCache;
+    private boolean reuseCachedPlacement = false;
+    // 节点、链路、路径的指纹，按需计算，路径集合变化后置为null
+    private Fingerprint topologyFingerprint;
+    // 在线加入、尚未求解的工作流 -> 缓存的键，求解后把它们的放置写入缓存
+    private final Map<Integer, Fingerprint> pendingCacheKeys = new HashMap<>();
+    // 上一次求解之后模型是否被修改过
+    private boolean modified = false;
+    // 是否已经求解过，求解前没有目标值、下界和节点数
+    private boolean optimized = false;
+    private long optimizeTime = 0;
+
+    ModelSolver(GurobiSolution solution) {
+        this.solution = solution;
+    }
+
+    void setSolutionCache(SolutionCache cache, boolean reuse) {
+        this.solutionCache = cache;
+        this.reuseCachedPlacement = reuse;
+    }
+
+    SolutionCache getSolutionCache() {
+        return solutionCache;
+    }
+
+    // 加入、删除变量或约束后调用，上一次的解不再对应当前模型
+    void markModified() {
+        modified = true;
+    }
+
+    boolean isModified() {
+        return modified;
+    }
+
+    boolean isOptimized() {
+        return optimized;
+    }
+
+    long getOptimizeTime() {
+        return optimizeTime;
+    }
+
+    void optimize() throws SolverException {
+        optimize(null);
+    }
+
+    // listener不为null时把求解进度同时报告给它
+    private void optimize(SolveProgressListener listener) throws SolverException {
+        long starTime = System.currentTimeMillis();
+        SolverModel model = solution.getModel();
+        model.update();
+        SolveMetrics metrics = solution.getProgressMetrics();
+        if (null != metrics) {
+            metrics.clearProgress();
+            if (null == listener) {
+                listener = metrics;
+            } else {
+                SolveProgressListener extra = listener;
+                listener = progress -> {
+                    metrics.onProgress(progress);
+                    extra.onProgress(progress);
+                };
+            }
+        }
+        model.setProgressListener(listener);
+        try {
+            model.optimize();
+        } finally {
+            model.setProgressListener(null);
+        }
+        optimized = true;
+        modified = false;
+        optimizeTime = System.currentTimeMillis() - starTime;
+        if (!pendingCacheKeys.isEmpty() && model.hasSolution()) {
+            Placement placement = solution.getPlacement();
+            double gap = getGap();
+            for (Workflow wf : solution.getWorkflows()) {
+                Fingerprint key = pendingCacheKeys.get(wf.getWF_ID());
+                if (null != key) {
+                    solutionCache.put(key, CachedPlacement.of(Collections.singletonList(wf), placement, gap));
+                }
+            }
+        }
+        pendingCacheKeys.clear();
+    }
+
+    AnytimeResult solveAnytime(long deadline, double targetGap, PlacementListener listener) throws SolverException {
+        AnytimeResult result = new AnytimeResult();
+        long starTime = System.currentTimeMillis();
+        if (deadline <= starTime) {
+            return result;
+        }
+        SolverModel model = solution.getModel();
+        double oldGap = model.getMipGap();
+        model.setTimeLimit((deadline - starTime) / 1000.0);
+        model.setMipGap(targetGap);
+        // 回调中不能抛出受检异常，构造放置失败时记下第一个异常，求解结束后再抛出
+        SolverException[] error = new SolverException[1];
+        try {
+            optimize(progress -> {
+                if (!progress.newIncumbent) {
+                    return;
+                }
+                result.incumbentNum++;
+                if (null != listener && null == error[0]) {
+                    try {
+                        Placement placement = solution.buildPlacement(true);
+                        placement.cost = progress.objVal;
+                        listener.onIncumbent(placement, progress);
+                    } catch (SolverException e) {
+                        error[0] = e;
+                    }
+                }
+            });
+        } finally {
+            double timeLimit = solution.getTimeLimit();
+            model.setTimeLimit(Double.isInfinite(timeLimit) ? SolverModel.INFINITY : timeLimit);
+            model.setMipGap(oldGap);
+        }
+        if (null != error[0]) {
+            throw error[0];
+        }
+        result.time = System.currentTimeMillis() - starTime;
+        if (model.hasSolution()) {
+            result.placement = solution.getPlacement();
+            result.objVal = model.getObjVal();
+        }
+        result.objBound = model.getObjBound();
+        // 后端按浮点运算剪枝，恰好停在目标间隙上的解可能比目标大一点
+        result.targetReached = result.getGap() <= targetGap + 1e-9;
+        return result;
+    }
+
+    Placement solvePlacement() throws SolverException {
+        List<Workflow> workflows = solution.getWorkflows();
+        Fingerprint key = null;
+        if (null != solutionCache) {
+            key = SolutionCache.key(workflows, getTopologyFingerprint(), getCommittedLoadsFingerprint());
+            CachedPlacement cached = solutionCache.get(key);
+            Placement placement = null == cached ? null : cached.toPlacement(SolutionCache.canonicalOrder(workflows));
+            if (null != placement) {
+                // 只有证明了最优(在间隙容差内)的放置才直接复用，其余只作为初始解
+                if (reuseCachedPlacement && cached.gap <= solution.getModel().getMipGap()) {
+                    return placement;
+                }
+                solution.applyStart(placement);
+            }
+        }
+        optimize();
+        if (!solution.getModel().hasSolution()) {
+            return null;
+        }
+        Placement result = solution.getPlacement();
+        if (null != key) {
+            solutionCache.put(key, CachedPlacement.of(SolutionCache.canonicalOrder(workflows), result, getGap()));
+        }
+        return result;
+    }
+
+    // 上一次求解结束时的相对间隙，时间上限内没有证明最优时大于间隙容差
+    private double getGap() throws SolverException {
+        SolverModel model = solution.getModel();
+        return SolveProgress.gap(model.getObjVal(), model.getObjBound());
+    }
+
+    // 在线加入工作流时按(工作流, 拓扑, 其余工作流的负载)查缓存，命中时返回base加上缓存的放置，并登记求解后要写入的键
+    Placement lookupArrival(Workflow wf, Placement base, List<Workflow> placed) {
+        if (null == solutionCache || (null != base && !base.complete) || (null == base && !placed.isEmpty())) {
+            return null;
+        }
+        double[] nodeLoad = new double[solution.getNodes().size()];
+        double[] linkLoad = new double[solution.getLinks().size()];
+        solution.addCommittedLoads(nodeLoad, linkLoad);
+        if (null != base) {
+            addPlacementLoads(base, placed, nodeLoad, linkLoad);
+        }
+        List<Workflow> arrival = Collections.singletonList(wf);
+        Fingerprint key = SolutionCache.key(arrival, getTopologyFingerprint(),
+                Fingerprint.ofLoads(nodeLoad, linkLoad, SolutionCache.LOAD_QUANTUM));
+        pendingCacheKeys.put(wf.getWF_ID(), key);
+        CachedPlacement cached = solutionCache.get(key);
+        Placement placement = null == cached ? null : cached.toPlacement(arrival);
+        if (null == placement || null == base) {
+            return placement;
+        }
+        placement.taskNodes.putAll(base.taskNodes);
+        placement.flowPaths.putAll(base.flowPaths);
+        return placement;
+    }
+
+    // 工作流在求解前被删除时不再写入缓存
+    void forgetArrival(int wfId) {
+        pendingCacheKeys.remove(wfId);
+    }
+
+    // 路径集合变化(列生成)后调用
+    void invalidateTopology() {
+        topologyFingerprint = null;
+    }
+
+    // 把placement中workflows的负载累加到nodeLoad、linkLoad，顺序与getLoads相同
+    private void addPlacementLoads(Placement placement, List<Workflow> workflows, double[] nodeLoad, double[] linkLoad) {
+        Map<Integer, Double> nodes = solution.getNodes();
+        List<Link> links = solution.getLinks();
+        PathTable paths = solution.getPaths();
+        ModelIndex index = solution.getIndex();
+        for (Workflow wf : workflows) {
+            for (Task task : wf.getTasks()) {
+                int nodeId = placement.getNode(task);
+                nodeLoad[index.getNodeIdx(nodeId)] += task.neededResource / nodes.get(nodeId);
+            }
+            for (Flow flow : wf.getFlows()) {
+                int pathId = placement.getPath(flow);
+                int hops = paths.getHopNum(pathId);
+                for (int i = 0; i < hops; i++) {
+                    int link = paths.getHopLink(pathId, i);
+                    if (link >= 0) {
+                        linkLoad[link] += flow.neededBandwidth / links.get(link).bandwidth;
+                    }
+                }
+            }
+        }
+    }
+
+    // 硬容量约束和y变量裁剪都会缩小可行域，开启与不开启时的放置不能互相套用，两个开关都计入拓扑指纹
+    private Fingerprint getTopologyFingerprint() {
+        if (null == topologyFingerprint) {
+            topologyFingerprint = new Fingerprint.Builder()
+                    .add(Fingerprint.of(solution.getNodes(), solution.getLinks(), solution.getPaths()))
+                    .add(solution.isHardCapacity() ? 1 : 0).add(solution.isPruneYVar() ? 1 : 0).build();
+        }
+        return topologyFingerprint;
+    }
+
+    // 已提交负载的指纹，作为缓存键的剩余负载；没有已提交的工作流时为null
+    private Fingerprint getCommittedLoadsFingerprint() {
+        if (!solution.hasCommittedWorkflows()) {
+            return null;
+        }
+        double[] nodeLoad = new double[solution.getNodes().size()];
+        double[] linkLoad = new double[solution.getLinks().size()];
+        solution.addCommittedLoads(nodeLoad, linkLoad);
+        return Fingerprint.ofLoads(nodeLoad, linkLoad, SolutionCache.LOAD_QUANTUM);
+    }
+}
@@ -0,0 +1,114 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.dataStructure.Placement;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.model.SolverException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 在线模式：向已建好的模型中加入、删除工作流，并为下一次求解设置初始解。
+ * 变量、约束和负载项的增删由GurobiSolution.addWorkflowModel、removeWorkflowModel完成，这里只决定顺序和初始解：
+ * 解缓存命中时用缓存的放置，否则用启发式算法扩展上一次的解。
+ * 准入控制和提交、释放工作流也在这里，已提交的负载由GurobiSolution.refreshCommittedLoads写入模型
+ */
+class OnlineUpdater {
+    private final GurobiSolution solution;
+    private final ModelSolver solver;
+
+    OnlineUpdater(GurobiSolution solution, ModelSolver solver) {
+        this.solution = solution;
+        this.solver = solver;
+    }
+
+    void addWorkflow(Workflow wf) throws SolverException {
+        long t = System.nanoTime();
+        Placement base = solution.getCurrentPlacement();
+        List<Workflow> placed = new ArrayList<>(solution.getWorkflows());
+        solution.addWorkflowModel(wf);
+        Placement cached = solver.lookupArrival(wf, base, placed);
+        if (null != cached) {
+            solution.applyStart(cached);
+        } else if (null == base) {
+            solution.applyStart(solution.getHeuristic().place(solution.getWorkflows()));
+        } else {
+            solution.applyStart(solution.getHeuristic().extend(base, placed, Collections.singletonList(wf)));
+        }
+        solution.recordPhase("addWorkflow", t);
+    }
+
+    boolean removeWorkflow(int wfId) throws SolverException {
+        long t = System.nanoTime();
+        Workflow wf = findWorkflow(wfId);
+        if (null == wf) {
+            return false;
+        }
+        Placement base = solution.getCurrentPlacement();
+        solution.removeWorkflowModel(wf);
+        if (null != base) {
+            solution.applyStart(base);
+        }
+        solution.recordPhase("removeWorkflow", t);
+        return true;
+    }
+
+    Workflow findWorkflow(int wfId) {
+        for (Workflow wf : solution.getWorkflows()) {
+            if (wf.getWF_ID() == wfId) {
+                return wf;
+            }
+        }
+        return null;
+    }
+
+    boolean admitWorkflow(Workflow wf) throws SolverException {
+        if (solution.isHardCapacity() && !solution.getCapacityLedger().canAdmit(wf, solution.getWorkflows())) {
+            // 模型还没有求解过(或解已失效)时仍要求解一次，保证返回后可以读取负载
+            if (solver.isModified() || !solution.getModel().hasSolution()) {
+                solver.optimize();
+            }
+            return false;
+        }
+        addWorkflow(wf);
+        solver.optimize();
+        if (solution.getModel().hasSolution()) {
+            return true;
+        }
+        removeWorkflow(wf.getWF_ID());
+        solver.optimize();
+        return false;
+    }
+
+    int commitWorkflows(Collection<Integer> wfIds) throws SolverException {
+        if (solver.isModified() || !solution.getModel().hasSolution()) {
+            throw new SolverException("提交工作流前需要先求解当前模型");
+        }
+        long t = System.nanoTime();
+        Placement placement = solution.getPlacement();
+        List<Workflow> committed = new ArrayList<>();
+        for (int wfId : wfIds) {
+            Workflow wf = findWorkflow(wfId);
+            if (null != wf && solution.getCapacityLedger().commit(wf, placement)) {
+                committed.add(wf);
+            }
+        }
+        for (Workflow wf : committed) {
+            removeWorkflow(wf.getWF_ID());
+        }
+        solution.refreshCommittedLoads();
+        solution.recordPhase("commitWorkflows", t);
+        return committed.size();
+    }
+
+    boolean releaseWorkflow(int wfId) throws SolverException {
+        if (!solution.getCapacityLedger().release(wfId)) {
+            return false;
+        }
+        solution.refreshCommittedLoads();
+        solver.markModified();
+        return true;
+    }
+}
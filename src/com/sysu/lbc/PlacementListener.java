@@ -0,0 +1,15 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.dataStructure.Placement;
+import com.sysu.lbc.model.SolveProgress;
+
+/**
+ * 接收限时求解过程中找到的更好的放置，在求解线程中同步调用，实现应尽快返回
+ */
+public interface PlacementListener {
+    /**
+     * @param placement 刚找到的可行解，cost为它的目标值
+     * @param progress  找到它时的时间、节点数、下界与间隙
+     */
+    void onIncumbent(Placement placement, SolveProgress progress);
+}
@@ -0,0 +1,89 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.dataStructure.*;
+import com.sysu.lbc.model.LinExpr;
+import com.sysu.lbc.model.ModelVar;
+import com.sysu.lbc.model.QuadExpr;
+import com.sysu.lbc.presolve.PresolveStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个工作流的全部x、y变量和约束的描述。
+ * 变量先用块内编号(ModelVar.index = 0, 1, ...)表示，约束表达式引用这些块内变量；
+ * 加入模型时先批量添加变量，再把表达式中的块内变量换成模型中的变量，批量添加约束
+ */
+class WorkflowBlock {
+    final Workflow wf;
+    final List<XVar> xVars = new ArrayList<>();
+    final List<YVar> yVars = new ArrayList<>();
+    final List<String> varNames = new ArrayList<>();
+
+    final List<LinExpr> linExprs = new ArrayList<>();
+    final List<Character> linSenses = new ArrayList<>();
+    final List<Double> linRhs = new ArrayList<>();
+    final List<String> linNames = new ArrayList<>();
+
+    final List<QuadExpr> quadExprs = new ArrayList<>();
+    final List<Character> quadSenses = new ArrayList<>();
+    final List<Double> quadRhs = new ArrayList<>();
+    final List<String> quadNames = new ArrayList<>();
+
+    // 预处理固定为1的变量的块内编号，加入模型时下界设为1
+    final List<Integer> fixedVars = new ArrayList<>();
+
+    int prunedYVarNum = 0;
+    final PresolveStats presolveStats = new PresolveStats();
+
+    WorkflowBlock(Workflow wf) {
+        this.wf = wf;
+    }
+
+    /**
+     * 新的块内0-1变量，name可以为null
+     */
+    ModelVar newVar(String name) {
+        varNames.add(name);
+        return new ModelVar(varNames.size() - 1, name);
+    }
+
+    int getVarNum() {
+        return varNames.size();
+    }
+
+    void addConstr(LinExpr expr, char sense, double rhs, String name) {
+        linExprs.add(expr);
+        linSenses.add(sense);
+        linRhs.add(rhs);
+        linNames.add(name);
+    }
+
+    void addQConstr(QuadExpr expr, char sense, double rhs, String name) {
+        quadExprs.add(expr);
+        quadSenses.add(sense);
+        quadRhs.add(rhs);
+        quadNames.add(name);
+    }
+
+    /**
+     * 把块内变量换成模型中的变量，vars[i]对应块内编号为i的变量
+     */
+    static LinExpr remap(LinExpr expr, ModelVar[] vars) {
+        LinExpr result = new LinExpr(expr.size());
+        for (int i = 0; i < expr.size(); i++) {
+            result.addTerm(expr.getCoeff(i), vars[expr.getVar(i).index]);
+        }
+        result.addConstant(expr.getConstant());
+        return result;
+    }
+
+    static QuadExpr remap(QuadExpr expr, ModelVar[] vars) {
+        QuadExpr result = new QuadExpr();
+        result.add(remap(expr.getLinExpr(), vars));
+        for (int i = 0; i < expr.size(); i++) {
+            result.addTerm(expr.getCoeff(i), vars[expr.getVar1(i).index], vars[expr.getVar2(i).index]);
+        }
+        return result;
+    }
+}
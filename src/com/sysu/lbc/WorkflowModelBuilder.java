@@ -0,0 +1,388 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.dataStructure.*;
+import com.sysu.lbc.model.LinExpr;
+import com.sysu.lbc.model.ModelVar;
+import com.sysu.lbc.model.QuadExpr;
+import com.sysu.lbc.model.SolverModel;
+import com.sysu.lbc.presolve.PlacementDomains;
+
+import java.util.*;
+
+/**
+ * 为一批工作流(WorkflowBatch)中的单个工作流构建x、y变量和约束的描述(WorkflowBlock)。
+ * x、y变量按任务、流、节点的下标放在数组中，不再按字符串键分组；
+ * 只读取batch和路径数据，不访问模型和全局索引，多个线程可以同时为不同工作流调用build。
+ * <p>
+ * 开启预处理时按任务的定义域(PlacementDomains)建模：不在定义域中的节点不创建x变量，
+ * 定义域只有一个节点的x变量由下界固定为1并省去它的分配约束，两端不在定义域中的路径不创建y变量，
+ * 耦合约束中固定的x代入为常数
+ */
+class WorkflowModelBuilder {
+    private final WorkflowBatch batch;
+    private final PathTable paths;
+    private final Formulation formulation;
+    private final boolean pruneYVar;
+    // 为false时不生成变量名称，约束名称也不会传给求解器
+    private final boolean useNames;
+    // 路径两端节点在batch中的下标，下标为pathId
+    private final int[] pathSrc;
+    private final int[] pathDst;
+    // 未开启预处理时为null
+    private final PlacementDomains domains;
+
+    WorkflowModelBuilder(WorkflowBatch batch, PathTable paths, Formulation formulation, boolean pruneYVar,
+                         boolean useNames, boolean presolve) {
+        this.batch = batch;
+        this.paths = paths;
+        this.formulation = formulation;
+        this.pruneYVar = pruneYVar;
+        this.useNames = useNames;
+        pathSrc = new int[paths.size() + 1];
+        pathDst = new int[paths.size() + 1];
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            pathSrc[pathId] = batch.indexOfNode(paths.getSrc(pathId));
+            pathDst[pathId] = batch.indexOfNode(paths.getDst(pathId));
+        }
+        domains = presolve ? new PlacementDomains(batch, paths, pathSrc, pathDst, pruneYVar) : null;
+    }
+
+    /**
+     * 预处理推出不可行的工作流数，未开启预处理时为0
+     */
+    int getInfeasibleWorkflowNum() {
+        return null == domains ? 0 : domains.getInfeasibleWorkflowNum();
+    }
+
+    /**
+     * 为batch中的第w个工作流构建变量和约束
+     */
+    WorkflowBlock build(int w) {
+        WorkflowBlock block = new WorkflowBlock(batch.workflows[w]);
+        int taskBase = batch.taskStart[w];
+        int nodeNum = batch.getNodeNum();
+        // xOf[(t - taskBase) * nodeNum + v]为任务t放在节点v上的x变量，预处理删去的为null
+        XVar[] xOf = new XVar[(batch.taskStart[w + 1] - taskBase) * nodeNum];
+        prepareXVar(block, w, xOf);
+        // yStart[f - flowStart[w]]起为流f的y变量在block.yVars中的下标
+        int[] yStart = prepareYVar(block, w);
+        // 每个任务只能放置在一个节点上
+        addXAssignmentConstraint(block, w, xOf);
+        // 每个任务对只能采用一条通讯路径
+        addYAssignmentConstraint(block, w, yStart);
+        // 起始任务只能放在无人机节点上
+        fixOriginTask(block, w, xOf);
+        // y^{w,p}_{s,s'} == x^w_{s,v} * x^w_{s',v}
+        if (Formulation.AGGREGATED == formulation) {
+            addFlowConservationConstraint(block, w, xOf, yStart);
+        } else {
+            addLinkNodeConstraint(block, w, xOf, yStart);
+        }
+        return block;
+    }
+
+    /**
+     * 任务对相同、路径两端为u、v的一组y变量共同出现的线性约束的名称，与build生成的名称一致：
+     * 任务对只能采用一条路径的约束，以及AGGREGATED的两个流守恒约束或MCCORMICK的三个线性约束。
+     * 列生成时按这些名称找到约束，把新路径的y变量加进去；QUADRATIC的耦合约束是二次约束，不能这样修改
+     */
+    static List<String> pathConstrNames(Formulation formulation, int wfId, int currTaskId, int succTaskId, int u, int v) {
+        String flowKey = wfId + "_" + currTaskId + "_" + succTaskId;
+        List<String> result = new ArrayList<>();
+        result.add(flowKey);
+        if (Formulation.AGGREGATED == formulation) {
+            result.add(flowKey + "_" + u + "srcFlowConstr");
+            result.add(flowKey + "_" + v + "dstFlowConstr");
+        } else if (Formulation.MCCORMICK == formulation) {
+            String groupKey = flowKey + "_" + u + "_" + v;
+            result.add(groupKey + "uUpperConstr");
+            result.add(groupKey + "vUpperConstr");
+            result.add(groupKey + "lowerConstr");
+        } else {
+            throw new IllegalArgumentException("QUADRATIC模型的耦合约束不能追加变量");
+        }
+        return result;
+    }
+
+    // 变量x^w_{s,v},属于工作流w的任务s是否放置在节点v上，
+    // 变量的名称用"w_s_v"表示，
+    // 起始任务分配节点固定；
+    // 开启预处理时只为定义域中的节点创建变量
+    private void prepareXVar(WorkflowBlock block, int w, XVar[] xOf) {
+        int wfId = batch.wfIds[w];
+        int taskBase = batch.taskStart[w];
+        int nodeNum = batch.getNodeNum();
+        for (int t = taskBase; t < batch.taskStart[w + 1]; t++) {
+            boolean fixed = isFixed(t);
+            if (fixed) {
+                block.presolveStats.fixedTaskNum++;
+            }
+            for (int v = 0; v < nodeNum; v++) {
+                if (null != domains && !domains.contains(t, v)) {
+                    block.presolveStats.removedXVarNum++;
+                    continue;
+                }
+                XVar xVar = new XVar(wfId, batch.taskIds[t], batch.nodeIds[v], null);
+                xVar.var = block.newVar(useNames ? xVar.getVarName() : null);
+                if (fixed) {
+                    block.fixedVars.add(xVar.var.index);
+                }
+                block.xVars.add(xVar);
+                xOf[(t - taskBase) * nodeNum + v] = xVar;
+            }
+        }
+    }
+
+    private boolean isFixed(int t) {
+        return null != domains && domains.isFixed(t);
+    }
+
+    // 变量y^{w,p}_{s,s'}，属于工作流w的任务对(s,s')是否采用路径p进行通讯；
+    // 变量的名称用"w_p_s_s'"表示；
+    // 开启pruneYVar时，只保留两端节点分别可放置当前任务和后继任务的路径；
+    // 开启预处理时再删去两端不在任务定义域中的路径(端点不在拓扑中的路径不与x耦合，保留)
+    private int[] prepareYVar(WorkflowBlock block, int w) {
+        int wfId = batch.wfIds[w];
+        int flowBase = batch.flowStart[w];
+        int[] yStart = new int[batch.flowStart[w + 1] - flowBase + 1];
+        boolean[] currNodes = new boolean[batch.getNodeNum()];
+        boolean[] succNodes = new boolean[batch.getNodeNum()];
+        for (int f = flowBase; f < batch.flowStart[w + 1]; f++) {
+            int currTaskId = batch.taskIds[batch.flowCurr[f]];
+            int succTaskId = batch.taskIds[batch.flowSucc[f]];
+            if (pruneYVar) {
+                markCandidates(batch.flowCurr[f], currNodes);
+                markCandidates(batch.flowSucc[f], succNodes);
+            }
+            for (int pathId = 1; pathId <= paths.size(); pathId++) {
+                if (pruneYVar) {
+                    if (pathSrc[pathId] < 0 || !currNodes[pathSrc[pathId]]
+                            || pathDst[pathId] < 0 || !succNodes[pathDst[pathId]]) {
+                        block.prunedYVarNum++;
+                        continue;
+                    }
+                }
+                if (null != domains && pathSrc[pathId] >= 0 && pathDst[pathId] >= 0
+                        && (!domains.contains(batch.flowCurr[f], pathSrc[pathId])
+                        || !domains.contains(batch.flowSucc[f], pathDst[pathId]))) {
+                    block.presolveStats.deadYVarNum++;
+                    continue;
+                }
+                YVar y = new YVar(wfId, pathId, currTaskId, succTaskId, null);
+                y.var = block.newVar(useNames ? y.getVarName() : null);
+                block.yVars.add(y);
+            }
+            yStart[f - flowBase + 1] = block.yVars.size();
+        }
+        return yStart;
+    }
+
+    private void markCandidates(int t, boolean[] marks) {
+        Arrays.fill(marks, false);
+        for (int k = batch.candStart[t]; k < batch.candStart[t + 1]; k++) {
+            marks[batch.candNodes[k]] = true;
+        }
+    }
+
+    private void fixOriginTask(WorkflowBlock block, int w, XVar[] xOf) {
+        int origin = batch.originNode[w];
+        if (origin < 0) {
+            return;
+        }
+        int taskBase = batch.taskStart[w];
+        for (int t = taskBase; t < batch.taskStart[w + 1]; t++) {
+            if (1 == batch.taskIds[t]) {
+                // 预处理已把起始任务固定在起始节点上
+                if (isFixed(t)) {
+                    block.presolveStats.removedConstrNum++;
+                    continue;
+                }
+                XVar x = xOf[(t - taskBase) * batch.getNodeNum() + origin];
+                LinExpr expr = new LinExpr();
+                expr.addTerm(1, x.var);
+                block.addConstr(expr, SolverModel.EQUAL, 1.0, useNames ? "fixOriginTask" + x.workflowId + "_" + x.taskId : null);
+            }
+        }
+    }
+
+    // 对每个任务对(s,s')和节点v：起点为v的路径之和 == x^w_{s,v}，终点为v的路径之和 == x^w_{s',v}
+    private void addFlowConservationConstraint(WorkflowBlock block, int w, XVar[] xOf, int[] yStart) {
+        int nodeNum = batch.getNodeNum();
+        int taskBase = batch.taskStart[w];
+        int flowBase = batch.flowStart[w];
+        for (int f = flowBase; f < batch.flowStart[w + 1]; f++) {
+            LinExpr[] srcExprs = new LinExpr[nodeNum];
+            LinExpr[] dstExprs = new LinExpr[nodeNum];
+            for (int i = yStart[f - flowBase]; i < yStart[f - flowBase + 1]; i++) {
+                YVar y = block.yVars.get(i);
+                addTermToGroup(srcExprs, pathSrc[y.pathId], y.var);
+                addTermToGroup(dstExprs, pathDst[y.pathId], y.var);
+            }
+            String flowKey = useNames ? flowKey(w, f) : null;
+            for (int v = 0; v < nodeNum; v++) {
+                addConservationConstr(block, srcExprs[v], xOf[(batch.flowCurr[f] - taskBase) * nodeNum + v],
+                        useNames ? flowKey + "_" + batch.nodeIds[v] + "srcFlowConstr" : null);
+                addConservationConstr(block, dstExprs[v], xOf[(batch.flowSucc[f] - taskBase) * nodeNum + v],
+                        useNames ? flowKey + "_" + batch.nodeIds[v] + "dstFlowConstr" : null);
+            }
+        }
+    }
+
+    // 路径端点不在nodes中时不会出现在任何约束里
+    private void addTermToGroup(LinExpr[] groups, int v, ModelVar var) {
+        if (v < 0) {
+            return;
+        }
+        if (null == groups[v]) {
+            groups[v] = new LinExpr();
+        }
+        groups[v].addTerm(1, var);
+    }
+
+    // 没有任何路径的节点对应的x变量被约束为0；
+    // 预处理删去的x没有对应的路径，不加约束，固定为1的x代入为常数
+    private void addConservationConstr(WorkflowBlock block, LinExpr pathSumExpr, XVar x, String constrName) {
+        if (null == x) {
+            block.presolveStats.removedConstrNum++;
+            return;
+        }
+        LinExpr expr = null == pathSumExpr ? new LinExpr() : pathSumExpr;
+        if (isFixedVar(block, x)) {
+            block.addConstr(expr, SolverModel.EQUAL, 1, constrName);
+            return;
+        }
+        expr.addTerm(-1, x.var);
+        block.addConstr(expr, SolverModel.EQUAL, 0, constrName);
+    }
+
+    // 固定变量只出现在定义域只有一个节点的任务上，每个任务至多一个，fixedVars很短
+    private static boolean isFixedVar(WorkflowBlock block, XVar x) {
+        return block.fixedVars.contains(x.var.index);
+    }
+
+    // 同一个流中两端节点相同的y变量为一组，组按首次出现的顺序排列
+    private void addLinkNodeConstraint(WorkflowBlock block, int w, XVar[] xOf, int[] yStart) {
+        int nodeNum = batch.getNodeNum();
+        int taskBase = batch.taskStart[w];
+        int flowBase = batch.flowStart[w];
+        // (u, v) -> 组在groups中的下标，每个流用完后只复位用到的项
+        int[] groupOf = new int[nodeNum * nodeNum];
+        Arrays.fill(groupOf, -1);
+        List<LinExpr> groups = new ArrayList<>();
+        List<Integer> groupPairs = new ArrayList<>();
+        for (int f = flowBase; f < batch.flowStart[w + 1]; f++) {
+            for (int i = yStart[f - flowBase]; i < yStart[f - flowBase + 1]; i++) {
+                YVar y = block.yVars.get(i);
+                int u = pathSrc[y.pathId];
+                int v = pathDst[y.pathId];
+                if (u < 0 || v < 0) {
+                    continue;
+                }
+                int pair = u * nodeNum + v;
+                if (groupOf[pair] < 0) {
+                    groupOf[pair] = groups.size();
+                    groups.add(new LinExpr());
+                    groupPairs.add(pair);
+                }
+                groups.get(groupOf[pair]).addTerm(1, y.var);
+            }
+            String flowKey = useNames ? flowKey(w, f) : null;
+            for (int g = 0; g < groups.size(); g++) {
+                int pair = groupPairs.get(g);
+                int u = pair / nodeNum;
+                int v = pair % nodeNum;
+                groupOf[pair] = -1;
+                XVar uXVar = xOf[(batch.flowCurr[f] - taskBase) * nodeNum + u];
+                XVar vXVar = xOf[(batch.flowSucc[f] - taskBase) * nodeNum + v];
+                String groupKey = useNames ? flowKey + "_" + batch.nodeIds[u] + "_" + batch.nodeIds[v] : null;
+                if (isFixedVar(block, uXVar) || isFixedVar(block, vXVar)) {
+                    addFixedLinkNodeConstraint(block, groupKey, groups.get(g), uXVar, vXVar);
+                    continue;
+                }
+                if (Formulation.MCCORMICK == formulation) {
+                    addMcCormickConstraint(block, groupKey, groups.get(g), uXVar, vXVar);
+                    continue;
+                }
+                QuadExpr sumExpr1 = new QuadExpr();
+                sumExpr1.add(groups.get(g));
+                sumExpr1.addTerm(-1, uXVar.var, vXVar.var);
+                block.addQConstr(sumExpr1, SolverModel.EQUAL, 0, useNames ? groupKey + "srcNodeConstr" : null);
+            }
+            groups.clear();
+            groupPairs.clear();
+        }
+    }
+
+    // 一端的x固定为1时 sum(y) == x_u * x_v 化为 sum(y) == 另一端的x，两端都固定时化为 sum(y) == 1，
+    // 代替MCCORMICK的三个线性约束或QUADRATIC的二次约束
+    private void addFixedLinkNodeConstraint(WorkflowBlock block, String groupKey, LinExpr sumExpr, XVar uXVar, XVar vXVar) {
+        LinExpr expr = new LinExpr(sumExpr);
+        double rhs = 1;
+        if (!isFixedVar(block, uXVar)) {
+            expr.addTerm(-1, uXVar.var);
+            rhs = 0;
+        } else if (!isFixedVar(block, vXVar)) {
+            expr.addTerm(-1, vXVar.var);
+            rhs = 0;
+        }
+        block.addConstr(expr, SolverModel.EQUAL, rhs, null != groupKey ? groupKey + "fixedConstr" : null);
+        if (Formulation.MCCORMICK == formulation) {
+            block.presolveStats.removedConstrNum += 2;
+        } else {
+            block.presolveStats.linearizedQConstrNum++;
+        }
+    }
+
+    // x为0-1变量时，sum(y) == x_u * x_v 等价于以下三个线性约束
+    private void addMcCormickConstraint(WorkflowBlock block, String groupKey, LinExpr sumExpr, XVar uXVar, XVar vXVar) {
+        LinExpr upperU = new LinExpr(sumExpr);
+        upperU.addTerm(-1, uXVar.var);
+        block.addConstr(upperU, SolverModel.LESS_EQUAL, 0, null != groupKey ? groupKey + "uUpperConstr" : null);
+        LinExpr upperV = new LinExpr(sumExpr);
+        upperV.addTerm(-1, vXVar.var);
+        block.addConstr(upperV, SolverModel.LESS_EQUAL, 0, null != groupKey ? groupKey + "vUpperConstr" : null);
+        LinExpr lower = new LinExpr(sumExpr);
+        lower.addTerm(-1, uXVar.var);
+        lower.addTerm(-1, vXVar.var);
+        block.addConstr(lower, SolverModel.GREATER_EQUAL, -1, null != groupKey ? groupKey + "lowerConstr" : null);
+    }
+
+    // 约束按w_s命名，预处理固定了放置的任务不加约束
+    private void addXAssignmentConstraint(WorkflowBlock block, int w, XVar[] xOf) {
+        int nodeNum = batch.getNodeNum();
+        int taskBase = batch.taskStart[w];
+        for (int t = taskBase; t < batch.taskStart[w + 1]; t++) {
+            if (isFixed(t)) {
+                block.presolveStats.removedConstrNum++;
+                continue;
+            }
+            LinExpr expr = new LinExpr(nodeNum);
+            for (int v = 0; v < nodeNum; v++) {
+                XVar x = xOf[(t - taskBase) * nodeNum + v];
+                if (null != x) {
+                    expr.addTerm(1.0, x.var);
+                }
+            }
+            block.addConstr(expr, SolverModel.EQUAL, 1.0, useNames ? batch.wfIds[w] + "_" + batch.taskIds[t] : null);
+        }
+    }
+
+    // 约束按w_s_s'命名
+    private void addYAssignmentConstraint(WorkflowBlock block, int w, int[] yStart) {
+        int flowBase = batch.flowStart[w];
+        for (int f = flowBase; f < batch.flowStart[w + 1]; f++) {
+            int from = yStart[f - flowBase];
+            int to = yStart[f - flowBase + 1];
+            // 裁剪后没有可用路径的任务对也加入约束，空表达式 == 1 使模型不可行，而不是让这个流不经过任何路径
+            LinExpr expr = new LinExpr(to - from);
+            for (int i = from; i < to; i++) {
+                expr.addTerm(1.0, block.yVars.get(i).var);
+            }
+            block.addConstr(expr, SolverModel.EQUAL, 1.0, useNames ? flowKey(w, f) : null);
+        }
+    }
+
+    private String flowKey(int w, int f) {
+        return batch.wfIds[w] + "_" + batch.taskIds[batch.flowCurr[f]] + "_" + batch.taskIds[batch.flowSucc[f]];
+    }
+}
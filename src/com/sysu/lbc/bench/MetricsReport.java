@@ -0,0 +1,47 @@
+package com.sysu.lbc.bench;
+
+import com.sysu.lbc.Formulation;
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.metrics.SolveMetrics;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+
+import java.io.File;
+
+/**
+ * 对不同数量的工作流建模求解，导出每次运行的指标：模型规模、各阶段耗时、求解结果以及间隙随时间的变化。
+ * 每次运行在输出目录下追加metrics.csv的一行，并写出单独的JSON文件和进度时间序列的CSV文件。
+ * 用法：MetricsReport [5,20,50] [时间上限(秒)，默认60] [输出目录，默认metrics] [QUADRATIC|MCCORMICK|AGGREGATED]
+ */
+public class MetricsReport {
+    public static void main(String[] args) throws Exception {
+        String[] workflowNums = (args.length > 0 ? args[0] : "5,20,50").split(",");
+        double timeLimit = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+        File outDir = new File(args.length > 2 ? args[2] : "metrics");
+        Formulation formulation = args.length > 3 ? Formulation.valueOf(args[3]) : Formulation.QUADRATIC;
+        Backend backend = Backend.isGurobiAvailable() ? Backend.GUROBI : Backend.BRANCH_AND_BOUND;
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IllegalStateException("无法创建目录" + outDir);
+        }
+        System.out.println(SolveMetrics.csvHeader());
+        for (String workflowNum : workflowNums) {
+            int wfNum = Integer.parseInt(workflowNum.trim());
+            WorkflowGenerator.resetWorkflowIdx();
+            GurobiSolution solution = new GurobiSolution();
+            solution.setWorkflowNum(wfNum);
+            solution.setBackend(backend);
+            solution.setFormulation(formulation);
+            solution.setTimeLimit(timeLimit);
+            solution.setRecordProgress(true);
+            solution.prepare();
+            solution.doOptimize();
+            SolveMetrics metrics = solution.getMetrics();
+            String name = backend + "_" + formulation + "_" + wfNum;
+            metrics.appendCsv(new File(outDir, "metrics.csv").getPath());
+            metrics.writeJson(new File(outDir, name + ".json").getPath());
+            metrics.writeProgressCsv(new File(outDir, name + "_progress.csv").getPath());
+            System.out.println(metrics.toCsvRow());
+            solution.dispose();
+        }
+    }
+}
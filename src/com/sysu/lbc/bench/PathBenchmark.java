@@ -0,0 +1,122 @@
+package com.sysu.lbc.bench;
+
+import com.sysu.lbc.dataStructure.Link;
+import com.sysu.lbc.dataStructure.PathTable;
+import com.sysu.lbc.tool.Tool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对比字符串路径与PathTable两种方式求链路-路径关联的耗时，
+ * 字符串方式即原prepareExprLink中对每个(link, path)调用isPathContainOneHopLink的做法。
+ * 用法：PathBenchmark [pathFile] [linkFile]
+ */
+public class PathBenchmark {
+    static final int WARMUP = 5;
+    static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        String pathFile = args.length > 0 ? args[0] : "data/pathInfo.txt";
+        String linkFile = args.length > 1 ? args[1] : "data/info_cap_links.txt";
+        List<String> pathContents = loadPaths(pathFile);
+        List<Link> links = loadLinks(linkFile);
+        System.out.println("paths: " + pathContents.size() + ", links: " + links.size());
+
+        long stringResult = 0, tableResult = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            stringResult = byString(pathContents, links);
+            tableResult = byPathTable(pathContents, links);
+        }
+        if (stringResult != tableResult) {
+            throw new IllegalStateException("incidence mismatch: " + stringResult + " vs " + tableResult);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            stringResult += byString(pathContents, links);
+        }
+        long stringTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            tableResult += byPathTable(pathContents, links);
+        }
+        long tableTime = System.nanoTime() - start;
+        System.out.println("string:    " + (stringTime / ITERATIONS / 1000) + " us/op");
+        System.out.println("pathTable: " + (tableTime / ITERATIONS / 1000) + " us/op (含解析与建立关联)");
+        System.out.println("checksum:  " + stringResult + " / " + tableResult);
+    }
+
+    // 原做法：每个(link, path)对都重新split和trim
+    static long byString(List<String> pathContents, List<Link> links) {
+        long incidence = 0;
+        for (Link link : links) {
+            String linkKey = link.getLinkKey();
+            for (String pathContent : pathContents) {
+                if (isPathContainOneHopLink(pathContent, linkKey)) {
+                    incidence++;
+                }
+            }
+        }
+        return incidence;
+    }
+
+    static long byPathTable(List<String> pathContents, List<Link> links) {
+        PathTable table = new PathTable();
+        for (String pathContent : pathContents) {
+            table.add(PathTable.parse(pathContent));
+        }
+        table.buildLinkIncidence(links);
+        long incidence = 0;
+        for (int linkIdx = 0; linkIdx < links.size(); linkIdx++) {
+            int end = table.getLinkPathEnd(linkIdx);
+            for (int k = table.getLinkPathStart(linkIdx); k < end; k++) {
+                if (table.getLinkPath(k) > 0) {
+                    incidence++;
+                }
+            }
+        }
+        return incidence;
+    }
+
+    private static boolean isPathContainOneHopLink(String pathContent, String oneHopLinkKey) {
+        String[] pathNodes = pathContent.split(">");
+        String[] oneHopLinkNodes = oneHopLinkKey.split("_");
+        String nodeU = oneHopLinkNodes[0].trim();
+        String nodeV = oneHopLinkNodes[1].trim();
+        for (int i = 0; i <= pathNodes.length - 2; i++) {
+            String pathNodeU = pathNodes[i].trim();
+            String pathNodeV = pathNodes[i + 1].trim();
+            if (nodeU.equals(pathNodeU) && nodeV.equals(pathNodeV) || nodeV.equals(pathNodeU) && nodeU.equals(pathNodeV)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static List<String> loadPaths(String pathFile) {
+        List<String> result = new ArrayList<>();
+        for (String aline : Tool.getStringFromFile(pathFile).split("\n")) {
+            if (aline.trim().equals("")) {
+                continue;
+            }
+            String[] items = aline.split("\t");
+            if (items[1].equals(items[3])) {
+                continue;
+            }
+            result.add(items[5].trim());
+        }
+        return result;
+    }
+
+    static List<Link> loadLinks(String linkFile) {
+        List<Link> result = new ArrayList<>();
+        for (String aline : Tool.getStringFromFile(linkFile).split("\n")) {
+            if (aline.trim().equals("")) {
+                continue;
+            }
+            String[] items = aline.split("\t");
+            result.add(new Link(Integer.parseInt(items[1]), Integer.parseInt(items[3]), Double.valueOf(items[5].trim())));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.sysu.lbc.bench;
+
+import com.sysu.lbc.Formulation;
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.metrics.SolveMetrics;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import com.sysu.lbc.tool.WorkloadGenerator;
+
+/**
+ * 比较开启、关闭预处理时的模型规模(变量、约束、非零系数)、求解时间和最终间隙。
+ * 实例有两种：bundled为默认的模板工作流，pipeline为PIPELINE_TASK_NUM个任务的流水线，规模小到纯Java后端也能求得最优解。
+ * 用法：PresolveBenchmark [1,2,3] [时间上限(秒)，默认60] [QUADRATIC|MCCORMICK|AGGREGATED，默认MCCORMICK] [bundled,pipeline] [pruneYVar，默认true]
+ */
+public class PresolveBenchmark {
+    static final String[] INSTANCES = {"bundled", "pipeline"};
+    static final int PIPELINE_TASK_NUM = 3;
+    static final long SEED = 1;
+
+    public static void main(String[] args) throws Exception {
+        String[] workflowNums = (args.length > 0 ? args[0] : "1,2,3").split(",");
+        double timeLimit = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+        Formulation formulation = args.length > 2 ? Formulation.valueOf(args[2]) : Formulation.MCCORMICK;
+        String[] instances = args.length > 3 ? args[3].split(",") : INSTANCES;
+        boolean pruneYVar = args.length <= 4 || Boolean.parseBoolean(args[4]);
+        Backend backend = Backend.isGurobiAvailable() ? Backend.GUROBI : Backend.BRANCH_AND_BOUND;
+        System.out.println("backend: " + backend);
+        System.out.println("instance\tworkflows\tpresolve\tvars\tlinConstrs\tquadConstrs\tnonZeros\tprepare(ms)\ttime(ms)\tnodes\tobj\tgap");
+        for (String instance : instances) {
+            for (String workflowNum : workflowNums) {
+                int wfNum = Integer.parseInt(workflowNum.trim());
+                for (boolean presolve : new boolean[]{false, true}) {
+                    run(instance, wfNum, presolve, timeLimit, formulation, pruneYVar, backend);
+                }
+            }
+        }
+    }
+
+    private static void run(String instance, int wfNum, boolean presolve, double timeLimit, Formulation formulation,
+                            boolean pruneYVar, Backend backend) throws Exception {
+        WorkflowGenerator.resetWorkflowIdx();
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkflowNum(wfNum);
+        if ("pipeline".equals(instance)) {
+            solution.setWorkloadGenerator(new WorkloadGenerator(SEED)
+                    .setShapes(WorkloadGenerator.Shape.PIPELINE)
+                    .setTaskNum(PIPELINE_TASK_NUM, PIPELINE_TASK_NUM));
+        }
+        solution.setBackend(backend);
+        solution.setFormulation(formulation);
+        solution.setTimeLimit(timeLimit);
+        solution.setPruneYVar(pruneYVar);
+        solution.setPresolve(presolve);
+        solution.prepare();
+        solution.doOptimize();
+        SolveMetrics metrics = solution.getMetrics();
+        double gap = metrics.hasSolution ? Math.abs(metrics.objVal - metrics.objBound) / Math.max(Math.abs(metrics.objVal), 1e-10) : 1;
+        System.out.printf("%s\t%d\t%s\t%d\t%d\t%d\t%d\t%d\t%d\t%d\t%.6f\t%.4f%n", instance, wfNum, presolve ? "on" : "off",
+                metrics.varNum, metrics.linConstrNum, metrics.quadConstrNum, metrics.nonZeroNum, metrics.prepareTime,
+                metrics.optimizeTime, metrics.nodeCount, metrics.objVal, gap);
+        if (presolve) {
+            System.out.println("\t预处理：" + solution.getPresolveStats());
+        }
+        solution.dispose();
+    }
+}
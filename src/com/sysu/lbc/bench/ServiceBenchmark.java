@@ -0,0 +1,67 @@
+package com.sysu.lbc.bench;
+
+import com.sysu.lbc.service.SolveHttpServer;
+import com.sysu.lbc.service.SolveService;
+import com.sysu.lbc.solver.Backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 在进程内启动求解服务和本地HTTP接口，同时发出多个请求，输出每个请求的状态码、延迟和结果。
+ * 请求数超过CPU核数预算与队列容量之和时，多出的请求应立即得到503。
+ * 用法：ServiceBenchmark [并发请求数，默认8] [CPU核数预算，默认2] [队列容量，默认4] [每个请求的工作流数，默认1] [时间上限(秒)，默认10]
+ */
+public class ServiceBenchmark {
+    public static void main(String[] args) throws Exception {
+        int requestNum = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int coreBudget = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int workflowNum = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        double timeLimit = args.length > 4 ? Double.parseDouble(args[4]) : 10;
+        Backend backend = Backend.isGurobiAvailable() ? Backend.GUROBI : Backend.BRANCH_AND_BOUND;
+        SolveService service = new SolveService(backend, coreBudget, queueCapacity);
+        SolveHttpServer server = new SolveHttpServer(service, 0);
+        server.start();
+        String url = "http://127.0.0.1:" + server.getPort() + "/solve?workflows=" + workflowNum + "&timeLimit=" + timeLimit;
+        System.out.println("backend: " + backend + "，" + url);
+        ExecutorService clients = Executors.newFixedThreadPool(requestNum);
+        List<Future<String>> results = new ArrayList<>();
+        long starTime = System.currentTimeMillis();
+        for (int i = 0; i < requestNum; i++) {
+            results.add(clients.submit(() -> {
+                long t = System.currentTimeMillis();
+                HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+                int status = conn.getResponseCode();
+                String body = read(status < 400 ? conn.getInputStream() : conn.getErrorStream());
+                return status + "\t" + (System.currentTimeMillis() - t) + "ms\t" + body;
+            }));
+        }
+        for (Future<String> result : results) {
+            System.out.println(result.get());
+        }
+        System.out.println("总耗时" + (System.currentTimeMillis() - starTime) + "ms");
+        System.out.println(service.statsToJson());
+        clients.shutdown();
+        server.stop();
+        service.shutdown();
+    }
+
+    private static String read(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        for (int n; (n = in.read(buf)) > 0; ) {
+            out.write(buf, 0, n);
+        }
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package com.sysu.lbc.bench;
+
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.dataStructure.Link;
+import com.sysu.lbc.dataStructure.PathTable;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.tool.Tool;
+import com.sysu.lbc.tool.WorkflowGenerator;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * 对比三种启动方式准备数据的耗时：
+ * legacy   - Tool.getStringFromFile读入整个文件后split，再生成工作流(原prepareData的做法)；
+ * text     - 当前的prepareData，流式解析文本文件并生成工作流；
+ * snapshot - prepareData从二进制快照读取全部数据。
+ * 每种方式先预热WARMUP次，再测量ITERATIONS次，输出平均与最小耗时。
+ * 用法：StartupBenchmark [工作流数] [路径文件 节点文件 链路文件]
+ */
+public class StartupBenchmark {
+    static final int WARMUP = 3;
+    static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int workflowNum = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String[] files = args.length > 3 ? new String[]{args[1], args[2], args[3]}
+                : new String[]{"data/pathInfo.txt", "data/info_of_nodes.txt", "data/info_cap_links.txt"};
+        File snapshot = File.createTempFile("startup", ".snapshot");
+        snapshot.deleteOnExit();
+        GurobiSolution source = newSolution(workflowNum, files, null);
+        source.prepareData();
+        source.saveSnapshot(snapshot.getPath());
+        System.out.println("snapshot: " + snapshot.length() + " bytes");
+
+        System.out.println("mode\tavg(ms)\tmin(ms)");
+        report("legacy", workflowNum, files, null);
+        report("text", workflowNum, files, null);
+        report("snapshot", workflowNum, files, snapshot.getPath());
+    }
+
+    private static void report(String mode, int workflowNum, String[] files, String snapshotFile) {
+        long sum = 0, min = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+            WorkflowGenerator.resetWorkflowIdx();
+            long start = System.nanoTime();
+            if ("legacy".equals(mode)) {
+                loadLegacy(workflowNum, files);
+            } else {
+                newSolution(workflowNum, files, snapshotFile).prepareData();
+            }
+            long time = System.nanoTime() - start;
+            if (i >= WARMUP) {
+                sum += time;
+                min = Math.min(min, time);
+            }
+        }
+        System.out.printf("%s\t%.3f\t%.3f%n", mode, sum / 1e6 / ITERATIONS, min / 1e6);
+    }
+
+    private static GurobiSolution newSolution(int workflowNum, String[] files, String snapshotFile) {
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkflowNum(workflowNum);
+        solution.setDataFiles(files[0], files[1], files[2]);
+        solution.setSnapshotFile(snapshotFile);
+        return solution;
+    }
+
+    // 原prepareNodes、preparePaths、prepareOneHopLinks的字符串解析方式
+    private static int loadLegacy(int workflowNum, String[] files) {
+        Map<Integer, Double> nodes = new HashMap<>();
+        for (String aline : Tool.getStringFromFile(files[1]).split("\n")) {
+            if (aline.trim().equals("")) {
+                continue;
+            }
+            String[] items = aline.split("\t");
+            nodes.put(Integer.valueOf(items[1]), Double.valueOf(items[3]));
+        }
+        PathTable paths = new PathTable();
+        for (String pathContent : PathBenchmark.loadPaths(files[0])) {
+            paths.add(PathTable.parse(pathContent));
+        }
+        List<Link> links = PathBenchmark.loadLinks(files[2]);
+        paths.buildLinkIncidence(links);
+        List<Workflow> workflows = new ArrayList<>();
+        for (int i = 0; i < workflowNum; i++) {
+            workflows.add(WorkflowGenerator.getWorkflowGenerator().generateAWorkflow_V2(0));
+        }
+        return nodes.size() + paths.size() + workflows.size();
+    }
+}
@@ -0,0 +1,71 @@
+package com.sysu.lbc.bench;
+
+import com.sysu.lbc.Formulation;
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.metrics.SolveMetrics;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import com.sysu.lbc.tool.WorkloadGenerator;
+
+import java.util.Collections;
+
+/**
+ * 比较开启、关闭对称性约束时的求解时间、分支定界节点数和最终间隙。
+ * 实例有两种：bundled为默认的模板工作流(起始节点与工作流id相同)，shared为模板工作流且起始任务都在节点SHARED_ORIGIN上，
+ * pipeline为起始任务都在节点SHARED_ORIGIN上的PIPELINE_TASK_NUM个任务的流水线，规模小到纯Java后端也能求得最优解；
+ * 后两种实例的工作流两两可以互换。
+ * 用法：SymmetryBenchmark [2,3,4] [时间上限(秒)，默认60] [QUADRATIC|MCCORMICK|AGGREGATED，默认MCCORMICK] [bundled,shared,pipeline]
+ */
+public class SymmetryBenchmark {
+    static final String[] INSTANCES = {"bundled", "shared", "pipeline"};
+    static final int SHARED_ORIGIN = 1;
+    static final int PIPELINE_TASK_NUM = 3;
+    static final long SEED = 1;
+
+    public static void main(String[] args) throws Exception {
+        String[] workflowNums = (args.length > 0 ? args[0] : "2,3,4").split(",");
+        double timeLimit = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+        Formulation formulation = args.length > 2 ? Formulation.valueOf(args[2]) : Formulation.MCCORMICK;
+        String[] instances = args.length > 3 ? args[3].split(",") : INSTANCES;
+        Backend backend = Backend.isGurobiAvailable() ? Backend.GUROBI : Backend.BRANCH_AND_BOUND;
+        System.out.println("backend: " + backend);
+        System.out.println("instance\tworkflows\tsymmetry\tconstrs\ttime(ms)\tnodes\tobj\tgap");
+        for (String instance : instances) {
+            for (String workflowNum : workflowNums) {
+                int wfNum = Integer.parseInt(workflowNum.trim());
+                for (boolean symmetryBreaking : new boolean[]{false, true}) {
+                    run(instance, wfNum, symmetryBreaking, timeLimit, formulation, backend);
+                }
+            }
+        }
+    }
+
+    private static void run(String instance, int wfNum, boolean symmetryBreaking, double timeLimit,
+                            Formulation formulation, Backend backend) throws Exception {
+        WorkflowGenerator.resetWorkflowIdx();
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkflowNum(wfNum);
+        if ("shared".equals(instance)) {
+            solution.setWorkloadGenerator(new WorkloadGenerator(SEED)
+                    .setOriginNodes(Collections.singletonList(SHARED_ORIGIN)));
+        } else if ("pipeline".equals(instance)) {
+            solution.setWorkloadGenerator(new WorkloadGenerator(SEED)
+                    .setShapes(WorkloadGenerator.Shape.PIPELINE)
+                    .setTaskNum(PIPELINE_TASK_NUM, PIPELINE_TASK_NUM)
+                    .setOriginNodes(Collections.singletonList(SHARED_ORIGIN)));
+        }
+        solution.setBackend(backend);
+        solution.setFormulation(formulation);
+        solution.setTimeLimit(timeLimit);
+        solution.setWarmStart(true);
+        solution.setPruneYVar(true);
+        solution.setSymmetryBreaking(symmetryBreaking);
+        solution.prepare();
+        solution.doOptimize();
+        SolveMetrics metrics = solution.getMetrics();
+        double gap = metrics.hasSolution ? Math.abs(metrics.objVal - metrics.objBound) / Math.max(Math.abs(metrics.objVal), 1e-10) : 1;
+        System.out.printf("%s\t%d\t%s\t%d\t%d\t%d\t%.6f\t%.4f%n", instance, wfNum, symmetryBreaking ? "on" : "off",
+                solution.getSymmetryConstrNum(), metrics.optimizeTime, metrics.nodeCount, metrics.objVal, gap);
+        solution.dispose();
+    }
+}
@@ -0,0 +1,41 @@
+package com.sysu.lbc.bench;
+
+import com.sysu.lbc.cache.Fingerprint;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.tool.WorkloadGenerator;
+
+import java.util.List;
+
+/**
+ * 测量合成负载生成器的吞吐量，并检查结果的可复现性：同一种子在不同线程数下生成的工作流指纹应完全相同。
+ * 用法：WorkloadBenchmark [工作流数，默认100000] [种子，默认1] [1,2,4]
+ */
+public class WorkloadBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        String[] threadNums = (args.length > 2 ? args[2] : "1," + Runtime.getRuntime().availableProcessors()).split(",");
+        System.out.println("threads\tworkflows\ttasks\tflows\ttime(ms)\tchecksum");
+        for (String threadNum : threadNums) {
+            WorkloadGenerator generator = new WorkloadGenerator(seed)
+                    .setShapes(WorkloadGenerator.Shape.values())
+                    .setTaskNum(3, 6)
+                    .setTaskResource(WorkloadGenerator.Distribution.logNormal(40, 0.5))
+                    .setBandwidth(WorkloadGenerator.Distribution.uniform(5, 25))
+                    .setParallelism(Integer.parseInt(threadNum.trim()));
+            long t = System.nanoTime();
+            List<Workflow> workflows = generator.generate(0, count, 1);
+            long time = (System.nanoTime() - t) / 1000000;
+            // 工作流指纹与id无关，按顺序合并后作为整个实例的校验和
+            Fingerprint.Builder checksum = new Fingerprint.Builder();
+            long taskNum = 0;
+            long flowNum = 0;
+            for (Workflow wf : workflows) {
+                checksum.add(Fingerprint.of(wf));
+                taskNum += wf.getTasks().size();
+                flowNum += wf.getFlows().size();
+            }
+            System.out.println(threadNum.trim() + "\t" + count + "\t" + taskNum + "\t" + flowNum + "\t" + time + "\t" + checksum.build());
+        }
+    }
+}
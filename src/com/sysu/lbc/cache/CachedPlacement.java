@@ -0,0 +1,137 @@
+package com.sysu.lbc.cache;
+
+import com.sysu.lbc.dataStructure.*;
+
+import java.util.List;
+
+/**
+ * 与工作流实例无关的放置结果：每个工作流一行，按任务id记录节点，按流在工作流中的顺序记录路径id。
+ * 可以套用到指纹相同(结构相同)而工作流id不同的一组工作流上，工作流的顺序由调用方保证一致。
+ * gap为求解结束时的相对间隙：在求解器的间隙容差内的放置可以直接复用，否则只能作为初始解
+ */
+public class CachedPlacement {
+    // 第i个工作流的任务taskIds[i][k]放在节点taskNodes[i][k]上
+    private final int[][] taskIds;
+    private final int[][] taskNodes;
+    // 第i个工作流的第k个流两端的任务id和路径id，查找时按任务id匹配，不依赖getFlows的顺序
+    private final int[][] flowCurr;
+    private final int[][] flowSucc;
+    private final int[][] flowPaths;
+    public final double cost;
+    public final double gap;
+
+    private CachedPlacement(int wfNum, double cost, double gap) {
+        taskIds = new int[wfNum][];
+        taskNodes = new int[wfNum][];
+        flowCurr = new int[wfNum][];
+        flowSucc = new int[wfNum][];
+        flowPaths = new int[wfNum][];
+        this.cost = cost;
+        this.gap = gap;
+    }
+
+    /**
+     * 取出placement中wfs这些工作流的部分，placement是已证明的最优解；有任务或流未放置时返回null
+     */
+    public static CachedPlacement of(List<Workflow> wfs, Placement placement) {
+        return of(wfs, placement, 0);
+    }
+
+    /**
+     * @param gap 求得placement时的相对间隙
+     */
+    public static CachedPlacement of(List<Workflow> wfs, Placement placement, double gap) {
+        CachedPlacement result = new CachedPlacement(wfs.size(), placement.cost, gap);
+        for (int i = 0; i < wfs.size(); i++) {
+            Workflow wf = wfs.get(i);
+            int taskNum = wf.getTasks().size();
+            result.taskIds[i] = new int[taskNum];
+            result.taskNodes[i] = new int[taskNum];
+            int k = 0;
+            for (Task task : wf.getTasks()) {
+                Integer node = placement.getNode(task);
+                if (null == node) {
+                    return null;
+                }
+                result.taskIds[i][k] = task.taskId;
+                result.taskNodes[i][k++] = node;
+            }
+            List<Flow> flows = wf.getFlows();
+            result.flowCurr[i] = new int[flows.size()];
+            result.flowSucc[i] = new int[flows.size()];
+            result.flowPaths[i] = new int[flows.size()];
+            for (k = 0; k < flows.size(); k++) {
+                Flow flow = flows.get(k);
+                Integer pathId = placement.getPath(flow);
+                if (null == pathId) {
+                    return null;
+                }
+                result.flowCurr[i][k] = flow.currTask.taskId;
+                result.flowSucc[i][k] = flow.succTask.taskId;
+                result.flowPaths[i][k] = pathId;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 套用到wfs上，wfs与缓存时的工作流一一对应；任务或流对不上时返回null
+     */
+    public Placement toPlacement(List<Workflow> wfs) {
+        if (wfs.size() != taskIds.length) {
+            return null;
+        }
+        Placement result = new Placement();
+        result.cost = cost;
+        for (int i = 0; i < wfs.size(); i++) {
+            Workflow wf = wfs.get(i);
+            if (wf.getTasks().size() != taskIds[i].length || wf.getFlows().size() != flowPaths[i].length) {
+                return null;
+            }
+            for (Task task : wf.getTasks()) {
+                int k = indexOf(taskIds[i], task.taskId);
+                if (k < 0) {
+                    return null;
+                }
+                result.taskNodes.put(task, taskNodes[i][k]);
+            }
+            for (int k = 0; k < flowPaths[i].length; k++) {
+                Flow flow = findFlow(wf, flowCurr[i][k], flowSucc[i][k]);
+                if (null == flow) {
+                    return null;
+                }
+                result.flowPaths.put(flow, flowPaths[i][k]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 占用内存的估计值(字节)，用于限制缓存的总大小
+     */
+    public long estimateBytes() {
+        long result = 64 + 5 * (16 + 16L * taskIds.length);
+        for (int i = 0; i < taskIds.length; i++) {
+            result += 8L * taskIds[i].length + 12L * flowPaths[i].length;
+        }
+        return result;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int k = 0; k < values.length; k++) {
+            if (values[k] == value) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static Flow findFlow(Workflow wf, int currTaskId, int succTaskId) {
+        for (Flow flow : wf.getFlows()) {
+            if (flow.currTask.taskId == currTaskId && flow.succTask.taskId == succTaskId) {
+                return flow;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.sysu.lbc.cache;
+
+import com.sysu.lbc.dataStructure.Flow;
+import com.sysu.lbc.dataStructure.Link;
+import com.sysu.lbc.dataStructure.PathTable;
+import com.sysu.lbc.dataStructure.Workflow;
+
+import java.util.*;
+
+/**
+ * 128位指纹，由两个独立的64位哈希组成，用作解缓存的键。
+ * 内容按规范顺序依次加入Builder：工作流的流按(前驱任务id, 后继任务id)排序，节点按id排序，
+ * 因此与工作流id、集合的遍历顺序无关；两个指纹相同而内容不同的概率可以忽略
+ */
+public final class Fingerprint {
+    public final long hi;
+    public final long lo;
+
+    Fingerprint(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    /**
+     * 工作流DAG的指纹：起始节点，以及每个流两端任务的id、资源和带宽
+     */
+    public static Fingerprint of(Workflow wf) {
+        return of(wf, wf.getOriginNodeId());
+    }
+
+    /**
+     * 以originNodeId代替工作流自己的起始节点计算指纹，例如起始节点不在拓扑中、不影响放置时统一取-1
+     */
+    public static Fingerprint of(Workflow wf, int originNodeId) {
+        List<Flow> flows = new ArrayList<>(wf.getFlows());
+        flows.sort(Comparator.comparingInt((Flow f) -> f.currTask.taskId).thenComparingInt(f -> f.succTask.taskId));
+        Builder builder = new Builder().add(originNodeId).add(flows.size());
+        for (Flow flow : flows) {
+            builder.add(flow.currTask.taskId).add(flow.currTask.neededResource)
+                    .add(flow.succTask.taskId).add(flow.succTask.neededResource)
+                    .add(flow.neededBandwidth);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 拓扑的指纹：节点容量、链路带宽和全部路径。缓存的放置用路径id表示路径，路径集合变化后指纹随之变化
+     */
+    public static Fingerprint of(Map<Integer, Double> nodes, List<Link> links, PathTable paths) {
+        Builder builder = new Builder().add(nodes.size());
+        for (int nodeId : new TreeSet<>(nodes.keySet())) {
+            builder.add(nodeId).add(nodes.get(nodeId));
+        }
+        builder.add(links.size());
+        for (Link link : links) {
+            builder.add(link.srcNodeId).add(link.dstNodeId).add(link.bandwidth);
+        }
+        builder.add(paths.size());
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            int nodeNum = paths.getHopNum(pathId) + 1;
+            builder.add(nodeNum);
+            for (int i = 0; i < nodeNum; i++) {
+                builder.add(paths.getNode(pathId, i));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 剩余负载的指纹：负载按quantum取整后加入，浮点误差不会使相同的状态得到不同的指纹
+     */
+    public static Fingerprint ofLoads(double[] nodeLoad, double[] linkLoad, double quantum) {
+        Builder builder = new Builder().add(nodeLoad.length);
+        for (double load : nodeLoad) {
+            builder.add(Math.round(load / quantum));
+        }
+        builder.add(linkLoad.length);
+        for (double load : linkLoad) {
+            builder.add(Math.round(load / quantum));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Fingerprint && ((Fingerprint) obj).hi == hi && ((Fingerprint) obj).lo == lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (lo ^ (lo >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", hi, lo);
+    }
+
+    public static class Builder {
+        private long h1 = 0x6A09E667F3BCC908L;
+        private long h2 = 0xBB67AE8584CAA73BL;
+
+        public Builder add(long value) {
+            h1 = mix(h1 ^ value) + 0x9E3779B97F4A7C15L;
+            h2 = mix(h2 + value * 0xC2B2AE3D27D4EB4FL) ^ (h2 >>> 31);
+            return this;
+        }
+
+        // -0.0与0.0视为相同
+        public Builder add(double value) {
+            return add(Double.doubleToLongBits(0 == value ? 0.0 : value));
+        }
+
+        public Builder add(Fingerprint fingerprint) {
+            return add(fingerprint.hi).add(fingerprint.lo);
+        }
+
+        public Fingerprint build() {
+            return new Fingerprint(mix(h1 ^ 0x3C6EF372FE94F82BL), mix(h2 ^ 0xA54FF53A5F1D36F1L));
+        }
+
+        // splitmix64的终结函数
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
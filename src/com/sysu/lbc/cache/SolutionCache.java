@@ -0,0 +1,157 @@
+package com.sysu.lbc.cache;
+
+import com.sysu.lbc.dataStructure.Workflow;
+
+import java.util.*;
+
+/**
+ * 放置结果的LRU缓存。键由工作流DAG、拓扑(节点容量、链路带宽、路径)和剩余负载的指纹合并而成，
+ * 同样的模板在同样的拓扑和负载下再次出现时，可以直接复用上一次的放置或把它作为初始解。
+ * 条目数和估计的内存占用都有上限，超出时淘汰最久未访问的条目。
+ * 所有方法都是同步的，多个GurobiSolution可以共用一个缓存
+ */
+public class SolutionCache {
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    /** 剩余负载取整的粒度 */
+    public static final double LOAD_QUANTUM = 1e-3;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Fingerprint, CachedPlacement> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long puts = 0;
+    private long evictions = 0;
+
+    public SolutionCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public SolutionCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 一组工作流的键：各工作流的指纹排序后与拓扑、剩余负载的指纹合并，与工作流的顺序和id无关。
+     * 缓存的放置按canonicalOrder的顺序保存和套用
+     *
+     * @param residual 剩余负载的指纹(Fingerprint.ofLoads)，没有其他负载时可以为null
+     */
+    public static Fingerprint key(List<Workflow> wfs, Fingerprint topology, Fingerprint residual) {
+        Fingerprint.Builder builder = new Fingerprint.Builder().add(topology).add(wfs.size());
+        for (Fingerprint fingerprint : sortedFingerprints(wfs).keySet()) {
+            builder.add(fingerprint);
+        }
+        if (null != residual) {
+            builder.add(residual);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按指纹排序的工作流，指纹相同的工作流保持原来的相对顺序
+     */
+    public static List<Workflow> canonicalOrder(List<Workflow> wfs) {
+        List<Workflow> result = new ArrayList<>();
+        for (List<Workflow> group : sortedFingerprints(wfs).values()) {
+            result.addAll(group);
+        }
+        return result;
+    }
+
+    private static TreeMap<Fingerprint, List<Workflow>> sortedFingerprints(List<Workflow> wfs) {
+        TreeMap<Fingerprint, List<Workflow>> result = new TreeMap<>(
+                Comparator.comparingLong((Fingerprint f) -> f.hi).thenComparingLong(f -> f.lo));
+        for (Workflow wf : wfs) {
+            Fingerprint fingerprint = Fingerprint.of(wf);
+            List<Workflow> group = result.get(fingerprint);
+            if (null == group) {
+                group = new ArrayList<>();
+                result.put(fingerprint, group);
+            }
+            group.add(wf);
+        }
+        return result;
+    }
+
+    /**
+     * @return 缓存的放置，没有时返回null；同时计入命中或未命中次数
+     */
+    public synchronized CachedPlacement get(Fingerprint key) {
+        CachedPlacement result = entries.get(key);
+        if (null == result) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(Fingerprint key, CachedPlacement placement) {
+        if (null == placement) {
+            return;
+        }
+        // 已有间隙更小的放置时不替换
+        CachedPlacement existing = entries.get(key);
+        if (null != existing && existing.gap < placement.gap) {
+            return;
+        }
+        CachedPlacement old = entries.put(key, placement);
+        if (null != old) {
+            bytes -= old.estimateBytes();
+        }
+        bytes += placement.estimateBytes();
+        puts++;
+        Iterator<CachedPlacement> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+            bytes -= it.next().estimateBytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 缓存条目估计占用的内存(字节)
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getPuts() {
+        return puts;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+    }
+
+    public synchronized void print() {
+        System.out.println("解缓存：命中" + hits + "，未命中" + misses + "，命中率" + getHitRate()
+                + "，写入" + puts + "，淘汰" + evictions + "，条目数" + entries.size() + "，估计占用" + bytes + "B");
+    }
+}
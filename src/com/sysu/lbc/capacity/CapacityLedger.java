@@ -0,0 +1,320 @@
+package com.sysu.lbc.capacity;
+
+import com.sysu.lbc.dataStructure.*;
+
+import java.util.*;
+
+/**
+ * 残余容量账本：记录已提交(放置固定、不再参与求解)的工作流在各节点上占用的资源和各链路上占用的带宽。
+ * 提交时按工作流的放置累加一次占用并保存各项，释放时按保存的各项扣除，
+ * 开销只与该工作流的任务数和路径跳数有关，与已提交的工作流数量无关。
+ * <p>
+ * canAdmit在求解之前检查新工作流的几个必要条件(任务放得下、流有带宽足够的路径)，不满足时加入硬容量约束的模型必然不可行，
+ * 可以直接拒绝而不必求解。
+ * <p>
+ * 起始任务固定在起始节点上，容量小于起始任务资源的节点做起始节点时canAdmit总是拒绝。
+ * 起始节点由调用方选择(见Simulator)，使用硬容量约束时调用方要保证起始节点的容量放得下起始任务
+ */
+public class CapacityLedger {
+    static final double EPS = 1e-9;
+
+    private final PathTable paths;
+    private final int[] nodeIds;
+    private final double[] nodeCap;
+    private final double[] nodeUsed;
+    // 节点id -> 节点下标，顺序与nodes的遍历顺序相同，不存在的id为-1
+    private final int[] nodeIdxOf;
+    private final double[] linkBw;
+    private final double[] linkUsed;
+    private final Map<Integer, Commitment> commitments = new HashMap<>();
+
+    private long committedNum = 0;
+    private long releasedNum = 0;
+    private long admittedNum = 0;
+    private long rejectedNum = 0;
+
+    // 一个工作流的占用：各任务所在的节点下标与资源，各流经过的链路与带宽
+    private static class Commitment {
+        final int[] nodes;
+        final double[] resources;
+        final int[] links;
+        final double[] bandwidths;
+
+        Commitment(int[] nodes, double[] resources, int[] links, double[] bandwidths) {
+            this.nodes = nodes;
+            this.resources = resources;
+            this.links = links;
+            this.bandwidths = bandwidths;
+        }
+    }
+
+    public CapacityLedger(Map<Integer, Double> nodes, List<Link> links, PathTable paths) {
+        this.paths = paths;
+        nodeIds = new int[nodes.size()];
+        nodeCap = new double[nodes.size()];
+        nodeUsed = new double[nodes.size()];
+        int maxNodeId = -1;
+        int v = 0;
+        for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
+            nodeIds[v] = nodeEntry.getKey();
+            nodeCap[v++] = nodeEntry.getValue();
+            maxNodeId = Math.max(maxNodeId, nodeEntry.getKey());
+        }
+        nodeIdxOf = new int[maxNodeId + 1];
+        Arrays.fill(nodeIdxOf, -1);
+        for (v = 0; v < nodeIds.length; v++) {
+            if (nodeIds[v] >= 0) {
+                nodeIdxOf[nodeIds[v]] = v;
+            }
+        }
+        linkBw = new double[links.size()];
+        linkUsed = new double[links.size()];
+        for (int j = 0; j < links.size(); j++) {
+            linkBw[j] = links.get(j).bandwidth;
+        }
+    }
+
+    /**
+     * 按placement记录工作流的占用。工作流已提交、或有任务(流)没有放置在拓扑中的节点(路径)上时不记录，返回false
+     */
+    public boolean commit(Workflow wf, Placement placement) {
+        if (commitments.containsKey(wf.getWF_ID())) {
+            return false;
+        }
+        Set<Task> tasks = wf.getTasks();
+        int[] nodes = new int[tasks.size()];
+        double[] resources = new double[tasks.size()];
+        int t = 0;
+        for (Task task : tasks) {
+            Integer nodeId = placement.getNode(task);
+            nodes[t] = null == nodeId ? -1 : nodeIdx(nodeId);
+            if (nodes[t] < 0) {
+                return false;
+            }
+            resources[t++] = task.neededResource;
+        }
+        int hopNum = 0;
+        for (Flow flow : wf.getFlows()) {
+            Integer pathId = placement.getPath(flow);
+            if (null == pathId) {
+                return false;
+            }
+            hopNum += paths.getHopNum(pathId);
+        }
+        int[] links = new int[hopNum];
+        double[] bandwidths = new double[hopNum];
+        int k = 0;
+        for (Flow flow : wf.getFlows()) {
+            int pathId = placement.getPath(flow);
+            for (int i = 0; i < paths.getHopNum(pathId); i++) {
+                int link = paths.getHopLink(pathId, i);
+                if (link >= 0) {
+                    links[k] = link;
+                    bandwidths[k++] = flow.neededBandwidth;
+                }
+            }
+        }
+        Commitment commitment = new Commitment(nodes, resources, Arrays.copyOf(links, k), Arrays.copyOf(bandwidths, k));
+        commitments.put(wf.getWF_ID(), commitment);
+        apply(commitment, 1);
+        committedNum++;
+        return true;
+    }
+
+    /**
+     * 释放已提交的工作流占用的容量，工作流未提交时返回false
+     */
+    public boolean release(int wfId) {
+        Commitment commitment = commitments.remove(wfId);
+        if (null == commitment) {
+            return false;
+        }
+        apply(commitment, -1);
+        // 账本清空时占用归零，避免反复增减累积浮点误差
+        if (commitments.isEmpty()) {
+            Arrays.fill(nodeUsed, 0);
+            Arrays.fill(linkUsed, 0);
+        }
+        releasedNum++;
+        return true;
+    }
+
+    private void apply(Commitment commitment, int sign) {
+        for (int t = 0; t < commitment.nodes.length; t++) {
+            nodeUsed[commitment.nodes[t]] += sign * commitment.resources[t];
+        }
+        for (int k = 0; k < commitment.links.length; k++) {
+            linkUsed[commitment.links[k]] += sign * commitment.bandwidths[k];
+        }
+    }
+
+    /**
+     * 在已提交的占用之上，wf与pending(尚未提交、同时求解的工作流)能否都放下的必要条件：
+     * 各节点的剩余资源够放固定在其上的起始任务，剩余资源之和不少于全部任务的资源，
+     * wf的每个任务都有放得下的节点，wf的每个流都有一条各链路剩余带宽都足够的路径。
+     * 不满足时加入硬容量约束的模型必然不可行
+     */
+    public boolean canAdmit(Workflow wf, Collection<Workflow> pending) {
+        double[] free = new double[nodeIds.length];
+        for (int v = 0; v < nodeIds.length; v++) {
+            free[v] = nodeCap[v] - nodeUsed[v];
+        }
+        double total = addDemand(wf, free);
+        for (Workflow other : pending) {
+            total += addDemand(other, free);
+        }
+        double freeTotal = 0;
+        for (int v = 0; v < nodeIds.length; v++) {
+            if (free[v] < -EPS) {
+                return reject();
+            }
+            freeTotal += nodeCap[v] - nodeUsed[v];
+        }
+        if (total > freeTotal + EPS) {
+            return reject();
+        }
+        int origin = nodeIdx(wf.getOriginNodeId());
+        for (Task task : wf.getTasks()) {
+            if (origin >= 0 && 1 == task.taskId) {
+                continue;
+            }
+            boolean fits = false;
+            for (int v = 0; v < nodeIds.length && !fits; v++) {
+                fits = free[v] >= task.neededResource - EPS;
+            }
+            if (!fits) {
+                return reject();
+            }
+        }
+        for (Flow flow : wf.getFlows()) {
+            int src = origin >= 0 && 1 == flow.currTask.taskId ? wf.getOriginNodeId() : -1;
+            if (!hasPath(src, flow.neededBandwidth)) {
+                return reject();
+            }
+        }
+        admittedNum++;
+        return true;
+    }
+
+    // 起始任务固定在起始节点上，从该节点的剩余资源中扣除；返回工作流全部任务的资源
+    private double addDemand(Workflow wf, double[] free) {
+        int origin = nodeIdx(wf.getOriginNodeId());
+        double result = 0;
+        for (Task task : wf.getTasks()) {
+            result += task.neededResource;
+            if (origin >= 0 && 1 == task.taskId) {
+                free[origin] -= task.neededResource;
+            }
+        }
+        return result;
+    }
+
+    // 是否有起点为src(为-1时不限)、各链路剩余带宽都不少于bandwidth的路径
+    private boolean hasPath(int src, double bandwidth) {
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            if (src >= 0 && paths.getSrc(pathId) != src) {
+                continue;
+            }
+            boolean fits = true;
+            for (int i = 0; i < paths.getHopNum(pathId) && fits; i++) {
+                int link = paths.getHopLink(pathId, i);
+                fits = link < 0 || linkBw[link] - linkUsed[link] >= bandwidth - EPS;
+            }
+            if (fits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean reject() {
+        rejectedNum++;
+        return false;
+    }
+
+    private int nodeIdx(int nodeId) {
+        return nodeId >= 0 && nodeId < nodeIdxOf.length ? nodeIdxOf[nodeId] : -1;
+    }
+
+    public boolean isCommitted(int wfId) {
+        return commitments.containsKey(wfId);
+    }
+
+    public boolean isEmpty() {
+        return commitments.isEmpty();
+    }
+
+    /**
+     * 已提交、尚未释放的工作流数
+     */
+    public int size() {
+        return commitments.size();
+    }
+
+    /**
+     * 节点上已提交的负载(占用资源/容量)，节点不在拓扑中时为0
+     */
+    public double getNodeLoad(int nodeId) {
+        int v = nodeIdx(nodeId);
+        return v < 0 ? 0 : nodeUsed[v] / nodeCap[v];
+    }
+
+    /**
+     * 链路上已提交的负载(占用带宽/链路带宽)
+     */
+    public double getLinkLoad(int link) {
+        return linkUsed[link] / linkBw[link];
+    }
+
+    /**
+     * 节点的容量，节点不在拓扑中时为0
+     */
+    public double getNodeCapacity(int nodeId) {
+        int v = nodeIdx(nodeId);
+        return v < 0 ? 0 : nodeCap[v];
+    }
+
+    /**
+     * 拓扑中的节点id，顺序与getNodeLoad等使用的nodes的遍历顺序相同
+     */
+    public List<Integer> getNodeIds() {
+        List<Integer> result = new ArrayList<>(nodeIds.length);
+        for (int nodeId : nodeIds) {
+            result.add(nodeId);
+        }
+        return result;
+    }
+
+    /**
+     * 节点的剩余资源，节点不在拓扑中时为0
+     */
+    public double getNodeResidual(int nodeId) {
+        int v = nodeIdx(nodeId);
+        return v < 0 ? 0 : nodeCap[v] - nodeUsed[v];
+    }
+
+    public double getLinkResidual(int link) {
+        return linkBw[link] - linkUsed[link];
+    }
+
+    public long getCommittedNum() {
+        return committedNum;
+    }
+
+    public long getReleasedNum() {
+        return releasedNum;
+    }
+
+    public long getAdmittedNum() {
+        return admittedNum;
+    }
+
+    public long getRejectedNum() {
+        return rejectedNum;
+    }
+
+    public void print() {
+        System.out.println("容量账本：提交" + committedNum + "，释放" + releasedNum + "，当前" + commitments.size()
+                + "个工作流；准入检查通过" + admittedNum + "，拒绝" + rejectedNum);
+    }
+}
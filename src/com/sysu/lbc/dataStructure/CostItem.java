@@ -1,23 +1,23 @@
 package com.sysu.lbc.dataStructure;
 
-import gurobi.GRBVar;
+import com.sysu.lbc.model.ModelVar;
 
 public class CostItem {
-    GRBVar var;
+    ModelVar var;
     double needResource;
     double offerResource;
 
-    public CostItem(GRBVar yVar, double needBandwidth, double linkBandwidth) {
+    public CostItem(ModelVar yVar, double needBandwidth, double linkBandwidth) {
         this.var = yVar;
         this.needResource = needBandwidth;
         this.offerResource = linkBandwidth;
     }
 
-    public GRBVar getVar() {
+    public ModelVar getVar() {
         return var;
     }
 
-    public void setVar(GRBVar var) {
+    public void setVar(ModelVar var) {
         this.var = var;
     }
 
@@ -1,11 +1,11 @@
 package com.sysu.lbc.dataStructure;
 
 public class Flow {
-	public Task currTask;
-	public Task succTask;
-	public Double neededBandwidth;
+	public final Task currTask;
+	public final Task succTask;
+	public final double neededBandwidth;
 	
-	public Flow(Task currTask, Task succTask, Double neededBandwidth) {
+	public Flow(Task currTask, Task succTask, double neededBandwidth) {
 		super();
 		this.currTask = currTask;
 		this.succTask = succTask;
@@ -1,11 +1,11 @@
 package com.sysu.lbc.dataStructure;
 
 public class Link {
-    public Integer srcNodeId;
-    public Integer dstNodeId;
-    public Double bandwidth;
+    public final int srcNodeId;
+    public final int dstNodeId;
+    public final double bandwidth;
 
-    public Link(Integer srcNodeId, Integer dstNodeId, Double bandwidth) {
+    public Link(int srcNodeId, int dstNodeId, double bandwidth) {
         this.srcNodeId = srcNodeId;
         this.dstNodeId = dstNodeId;
         this.bandwidth = bandwidth;
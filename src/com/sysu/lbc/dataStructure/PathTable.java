@@ -0,0 +1,268 @@
+package com.sysu.lbc.dataStructure;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * 预先解析好的路径集合，路径id从1开始连续编号。
+ * 所有路径的节点按顺序存放在一个int数组中，另外按链路记录经过它的路径id（CSR格式），
+ * 构建链路负载时不需要再做任何字符串处理。
+ */
+public class PathTable {
+    private static final int[] NO_PATHS = new int[0];
+
+    private int pathNum = 0;
+    // 第i条路径(pathId = i + 1)的节点为 nodes[nodeOffsets[i] .. nodeOffsets[i + 1])
+    private int[] nodeOffsets = new int[17];
+    private int[] nodes = new int[64];
+
+    // 第j条链路经过的路径id为 linkPaths[linkOffsets[j] .. linkOffsets[j + 1])
+    private int[] linkOffsets = new int[1];
+    private int[] linkPaths = new int[0];
+    // 与nodes对齐：nodes[k] -> nodes[k + 1]这一跳对应的链路编号，不在链路列表中或在同一路径中重复时为-1
+    private int[] hopLinks = new int[0];
+
+    // (src, dst) -> 该节点对之间的路径id，按需建立
+    private Map<Long, int[]> pathsBetween;
+
+    /**
+     * 解析"1>3>4"格式的路径
+     */
+    public static int[] parse(String pathContent) {
+        int[] result = new int[8];
+        int size = 0;
+        int value = 0;
+        boolean inNumber = false;
+        for (int i = 0; i < pathContent.length(); i++) {
+            char c = pathContent.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                inNumber = true;
+            } else if (c == '>') {
+                if (size == result.length) {
+                    result = Arrays.copyOf(result, size * 2);
+                }
+                result[size++] = value;
+                value = 0;
+                inNumber = false;
+            }
+        }
+        if (inNumber) {
+            if (size == result.length) {
+                result = Arrays.copyOf(result, size + 1);
+            }
+            result[size++] = value;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return 新路径的id
+     */
+    public int add(int[] pathNodes) {
+        return add(pathNodes, pathNodes.length);
+    }
+
+    /**
+     * 添加pathNodes的前length个节点组成的路径，pathNodes可以是复用的缓冲区
+     *
+     * @return 新路径的id
+     */
+    public int add(int[] pathNodes, int length) {
+        if (pathNum + 2 > nodeOffsets.length) {
+            nodeOffsets = Arrays.copyOf(nodeOffsets, nodeOffsets.length * 2);
+        }
+        int start = nodeOffsets[pathNum];
+        if (start + length > nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, start + length));
+        }
+        System.arraycopy(pathNodes, 0, nodes, start, length);
+        nodeOffsets[++pathNum] = start + length;
+        pathsBetween = null;
+        return pathNum;
+    }
+
+    public int size() {
+        return pathNum;
+    }
+
+    public int getSrc(int pathId) {
+        return nodes[nodeOffsets[pathId - 1]];
+    }
+
+    public int getDst(int pathId) {
+        return nodes[nodeOffsets[pathId] - 1];
+    }
+
+    public int getHopNum(int pathId) {
+        return nodeOffsets[pathId] - nodeOffsets[pathId - 1] - 1;
+    }
+
+    /**
+     * 路径上第i个节点，i从0开始
+     */
+    public int getNode(int pathId, int i) {
+        return nodes[nodeOffsets[pathId - 1] + i];
+    }
+
+    public String getContent(int pathId) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = nodeOffsets[pathId - 1]; i < nodeOffsets[pathId]; i++) {
+            if (sb.length() > 0) {
+                sb.append('>');
+            }
+            sb.append(nodes[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按links中的顺序建立链路到路径的关联，链路不区分方向，一条路径重复经过同一链路时只记录一次
+     */
+    public void buildLinkIncidence(List<Link> links) {
+        Map<Long, Integer> linkIdxOf = new HashMap<>();
+        for (int j = 0; j < links.size(); j++) {
+            Link link = links.get(j);
+            linkIdxOf.put(undirectedKey(link.srcNodeId, link.dstNodeId), j);
+        }
+        int[] pathLinkIdx = new int[nodeOffsets[pathNum]];
+        int[] counts = new int[links.size()];
+        int[] lastPathOfLink = new int[links.size()];
+        for (int i = 0; i < pathNum; i++) {
+            for (int k = nodeOffsets[i]; k < nodeOffsets[i + 1] - 1; k++) {
+                Integer j = linkIdxOf.get(undirectedKey(nodes[k], nodes[k + 1]));
+                if (null == j || lastPathOfLink[j] == i + 1) {
+                    pathLinkIdx[k] = -1;
+                    continue;
+                }
+                lastPathOfLink[j] = i + 1;
+                pathLinkIdx[k] = j;
+                counts[j]++;
+            }
+        }
+        linkOffsets = new int[links.size() + 1];
+        for (int j = 0; j < links.size(); j++) {
+            linkOffsets[j + 1] = linkOffsets[j] + counts[j];
+        }
+        linkPaths = new int[linkOffsets[links.size()]];
+        int[] fill = Arrays.copyOf(linkOffsets, links.size());
+        for (int i = 0; i < pathNum; i++) {
+            for (int k = nodeOffsets[i]; k < nodeOffsets[i + 1] - 1; k++) {
+                if (pathLinkIdx[k] >= 0) {
+                    linkPaths[fill[pathLinkIdx[k]]++] = i + 1;
+                }
+            }
+        }
+        hopLinks = pathLinkIdx;
+    }
+
+    /**
+     * 路径第i跳(第i个节点到第i + 1个节点)对应的链路编号，没有对应链路或该链路已在本路径中出现过时返回-1
+     */
+    public int getHopLink(int pathId, int i) {
+        return hopLinks[nodeOffsets[pathId - 1] + i];
+    }
+
+    /**
+     * 从src到dst的全部路径id，没有时返回空数组
+     */
+    public int[] getPathsBetween(int src, int dst) {
+        if (null == pathsBetween) {
+            Map<Long, List<Integer>> grouped = new HashMap<>();
+            for (int pathId = 1; pathId <= pathNum; pathId++) {
+                Long key = pairKey(getSrc(pathId), getDst(pathId));
+                List<Integer> ids = grouped.get(key);
+                if (null == ids) {
+                    ids = new ArrayList<>();
+                    grouped.put(key, ids);
+                }
+                ids.add(pathId);
+            }
+            pathsBetween = new HashMap<>();
+            for (Map.Entry<Long, List<Integer>> entry : grouped.entrySet()) {
+                int[] ids = new int[entry.getValue().size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = entry.getValue().get(i);
+                }
+                pathsBetween.put(entry.getKey(), ids);
+            }
+        }
+        int[] result = pathsBetween.get(pairKey(src, dst));
+        return null == result ? NO_PATHS : result;
+    }
+
+    public int getLinkPathStart(int linkIdx) {
+        return linkOffsets[linkIdx];
+    }
+
+    public int getLinkPathEnd(int linkIdx) {
+        return linkOffsets[linkIdx + 1];
+    }
+
+    /**
+     * 配合getLinkPathStart/getLinkPathEnd使用：for (k = start; k < end; k++) getLinkPath(k)
+     */
+    public int getLinkPath(int k) {
+        return linkPaths[k];
+    }
+
+    /**
+     * 写出路径和链路-路径关联(快照格式的路径段)，与read对应
+     */
+    public void write(DataOutput out) throws IOException {
+        int total = nodeOffsets[pathNum];
+        out.writeInt(pathNum);
+        writeInts(out, nodeOffsets, pathNum + 1);
+        writeInts(out, nodes, total);
+        boolean hasIncidence = hopLinks.length == total && linkOffsets.length > 1;
+        out.writeBoolean(hasIncidence);
+        if (hasIncidence) {
+            int linkNum = linkOffsets.length - 1;
+            out.writeInt(linkNum);
+            writeInts(out, linkOffsets, linkNum + 1);
+            writeInts(out, linkPaths, linkOffsets[linkNum]);
+            writeInts(out, hopLinks, total);
+        }
+    }
+
+    /**
+     * 从快照中读出路径表，数组用IntBuffer整块拷贝，不需要重新解析或建立关联
+     */
+    public static PathTable read(ByteBuffer in) {
+        PathTable result = new PathTable();
+        result.pathNum = in.getInt();
+        result.nodeOffsets = readInts(in, result.pathNum + 1);
+        result.nodes = readInts(in, result.nodeOffsets[result.pathNum]);
+        if (0 != in.get()) {
+            int linkNum = in.getInt();
+            result.linkOffsets = readInts(in, linkNum + 1);
+            result.linkPaths = readInts(in, result.linkOffsets[linkNum]);
+            result.hopLinks = readInts(in, result.nodes.length);
+        }
+        return result;
+    }
+
+    private static void writeInts(DataOutput out, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in, int length) {
+        int[] result = new int[length];
+        in.asIntBuffer().get(result);
+        in.position(in.position() + 4 * length);
+        return result;
+    }
+
+    // 与ModelIndex.key相同，低32位按无符号处理，负的dst不会覆盖src
+    private static long pairKey(int src, int dst) {
+        return ((long) src << 32) | (dst & 0xffffffffL);
+    }
+
+    private static long undirectedKey(int u, int v) {
+        return u < v ? pairKey(u, v) : pairKey(v, u);
+    }
+}
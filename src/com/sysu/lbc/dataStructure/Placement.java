@@ -0,0 +1,23 @@
+package com.sysu.lbc.dataStructure;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一组工作流的放置结果：每个任务所在的节点、每个流使用的路径，以及对应的节点与链路负载代价
+ */
+public class Placement {
+    public Map<Task, Integer> taskNodes = new HashMap<>();
+    public Map<Flow, Integer> flowPaths = new HashMap<>();
+    public double cost;
+    /** 是否所有任务都已放置、所有流都找到了路径 */
+    public boolean complete = true;
+
+    public Integer getNode(Task task) {
+        return taskNodes.get(task);
+    }
+
+    public Integer getPath(Flow flow) {
+        return flowPaths.get(flow);
+    }
+}
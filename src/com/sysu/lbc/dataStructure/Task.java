@@ -1,11 +1,11 @@
 package com.sysu.lbc.dataStructure;
 
 public class Task {
-    public Integer workflowId;
-    public Integer taskId;
-    public Double neededResource;
+    public final int workflowId;
+    public final int taskId;
+    public final double neededResource;
 
-    public Task(Integer WF_ID, Integer taskId, Double neededResource) {
+    public Task(int WF_ID, int taskId, double neededResource) {
         super();
         this.workflowId = WF_ID;
         this.taskId = taskId;
@@ -14,8 +14,7 @@ public class Task {
 
     @Override
     public boolean equals(Object obj) {
-        return obj instanceof Task && ((Task) obj).workflowId.intValue() == this.workflowId.intValue()
-                && ((Task) obj).taskId.intValue() == this.taskId.intValue();
+        return obj instanceof Task && ((Task) obj).workflowId == this.workflowId && ((Task) obj).taskId == this.taskId;
     }
 
     @Override
@@ -26,4 +25,4 @@ public class Task {
         return result;
     }
 
-}
\ No newline at end of file
+}
@@ -1,7 +1,7 @@
 package com.sysu.lbc.dataStructure;
 
-import gurobi.GRBVar;
+import com.sysu.lbc.model.ModelVar;
 
 public class Var {
-   public GRBVar var = null;
+   public ModelVar var = null;
 }
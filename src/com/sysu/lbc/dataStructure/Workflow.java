@@ -7,8 +7,8 @@ package com.sysu.lbc.dataStructure;
  */
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class Workflow {
@@ -18,8 +18,15 @@ public class Workflow {
 	/** 工作流持续的时长 */
 	private Double duration;
 
+	/** 起始任务所在的无人机节点，未设置时与工作流id相同 */
+	private Integer originNodeId;
+
 	private ArrayList<Flow> flows;
 
+	/** getTasks的缓存，流变化后重新生成 */
+	private Set<Task> tasks;
+	private int tasksFlowNum = -1;
+
 	public Workflow(Integer wF_ID, Double duration, ArrayList<Flow> flows) {
 		super();
 		WF_ID = wF_ID;
@@ -35,16 +42,25 @@ public class Workflow {
 		if (f == null)
 			return false;
 		flows.add(f);
+		tasks = null;
 		return true;
 	}
 
+	/**
+	 * 工作流的全部任务，按在流中首次出现的顺序排列。结果会被缓存，调用方不能修改；
+	 * 直接修改getFlows()返回的列表时，只能通过流的个数发现变化
+	 */
 	public Set<Task> getTasks(){
-		Set<Task> result = new HashSet<>();
-		for(Flow flows : flows){
-			result.add(flows.currTask);
-			result.add(flows.succTask);
+		if (null == tasks || tasksFlowNum != flows.size()) {
+			Set<Task> result = new LinkedHashSet<>();
+			for(Flow flow : flows){
+				result.add(flow.currTask);
+				result.add(flow.succTask);
+			}
+			tasks = Collections.unmodifiableSet(result);
+			tasksFlowNum = flows.size();
 		}
-		return result;
+		return tasks;
 	}
 
 	public Integer getWF_ID() {
@@ -55,6 +71,14 @@ public class Workflow {
 		WF_ID = wF_ID;
 	}
 
+	public Integer getOriginNodeId() {
+		return originNodeId == null ? WF_ID : originNodeId;
+	}
+
+	public void setOriginNodeId(Integer originNodeId) {
+		this.originNodeId = originNodeId;
+	}
+
 	public Double getDuration() {
 		return duration;
 	}
@@ -69,6 +93,7 @@ public class Workflow {
 
 	public void setFlows(ArrayList<Flow> flows) {
 		this.flows = flows;
+		this.tasks = null;
 	}
 
 }
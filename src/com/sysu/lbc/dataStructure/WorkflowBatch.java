@@ -0,0 +1,220 @@
+package com.sysu.lbc.dataStructure;
+
+import java.util.*;
+
+/**
+ * 一批工作流的紧凑表示(按列存放的基本类型数组)，建模和启发式算法的内层循环只读这些数组，不再装箱或创建集合。
+ * 节点、任务、流都用从0开始的连续下标表示：
+ * <ul>
+ * <li>节点v：id为nodeIds[v]，容量为nodeCap[v]，顺序与构造时nodes的遍历顺序相同；</li>
+ * <li>第w个工作流的任务下标为[taskStart[w], taskStart[w + 1])，按在流中首次出现的顺序排列，与getTasks()一致；</li>
+ * <li>第w个工作流的流下标为[flowStart[w], flowStart[w + 1])，与getFlows()的顺序相同，
+ * 两端任务的下标为flowCurr、flowSucc；</li>
+ * <li>任务t相关的流为taskFlows[taskFlowStart[t] .. taskFlowStart[t + 1])，候选节点下标为
+ * candNodes[candStart[t] .. candStart[t + 1])；</li>
+ * <li>topoOrder[taskStart[w] .. taskStart[w + 1])为第w个工作流按流的方向排好的任务下标。</li>
+ * </ul>
+ * 构造后只读，可以在多个线程中同时使用
+ */
+public class WorkflowBatch {
+    public final Workflow[] workflows;
+    public final int[] wfIds;
+    /** 起始任务所在节点的下标，起始节点不在nodes中时为-1 */
+    public final int[] originNode;
+    public final int[] taskStart;
+    public final int[] flowStart;
+
+    public final int[] nodeIds;
+    public final double[] nodeCap;
+    // 节点id -> 节点下标，不存在的id为-1
+    private final int[] nodeIdxOf;
+
+    public final Task[] tasks;
+    public final int[] taskIds;
+    public final double[] taskResource;
+    public final int[] taskFlowStart;
+    public final int[] taskFlows;
+    public final int[] candStart;
+    public final int[] candNodes;
+    public final int[] topoOrder;
+
+    public final Flow[] flows;
+    public final int[] flowCurr;
+    public final int[] flowSucc;
+    public final double[] flowBandwidth;
+
+    public WorkflowBatch(List<Workflow> wfs, Map<Integer, Double> nodes) {
+        int wfNum = wfs.size();
+        workflows = wfs.toArray(new Workflow[wfNum]);
+        nodeIds = new int[nodes.size()];
+        nodeCap = new double[nodes.size()];
+        int maxNodeId = -1;
+        int v = 0;
+        for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
+            nodeIds[v] = nodeEntry.getKey();
+            nodeCap[v++] = nodeEntry.getValue();
+            maxNodeId = Math.max(maxNodeId, nodeEntry.getKey());
+        }
+        nodeIdxOf = new int[maxNodeId + 1];
+        Arrays.fill(nodeIdxOf, -1);
+        for (v = 0; v < nodeIds.length; v++) {
+            if (nodeIds[v] >= 0) {
+                nodeIdxOf[nodeIds[v]] = v;
+            }
+        }
+
+        wfIds = new int[wfNum];
+        originNode = new int[wfNum];
+        taskStart = new int[wfNum + 1];
+        flowStart = new int[wfNum + 1];
+        int taskNum = 0;
+        for (int w = 0; w < wfNum; w++) {
+            wfIds[w] = workflows[w].getWF_ID();
+            originNode[w] = indexOfNode(workflows[w].getOriginNodeId());
+            taskNum += workflows[w].getTasks().size();
+            taskStart[w + 1] = taskNum;
+            flowStart[w + 1] = flowStart[w] + workflows[w].getFlows().size();
+        }
+        int flowNum = flowStart[wfNum];
+
+        tasks = new Task[taskNum];
+        taskIds = new int[taskNum];
+        taskResource = new double[taskNum];
+        flows = new Flow[flowNum];
+        flowCurr = new int[flowNum];
+        flowSucc = new int[flowNum];
+        flowBandwidth = new double[flowNum];
+        taskFlowStart = new int[taskNum + 1];
+        for (int w = 0; w < wfNum; w++) {
+            int end = taskStart[w];
+            int f = flowStart[w];
+            for (Flow flow : workflows[w].getFlows()) {
+                flows[f] = flow;
+                flowBandwidth[f] = flow.neededBandwidth;
+                flowCurr[f] = localIndex(flow.currTask, taskStart[w], end);
+                if (flowCurr[f] == end) {
+                    addTask(end++, flow.currTask);
+                }
+                flowSucc[f] = localIndex(flow.succTask, taskStart[w], end);
+                if (flowSucc[f] == end) {
+                    addTask(end++, flow.succTask);
+                }
+                taskFlowStart[flowCurr[f] + 1]++;
+                taskFlowStart[flowSucc[f] + 1]++;
+                f++;
+            }
+        }
+        for (int t = 0; t < taskNum; t++) {
+            taskFlowStart[t + 1] += taskFlowStart[t];
+        }
+        taskFlows = new int[taskFlowStart[taskNum]];
+        int[] fill = Arrays.copyOf(taskFlowStart, taskNum);
+        for (int f = 0; f < flowNum; f++) {
+            taskFlows[fill[flowCurr[f]]++] = f;
+            taskFlows[fill[flowSucc[f]]++] = f;
+        }
+
+        candStart = new int[taskNum + 1];
+        int[] cand = new int[taskNum * nodeIds.length];
+        for (int w = 0; w < wfNum; w++) {
+            for (int t = taskStart[w]; t < taskStart[w + 1]; t++) {
+                candStart[t + 1] = candStart[t] + fillCandidates(w, t, cand, candStart[t]);
+            }
+        }
+        candNodes = Arrays.copyOf(cand, candStart[taskNum]);
+
+        topoOrder = new int[taskNum];
+        int[] inDegree = new int[taskNum];
+        for (int w = 0; w < wfNum; w++) {
+            sortTopologically(w, inDegree);
+        }
+    }
+
+    public int getWorkflowNum() {
+        return workflows.length;
+    }
+
+    public int getTaskNum() {
+        return tasks.length;
+    }
+
+    public int getFlowNum() {
+        return flows.length;
+    }
+
+    public int getNodeNum() {
+        return nodeIds.length;
+    }
+
+    /**
+     * 节点id对应的下标，不在nodes中时返回-1
+     */
+    public int indexOfNode(int nodeId) {
+        return nodeId >= 0 && nodeId < nodeIdxOf.length ? nodeIdxOf[nodeId] : -1;
+    }
+
+    // 工作流内的任务数很少，线性查找比哈希表更快；找不到时返回end
+    private int localIndex(Task task, int start, int end) {
+        for (int t = start; t < end; t++) {
+            if (taskIds[t] == task.taskId) {
+                return t;
+            }
+        }
+        return end;
+    }
+
+    private void addTask(int t, Task task) {
+        tasks[t] = task;
+        taskIds[t] = task.taskId;
+        taskResource[t] = task.neededResource;
+    }
+
+    // 与PlacementHeuristic.getCandidateNodes相同：起始任务固定在起始节点上，其余任务放在容量足够的节点上，都不够时不做限制
+    private int fillCandidates(int w, int t, int[] cand, int offset) {
+        if (1 == taskIds[t] && originNode[w] >= 0) {
+            cand[offset] = originNode[w];
+            return 1;
+        }
+        int num = 0;
+        for (int v = 0; v < nodeCap.length; v++) {
+            if (nodeCap[v] >= taskResource[t]) {
+                cand[offset + num++] = v;
+            }
+        }
+        if (0 == num) {
+            for (int v = 0; v < nodeCap.length; v++) {
+                cand[offset + num++] = v;
+            }
+        }
+        return num;
+    }
+
+    // Kahn算法，就绪队列直接放在topoOrder中；有环时剩余任务按出现顺序排在最后
+    private void sortTopologically(int w, int[] inDegree) {
+        int start = taskStart[w];
+        int end = taskStart[w + 1];
+        for (int f = flowStart[w]; f < flowStart[w + 1]; f++) {
+            inDegree[flowSucc[f]]++;
+        }
+        int tail = start;
+        for (int t = start; t < end; t++) {
+            if (0 == inDegree[t]) {
+                topoOrder[tail++] = t;
+            }
+        }
+        for (int head = start; head < tail; head++) {
+            int t = topoOrder[head];
+            for (int k = taskFlowStart[t]; k < taskFlowStart[t + 1]; k++) {
+                int f = taskFlows[k];
+                if (flowCurr[f] == t && 0 == --inDegree[flowSucc[f]]) {
+                    topoOrder[tail++] = flowSucc[f];
+                }
+            }
+        }
+        for (int t = start; t < end && tail < end; t++) {
+            if (inDegree[t] > 0) {
+                topoOrder[tail++] = t;
+            }
+        }
+    }
+}
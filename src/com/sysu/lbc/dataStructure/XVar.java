@@ -1,13 +1,13 @@
 package com.sysu.lbc.dataStructure;
 
-import gurobi.GRBVar;
+import com.sysu.lbc.model.ModelVar;
 
 public class XVar extends Var {
     public int workflowId;
     public int taskId;
     public int nodeId;
 
-    public XVar(int workflowId, int taskId, int nodeId, GRBVar xVar) {
+    public XVar(int workflowId, int taskId, int nodeId, ModelVar xVar) {
         this.workflowId = workflowId;
         this.taskId = taskId;
         this.nodeId = nodeId;
@@ -23,4 +23,13 @@ public class XVar extends Var {
         return obj instanceof XVar && ((XVar) obj).workflowId == this.workflowId
                 && ((XVar) obj).taskId == this.taskId && ((XVar) obj).nodeId == this.nodeId;
     }
+
+    @Override
+    public int hashCode() {
+        int result = 17;
+        result = 31 * result + workflowId;
+        result = 31 * result + taskId;
+        result = 31 * result + nodeId;
+        return result;
+    }
 }
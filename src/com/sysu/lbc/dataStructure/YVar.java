@@ -1,6 +1,6 @@
 package com.sysu.lbc.dataStructure;
 
-import gurobi.GRBVar;
+import com.sysu.lbc.model.ModelVar;
 
 public class YVar extends  Var{
     public int workflowId;
@@ -8,7 +8,7 @@ public class YVar extends  Var{
     public int currTaskId;
     public int succTaskId;
 
-    public YVar(int workflowId, int pathId, int currTaskId, int succTaskId, GRBVar yVar) {
+    public YVar(int workflowId, int pathId, int currTaskId, int succTaskId, ModelVar yVar) {
         this.workflowId = workflowId;
         this.pathId = pathId;
         this.currTaskId = currTaskId;
@@ -21,4 +21,19 @@ public class YVar extends  Var{
 
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof YVar && ((YVar) obj).workflowId == this.workflowId && ((YVar) obj).pathId == this.pathId
+                && ((YVar) obj).currTaskId == this.currTaskId && ((YVar) obj).succTaskId == this.succTaskId;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 17;
+        result = 31 * result + workflowId;
+        result = 31 * result + pathId;
+        result = 31 * result + currTaskId;
+        result = 31 * result + succTaskId;
+        return result;
+    }
 }
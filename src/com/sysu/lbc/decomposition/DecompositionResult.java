@@ -0,0 +1,45 @@
+package com.sysu.lbc.decomposition;
+
+import com.sysu.lbc.dataStructure.Placement;
+
+/**
+ * 分解求解的结果：找到的最好放置(上界)、拉格朗日对偶给出的下界和迭代信息
+ */
+public class DecompositionResult {
+    /** 迭代中代价最小的放置，cost即上界 */
+    public Placement placement;
+    /** 目标函数最优值的下界，对任意价格都成立 */
+    public double lowerBound = Double.NEGATIVE_INFINITY;
+    public double upperBound = Double.POSITIVE_INFINITY;
+    /** 给出最好下界的链路价格μ_e，即链路负载定义约束对偶值的估计，顺序与链路列表相同 */
+    public double[] linkPrices;
+    public int iterations = 0;
+    /** 求解耗时(ms) */
+    public long time = 0;
+
+    /**
+     * 相对对偶间隙 (上界 - 下界) / 上界
+     */
+    public double getGap() {
+        return getGap(upperBound);
+    }
+
+    /**
+     * 下界相对给定目标值(例如整体模型的最优值)的间隙
+     */
+    public double getGap(double objVal) {
+        if (Double.isInfinite(objVal) || Double.isInfinite(lowerBound)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return objVal > 0 ? Math.max(0, objVal - lowerBound) / objVal : 0;
+    }
+
+    public void print() {
+        System.out.println("迭代次数：" + iterations + "，耗时：" + time + "ms");
+        if (Double.POSITIVE_INFINITY == lowerBound) {
+            System.out.println("存在没有可行放置的工作流，问题无解");
+            return;
+        }
+        System.out.println("上界：" + upperBound + "，下界：" + lowerBound + "，对偶间隙：" + getGap());
+    }
+}
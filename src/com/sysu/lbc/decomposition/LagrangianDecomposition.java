@@ -0,0 +1,266 @@
+package com.sysu.lbc.decomposition;
+
+import com.sysu.lbc.dataStructure.*;
+import com.sysu.lbc.model.SolverException;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 按工作流分解的拉格朗日松弛求解。
+ * <p>
+ * 工作流之间只通过节点负载L_v和链路负载R_e耦合，目标为 sum(L_v^2) + sum(R_e^2)。
+ * 对负载定义约束 L_v = sum_w a_{w,v}(x_w) 引入价格λ_v(链路同理为μ_e)后，对偶函数分解为
+ * g(λ) = -sum(λ_v^2)/4 + sum_w min_{x_w} λ·a_w(x_w)，
+ * 每个工作流的子问题互相独立，在parallelism个线程中并行求解(WorkflowSubproblem)，g(λ)是最优值的下界。
+ * <p>
+ * 价格取 λ = 2 * 平均负载，平均负载按Frank-Wolfe步长2/(k+3)向子问题解的负载移动，
+ * 下界随迭代收敛到凸包松弛的最优值；每次迭代子问题的解合起来就是一个可行放置，其代价作为上界。
+ * 上界与下界的相对差小于targetGap或达到maxIterations时停止
+ */
+public class LagrangianDecomposition {
+    static final int DEFAULT_MAX_ITERATIONS = 100;
+    static final double DEFAULT_TARGET_GAP = 1e-3;
+
+    private final PathTable paths;
+    private final Map<Integer, Double> nodes;
+    private final Map<Integer, Integer> nodeIdx = new HashMap<>();
+    private final int[] nodeIds;
+    private final double[] nodeCap;
+    private final double[] linkBw;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private double targetGap = DEFAULT_TARGET_GAP;
+    private boolean useCandidateNodes = true;
+
+    public LagrangianDecomposition(Map<Integer, Double> nodes, List<Link> links, PathTable paths) {
+        this.nodes = nodes;
+        this.paths = paths;
+        nodeIds = new int[nodes.size()];
+        nodeCap = new double[nodes.size()];
+        for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
+            nodeIds[nodeIdx.size()] = nodeEntry.getKey();
+            nodeCap[nodeIdx.size()] = nodeEntry.getValue();
+            nodeIdx.put(nodeEntry.getKey(), nodeIdx.size());
+        }
+        linkBw = new double[links.size()];
+        for (int j = 0; j < links.size(); j++) {
+            linkBw[j] = links.get(j).bandwidth;
+        }
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public void setTargetGap(double targetGap) {
+        this.targetGap = targetGap;
+    }
+
+    /**
+     * 子问题是否只在候选节点上放置任务，应与整体模型的pruneYVar相同，否则下界与整体模型不可比
+     */
+    public void setUseCandidateNodes(boolean useCandidateNodes) {
+        this.useCandidateNodes = useCandidateNodes;
+    }
+
+    /**
+     * @param initial 初始放置(例如启发式的结果)，用作初始上界和初始价格，可以为null
+     */
+    public DecompositionResult solve(List<Workflow> workflows, Placement initial) throws SolverException {
+        long starTime = System.currentTimeMillis();
+        DecompositionResult result = new DecompositionResult();
+        List<WorkflowSubproblem> subproblems = new ArrayList<>();
+        for (Workflow wf : workflows) {
+            subproblems.add(new WorkflowSubproblem(wf, nodes, nodeIdx, useCandidateNodes));
+        }
+        double[] avgNodeLoad = new double[nodeCap.length];
+        double[] avgLinkLoad = new double[linkBw.length];
+        if (null != initial && initial.complete) {
+            result.upperBound = loadsOf(initial, workflows, avgNodeLoad, avgLinkLoad);
+            result.placement = initial;
+        }
+
+        double[] nodeUnitCost = new double[nodeCap.length];
+        double[][] pathUnitCost = new double[nodeCap.length][nodeCap.length];
+        int[][] bestPath = new int[nodeCap.length][nodeCap.length];
+        double[] nodeLoad = new double[nodeCap.length];
+        double[] linkLoad = new double[linkBw.length];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            for (int k = 0; k < maxIterations; k++) {
+                // λ = 2 * 平均负载，即目标函数在平均负载处的梯度
+                double lowerBound = 0;
+                for (int v = 0; v < nodeCap.length; v++) {
+                    double price = 2 * avgNodeLoad[v];
+                    nodeUnitCost[v] = price / nodeCap[v];
+                    lowerBound -= price * price / 4;
+                }
+                double[] linkUnitCost = new double[linkBw.length];
+                for (int j = 0; j < linkBw.length; j++) {
+                    double price = 2 * avgLinkLoad[j];
+                    linkUnitCost[j] = price / linkBw[j];
+                    lowerBound -= price * price / 4;
+                }
+                preparePathCosts(linkUnitCost, pathUnitCost, bestPath);
+
+                int[][] assigns = solveSubproblems(pool, subproblems, nodeUnitCost, pathUnitCost);
+                result.iterations = k + 1;
+                Arrays.fill(nodeLoad, 0);
+                Arrays.fill(linkLoad, 0);
+                boolean feasible = true;
+                for (int i = 0; i < subproblems.size(); i++) {
+                    if (null == assigns[i]) {
+                        feasible = false;
+                        break;
+                    }
+                    lowerBound += subproblems.get(i).cost(assigns[i], nodeUnitCost, pathUnitCost);
+                    addLoads(subproblems.get(i), assigns[i], bestPath, nodeLoad, linkLoad);
+                }
+                // 有工作流没有可行放置时整个问题无解
+                if (!feasible) {
+                    result.lowerBound = Double.POSITIVE_INFINITY;
+                    break;
+                }
+                if (lowerBound > result.lowerBound) {
+                    result.lowerBound = lowerBound;
+                    result.linkPrices = new double[linkBw.length];
+                    for (int j = 0; j < linkBw.length; j++) {
+                        result.linkPrices[j] = linkUnitCost[j] * linkBw[j];
+                    }
+                }
+                double cost = sumOfSquares(nodeLoad) + sumOfSquares(linkLoad);
+                if (cost < result.upperBound) {
+                    result.upperBound = cost;
+                    result.placement = toPlacement(subproblems, assigns, bestPath, cost);
+                }
+                if (result.upperBound - result.lowerBound <= targetGap * result.upperBound) {
+                    break;
+                }
+                double step = 2.0 / (k + 3);
+                for (int v = 0; v < nodeCap.length; v++) {
+                    avgNodeLoad[v] += step * (nodeLoad[v] - avgNodeLoad[v]);
+                }
+                for (int j = 0; j < linkBw.length; j++) {
+                    avgLinkLoad[j] += step * (linkLoad[j] - avgLinkLoad[j]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (null == result.placement) {
+            result.placement = new Placement();
+            result.placement.complete = false;
+            result.placement.cost = Double.POSITIVE_INFINITY;
+        }
+        result.time = System.currentTimeMillis() - starTime;
+        return result;
+    }
+
+    private int[][] solveSubproblems(ForkJoinPool pool, List<WorkflowSubproblem> subproblems,
+                                     double[] nodeUnitCost, double[][] pathUnitCost) throws SolverException {
+        if (parallelism <= 1 || subproblems.size() <= 1) {
+            int[][] result = new int[subproblems.size()][];
+            for (int i = 0; i < subproblems.size(); i++) {
+                result[i] = subproblems.get(i).solve(nodeUnitCost, pathUnitCost);
+            }
+            return result;
+        }
+        try {
+            return pool.submit(() -> IntStream.range(0, subproblems.size()).parallel()
+                    .mapToObj(i -> subproblems.get(i).solve(nodeUnitCost, pathUnitCost))
+                    .toArray(int[][]::new)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new SolverException("并行求解子问题失败", e);
+        }
+    }
+
+    // 当前链路价格下每对节点之间最便宜的路径，子问题只读取这两个矩阵
+    private void preparePathCosts(double[] linkUnitCost, double[][] pathUnitCost, int[][] bestPath) {
+        for (double[] row : pathUnitCost) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            Integer src = nodeIdx.get(paths.getSrc(pathId));
+            Integer dst = nodeIdx.get(paths.getDst(pathId));
+            if (null == src || null == dst) {
+                continue;
+            }
+            double cost = 0;
+            int hops = paths.getHopNum(pathId);
+            for (int i = 0; i < hops; i++) {
+                int link = paths.getHopLink(pathId, i);
+                if (link >= 0) {
+                    cost += linkUnitCost[link];
+                }
+            }
+            if (cost < pathUnitCost[src][dst]) {
+                pathUnitCost[src][dst] = cost;
+                bestPath[src][dst] = pathId;
+            }
+        }
+    }
+
+    private void addLoads(WorkflowSubproblem sub, int[] assign, int[][] bestPath, double[] nodeLoad, double[] linkLoad) {
+        for (int i = 0; i < sub.tasks.length; i++) {
+            nodeLoad[assign[i]] += sub.tasks[i].neededResource / nodeCap[assign[i]];
+        }
+        for (int k = 0; k < sub.flows.length; k++) {
+            addPathLoad(bestPath[assign[sub.currPos[k]]][assign[sub.succPos[k]]], sub.flows[k].neededBandwidth, linkLoad);
+        }
+    }
+
+    private void addPathLoad(int pathId, double bandwidth, double[] linkLoad) {
+        int hops = paths.getHopNum(pathId);
+        for (int i = 0; i < hops; i++) {
+            int link = paths.getHopLink(pathId, i);
+            if (link >= 0) {
+                linkLoad[link] += bandwidth / linkBw[link];
+            }
+        }
+    }
+
+    // 计算placement的负载，返回其代价
+    private double loadsOf(Placement placement, List<Workflow> workflows, double[] nodeLoad, double[] linkLoad) {
+        for (Workflow wf : workflows) {
+            for (Task task : wf.getTasks()) {
+                int v = nodeIdx.get(placement.getNode(task));
+                nodeLoad[v] += task.neededResource / nodeCap[v];
+            }
+            for (Flow flow : wf.getFlows()) {
+                addPathLoad(placement.getPath(flow), flow.neededBandwidth, linkLoad);
+            }
+        }
+        return sumOfSquares(nodeLoad) + sumOfSquares(linkLoad);
+    }
+
+    private Placement toPlacement(List<WorkflowSubproblem> subproblems, int[][] assigns, int[][] bestPath, double cost) {
+        Placement placement = new Placement();
+        for (int i = 0; i < subproblems.size(); i++) {
+            WorkflowSubproblem sub = subproblems.get(i);
+            int[] assign = assigns[i];
+            for (int t = 0; t < sub.tasks.length; t++) {
+                placement.taskNodes.put(sub.tasks[t], nodeIds[assign[t]]);
+            }
+            for (int k = 0; k < sub.flows.length; k++) {
+                placement.flowPaths.put(sub.flows[k], bestPath[assign[sub.currPos[k]]][assign[sub.succPos[k]]]);
+            }
+        }
+        placement.cost = cost;
+        return placement;
+    }
+
+    private static double sumOfSquares(double[] values) {
+        double result = 0;
+        for (double v : values) {
+            result += v * v;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,141 @@
+package com.sysu.lbc.decomposition;
+
+import com.sysu.lbc.dataStructure.Flow;
+import com.sysu.lbc.dataStructure.Task;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.heuristic.PlacementHeuristic;
+
+import java.util.*;
+
+/**
+ * 单个工作流的定价子问题：节点、链路负载的价格给定后，工作流之间不再耦合，
+ * 每个工作流独立地选择 节点价格 * 任务负载 + 链路价格 * 流负载 之和最小的放置。
+ * 任务按拓扑序做深度优先搜索，用剩余任务的最小节点代价剪枝；流总是走当前价格下最便宜的路径。
+ * solve只读取参数和构造时准备好的数组，可以在多个线程中同时调用
+ */
+class WorkflowSubproblem {
+    final Workflow wf;
+    // 按拓扑序排列的任务
+    final Task[] tasks;
+    // 每个任务可放置的节点下标
+    final int[][] candidates;
+    // flows[k]两端任务在tasks中的位置
+    final Flow[] flows;
+    final int[] currPos;
+    final int[] succPos;
+    // 位置i的任务放置后可以计入代价的流：另一端任务的位置更靠前
+    private final int[][] backFlows;
+
+    /**
+     * @param useCandidateNodes 与整体模型的pruneYVar一致：开启时任务只能放在候选节点上，否则除起始任务外可以放在任意节点上
+     */
+    WorkflowSubproblem(Workflow wf, Map<Integer, Double> nodes, Map<Integer, Integer> nodeIdx, boolean useCandidateNodes) {
+        this.wf = wf;
+        List<Task> order = PlacementHeuristic.topologicalOrder(wf);
+        tasks = order.toArray(new Task[0]);
+        Map<Task, Integer> posOf = new HashMap<>();
+        candidates = new int[tasks.length][];
+        for (int i = 0; i < tasks.length; i++) {
+            posOf.put(tasks[i], i);
+            boolean fixed = 1 == tasks[i].taskId && nodes.containsKey(wf.getOriginNodeId());
+            Set<Integer> nodeIds = useCandidateNodes || fixed
+                    ? PlacementHeuristic.getCandidateNodes(wf.getOriginNodeId(), tasks[i], nodes) : nodes.keySet();
+            candidates[i] = new int[nodeIds.size()];
+            int j = 0;
+            for (int nodeId : nodeIds) {
+                candidates[i][j++] = nodeIdx.get(nodeId);
+            }
+        }
+        flows = wf.getFlows().toArray(new Flow[0]);
+        currPos = new int[flows.length];
+        succPos = new int[flows.length];
+        List<List<Integer>> back = new ArrayList<>();
+        for (int i = 0; i < tasks.length; i++) {
+            back.add(new ArrayList<>());
+        }
+        for (int k = 0; k < flows.length; k++) {
+            currPos[k] = posOf.get(flows[k].currTask);
+            succPos[k] = posOf.get(flows[k].succTask);
+            back.get(Math.max(currPos[k], succPos[k])).add(k);
+        }
+        backFlows = new int[tasks.length][];
+        for (int i = 0; i < tasks.length; i++) {
+            List<Integer> ks = back.get(i);
+            backFlows[i] = new int[ks.size()];
+            for (int j = 0; j < ks.size(); j++) {
+                backFlows[i][j] = ks.get(j);
+            }
+        }
+    }
+
+    /**
+     * @param nodeUnitCost  节点v上每单位资源的价格(节点价格/节点容量)
+     * @param pathUnitCost  pathUnitCost[u][v]为节点u到v最便宜路径上每单位带宽的价格，没有路径时为正无穷
+     * @return 各任务(按tasks的顺序)所在的节点下标；没有可行放置时返回null
+     */
+    int[] solve(double[] nodeUnitCost, double[][] pathUnitCost) {
+        int n = tasks.length;
+        // suffix[i]：位置i及之后的任务节点代价之和的下界
+        double[] suffix = new double[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int v : candidates[i]) {
+                min = Math.min(min, tasks[i].neededResource * nodeUnitCost[v]);
+            }
+            suffix[i] = suffix[i + 1] + min;
+        }
+        Search search = new Search(n, suffix, nodeUnitCost, pathUnitCost);
+        search.dfs(0, 0);
+        return search.best;
+    }
+
+    /**
+     * 按给定价格计算一个放置的代价
+     */
+    double cost(int[] assign, double[] nodeUnitCost, double[][] pathUnitCost) {
+        double result = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            result += tasks[i].neededResource * nodeUnitCost[assign[i]];
+        }
+        for (int k = 0; k < flows.length; k++) {
+            result += flows[k].neededBandwidth * pathUnitCost[assign[currPos[k]]][assign[succPos[k]]];
+        }
+        return result;
+    }
+
+    private class Search {
+        final int[] assign;
+        final double[] suffix;
+        final double[] nodeUnitCost;
+        final double[][] pathUnitCost;
+        int[] best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        Search(int n, double[] suffix, double[] nodeUnitCost, double[][] pathUnitCost) {
+            this.assign = new int[n];
+            this.suffix = suffix;
+            this.nodeUnitCost = nodeUnitCost;
+            this.pathUnitCost = pathUnitCost;
+        }
+
+        void dfs(int pos, double cost) {
+            if (pos == tasks.length) {
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = assign.clone();
+                }
+                return;
+            }
+            for (int v : candidates[pos]) {
+                double c = cost + tasks[pos].neededResource * nodeUnitCost[v];
+                assign[pos] = v;
+                for (int k : backFlows[pos]) {
+                    c += flows[k].neededBandwidth * pathUnitCost[assign[currPos[k]]][assign[succPos[k]]];
+                }
+                if (c + suffix[pos + 1] < bestCost) {
+                    dfs(pos + 1, c);
+                }
+            }
+        }
+    }
+}
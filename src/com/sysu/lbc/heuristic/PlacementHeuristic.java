@@ -0,0 +1,490 @@
+package com.sysu.lbc.heuristic;
+
+import com.sysu.lbc.dataStructure.*;
+
+import java.util.*;
+
+/**
+ * 贪心 + 局部搜索的快速放置算法，代价与GurobiSolution的目标函数相同：
+ * sum(节点负载^2) + sum(链路负载^2)，节点负载为 任务资源/节点容量 之和，链路负载为 流带宽/链路带宽 之和。
+ * <p>
+ * 贪心阶段按拓扑序逐个放置任务，选择使代价增量最小的节点，并为与已放置任务之间的流选择增量最小的路径；
+ * 局部搜索阶段逐个把任务移出后重新放置(同时重新选路)，直到代价不再下降。
+ * 结果可以作为MIP的初始解，也可以单独使用。
+ * <p>
+ * 内部按WorkflowBatch的任务、流、节点下标用数组记录放置状态，节点对之间的路径也按节点下标预先分组，
+ * 只在结束时把结果写入Placement。
+ */
+public class PlacementHeuristic {
+    static final int MAX_ROUNDS = 20;
+    static final double EPS = 1e-9;
+
+    private final Map<Integer, Double> nodes;
+    private final PathTable paths;
+    // 节点id -> 节点下标，顺序与nodes的遍历顺序相同(与WorkflowBatch一致)，不存在的id为-1
+    private final int[] nodeIdxOf;
+    private final double[] nodeCap;
+    private final double[] nodeLoad;
+    private final double[] linkBw;
+    private final double[] linkLoad;
+    // 节点下标u到v的路径id为pairPaths[pairPathStart[u * nodeNum + v] .. pairPathStart[u * nodeNum + v + 1])，
+    // 路径数变化(列生成)后重新建立
+    private int[] pairPathStart;
+    private int[] pairPaths;
+    private int pairPathNum = -1;
+
+    public PlacementHeuristic(Map<Integer, Double> nodes, List<Link> links, PathTable paths) {
+        this.nodes = nodes;
+        this.paths = paths;
+        nodeCap = new double[nodes.size()];
+        nodeLoad = new double[nodes.size()];
+        int maxNodeId = -1;
+        for (int nodeId : nodes.keySet()) {
+            maxNodeId = Math.max(maxNodeId, nodeId);
+        }
+        nodeIdxOf = new int[maxNodeId + 1];
+        Arrays.fill(nodeIdxOf, -1);
+        int v = 0;
+        for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
+            nodeCap[v] = nodeEntry.getValue();
+            if (nodeEntry.getKey() >= 0) {
+                nodeIdxOf[nodeEntry.getKey()] = v;
+            }
+            v++;
+        }
+        linkBw = new double[links.size()];
+        linkLoad = new double[links.size()];
+        for (int j = 0; j < links.size(); j++) {
+            linkBw[j] = links.get(j).bandwidth;
+        }
+    }
+
+    /**
+     * 任务可放置的节点：起始任务固定在工作流的起始节点上，其余任务放在容量足够的节点上；
+     * 没有节点容量足够时不做限制，保证模型可行
+     */
+    public static Set<Integer> getCandidateNodes(int originNodeId, Task task, Map<Integer, Double> nodes) {
+        Set<Integer> result = new HashSet<>();
+        if (1 == task.taskId && nodes.containsKey(originNodeId)) {
+            result.add(originNodeId);
+            return result;
+        }
+        for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
+            if (nodeEntry.getValue() >= task.neededResource) {
+                result.add(nodeEntry.getKey());
+            }
+        }
+        if (result.isEmpty()) {
+            result.addAll(nodes.keySet());
+        }
+        return result;
+    }
+
+    public Placement place(List<Workflow> workflows) {
+        return extend(new Placement(), Collections.<Workflow>emptyList(), workflows);
+    }
+
+    /**
+     * 在已有放置结果上放置新加入的工作流(在线模式)：placed中的工作流保持base中的位置，只计入它们的负载，
+     * 贪心与局部搜索只作用于added中的任务。返回新的放置结果，base不会被修改
+     */
+    public Placement extend(Placement base, List<Workflow> placed, List<Workflow> added) {
+        reset();
+        Placement placement = new Placement();
+        for (Workflow wf : placed) {
+            for (Task task : wf.getTasks()) {
+                Integer node = base.getNode(task);
+                if (null == node) {
+                    placement.complete = false;
+                    continue;
+                }
+                placement.taskNodes.put(task, node);
+                int idx = nodeIdx(node);
+                nodeLoad[idx] += task.neededResource / nodeCap[idx];
+            }
+            for (Flow flow : wf.getFlows()) {
+                Integer pathId = base.getPath(flow);
+                if (null == pathId) {
+                    placement.complete = false;
+                    continue;
+                }
+                placement.flowPaths.put(flow, pathId);
+                addPathLoad(pathId, flow.neededBandwidth);
+            }
+        }
+        State state = new State(new WorkflowBatch(added, nodes));
+        for (int w = 0; w < added.size(); w++) {
+            if (!insertWorkflow(state, w)) {
+                placement.complete = false;
+            }
+        }
+        localSearch(state);
+        state.writeTo(placement);
+        placement.cost = cost();
+        return placement;
+    }
+
+    /**
+     * 清空当前负载，之后可以用addWorkflow/removeWorkflow逐个增删工作流
+     */
+    public void reset() {
+        Arrays.fill(nodeLoad, 0);
+        Arrays.fill(linkLoad, 0);
+    }
+
+    /**
+     * 在当前负载上放置一个新到达的工作流，只移动它自己的任务，结果写入placement。
+     * 有流找不到路径时撤销该工作流并返回false
+     */
+    public boolean addWorkflow(Workflow wf, Placement placement) {
+        State state = new State(new WorkflowBatch(Collections.singletonList(wf), nodes));
+        insertWorkflow(state, 0);
+        localSearch(state);
+        for (int f = 0; f < state.flowPath.length; f++) {
+            if (state.flowPath[f] <= 0) {
+                state.undo();
+                return false;
+            }
+        }
+        state.writeTo(placement);
+        placement.cost = cost();
+        return true;
+    }
+
+    /**
+     * 从placement和当前负载中删除一个工作流
+     */
+    public void removeWorkflow(Workflow wf, Placement placement) {
+        for (Task task : wf.getTasks()) {
+            Integer node = placement.taskNodes.remove(task);
+            if (null != node) {
+                int idx = nodeIdx(node);
+                nodeLoad[idx] -= task.neededResource / nodeCap[idx];
+            }
+        }
+        for (Flow flow : wf.getFlows()) {
+            Integer pathId = placement.flowPaths.remove(flow);
+            if (null != pathId) {
+                addPathLoad(pathId, -flow.neededBandwidth);
+            }
+        }
+        placement.cost = cost();
+    }
+
+    /**
+     * 各节点当前的负载(任务资源/节点容量之和)，顺序与构造时nodes的遍历顺序相同，只读
+     */
+    public double[] getNodeLoads() {
+        return nodeLoad;
+    }
+
+    /**
+     * 各链路当前的负载(流带宽/链路带宽之和)，顺序与links相同，只读
+     */
+    public double[] getLinkLoads() {
+        return linkLoad;
+    }
+
+    public double cost() {
+        double result = 0;
+        for (double load : nodeLoad) {
+            result += load * load;
+        }
+        for (double load : linkLoad) {
+            result += load * load;
+        }
+        return result;
+    }
+
+    // 按拓扑序贪心放置batch中第w个工作流的全部任务，有任务没有可行节点时返回false
+    private boolean insertWorkflow(State state, int w) {
+        prepareFeasibleNodes(state, w);
+        WorkflowBatch batch = state.batch;
+        boolean complete = true;
+        for (int i = batch.taskStart[w]; i < batch.taskStart[w + 1]; i++) {
+            complete &= insert(state, batch.topoOrder[i]);
+        }
+        return complete;
+    }
+
+    private void localSearch(State state) {
+        int taskNum = state.batch.getTaskNum();
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            boolean improved = false;
+            for (int t = 0; t < taskNum; t++) {
+                improved |= relocate(state, t);
+            }
+            if (!improved) {
+                break;
+            }
+        }
+    }
+
+    // 把任务移出后重新放置，代价下降时返回true
+    private boolean relocate(State state, int t) {
+        if (state.taskNode[t] < 0) {
+            return false;
+        }
+        double before = cost();
+        remove(state, t);
+        insert(state, t);
+        return cost() < before - EPS;
+    }
+
+    private void remove(State state, int t) {
+        WorkflowBatch batch = state.batch;
+        int node = state.taskNode[t];
+        nodeLoad[node] -= batch.taskResource[t] / nodeCap[node];
+        state.taskNode[t] = -1;
+        for (int k = batch.taskFlowStart[t]; k < batch.taskFlowStart[t + 1]; k++) {
+            int f = batch.taskFlows[k];
+            if (state.flowPath[f] > 0) {
+                addPathLoad(state.flowPath[f], -batch.flowBandwidth[f]);
+                state.flowPath[f] = 0;
+            }
+        }
+    }
+
+    // 把任务放到代价增量最小的可选节点上，并为两端都已放置的流选路；没有可行节点时放在节点代价最小的节点上并返回false
+    private boolean insert(State state, int t) {
+        WorkflowBatch batch = state.batch;
+        int nodeNum = nodeCap.length;
+        int bestNode = -1;
+        double bestDelta = Double.POSITIVE_INFINITY;
+        int fallbackNode = -1;
+        double fallbackDelta = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < nodeNum; node++) {
+            if (!state.feasible[t * nodeNum + node]) {
+                continue;
+            }
+            double delta = nodeDelta(node, batch.taskResource[t]);
+            if (delta < fallbackDelta) {
+                fallbackDelta = delta;
+                fallbackNode = node;
+            }
+            for (int k = batch.taskFlowStart[t]; k < batch.taskFlowStart[t + 1]; k++) {
+                int f = batch.taskFlows[k];
+                int src = flowSrc(state, f, t, node);
+                int dst = flowDst(state, f, t, node);
+                if (src < 0 || dst < 0) {
+                    continue;
+                }
+                int pathId = bestPath(src, dst, batch.flowBandwidth[f]);
+                if (pathId < 0) {
+                    delta = Double.POSITIVE_INFINITY;
+                    break;
+                }
+                delta += pathDelta(pathId, batch.flowBandwidth[f]);
+            }
+            if (delta < bestDelta) {
+                bestDelta = delta;
+                bestNode = node;
+            }
+        }
+        boolean feasible = bestNode >= 0;
+        if (!feasible) {
+            bestNode = fallbackNode;
+        }
+        state.taskNode[t] = bestNode;
+        nodeLoad[bestNode] += batch.taskResource[t] / nodeCap[bestNode];
+        for (int k = batch.taskFlowStart[t]; k < batch.taskFlowStart[t + 1]; k++) {
+            int f = batch.taskFlows[k];
+            int src = flowSrc(state, f, t, bestNode);
+            int dst = flowDst(state, f, t, bestNode);
+            if (src < 0 || dst < 0 || state.flowPath[f] > 0) {
+                continue;
+            }
+            int pathId = bestPath(src, dst, batch.flowBandwidth[f]);
+            if (pathId > 0) {
+                state.flowPath[f] = pathId;
+                addPathLoad(pathId, batch.flowBandwidth[f]);
+            }
+        }
+        return feasible;
+    }
+
+    // 按拓扑逆序计算：节点v可选，当且仅当每个后继任务都有可选节点w且存在v到w的路径。
+    // 路径有方向，只按候选节点贪心放置时可能使后继任务无处可放
+    private void prepareFeasibleNodes(State state, int w) {
+        WorkflowBatch batch = state.batch;
+        int nodeNum = nodeCap.length;
+        for (int i = batch.taskStart[w + 1] - 1; i >= batch.taskStart[w]; i--) {
+            int t = batch.topoOrder[i];
+            boolean any = false;
+            for (int c = batch.candStart[t]; c < batch.candStart[t + 1]; c++) {
+                int node = batch.candNodes[c];
+                boolean feasible = true;
+                for (int k = batch.taskFlowStart[t]; k < batch.taskFlowStart[t + 1]; k++) {
+                    int f = batch.taskFlows[k];
+                    int succ = batch.flowSucc[f];
+                    if (batch.flowCurr[f] == t && state.prepared[succ] && !hasPathToAny(node, state.feasible, succ * nodeNum)) {
+                        feasible = false;
+                        break;
+                    }
+                }
+                state.feasible[t * nodeNum + node] = feasible;
+                any |= feasible;
+            }
+            if (!any) {
+                for (int c = batch.candStart[t]; c < batch.candStart[t + 1]; c++) {
+                    state.feasible[t * nodeNum + batch.candNodes[c]] = true;
+                }
+            }
+            state.prepared[t] = true;
+        }
+    }
+
+    private boolean hasPathToAny(int src, boolean[] dsts, int offset) {
+        preparePairPaths();
+        int nodeNum = nodeCap.length;
+        for (int dst = 0; dst < nodeNum; dst++) {
+            int pair = src * nodeNum + dst;
+            if (dsts[offset + dst] && pairPathStart[pair] < pairPathStart[pair + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 任务t放在node上时流f起点的节点，另一端还未放置时返回-1
+    private int flowSrc(State state, int f, int t, int node) {
+        return state.batch.flowCurr[f] == t ? node : state.taskNode[state.batch.flowCurr[f]];
+    }
+
+    private int flowDst(State state, int f, int t, int node) {
+        return state.batch.flowSucc[f] == t ? node : state.taskNode[state.batch.flowSucc[f]];
+    }
+
+    private double nodeDelta(int node, double neededResource) {
+        double load = nodeLoad[node];
+        double d = neededResource / nodeCap[node];
+        return 2 * load * d + d * d;
+    }
+
+    // src、dst为节点下标
+    private int bestPath(int src, int dst, double bandwidth) {
+        preparePairPaths();
+        int pair = src * nodeCap.length + dst;
+        int result = -1;
+        double bestDelta = Double.POSITIVE_INFINITY;
+        for (int k = pairPathStart[pair]; k < pairPathStart[pair + 1]; k++) {
+            double delta = pathDelta(pairPaths[k], bandwidth);
+            if (delta < bestDelta) {
+                bestDelta = delta;
+                result = pairPaths[k];
+            }
+        }
+        return result;
+    }
+
+    private double pathDelta(int pathId, double bandwidth) {
+        double result = 0;
+        int hops = paths.getHopNum(pathId);
+        for (int i = 0; i < hops; i++) {
+            int link = paths.getHopLink(pathId, i);
+            if (link < 0) {
+                continue;
+            }
+            double d = bandwidth / linkBw[link];
+            result += 2 * linkLoad[link] * d + d * d;
+        }
+        return result;
+    }
+
+    private void addPathLoad(int pathId, double bandwidth) {
+        int hops = paths.getHopNum(pathId);
+        for (int i = 0; i < hops; i++) {
+            int link = paths.getHopLink(pathId, i);
+            if (link >= 0) {
+                linkLoad[link] += bandwidth / linkBw[link];
+            }
+        }
+    }
+
+    private int nodeIdx(int nodeId) {
+        return nodeIdxOf[nodeId];
+    }
+
+    // 按两端节点下标把路径分组(CSR)，两端不在nodes中的路径不会被选中
+    private void preparePairPaths() {
+        if (pairPathNum == paths.size()) {
+            return;
+        }
+        int nodeNum = nodeCap.length;
+        pairPathStart = new int[nodeNum * nodeNum + 1];
+        int[] pairOf = new int[paths.size() + 1];
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            int src = paths.getSrc(pathId);
+            int dst = paths.getDst(pathId);
+            boolean known = src >= 0 && src < nodeIdxOf.length && dst >= 0 && dst < nodeIdxOf.length
+                    && nodeIdxOf[src] >= 0 && nodeIdxOf[dst] >= 0;
+            pairOf[pathId] = known ? nodeIdxOf[src] * nodeNum + nodeIdxOf[dst] : -1;
+            if (known) {
+                pairPathStart[pairOf[pathId] + 1]++;
+            }
+        }
+        for (int pair = 0; pair < nodeNum * nodeNum; pair++) {
+            pairPathStart[pair + 1] += pairPathStart[pair];
+        }
+        pairPaths = new int[pairPathStart[nodeNum * nodeNum]];
+        int[] fill = Arrays.copyOf(pairPathStart, nodeNum * nodeNum);
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            if (pairOf[pathId] >= 0) {
+                pairPaths[fill[pairOf[pathId]]++] = pathId;
+            }
+        }
+        pairPathNum = paths.size();
+    }
+
+    /**
+     * 按流的方向做拓扑排序，有环时剩余任务按出现顺序排在最后
+     */
+    public static List<Task> topologicalOrder(Workflow wf) {
+        WorkflowBatch batch = new WorkflowBatch(Collections.singletonList(wf), Collections.<Integer, Double>emptyMap());
+        List<Task> result = new ArrayList<>(batch.getTaskNum());
+        for (int t : batch.topoOrder) {
+            result.add(batch.tasks[t]);
+        }
+        return result;
+    }
+
+    // 一批工作流的放置状态：任务所在的节点下标(未放置为-1)、流使用的路径id(未选路为0)，以及任务的可选节点
+    private class State {
+        final WorkflowBatch batch;
+        final int[] taskNode;
+        final int[] flowPath;
+        final boolean[] feasible;
+        final boolean[] prepared;
+
+        State(WorkflowBatch batch) {
+            this.batch = batch;
+            taskNode = new int[batch.getTaskNum()];
+            Arrays.fill(taskNode, -1);
+            flowPath = new int[batch.getFlowNum()];
+            feasible = new boolean[batch.getTaskNum() * nodeCap.length];
+            prepared = new boolean[batch.getTaskNum()];
+        }
+
+        void writeTo(Placement placement) {
+            for (int t = 0; t < taskNode.length; t++) {
+                if (taskNode[t] >= 0) {
+                    placement.taskNodes.put(batch.tasks[t], batch.nodeIds[taskNode[t]]);
+                }
+            }
+            for (int f = 0; f < flowPath.length; f++) {
+                if (flowPath[f] > 0) {
+                    placement.flowPaths.put(batch.flows[f], flowPath[f]);
+                }
+            }
+        }
+
+        // 撤销全部任务和流的负载
+        void undo() {
+            for (int t = 0; t < taskNode.length; t++) {
+                if (taskNode[t] >= 0) {
+                    remove(this, t);
+                }
+            }
+        }
+    }
+}
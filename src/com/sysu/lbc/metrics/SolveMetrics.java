@@ -0,0 +1,248 @@
+package com.sysu.lbc.metrics;
+
+import com.sysu.lbc.model.SolveProgress;
+import com.sysu.lbc.presolve.PresolveStats;
+import com.sysu.lbc.model.SolveProgressListener;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 一次建模求解的指标：各阶段耗时、模型规模、求解结果，以及求解过程中目标值、下界、间隙和节点数随时间的变化。
+ * 作为SolveProgressListener交给后端记录求解进度：找到更好可行解的报告全部保留，其余报告至少间隔SAMPLE_INTERVAL秒保留一次。
+ * 可以导出为JSON(单次运行的全部指标)或CSV(每次运行一行的汇总，便于比较不同工作流数量下的变化；以及进度的时间序列)
+ */
+public class SolveMetrics implements SolveProgressListener {
+    public static final double SAMPLE_INTERVAL = 0.1;
+
+    public String backend;
+    public String formulation;
+    public int workflowNum;
+    public int pathNum;
+
+    public int varNum;
+    public int xVarNum;
+    public int yVarNum;
+    public int prunedYVarNum;
+    public int linConstrNum;
+    public int quadConstrNum;
+    public long nonZeroNum;
+    /** 列生成累计加入的路径数 */
+    public int generatedPathNum;
+    public int symmetryConstrNum;
+    /** 预处理的缩减统计，没有设置预处理时为null */
+    public PresolveStats presolve;
+
+    /** 各阶段耗时(ns)，按执行顺序 */
+    public Map<String, Long> phaseTimes = new LinkedHashMap<>();
+    /** 准备、求解耗时(ms) */
+    public long prepareTime;
+    public long optimizeTime;
+
+    public boolean hasSolution;
+    public double objVal = Double.POSITIVE_INFINITY;
+    public double objBound = Double.NEGATIVE_INFINITY;
+    public long nodeCount;
+
+    private final List<SolveProgress> progress = new ArrayList<>();
+
+    @Override
+    public synchronized void onProgress(SolveProgress p) {
+        if (p.newIncumbent || progress.isEmpty() || p.time - progress.get(progress.size() - 1).time >= SAMPLE_INTERVAL) {
+            progress.add(p);
+        }
+    }
+
+    public synchronized void clearProgress() {
+        progress.clear();
+    }
+
+    /**
+     * 记录下来的进度报告，按时间顺序
+     */
+    public synchronized List<SolveProgress> getProgress() {
+        return new ArrayList<>(progress);
+    }
+
+    /**
+     * 每次找到更好可行解时的报告
+     */
+    public synchronized List<SolveProgress> getIncumbents() {
+        List<SolveProgress> result = new ArrayList<>();
+        for (SolveProgress p : progress) {
+            if (p.newIncumbent) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    public double getGap() {
+        return SolveProgress.gap(objVal, objBound);
+    }
+
+    public long getTotalPhaseTime() {
+        long result = 0;
+        for (long t : phaseTimes.values()) {
+            result += t;
+        }
+        return result;
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n");
+        field(sb, "backend", backend);
+        field(sb, "formulation", formulation);
+        field(sb, "workflowNum", workflowNum);
+        field(sb, "pathNum", pathNum);
+        sb.append("  \"model\": {");
+        sb.append("\"varNum\": ").append(varNum);
+        sb.append(", \"xVarNum\": ").append(xVarNum);
+        sb.append(", \"yVarNum\": ").append(yVarNum);
+        sb.append(", \"prunedYVarNum\": ").append(prunedYVarNum);
+        sb.append(", \"linConstrNum\": ").append(linConstrNum);
+        sb.append(", \"quadConstrNum\": ").append(quadConstrNum);
+        sb.append(", \"nonZeroNum\": ").append(nonZeroNum);
+        sb.append(", \"generatedPathNum\": ").append(generatedPathNum);
+        sb.append(", \"symmetryConstrNum\": ").append(symmetryConstrNum).append("},\n");
+        if (null == presolve) {
+            field(sb, "presolve", null);
+        } else {
+            sb.append("  \"presolve\": {\"skipped\": ").append(presolve.skipped);
+            sb.append(", \"fixedTaskNum\": ").append(presolve.fixedTaskNum);
+            sb.append(", \"removedXVarNum\": ").append(presolve.removedXVarNum);
+            sb.append(", \"deadYVarNum\": ").append(presolve.deadYVarNum);
+            sb.append(", \"removedConstrNum\": ").append(presolve.removedConstrNum);
+            sb.append(", \"linearizedQConstrNum\": ").append(presolve.linearizedQConstrNum);
+            sb.append(", \"emptyLoadNum\": ").append(presolve.emptyLoadNum);
+            sb.append(", \"infeasibleWorkflowNum\": ").append(presolve.infeasibleWorkflowNum).append("},\n");
+        }
+        sb.append("  \"phaseTimesNs\": {");
+        String sep = "";
+        for (Map.Entry<String, Long> phase : phaseTimes.entrySet()) {
+            sb.append(sep).append(quote(phase.getKey())).append(": ").append(phase.getValue());
+            sep = ", ";
+        }
+        sb.append("},\n");
+        field(sb, "prepareTimeMs", prepareTime);
+        field(sb, "optimizeTimeMs", optimizeTime);
+        field(sb, "hasSolution", hasSolution);
+        field(sb, "objVal", objVal);
+        field(sb, "objBound", objBound);
+        field(sb, "gap", getGap());
+        field(sb, "nodeCount", nodeCount);
+        sb.append("  \"progress\": [");
+        sep = "\n";
+        for (SolveProgress p : getProgress()) {
+            sb.append(sep).append("    {\"time\": ").append(number(p.time))
+                    .append(", \"nodeCount\": ").append(p.nodeCount)
+                    .append(", \"objVal\": ").append(number(p.objVal))
+                    .append(", \"objBound\": ").append(number(p.objBound))
+                    .append(", \"gap\": ").append(number(p.getGap()))
+                    .append(", \"newIncumbent\": ").append(p.newIncumbent).append('}');
+            sep = ",\n";
+        }
+        sb.append(progress.isEmpty() ? "]\n" : "\n  ]\n").append('}');
+        return sb.toString();
+    }
+
+    /**
+     * toCsvRow对应的表头
+     */
+    public static String csvHeader() {
+        return "backend,formulation,workflowNum,pathNum,varNum,xVarNum,yVarNum,prunedYVarNum,linConstrNum,quadConstrNum,"
+                + "nonZeroNum,generatedPathNum,symmetryConstrNum,prepareTimeMs,optimizeTimeMs,phaseTimeMs,hasSolution,objVal,objBound,gap,nodeCount,incumbentNum";
+    }
+
+    public String toCsvRow() {
+        return backend + "," + formulation + "," + workflowNum + "," + pathNum + "," + varNum + "," + xVarNum + ","
+                + yVarNum + "," + prunedYVarNum + "," + linConstrNum + "," + quadConstrNum + "," + nonZeroNum + ","
+                + generatedPathNum + "," + symmetryConstrNum + ","
+                + prepareTime + "," + optimizeTime + "," + getTotalPhaseTime() / 1000000 + "," + hasSolution + ","
+                + csvNumber(objVal) + "," + csvNumber(objBound) + "," + csvNumber(getGap()) + "," + nodeCount + ","
+                + getIncumbents().size();
+    }
+
+    /**
+     * 进度的时间序列，每个报告一行
+     */
+    public String progressToCsv() {
+        StringBuilder sb = new StringBuilder("time,nodeCount,objVal,objBound,gap,newIncumbent\n");
+        for (SolveProgress p : getProgress()) {
+            sb.append(p.time).append(',').append(p.nodeCount).append(',').append(csvNumber(p.objVal)).append(',')
+                    .append(csvNumber(p.objBound)).append(',').append(csvNumber(p.getGap())).append(',')
+                    .append(p.newIncumbent).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public void writeJson(String file) throws IOException {
+        Files.write(Paths.get(file), toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 把汇总行追加到CSV文件，文件不存在时先写表头
+     */
+    public void appendCsv(String file) throws IOException {
+        Path path = Paths.get(file);
+        boolean exists = Files.exists(path);
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (!exists) {
+                out.write(csvHeader());
+                out.write('\n');
+            }
+            out.write(toCsvRow());
+            out.write('\n');
+        }
+    }
+
+    public void writeProgressCsv(String file) throws IOException {
+        Files.write(Paths.get(file), progressToCsv().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void field(StringBuilder sb, String name, Object value) {
+        sb.append("  ").append(quote(name)).append(": ");
+        if (value instanceof Double) {
+            sb.append(number((Double) value));
+        } else if (value instanceof String) {
+            sb.append(quote((String) value));
+        } else {
+            sb.append(value);
+        }
+        sb.append(",\n");
+    }
+
+    // JSON没有无穷大和NaN，用null表示
+    private static String number(double value) {
+        return Double.isInfinite(value) || Double.isNaN(value) ? "null" : String.valueOf(value);
+    }
+
+    private static String csvNumber(double value) {
+        return Double.isInfinite(value) || Double.isNaN(value) ? "" : String.valueOf(value);
+    }
+
+    private static String quote(String value) {
+        if (null == value) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ('"' == c || '\\' == c) {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
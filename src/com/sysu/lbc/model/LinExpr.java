@@ -0,0 +1,66 @@
+package com.sysu.lbc.model;
+
+import java.util.Arrays;
+
+/**
+ * 线性表达式 sum(coeff * var) + constant，同一变量可以出现多次
+ */
+public class LinExpr {
+    private ModelVar[] vars;
+    private double[] coeffs;
+    private int size = 0;
+    private double constant = 0.0;
+
+    public LinExpr() {
+        this(4);
+    }
+
+    public LinExpr(int capacity) {
+        vars = new ModelVar[Math.max(capacity, 1)];
+        coeffs = new double[Math.max(capacity, 1)];
+    }
+
+    public LinExpr(LinExpr other) {
+        vars = Arrays.copyOf(other.vars, Math.max(other.size, 1));
+        coeffs = Arrays.copyOf(other.coeffs, Math.max(other.size, 1));
+        size = other.size;
+        constant = other.constant;
+    }
+
+    public void addTerm(double coeff, ModelVar var) {
+        if (size == vars.length) {
+            vars = Arrays.copyOf(vars, size * 2);
+            coeffs = Arrays.copyOf(coeffs, size * 2);
+        }
+        vars[size] = var;
+        coeffs[size] = coeff;
+        size++;
+    }
+
+    public void add(LinExpr other) {
+        for (int i = 0; i < other.size; i++) {
+            addTerm(other.coeffs[i], other.vars[i]);
+        }
+        constant += other.constant;
+    }
+
+    public void addConstant(double value) {
+        constant += value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ModelVar getVar(int i) {
+        return vars[i];
+    }
+
+    public double getCoeff(int i) {
+        return coeffs[i];
+    }
+
+    public double getConstant() {
+        return constant;
+    }
+}
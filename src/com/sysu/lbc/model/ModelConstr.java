@@ -0,0 +1,19 @@
+package com.sysu.lbc.model;
+
+/**
+ * 模型中的一个约束，index为其在所属模型中的编号(线性约束与二次约束统一编号)
+ */
+public class ModelConstr {
+    public final int index;
+    public final String name;
+
+    public ModelConstr(int index, String name) {
+        this.index = index;
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
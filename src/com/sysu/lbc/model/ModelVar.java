@@ -0,0 +1,19 @@
+package com.sysu.lbc.model;
+
+/**
+ * 模型中的一个变量，index为其在所属模型中的编号(从0开始，按添加顺序)
+ */
+public class ModelVar {
+    public final int index;
+    public final String name;
+
+    public ModelVar(int index, String name) {
+        this.index = index;
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
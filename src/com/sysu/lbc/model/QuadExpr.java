@@ -0,0 +1,68 @@
+package com.sysu.lbc.model;
+
+import java.util.Arrays;
+
+/**
+ * 二次表达式 sum(coeff * var1 * var2) + 线性部分
+ */
+public class QuadExpr {
+    private final LinExpr linExpr = new LinExpr();
+    private ModelVar[] vars1 = new ModelVar[4];
+    private ModelVar[] vars2 = new ModelVar[4];
+    private double[] coeffs = new double[4];
+    private int size = 0;
+
+    public void addTerm(double coeff, ModelVar var) {
+        linExpr.addTerm(coeff, var);
+    }
+
+    public void addTerm(double coeff, ModelVar var1, ModelVar var2) {
+        if (size == coeffs.length) {
+            vars1 = Arrays.copyOf(vars1, size * 2);
+            vars2 = Arrays.copyOf(vars2, size * 2);
+            coeffs = Arrays.copyOf(coeffs, size * 2);
+        }
+        vars1[size] = var1;
+        vars2[size] = var2;
+        coeffs[size] = coeff;
+        size++;
+    }
+
+    public void add(LinExpr expr) {
+        linExpr.add(expr);
+    }
+
+    public void add(QuadExpr other) {
+        linExpr.add(other.linExpr);
+        for (int i = 0; i < other.size; i++) {
+            addTerm(other.coeffs[i], other.vars1[i], other.vars2[i]);
+        }
+    }
+
+    public void addConstant(double value) {
+        linExpr.addConstant(value);
+    }
+
+    /**
+     * 二次项个数，不含线性部分
+     */
+    public int size() {
+        return size;
+    }
+
+    public ModelVar getVar1(int i) {
+        return vars1[i];
+    }
+
+    public ModelVar getVar2(int i) {
+        return vars2[i];
+    }
+
+    public double getCoeff(int i) {
+        return coeffs[i];
+    }
+
+    public LinExpr getLinExpr() {
+        return linExpr;
+    }
+}
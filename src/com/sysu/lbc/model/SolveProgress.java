@@ -0,0 +1,42 @@
+package com.sysu.lbc.model;
+
+/**
+ * 求解过程中的一次进度报告，由后端在找到更好的可行解时和求解过程中定期产生
+ */
+public class SolveProgress {
+    /** 从开始求解起的时间(秒) */
+    public final double time;
+    /** 已搜索的分支定界节点数 */
+    public final long nodeCount;
+    /** 当前最好可行解的目标值，还没有可行解时为正无穷 */
+    public final double objVal;
+    /** 最优值的下界 */
+    public final double objBound;
+    /** 这次报告是否由找到更好的可行解触发 */
+    public final boolean newIncumbent;
+
+    public SolveProgress(double time, long nodeCount, double objVal, double objBound, boolean newIncumbent) {
+        this.time = time;
+        this.nodeCount = nodeCount;
+        this.objVal = objVal;
+        this.objBound = objBound;
+        this.newIncumbent = newIncumbent;
+    }
+
+    /**
+     * 相对间隙 (目标值 - 下界) / |目标值|，与Gurobi的MIPGap定义相同；没有可行解时为正无穷
+     */
+    public double getGap() {
+        return gap(objVal, objBound);
+    }
+
+    public static double gap(double objVal, double objBound) {
+        if (Double.isInfinite(objVal) || Double.isNaN(objVal) || Double.isInfinite(objBound) || Double.isNaN(objBound)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (0 == objVal) {
+            return objBound >= 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return Math.max(0, objVal - objBound) / Math.abs(objVal);
+    }
+}
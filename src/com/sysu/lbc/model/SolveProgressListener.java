@@ -0,0 +1,8 @@
+package com.sysu.lbc.model;
+
+/**
+ * 接收求解进度，在求解线程中同步调用，实现应尽快返回
+ */
+public interface SolveProgressListener {
+    void onProgress(SolveProgress progress);
+}
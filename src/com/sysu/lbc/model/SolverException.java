@@ -0,0 +1,16 @@
+package com.sysu.lbc.model;
+
+/**
+ * 建模或求解过程中的错误，后端自身的异常(如GRBException)作为cause保留
+ */
+public class SolverException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public SolverException(String message) {
+        super(message);
+    }
+
+    public SolverException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,193 @@
+package com.sysu.lbc.model;
+
+/**
+ * 与具体求解器无关的模型接口。GurobiSolution只通过它建模，
+ * 由不同后端负责把变量、表达式和约束交给具体的求解器。
+ * 变量类型与约束方向使用与Gurobi相同的字符。
+ */
+public interface SolverModel {
+    char BINARY = 'B';
+    char CONTINUOUS = 'C';
+
+    char EQUAL = '=';
+    char LESS_EQUAL = '<';
+    char GREATER_EQUAL = '>';
+
+    double INFINITY = 1e100;
+
+    ModelVar addVar(double lb, double ub, char type, String name) throws SolverException;
+
+    ModelConstr addConstr(LinExpr expr, char sense, double rhs, String name) throws SolverException;
+
+    ModelConstr addQConstr(QuadExpr expr, char sense, double rhs, String name) throws SolverException;
+
+    /**
+     * 批量添加变量，返回的变量与参数数组一一对应；names为null时变量没有名称
+     */
+    default ModelVar[] addVars(double[] lb, double[] ub, char[] types, String[] names) throws SolverException {
+        ModelVar[] result = new ModelVar[lb.length];
+        for (int i = 0; i < lb.length; i++) {
+            result[i] = addVar(lb[i], ub[i], types[i], null == names ? null : names[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 批量添加线性约束，返回的约束与参数数组一一对应；names为null时约束没有名称
+     */
+    default ModelConstr[] addConstrs(LinExpr[] exprs, char[] senses, double[] rhs, String[] names) throws SolverException {
+        ModelConstr[] result = new ModelConstr[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            result[i] = addConstr(exprs[i], senses[i], rhs[i], null == names ? null : names[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 删除变量，同时从所有约束中删除该变量的项
+     */
+    void remove(ModelVar var) throws SolverException;
+
+    void remove(ModelConstr constr) throws SolverException;
+
+    /**
+     * 修改线性约束中变量的系数，原来没有该项时添加
+     */
+    void chgCoeff(ModelConstr constr, ModelVar var, double value) throws SolverException;
+
+    /**
+     * 修改线性约束的右端项
+     */
+    void setRhs(ModelConstr constr, double rhs) throws SolverException;
+
+    /**
+     * 变量的初始值(MIP start)
+     */
+    void setStart(ModelVar var, double value) throws SolverException;
+
+    /**
+     * 目标函数，求最小值
+     */
+    void setObjective(QuadExpr objective) throws SolverException;
+
+    /**
+     * 求解时间上限，单位秒
+     */
+    void setTimeLimit(double seconds) throws SolverException;
+
+    /**
+     * 求解使用的线程数上限，0表示由求解器决定
+     */
+    void setThreads(int threads) throws SolverException;
+
+    /**
+     * 目标相对间隙，当前最好解与下界的相对差距不超过gap时停止求解
+     */
+    void setMipGap(double gap) throws SolverException;
+
+    double getMipGap() throws SolverException;
+
+    void update() throws SolverException;
+
+    void optimize() throws SolverException;
+
+    /**
+     * 是否得到了可行解(最优解或达到时间上限时的当前最好解)
+     */
+    boolean hasSolution() throws SolverException;
+
+    double getObjVal() throws SolverException;
+
+    double getValue(ModelVar var) throws SolverException;
+
+    /**
+     * 批量读取变量的值
+     */
+    default double[] getValues(ModelVar[] vars) throws SolverException {
+        double[] result = new double[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            result[i] = getValue(vars[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 是否支持求解连续松弛并读取对偶值(setRelaxed、getDual、getReducedCost)
+     */
+    default boolean supportsDuals() {
+        return false;
+    }
+
+    /**
+     * relaxed为true时把0-1变量暂时当作[0, 1]上的连续变量求解，为false时恢复原来的类型
+     */
+    default void setRelaxed(boolean relaxed) throws SolverException {
+        throw new SolverException(getClass().getSimpleName() + "不支持求解连续松弛");
+    }
+
+    /**
+     * 上一次求解连续松弛后线性约束的对偶值
+     */
+    default double getDual(ModelConstr constr) throws SolverException {
+        throw new SolverException(getClass().getSimpleName() + "不支持读取对偶值");
+    }
+
+    /**
+     * 上一次求解连续松弛后变量的检验数(reduced cost)
+     */
+    default double getReducedCost(ModelVar var) throws SolverException {
+        throw new SolverException(getClass().getSimpleName() + "不支持读取检验数");
+    }
+
+    /**
+     * 求解时把进度报告给listener，为null时不再报告
+     */
+    void setProgressListener(SolveProgressListener listener) throws SolverException;
+
+    /**
+     * 刚找到的可行解中变量的值，只能在进度监听器处理newIncumbent为true的报告时调用
+     */
+    double[] getIncumbentValues(ModelVar[] vars) throws SolverException;
+
+    /**
+     * 上一次求解搜索的分支定界节点数
+     */
+    long getNodeCount() throws SolverException;
+
+    /**
+     * 上一次求解得到的最优值下界
+     */
+    double getObjBound() throws SolverException;
+
+    int getVarNum();
+
+    /**
+     * 线性约束与二次约束的总数
+     */
+    int getConstrNum();
+
+    int getQConstrNum();
+
+    /**
+     * 约束和目标函数中非零系数的个数，包括二次项
+     */
+    long getNonZeroNum() throws SolverException;
+
+    void dispose() throws SolverException;
+
+    default double getValue(LinExpr expr) throws SolverException {
+        double result = expr.getConstant();
+        for (int i = 0; i < expr.size(); i++) {
+            result += expr.getCoeff(i) * getValue(expr.getVar(i));
+        }
+        return result;
+    }
+
+    default double getValue(QuadExpr expr) throws SolverException {
+        double result = getValue(expr.getLinExpr());
+        for (int i = 0; i < expr.size(); i++) {
+            result += expr.getCoeff(i) * getValue(expr.getVar1(i)) * getValue(expr.getVar2(i));
+        }
+        return result;
+    }
+}
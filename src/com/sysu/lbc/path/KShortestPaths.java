@@ -0,0 +1,261 @@
+package com.sysu.lbc.path;
+
+import com.sysu.lbc.dataStructure.Link;
+
+import java.util.*;
+
+/**
+ * 用Yen算法求两节点之间前k条最短的无环路径，链路不区分方向。
+ * 图用CSR格式的邻接数组保存：节点i的出边下标为[arcStart[i], arcStart[i + 1])，
+ * 每条出边记录终点arcHead和权重arcWeight。
+ * <p>
+ * 偏离路径用限制跳数的Bellman-Ford求解(第h轮只松弛h跳以内的路径)，因此跳数上限下的结果是精确的；
+ * 权重必须为正，此时最短的游走一定是无环路径。权重可以取跳数(hopWeights)、带宽的倒数(inverseBandwidthWeights)，
+ * 也可以取与当前链路负载相关的值，得到负载最轻的k条路径
+ */
+public class KShortestPaths {
+    private final Map<Integer, Integer> nodeIdx = new HashMap<>();
+    private final int[] nodeIds;
+    private final int[] arcStart;
+    private final int[] arcHead;
+    private final double[] arcWeight;
+
+    // 每次求偏离路径时被禁用的节点与出边
+    private final boolean[] nodeBlocked;
+    private final boolean[] arcBlocked;
+
+    public KShortestPaths(List<Link> links, double[] linkWeights) {
+        List<Integer> ids = new ArrayList<>();
+        for (Link link : links) {
+            for (int nodeId : new int[]{link.srcNodeId, link.dstNodeId}) {
+                if (!nodeIdx.containsKey(nodeId)) {
+                    nodeIdx.put(nodeId, ids.size());
+                    ids.add(nodeId);
+                }
+            }
+        }
+        int nodeNum = ids.size();
+        nodeIds = new int[nodeNum];
+        for (int i = 0; i < nodeNum; i++) {
+            nodeIds[i] = ids.get(i);
+        }
+        arcStart = new int[nodeNum + 1];
+        for (Link link : links) {
+            arcStart[nodeIdx.get(link.srcNodeId) + 1]++;
+            arcStart[nodeIdx.get(link.dstNodeId) + 1]++;
+        }
+        for (int i = 0; i < nodeNum; i++) {
+            arcStart[i + 1] += arcStart[i];
+        }
+        arcHead = new int[arcStart[nodeNum]];
+        arcWeight = new double[arcStart[nodeNum]];
+        int[] fill = Arrays.copyOf(arcStart, nodeNum);
+        for (int j = 0; j < links.size(); j++) {
+            if (!(linkWeights[j] > 0)) {
+                throw new IllegalArgumentException("链路" + links.get(j).getLinkKey() + "的权重必须为正：" + linkWeights[j]);
+            }
+            int u = nodeIdx.get(links.get(j).srcNodeId);
+            int v = nodeIdx.get(links.get(j).dstNodeId);
+            arcHead[fill[u]] = v;
+            arcWeight[fill[u]++] = linkWeights[j];
+            arcHead[fill[v]] = u;
+            arcWeight[fill[v]++] = linkWeights[j];
+        }
+        nodeBlocked = new boolean[nodeNum];
+        arcBlocked = new boolean[arcHead.length];
+    }
+
+    /**
+     * 每条链路权重为1，即按跳数求最短路径
+     */
+    public static double[] hopWeights(List<Link> links) {
+        double[] result = new double[links.size()];
+        Arrays.fill(result, 1.0);
+        return result;
+    }
+
+    /**
+     * 链路权重为带宽的倒数，优先经过带宽大的链路
+     */
+    public static double[] inverseBandwidthWeights(List<Link> links) {
+        double[] result = new double[links.size()];
+        for (int j = 0; j < links.size(); j++) {
+            result[j] = 1.0 / links.get(j).bandwidth;
+        }
+        return result;
+    }
+
+    /**
+     * @param maxHops 路径的最大跳数
+     * @return 从src到dst按权重从小到大的至多k条无环路径(节点id序列)，节点不在图中或不连通时返回空列表
+     */
+    public List<int[]> find(int src, int dst, int k, int maxHops) {
+        List<int[]> result = new ArrayList<>();
+        Integer s = nodeIdx.get(src);
+        Integer t = nodeIdx.get(dst);
+        if (null == s || null == t || s.equals(t) || k <= 0 || maxHops <= 0) {
+            return result;
+        }
+        int[] first = shortestPath(s, t, maxHops);
+        if (null == first) {
+            return result;
+        }
+        List<int[]> accepted = new ArrayList<>();
+        accepted.add(first);
+        // 候选路径按(权重, 跳数)排序，去重后取最小者
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        Set<String> seen = new HashSet<>();
+        seen.add(Arrays.toString(first));
+        while (accepted.size() < k) {
+            int[] prev = accepted.get(accepted.size() - 1);
+            for (int i = 0; i < prev.length - 1; i++) {
+                int spur = prev[i];
+                // 与已接受路径共享前缀prev[0..i]时，禁止它们在spur处走的下一条边
+                for (int[] path : accepted) {
+                    if (path.length > i + 1 && samePrefix(path, prev, i)) {
+                        blockArc(path[i], path[i + 1]);
+                    }
+                }
+                for (int r = 0; r < i; r++) {
+                    nodeBlocked[prev[r]] = true;
+                }
+                int[] spurPath = shortestPath(spur, t, maxHops - i);
+                Arrays.fill(nodeBlocked, false);
+                Arrays.fill(arcBlocked, false);
+                if (null == spurPath) {
+                    continue;
+                }
+                int[] total = new int[i + spurPath.length];
+                System.arraycopy(prev, 0, total, 0, i);
+                System.arraycopy(spurPath, 0, total, i, spurPath.length);
+                if (seen.add(Arrays.toString(total))) {
+                    candidates.add(new Candidate(total, cost(total)));
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Candidate next = candidates.poll();
+            accepted.add(next.path);
+        }
+        for (int[] path : accepted) {
+            int[] ids = new int[path.length];
+            for (int i = 0; i < path.length; i++) {
+                ids[i] = nodeIds[path[i]];
+            }
+            result.add(ids);
+        }
+        return result;
+    }
+
+    // 限制跳数的Bellman-Ford：dist[h][v]为不超过h跳到达v的最短距离，跳过被禁用的节点和边
+    private int[] shortestPath(int s, int t, int maxHops) {
+        int nodeNum = nodeIds.length;
+        maxHops = Math.min(maxHops, nodeNum - 1);
+        if (maxHops <= 0) {
+            return null;
+        }
+        double[][] dist = new double[maxHops + 1][nodeNum];
+        int[][] pred = new int[maxHops + 1][nodeNum];
+        for (double[] row : dist) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        dist[0][s] = 0;
+        pred[0][s] = -1;
+        for (int h = 1; h <= maxHops; h++) {
+            System.arraycopy(dist[h - 1], 0, dist[h], 0, nodeNum);
+            System.arraycopy(pred[h - 1], 0, pred[h], 0, nodeNum);
+            boolean changed = false;
+            for (int u = 0; u < nodeNum; u++) {
+                if (Double.isInfinite(dist[h - 1][u]) || nodeBlocked[u] || u == t) {
+                    continue;
+                }
+                for (int a = arcStart[u]; a < arcStart[u + 1]; a++) {
+                    int v = arcHead[a];
+                    if (arcBlocked[a] || nodeBlocked[v] || v == s) {
+                        continue;
+                    }
+                    double d = dist[h - 1][u] + arcWeight[a];
+                    if (d < dist[h][v]) {
+                        dist[h][v] = d;
+                        pred[h][v] = u;
+                        changed = true;
+                    }
+                }
+            }
+            if (!changed) {
+                maxHops = h;
+                break;
+            }
+        }
+        if (Double.isInfinite(dist[maxHops][t])) {
+            return null;
+        }
+        // 从终点按层回溯：dist[h][v]由第h - 1层的前驱更新而来，未更新时与第h - 1层相同
+        int[] reversed = new int[maxHops + 1];
+        int len = 0;
+        int v = t;
+        int h = maxHops;
+        while (v != s) {
+            while (h > 0 && dist[h - 1][v] == dist[h][v] && pred[h - 1][v] == pred[h][v]) {
+                h--;
+            }
+            reversed[len++] = v;
+            v = pred[h][v];
+            h--;
+        }
+        reversed[len++] = s;
+        int[] path = new int[len];
+        for (int i = 0; i < len; i++) {
+            path[i] = reversed[len - 1 - i];
+        }
+        return path;
+    }
+
+    private void blockArc(int u, int v) {
+        for (int a = arcStart[u]; a < arcStart[u + 1]; a++) {
+            if (arcHead[a] == v) {
+                arcBlocked[a] = true;
+            }
+        }
+    }
+
+    private double cost(int[] path) {
+        double result = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int a = arcStart[path[i]]; a < arcStart[path[i] + 1]; a++) {
+                if (arcHead[a] == path[i + 1]) {
+                    best = Math.min(best, arcWeight[a]);
+                }
+            }
+            result += best;
+        }
+        return result;
+    }
+
+    private static boolean samePrefix(int[] a, int[] b, int i) {
+        for (int r = 0; r <= i; r++) {
+            if (a[r] != b[r]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+        final int[] path;
+        final double cost;
+
+        Candidate(int[] path, double cost) {
+            this.path = path;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            int c = Double.compare(cost, o.cost);
+            return 0 != c ? c : Integer.compare(path.length, o.path.length);
+        }
+    }
+}
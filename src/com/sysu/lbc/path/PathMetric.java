@@ -0,0 +1,19 @@
+package com.sysu.lbc.path;
+
+import com.sysu.lbc.dataStructure.Link;
+
+import java.util.List;
+
+/**
+ * 生成路径时链路的权重
+ */
+public enum PathMetric {
+    /** 跳数最少 */
+    HOPS,
+    /** 带宽倒数之和最小，优先经过带宽大、相对负载轻的链路 */
+    INVERSE_BANDWIDTH;
+
+    public double[] weights(List<Link> links) {
+        return HOPS == this ? KShortestPaths.hopWeights(links) : KShortestPaths.inverseBandwidthWeights(links);
+    }
+}
@@ -0,0 +1,133 @@
+package com.sysu.lbc.presolve;
+
+import com.sysu.lbc.dataStructure.PathTable;
+import com.sysu.lbc.dataStructure.WorkflowBatch;
+
+import java.util.Arrays;
+
+/**
+ * 任务可放置节点的集合(定义域)，由模型本身的约束推出，用于建模前的预处理。
+ * <p>
+ * 初始时起始任务只能放在起始节点上，其余任务可以放在任意节点上(开启pruneYVar时只能放在候选节点上，
+ * 因为其他节点上没有y变量，x只能为0)。之后反复做弧相容：流(s, s')中，节点u留在s的定义域中当且仅当
+ * s'的定义域中有节点v且存在u到v的路径，反之亦然，直到定义域不再变化。
+ * 被删去的节点上的x变量在任何可行解中都为0，两端不在定义域中的路径上的y变量也为0。
+ * 某个工作流有任务的定义域为空时整个工作流不可行(或者某个流没有任何路径，原模型不约束它的两端)，
+ * 该工作流只固定起始任务，交给求解器处理。
+ * 不裁剪y变量且有端点不在拓扑中的路径时，这些路径的y变量不与两端的x耦合，此时也只固定起始任务
+ */
+public class PlacementDomains {
+    private final WorkflowBatch batch;
+    private final int nodeNum;
+    // domain[t * nodeNum + v]：任务t能否放在节点v上
+    private final boolean[] domain;
+    private final int[] domainSize;
+    private int infeasibleWorkflowNum = 0;
+
+    /**
+     * @param pathSrc 路径起点在batch中的节点下标，下标为pathId，不在拓扑中为-1
+     * @param pathDst 路径终点的节点下标
+     */
+    public PlacementDomains(WorkflowBatch batch, PathTable paths, int[] pathSrc, int[] pathDst, boolean candidatesOnly) {
+        this.batch = batch;
+        nodeNum = batch.getNodeNum();
+        domain = new boolean[batch.getTaskNum() * nodeNum];
+        domainSize = new int[batch.getTaskNum()];
+        boolean[] hasPath = new boolean[nodeNum * nodeNum];
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            if (pathSrc[pathId] >= 0 && pathDst[pathId] >= 0) {
+                hasPath[pathSrc[pathId] * nodeNum + pathDst[pathId]] = true;
+            }
+        }
+        boolean dangling = false;
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            dangling |= pathSrc[pathId] < 0 || pathDst[pathId] < 0;
+        }
+        for (int w = 0; w < batch.getWorkflowNum(); w++) {
+            if (dangling && !candidatesOnly) {
+                init(w, false);
+            } else {
+                init(w, candidatesOnly);
+                if (!propagate(w, hasPath)) {
+                    infeasibleWorkflowNum++;
+                    init(w, false);
+                }
+            }
+        }
+    }
+
+    public boolean contains(int t, int v) {
+        return domain[t * nodeNum + v];
+    }
+
+    public int size(int t) {
+        return domainSize[t];
+    }
+
+    /**
+     * 定义域只有一个节点的任务，它的放置已经确定
+     */
+    public boolean isFixed(int t) {
+        return 1 == domainSize[t];
+    }
+
+    public int getInfeasibleWorkflowNum() {
+        return infeasibleWorkflowNum;
+    }
+
+    private void init(int w, boolean candidatesOnly) {
+        for (int t = batch.taskStart[w]; t < batch.taskStart[w + 1]; t++) {
+            boolean fixedOrigin = 1 == batch.taskIds[t] && batch.originNode[w] >= 0;
+            if (candidatesOnly || fixedOrigin) {
+                Arrays.fill(domain, t * nodeNum, (t + 1) * nodeNum, false);
+                for (int k = batch.candStart[t]; k < batch.candStart[t + 1]; k++) {
+                    domain[t * nodeNum + batch.candNodes[k]] = true;
+                }
+                domainSize[t] = batch.candStart[t + 1] - batch.candStart[t];
+            } else {
+                Arrays.fill(domain, t * nodeNum, (t + 1) * nodeNum, true);
+                domainSize[t] = nodeNum;
+            }
+        }
+    }
+
+    // 对工作流w的流反复做弧相容，有定义域变空时返回false
+    private boolean propagate(int w, boolean[] hasPath) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int f = batch.flowStart[w]; f < batch.flowStart[w + 1]; f++) {
+                int curr = batch.flowCurr[f];
+                int succ = batch.flowSucc[f];
+                for (int u = 0; u < nodeNum; u++) {
+                    if (domain[curr * nodeNum + u] && !supported(succ, u, hasPath, true)) {
+                        domain[curr * nodeNum + u] = false;
+                        domainSize[curr]--;
+                        changed = true;
+                    }
+                }
+                for (int v = 0; v < nodeNum; v++) {
+                    if (domain[succ * nodeNum + v] && !supported(curr, v, hasPath, false)) {
+                        domain[succ * nodeNum + v] = false;
+                        domainSize[succ]--;
+                        changed = true;
+                    }
+                }
+                if (0 == domainSize[curr] || 0 == domainSize[succ]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // forward为true时：任务other的定义域中是否有节点v使node到v有路径；为false时是否有v使v到node有路径
+    private boolean supported(int other, int node, boolean[] hasPath, boolean forward) {
+        for (int v = 0; v < nodeNum; v++) {
+            if (domain[other * nodeNum + v] && hasPath[forward ? node * nodeNum + v : v * nodeNum + node]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
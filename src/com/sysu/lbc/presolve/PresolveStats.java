@@ -0,0 +1,43 @@
+package com.sysu.lbc.presolve;
+
+/**
+ * 建模前预处理的缩减统计，各工作流的统计可以用add合并
+ */
+public class PresolveStats {
+    /** 设置了预处理但因启用列生成而没有做，此时各项统计都为0 */
+    public boolean skipped;
+    /** 定义域只剩一个节点、x变量由下界固定为1的任务数 */
+    public int fixedTaskNum;
+    /** 因节点不在任务定义域中而没有创建的x变量数 */
+    public int removedXVarNum;
+    /** 端点不在两端任务定义域中而没有创建的y变量数(不含pruneYVar按候选节点裁剪的) */
+    public int deadYVarNum;
+    /** 因固定变量或删去的变量而省去的约束数 */
+    public int removedConstrNum;
+    /** 一端的x固定后化为线性约束的二次耦合约束数(QUADRATIC) */
+    public int linearizedQConstrNum;
+    /** 表达式为空、没有创建负载变量和定义约束的节点、链路数 */
+    public int emptyLoadNum;
+    /** 弧相容推出不可行、保留原定义域的工作流数 */
+    public int infeasibleWorkflowNum;
+
+    public void add(PresolveStats other) {
+        fixedTaskNum += other.fixedTaskNum;
+        removedXVarNum += other.removedXVarNum;
+        deadYVarNum += other.deadYVarNum;
+        removedConstrNum += other.removedConstrNum;
+        linearizedQConstrNum += other.linearizedQConstrNum;
+        emptyLoadNum += other.emptyLoadNum;
+        infeasibleWorkflowNum += other.infeasibleWorkflowNum;
+    }
+
+    @Override
+    public String toString() {
+        if (skipped) {
+            return "列生成时不做预处理";
+        }
+        return "固定任务" + fixedTaskNum + "个，删去x变量" + removedXVarNum + "个、y变量" + deadYVarNum
+                + "个、约束" + removedConstrNum + "个，线性化二次约束" + linearizedQConstrNum
+                + "个，空负载项" + emptyLoadNum + "个，不可行工作流" + infeasibleWorkflowNum + "个";
+    }
+}
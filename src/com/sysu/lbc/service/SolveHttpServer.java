@@ -0,0 +1,163 @@
+package com.sysu.lbc.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sysu.lbc.Formulation;
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.solver.Backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * SolveService的本地HTTP接口，只监听回环地址。
+ * <ul>
+ * <li>GET|POST /solve?workflows=5&amp;seed=1&amp;timeLimit=60&amp;gap=0.0001&amp;threads=1&amp;formulation=QUADRATIC&amp;placement=false：
+ * 求解一个请求，返回SolveResponse的JSON；队列已满时返回503，参数错误时返回400</li>
+ * <li>GET /stats：服务的队列与计数</li>
+ * </ul>
+ * 用法：SolveHttpServer [端口，默认8080] [CPU核数预算，默认CPU核数] [队列容量，默认16]
+ */
+public class SolveHttpServer {
+    private final SolveService service;
+    private final HttpServer server;
+    // 处理连接的线程只负责排队和等待结果，求解的并发由SolveService控制
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * @param port 为0时由系统选择端口，用getPort读取
+     */
+    public SolveHttpServer(SolveService service, int port) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", exchange -> send(exchange, 200, service.statsToJson()));
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 停止监听并关闭处理连接的线程池，不关闭SolveService
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        SolveRequest request;
+        try {
+            request = parseRequest(exchange.getRequestURI().getRawQuery());
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+            return;
+        }
+        try {
+            send(exchange, 200, service.submit(request).get().toJson());
+        } catch (RejectedExecutionException e) {
+            send(exchange, 503, error("队列已满"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 500, error("等待结果时被中断"));
+        } catch (ExecutionException e) {
+            send(exchange, 500, error(String.valueOf(e.getCause().getMessage())));
+        }
+    }
+
+    static SolveRequest parseRequest(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (null != query) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    try {
+                        params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+                    } catch (UnsupportedEncodingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        SolveRequest request = new SolveRequest();
+        try {
+            if (params.containsKey("workflows")) {
+                request.workflowNum = Integer.parseInt(params.get("workflows"));
+            }
+            if (params.containsKey("seed")) {
+                request.seed = Long.parseLong(params.get("seed"));
+            }
+            if (params.containsKey("timeLimit")) {
+                request.timeLimit = Double.parseDouble(params.get("timeLimit"));
+            }
+            if (params.containsKey("gap")) {
+                request.targetGap = Double.parseDouble(params.get("gap"));
+            }
+            if (params.containsKey("threads")) {
+                request.threads = Integer.parseInt(params.get("threads"));
+            }
+            if (params.containsKey("formulation")) {
+                request.formulation = Formulation.valueOf(params.get("formulation"));
+            }
+            if (params.containsKey("placement")) {
+                request.withPlacement = Boolean.parseBoolean(params.get("placement"));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("参数错误：" + e.getMessage(), e);
+        }
+        if (request.workflowNum <= 0 || !(request.timeLimit > 0) || request.targetGap < 0 || request.threads <= 0) {
+            throw new IllegalArgumentException("参数超出范围");
+        }
+        return request;
+    }
+
+    private static String error(String message) {
+        return "{\"error\": \"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int coreBudget = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        Backend backend = Backend.isGurobiAvailable() ? Backend.GUROBI : Backend.BRANCH_AND_BOUND;
+        SolveService service = new SolveService(backend, coreBudget, queueCapacity);
+        SolveHttpServer server = new SolveHttpServer(service, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                service.shutdown();
+            } catch (SolverException | InterruptedException e) {
+                System.err.println("关闭服务失败：" + e.getMessage());
+            }
+        }));
+        server.start();
+        System.out.println("backend: " + backend + "，监听127.0.0.1:" + server.getPort() + "，CPU核数预算" + coreBudget
+                + "，队列容量" + queueCapacity);
+    }
+}
@@ -0,0 +1,21 @@
+package com.sysu.lbc.service;
+
+import com.sysu.lbc.Formulation;
+
+/**
+ * 一个放置请求：为workflowNum个新生成的工作流建模求解。
+ * 工作流由种子为seed的WorkloadGenerator生成，id从1开始，起始节点从拓扑的UAV节点中选取，
+ * 因此相同的请求总是求解相同的实例，与服务之前处理过的请求无关。
+ * 从提交起timeLimit秒内返回结果(排队、建模和求解时间都计算在内)，间隙达到targetGap时提前返回
+ */
+public class SolveRequest {
+    public int workflowNum = 5;
+    public long seed = 1;
+    public Formulation formulation = Formulation.QUADRATIC;
+    public double timeLimit = 60;
+    public double targetGap = 1e-4;
+    /** 请求使用的线程数，从服务的CPU核数预算中扣除 */
+    public int threads = 1;
+    /** 是否在结果中返回每个任务的节点和每个流的路径 */
+    public boolean withPlacement = false;
+}
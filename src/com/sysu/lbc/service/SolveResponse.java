@@ -0,0 +1,74 @@
+package com.sysu.lbc.service;
+
+import com.sysu.lbc.dataStructure.Flow;
+import com.sysu.lbc.dataStructure.Placement;
+import com.sysu.lbc.dataStructure.Task;
+import com.sysu.lbc.model.SolveProgress;
+
+import java.util.Map;
+
+/**
+ * 放置请求的结果，耗时单位为ms
+ */
+public class SolveResponse {
+    public long requestId;
+    public int workflowNum;
+    public int threads;
+    public boolean hasSolution;
+    public double objVal = Double.POSITIVE_INFINITY;
+    public double objBound = Double.NEGATIVE_INFINITY;
+    public boolean targetReached;
+    public int incumbentNum;
+    /** 在队列中等待以及等待线程预算的时间 */
+    public long queueTime;
+    public long prepareTime;
+    public long solveTime;
+    /** 请求要求返回放置时不为null */
+    public Placement placement;
+
+    public double getGap() {
+        return SolveProgress.gap(objVal, objBound);
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"requestId\": ").append(requestId);
+        sb.append(", \"workflowNum\": ").append(workflowNum);
+        sb.append(", \"threads\": ").append(threads);
+        sb.append(", \"hasSolution\": ").append(hasSolution);
+        sb.append(", \"objVal\": ").append(number(objVal));
+        sb.append(", \"objBound\": ").append(number(objBound));
+        sb.append(", \"gap\": ").append(number(getGap()));
+        sb.append(", \"targetReached\": ").append(targetReached);
+        sb.append(", \"incumbentNum\": ").append(incumbentNum);
+        sb.append(", \"queueTimeMs\": ").append(queueTime);
+        sb.append(", \"prepareTimeMs\": ").append(prepareTime);
+        sb.append(", \"solveTimeMs\": ").append(solveTime);
+        if (null != placement) {
+            // 任务为[工作流id, 任务id, 节点id]，流为[工作流id, 前驱任务id, 后继任务id, 路径id]
+            sb.append(", \"tasks\": [");
+            String sep = "";
+            for (Map.Entry<Task, Integer> entry : placement.taskNodes.entrySet()) {
+                Task task = entry.getKey();
+                sb.append(sep).append('[').append(task.workflowId).append(", ").append(task.taskId).append(", ")
+                        .append(entry.getValue()).append(']');
+                sep = ", ";
+            }
+            sb.append("], \"flows\": [");
+            sep = "";
+            for (Map.Entry<Flow, Integer> entry : placement.flowPaths.entrySet()) {
+                Flow flow = entry.getKey();
+                sb.append(sep).append('[').append(flow.currTask.workflowId).append(", ").append(flow.currTask.taskId)
+                        .append(", ").append(flow.succTask.taskId).append(", ").append(entry.getValue()).append(']');
+                sep = ", ";
+            }
+            sb.append(']');
+        }
+        return sb.append('}').toString();
+    }
+
+    // JSON没有无穷大和NaN，用null表示
+    private static String number(double value) {
+        return Double.isInfinite(value) || Double.isNaN(value) ? "null" : String.valueOf(value);
+    }
+}
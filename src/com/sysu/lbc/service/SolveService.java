@@ -0,0 +1,186 @@
+package com.sysu.lbc.service;
+
+import com.sysu.lbc.AnytimeResult;
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.solver.EnvPool;
+import com.sysu.lbc.tool.WorkloadGenerator;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并发求解放置请求的服务。
+ * <p>
+ * 请求先进入容量为queueCapacity的有界队列，队列满时submit抛出RejectedExecutionException，由调用方重试或降级(背压)；
+ * 工作线程取出请求后先从CPU核数预算coreBudget中申请请求所需的线程数，申请不到时等待，
+ * 因此同时求解的请求使用的线程总数不超过预算。Gurobi模型从共用的环境池创建，不再为每个请求创建GRBEnv。
+ * 每个请求的工作流id从1开始，不使用WorkflowGenerator的全局计数，见SolveRequest
+ */
+public class SolveService {
+    private final Backend backend;
+    private final int coreBudget;
+    private final Semaphore cores;
+    private final EnvPool envPool;
+    private final ThreadPoolExecutor executor;
+    // 工作流的起始节点(拓扑中的UAV节点)，创建服务时读取一次
+    private final List<Integer> originNodes;
+    private final AtomicLong nextRequestId = new AtomicLong();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public SolveService(Backend backend, int coreBudget, int queueCapacity) {
+        this.backend = backend;
+        this.coreBudget = coreBudget;
+        this.cores = new Semaphore(coreBudget, true);
+        // 每个请求至少占用一个核，同时求解的请求数不超过coreBudget，环境也只需要这么多
+        this.envPool = new EnvPool(coreBudget, "service");
+        this.executor = new ThreadPoolExecutor(coreBudget, coreBudget, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        GurobiSolution topology = new GurobiSolution();
+        topology.setWorkflowNum(0);
+        topology.prepareData();
+        this.originNodes = topology.getUavNodes();
+    }
+
+    /**
+     * 提交请求，立即返回
+     *
+     * @throws RejectedExecutionException 队列已满或服务已关闭
+     */
+    public Future<SolveResponse> submit(SolveRequest request) {
+        long requestId = nextRequestId.incrementAndGet();
+        long submitTime = System.currentTimeMillis();
+        try {
+            Future<SolveResponse> result = executor.submit(() -> run(requestId, request, submitTime));
+            submitted.incrementAndGet();
+            return result;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 提交请求并等待结果
+     */
+    public SolveResponse solve(SolveRequest request) throws SolverException, InterruptedException {
+        try {
+            return submit(request).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SolverException) {
+                throw (SolverException) e.getCause();
+            }
+            throw new SolverException("求解请求失败", e.getCause());
+        }
+    }
+
+    private SolveResponse run(long requestId, SolveRequest request, long submitTime) throws Exception {
+        int threads = Math.max(1, Math.min(request.threads, coreBudget));
+        cores.acquire(threads);
+        GurobiSolution solution = null;
+        try {
+            SolveResponse response = new SolveResponse();
+            response.requestId = requestId;
+            response.workflowNum = request.workflowNum;
+            response.threads = threads;
+            response.queueTime = System.currentTimeMillis() - submitTime;
+            long deadline = submitTime + (long) (request.timeLimit * 1000);
+            // 排队期间已经超时，不再建模
+            if (System.currentTimeMillis() >= deadline) {
+                completed.incrementAndGet();
+                return response;
+            }
+            solution = new GurobiSolution();
+            solution.setBackend(backend);
+            solution.setEnvPool(envPool);
+            solution.setFormulation(request.formulation);
+            solution.setWorkloadGenerator(new WorkloadGenerator(request.seed)
+                    .setOriginNodes(originNodes).setParallelism(threads));
+            solution.setFirstWorkflowId(1);
+            solution.setWorkflowNum(request.workflowNum);
+            solution.setParallelism(threads);
+            solution.setSolverThreads(threads);
+            solution.prepare();
+            response.prepareTime = solution.getPrepareTime();
+            AnytimeResult result = solution.solveAnytime(deadline, request.targetGap, null);
+            response.solveTime = result.time;
+            response.hasSolution = result.hasPlacement();
+            response.objVal = result.objVal;
+            response.objBound = result.objBound;
+            response.targetReached = result.targetReached;
+            response.incumbentNum = result.incumbentNum;
+            if (request.withPlacement) {
+                response.placement = result.placement;
+            }
+            completed.incrementAndGet();
+            return response;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            throw e;
+        } finally {
+            if (null != solution && null != solution.getModel()) {
+                solution.dispose();
+            }
+            cores.release(threads);
+        }
+    }
+
+    // 核数预算的信号量；测试中占满它可以让工作线程阻塞在申请核数上
+    Semaphore getCores() {
+        return cores;
+    }
+
+    public int getCoreBudget() {
+        return coreBudget;
+    }
+
+    /**
+     * 正在队列中等待的请求数
+     */
+    public int getQueuedNum() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveNum() {
+        return executor.getActiveCount();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public String statsToJson() {
+        return "{\"coreBudget\": " + coreBudget + ", \"availableCores\": " + cores.availablePermits()
+                + ", \"queued\": " + getQueuedNum() + ", \"active\": " + getActiveNum()
+                + ", \"submitted\": " + getSubmitted() + ", \"rejected\": " + getRejected()
+                + ", \"completed\": " + getCompleted() + ", \"failed\": " + getFailed()
+                + ", \"envs\": " + envPool.getCreatedNum() + "}";
+    }
+
+    /**
+     * 不再接受新请求，等待已提交的请求完成后释放环境池
+     */
+    public void shutdown() throws SolverException, InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        envPool.close();
+    }
+}
@@ -0,0 +1,76 @@
+package com.sysu.lbc.sim;
+
+import java.util.Arrays;
+
+/**
+ * 按时间排序的事件队列(二叉堆)，事件只由时间和一个int表示，全部存放在基本类型数组中，
+ * 入队出队不产生对象，数组只在容量不足时翻倍
+ */
+public class EventQueue {
+    private double[] times = new double[64];
+    private int[] events = new int[64];
+    private int size = 0;
+
+    public void push(double time, int event) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            events = Arrays.copyOf(events, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (times[parent] <= time) {
+                break;
+            }
+            times[i] = times[parent];
+            events[i] = events[parent];
+            i = parent;
+        }
+        times[i] = time;
+        events[i] = event;
+    }
+
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 最早事件的时间，需要在pop之前调用
+     */
+    public double peekTime() {
+        return times[0];
+    }
+
+    /**
+     * 取出最早的事件
+     */
+    public int pop() {
+        int result = events[0];
+        size--;
+        double time = times[size];
+        int event = events[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && times[child + 1] < times[child]) {
+                child++;
+            }
+            if (time <= times[child]) {
+                break;
+            }
+            times[i] = times[child];
+            events[i] = events[child];
+            i = child;
+        }
+        times[i] = time;
+        events[i] = event;
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package com.sysu.lbc.sim;
+
+import com.sysu.lbc.dataStructure.Placement;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.heuristic.PlacementHeuristic;
+
+/**
+ * 用PlacementHeuristic增量放置：到达时只放置新工作流，离开时只扣除它的负载，
+ * 每个事件的开销与系统中的工作流数量无关，可以跑百万级事件
+ */
+public class HeuristicPlacer implements OnlinePlacer {
+    private final PlacementHeuristic heuristic;
+    private final Placement placement = new Placement();
+
+    public HeuristicPlacer(PlacementHeuristic heuristic) {
+        this.heuristic = heuristic;
+        heuristic.reset();
+    }
+
+    @Override
+    public boolean arrive(Workflow wf) {
+        return heuristic.addWorkflow(wf, placement);
+    }
+
+    @Override
+    public void depart(Workflow wf) {
+        heuristic.removeWorkflow(wf, placement);
+    }
+
+    @Override
+    public double[] getNodeLoads() {
+        return heuristic.getNodeLoads();
+    }
+
+    @Override
+    public double[] getLinkLoads() {
+        return heuristic.getLinkLoads();
+    }
+}
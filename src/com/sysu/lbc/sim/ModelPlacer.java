@@ -0,0 +1,62 @@
+package com.sysu.lbc.sim;
+
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.model.SolverException;
+
+/**
+ * 用GurobiSolution的在线模式放置：每个事件增删一个工作流后以上一次的解为初始解重新求解。
+ * commitAdmitted为true时接纳的工作流立即提交到容量账本，模型中只剩新到达的工作流，
+ * 已接纳的工作流不再移动，每个事件的求解规模与在线工作流数量无关。
+ * solution需要已经调用过prepare()
+ */
+public class ModelPlacer implements OnlinePlacer {
+    private final GurobiSolution solution;
+    private final boolean commitAdmitted;
+    private final double[] nodeLoads;
+    private final double[] linkLoads;
+
+    public ModelPlacer(GurobiSolution solution) {
+        this(solution, false);
+    }
+
+    public ModelPlacer(GurobiSolution solution, boolean commitAdmitted) {
+        this.solution = solution;
+        this.commitAdmitted = commitAdmitted;
+        nodeLoads = new double[solution.getNodeNum()];
+        linkLoads = new double[solution.getLinkNum()];
+    }
+
+    // 准入检查不通过，或加入后模型无可行解(或在时间上限内没有找到可行解)时拒绝该工作流
+    @Override
+    public boolean arrive(Workflow wf) throws SolverException {
+        if (!solution.admitWorkflow(wf)) {
+            return false;
+        }
+        if (commitAdmitted) {
+            solution.commitWorkflow(wf.getWF_ID());
+            solution.doOptimize();
+        }
+        return true;
+    }
+
+    @Override
+    public void depart(Workflow wf) throws SolverException {
+        if (!solution.releaseWorkflow(wf.getWF_ID())) {
+            solution.removeWorkflow(wf.getWF_ID());
+        }
+        solution.doOptimize();
+    }
+
+    @Override
+    public double[] getNodeLoads() throws SolverException {
+        solution.getLoads(nodeLoads, linkLoads);
+        return nodeLoads;
+    }
+
+    @Override
+    public double[] getLinkLoads() throws SolverException {
+        solution.getLoads(nodeLoads, linkLoads);
+        return linkLoads;
+    }
+}
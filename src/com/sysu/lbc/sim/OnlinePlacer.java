@@ -0,0 +1,29 @@
+package com.sysu.lbc.sim;
+
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.model.SolverException;
+
+/**
+ * 仿真中每个事件调用的放置算法
+ */
+public interface OnlinePlacer {
+    /**
+     * 工作流到达，返回是否接纳
+     */
+    boolean arrive(Workflow wf) throws SolverException;
+
+    /**
+     * 已接纳的工作流结束
+     */
+    void depart(Workflow wf) throws SolverException;
+
+    /**
+     * 当前各节点的负载(资源/容量)，返回的数组由实现方复用
+     */
+    double[] getNodeLoads() throws SolverException;
+
+    /**
+     * 当前各链路的负载(带宽/链路带宽)，返回的数组由实现方复用
+     */
+    double[] getLinkLoads() throws SolverException;
+}
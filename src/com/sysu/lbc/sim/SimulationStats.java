@@ -0,0 +1,129 @@
+package com.sysu.lbc.sim;
+
+import java.util.Arrays;
+
+/**
+ * 仿真统计：接纳率、每个事件的求解耗时，以及按时间加权的节点、链路平均利用率和峰值。
+ * 耗时保存在可增长的long数组中，利用率只累计面积和峰值，记录事件时不产生对象
+ */
+public class SimulationStats {
+    long arrivals = 0;
+    long accepted = 0;
+    long departures = 0;
+
+    private long[] latencies = new long[1024];
+    private int latencyNum = 0;
+    private long[] sortedLatencies;
+
+    private double lastTime = 0;
+    private double nodeUtil = 0, linkUtil = 0;
+    private double nodeUtilArea = 0, linkUtilArea = 0;
+    private double peakNodeUtil = 0, peakLinkUtil = 0;
+
+    /**
+     * 仿真时钟推进到time，上一时刻的利用率在这段时间内保持不变
+     */
+    public void advance(double time) {
+        double dt = time - lastTime;
+        nodeUtilArea += nodeUtil * dt;
+        linkUtilArea += linkUtil * dt;
+        lastTime = time;
+    }
+
+    /**
+     * 记录一个事件的求解耗时(ns)以及事件处理后的负载
+     */
+    public void record(long latency, double[] nodeLoads, double[] linkLoads) {
+        if (latencyNum == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyNum * 2);
+        }
+        latencies[latencyNum++] = latency;
+        sortedLatencies = null;
+        nodeUtil = mean(nodeLoads);
+        linkUtil = mean(linkLoads);
+        peakNodeUtil = Math.max(peakNodeUtil, max(nodeLoads));
+        peakLinkUtil = Math.max(peakLinkUtil, max(linkLoads));
+    }
+
+    public long getEventNum() {
+        return latencyNum;
+    }
+
+    public double getAcceptanceRate() {
+        return 0 == arrivals ? 1.0 : (double) accepted / arrivals;
+    }
+
+    /**
+     * 求解耗时的p分位数(ns)，p取0~1
+     */
+    public long getLatencyPercentile(double p) {
+        if (0 == latencyNum) {
+            return 0;
+        }
+        if (null == sortedLatencies) {
+            sortedLatencies = Arrays.copyOf(latencies, latencyNum);
+            Arrays.sort(sortedLatencies);
+        }
+        int i = (int) Math.ceil(p * latencyNum) - 1;
+        return sortedLatencies[Math.min(latencyNum - 1, Math.max(0, i))];
+    }
+
+    public double getMeanLatency() {
+        double sum = 0;
+        for (int i = 0; i < latencyNum; i++) {
+            sum += latencies[i];
+        }
+        return 0 == latencyNum ? 0 : sum / latencyNum;
+    }
+
+    /**
+     * 所有节点平均利用率的时间加权平均值
+     */
+    public double getMeanNodeUtilization() {
+        return lastTime > 0 ? nodeUtilArea / lastTime : nodeUtil;
+    }
+
+    public double getMeanLinkUtilization() {
+        return lastTime > 0 ? linkUtilArea / lastTime : linkUtil;
+    }
+
+    /**
+     * 仿真过程中单个节点出现过的最大利用率，大于1表示超过容量
+     */
+    public double getPeakNodeUtilization() {
+        return peakNodeUtil;
+    }
+
+    public double getPeakLinkUtilization() {
+        return peakLinkUtil;
+    }
+
+    public void print() {
+        System.out.println("事件数：" + latencyNum + "，到达：" + arrivals + "，接纳：" + accepted + "，离开：" + departures
+                + "，仿真时长：" + lastTime);
+        System.out.println("接纳率：" + getAcceptanceRate());
+        System.out.println("求解耗时(us)：mean=" + getMeanLatency() / 1000 + " p50=" + getLatencyPercentile(0.5) / 1000
+                + " p99=" + getLatencyPercentile(0.99) / 1000 + " max=" + getLatencyPercentile(1.0) / 1000);
+        System.out.println("节点利用率：mean=" + getMeanNodeUtilization() + " peak=" + getPeakNodeUtilization());
+        System.out.println("链路利用率：mean=" + getMeanLinkUtilization() + " peak=" + getPeakLinkUtilization());
+    }
+
+    private static double mean(double[] values) {
+        if (0 == values.length) {
+            return 0;
+        }
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.length;
+    }
+
+    private static double max(double[] values) {
+        double result = 0;
+        for (double v : values) {
+            result = Math.max(result, v);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+package com.sysu.lbc.sim;
+
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.cache.SolutionCache;
+import com.sysu.lbc.capacity.CapacityLedger;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 离散事件仿真：工作流按泊松过程到达，工作时长服从WorkflowGenerator中参数为lambda的指数分布。
+ * 工作流的起始节点从无人机节点中随机选取。每个到达或离开事件都调用一次放置算法，记录求解耗时、接纳率和节点、链路利用率。
+ * <p>
+ * 用法：Simulator [heuristic|model|committed|hard] [事件数] [平均在线工作流数] [任务资源，默认见WorkflowGenerator]，
+ * 到达率 = 平均在线工作流数 * lambda。committed与model相同，但接纳的工作流提交到容量账本后不再移动；
+ * hard在committed的基础上加入硬容量约束(负载不超过1)，放不下的工作流被拒绝。
+ * 硬容量约束下起始节点只从放得下起始任务的节点中选取，见selectOriginNodes。
+ * 默认数据中任务资源(60)大于无人机节点的容量(55)，一个工作流的6个任务只能放在3个边缘节点上，硬容量约束下总放不下，
+ * 此时要用较小的任务资源，例如 Simulator hard 1000 5 25
+ */
+public class Simulator {
+    // 队列中的到达事件，离开事件用工作流id(从1开始)表示
+    static final int ARRIVAL = 0;
+    // 没有Gurobi时，model模式下每个事件的求解时间上限(秒)
+    static final double MODEL_TIME_LIMIT = 1;
+
+    private final OnlinePlacer placer;
+    private final WorkflowGenerator generator = WorkflowGenerator.getWorkflowGenerator();
+    private final Random random;
+    private final double arrivalRate;
+    private final int templateIdx;
+    private final List<Integer> originNodes;
+    private final EventQueue queue = new EventQueue();
+    private final Map<Integer, Workflow> active = new HashMap<>();
+    private final SimulationStats stats = new SimulationStats();
+
+    public Simulator(OnlinePlacer placer, double arrivalRate, int templateIdx, List<Integer> originNodes, long seed) {
+        this.placer = placer;
+        this.arrivalRate = arrivalRate;
+        this.templateIdx = templateIdx;
+        this.originNodes = originNodes;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 处理eventNum个事件(到达与离开都计入)
+     */
+    public SimulationStats run(long eventNum) throws SolverException {
+        if (queue.isEmpty()) {
+            queue.push(nextInterval(), ARRIVAL);
+        }
+        for (long n = 0; n < eventNum && !queue.isEmpty(); n++) {
+            double time = queue.peekTime();
+            int event = queue.pop();
+            stats.advance(time);
+            long start = System.nanoTime();
+            if (ARRIVAL == event) {
+                arrive(time);
+            } else {
+                placer.depart(active.remove(event));
+                stats.departures++;
+            }
+            long latency = System.nanoTime() - start;
+            stats.record(latency, placer.getNodeLoads(), placer.getLinkLoads());
+        }
+        return stats;
+    }
+
+    private void arrive(double time) throws SolverException {
+        Workflow wf = generator.generateAWorkflow_V2(templateIdx);
+        double duration = generator.generateDuration(random);
+        wf.setDuration(duration);
+        wf.setOriginNodeId(originNodes.get(random.nextInt(originNodes.size())));
+        stats.arrivals++;
+        if (placer.arrive(wf)) {
+            stats.accepted++;
+            active.put(wf.getWF_ID(), wf);
+            queue.push(time + duration, wf.getWF_ID());
+        }
+        queue.push(time + nextInterval(), ARRIVAL);
+    }
+
+    // 泊松过程的到达间隔服从参数为arrivalRate的指数分布
+    private double nextInterval() {
+        return -Math.log(1 - random.nextDouble()) / arrivalRate;
+    }
+
+    /**
+     * 硬容量约束下起始任务固定在起始节点上，容量放不下起始任务的节点做起始节点时工作流总被拒绝。
+     * 优先取放得下的无人机节点；都放不下时(默认数据中无人机节点容量55，任务资源60)取拓扑中其余放得下的节点
+     *
+     * @throws IllegalArgumentException 没有节点放得下起始任务
+     */
+    static List<Integer> selectOriginNodes(CapacityLedger ledger, List<Integer> uavNodes, double originResource) {
+        List<Integer> result = new ArrayList<>();
+        for (int nodeId : uavNodes) {
+            if (ledger.getNodeCapacity(nodeId) >= originResource) {
+                result.add(nodeId);
+            }
+        }
+        if (result.isEmpty()) {
+            for (int nodeId : ledger.getNodeIds()) {
+                if (ledger.getNodeCapacity(nodeId) >= originResource) {
+                    result.add(nodeId);
+                }
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("没有节点放得下资源为" + originResource + "的起始任务");
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws SolverException {
+        String mode = args.length > 0 ? args[0] : "heuristic";
+        long eventNum = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+        double meanActive = args.length > 2 ? Double.parseDouble(args[2]) : 5;
+        if (args.length > 3) {
+            WorkflowGenerator.getWorkflowGenerator().setTaskCap(Double.parseDouble(args[3]));
+        }
+
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkflowNum(0);
+        OnlinePlacer placer;
+        boolean hard = "hard".equals(mode);
+        boolean committed = hard || "committed".equals(mode);
+        if ("model".equals(mode) || committed) {
+            if (Backend.isGurobiAvailable()) {
+                solution.setBackend(Backend.GUROBI);
+            } else {
+                solution.setBackend(Backend.BRANCH_AND_BOUND);
+                solution.setTimeLimit(MODEL_TIME_LIMIT);
+            }
+            // 相同的模板在相同的负载下再次到达时，用缓存的放置作为初始解
+            solution.setSolutionCache(new SolutionCache(), false);
+            solution.setHardCapacity(hard);
+            solution.prepare();
+            placer = new ModelPlacer(solution, committed);
+        } else {
+            solution.prepareData();
+            placer = new HeuristicPlacer(solution.getHeuristic());
+        }
+        double arrivalRate = meanActive * WorkflowGenerator.getWorkflowGenerator().getLambda();
+        List<Integer> originNodes = solution.getUavNodes();
+        if (hard) {
+            originNodes = selectOriginNodes(solution.getCapacityLedger(), originNodes,
+                    WorkflowGenerator.getWorkflowGenerator().getTaskCap());
+            System.out.println("起始节点：" + originNodes);
+        }
+        Simulator simulator = new Simulator(placer, arrivalRate, 0, originNodes, 1);
+        long starTime = System.currentTimeMillis();
+        SimulationStats stats = simulator.run(eventNum);
+        System.out.println("仿真耗时：" + (System.currentTimeMillis() - starTime) + "ms");
+        stats.print();
+        if (null != solution.getSolutionCache()) {
+            solution.getSolutionCache().print();
+        }
+        if (committed) {
+            solution.getCapacityLedger().print();
+        }
+    }
+}
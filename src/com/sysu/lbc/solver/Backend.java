@@ -0,0 +1,33 @@
+package com.sysu.lbc.solver;
+
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.model.SolverModel;
+
+/**
+ * 可选的求解后端
+ */
+public enum Backend {
+    /** Gurobi，需要本地安装并有许可证 */
+    GUROBI,
+    /** 纯Java的分支定界求解器，不依赖任何本地库 */
+    BRANCH_AND_BOUND;
+
+    public SolverModel create(String logFile) throws SolverException {
+        if (GUROBI == this) {
+            return new GurobiModel(logFile);
+        }
+        return new BranchAndBoundModel();
+    }
+
+    /**
+     * 当前机器能否创建Gurobi环境
+     */
+    public static boolean isGurobiAvailable() {
+        try {
+            new GurobiModel("").dispose();
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+}
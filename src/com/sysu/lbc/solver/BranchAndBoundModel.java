@@ -0,0 +1,921 @@
+package com.sysu.lbc.solver;
+
+import com.sysu.lbc.model.*;
+
+import java.util.*;
+
+/**
+ * 纯Java的分支定界后端，用于没有Gurobi的机器(CI、基准测试、备用放置)。
+ * <p>
+ * 支持的模型：0-1变量；连续变量必须由一个只含0-1变量的线性等式定义(如各节点、链路的负载变量)；
+ * 线性约束和二次约束；二次目标函数。求解时把连续变量代换为其定义式，
+ * 用区间算术对约束做可行性检查与0-1变量的推导，用目标函数在当前区间上的下界剪枝。
+ * 分支时优先选择自由变量最少的集合划分约束(sum(x) == 1)，在其中逐个尝试取1。
+ */
+public class BranchAndBoundModel implements SolverModel {
+    static final double EPS = 1e-6;
+    // 定期报告进度的间隔(ns)
+    static final long REPORT_INTERVAL = 100_000_000L;
+
+    // 建模阶段的数据
+    private final List<String> names = new ArrayList<>();
+    private final List<double[]> bounds = new ArrayList<>();
+    private final Map<Integer, Double> starts = new HashMap<>();
+    private final List<Character> types = new ArrayList<>();
+    private final List<Constraint> constraints = new ArrayList<>();
+    // 已删除的变量；已删除的约束在constraints中置为null
+    private final BitSet removed = new BitSet();
+    private int removedConstrNum = 0;
+    private boolean compactNeeded = false;
+    private QuadExpr objective = new QuadExpr();
+    private double timeLimit = Double.POSITIVE_INFINITY;
+    private double mipGap = 0.0;
+
+    // 求解结果
+    private double[] solution;
+    private double objVal;
+    private boolean optimal;
+    private long nodeCount;
+    private double rootBound;
+    private double objBound;
+    private SolveProgressListener listener;
+    private long startTime;
+    private long nextReport;
+
+    // 编译后的数据，0-1变量按出现顺序重新编号
+    private int[] binIdx;         // 原变量 -> 0-1变量编号，非0-1变量为-1
+    private int[] binVar;         // 0-1变量编号 -> 原变量
+    private int[] defRow;         // 原变量 -> 定义该连续变量的行，非连续变量为-1
+    private int[][] rowVars;
+    private double[][] rowCoefs;
+    private double[] rowConst, rowLo, rowHi, rowMaxAbs;
+    private boolean[] partition;
+    private int[][] quadA, quadB;  // 二次项的操作数：>=0为0-1变量，<0为-(定义行+1)
+    private double[][] quadC;
+    private int[][] occRows;       // 0-1变量 -> 线性出现的行
+    private double[][] occCoefs;
+    private int[][] watchRows;     // 0-1变量 -> 取值变化后需要重新检查的行
+    private int[] objLinOps, objQuadA, objQuadB;
+    private double[] objLinC, objQuadC;
+    private double objConst;
+
+    // 搜索状态
+    private byte[] value;          // -1表示自由
+    private double[] fixed, minFree, maxFree;
+    private int[] freeCount;
+    private int[] trail;
+    private int trailSize;
+    private int[] queue;
+    private boolean[] inQueue;
+    private byte[] best;
+    private double bestObj;
+    private long deadline;
+    private boolean stopped;
+
+    static class Constraint {
+        final LinExpr linExpr;
+        final QuadExpr quadExpr;
+        final char sense;
+        final double rhs;
+
+        Constraint(LinExpr linExpr, QuadExpr quadExpr, char sense, double rhs) {
+            this.linExpr = linExpr;
+            this.quadExpr = quadExpr;
+            this.sense = sense;
+            this.rhs = rhs;
+        }
+    }
+
+    @Override
+    public ModelVar addVar(double lb, double ub, char type, String name) throws SolverException {
+        if (BINARY != type && CONTINUOUS != type && !(lb >= 0 && ub <= 1)) {
+            throw new SolverException("BranchAndBoundModel不支持的变量类型：" + type + "(" + name + ")");
+        }
+        names.add(name);
+        bounds.add(new double[]{lb, ub});
+        types.add(CONTINUOUS == type ? CONTINUOUS : BINARY);
+        return new ModelVar(names.size() - 1, name);
+    }
+
+    @Override
+    public ModelConstr addConstr(LinExpr expr, char sense, double rhs, String name) {
+        constraints.add(new Constraint(new LinExpr(expr), null, sense, rhs));
+        return new ModelConstr(constraints.size() - 1, name);
+    }
+
+    @Override
+    public ModelConstr addQConstr(QuadExpr expr, char sense, double rhs, String name) {
+        QuadExpr copy = new QuadExpr();
+        copy.add(expr);
+        constraints.add(new Constraint(copy.getLinExpr(), copy, sense, rhs));
+        return new ModelConstr(constraints.size() - 1, name);
+    }
+
+    @Override
+    public void remove(ModelVar var) {
+        removed.set(var.index);
+        starts.remove(var.index);
+        compactNeeded = true;
+    }
+
+    @Override
+    public void remove(ModelConstr constr) {
+        constraints.set(constr.index, null);
+        removedConstrNum++;
+    }
+
+    @Override
+    public void chgCoeff(ModelConstr constr, ModelVar var, double value) {
+        LinExpr expr = constraints.get(constr.index).linExpr;
+        double old = 0.0;
+        for (int i = 0; i < expr.size(); i++) {
+            if (expr.getVar(i).index == var.index) {
+                old += expr.getCoeff(i);
+            }
+        }
+        expr.addTerm(value - old, var);
+    }
+
+    @Override
+    public void setRhs(ModelConstr constr, double rhs) {
+        Constraint old = constraints.get(constr.index);
+        constraints.set(constr.index, new Constraint(old.linExpr, old.quadExpr, old.sense, rhs));
+    }
+
+    @Override
+    public void setStart(ModelVar var, double value) {
+        starts.put(var.index, value);
+    }
+
+    @Override
+    public void setObjective(QuadExpr objective) {
+        this.objective = objective;
+    }
+
+    @Override
+    public void setTimeLimit(double seconds) {
+        this.timeLimit = seconds;
+    }
+
+    // 单线程搜索，忽略线程数
+    @Override
+    public void setThreads(int threads) {
+    }
+
+    @Override
+    public void setMipGap(double gap) {
+        this.mipGap = gap;
+    }
+
+    @Override
+    public double getMipGap() {
+        return mipGap;
+    }
+
+    @Override
+    public void update() {
+    }
+
+    @Override
+    public void optimize() throws SolverException {
+        // 时间上限包括编译模型的时间
+        startTime = System.nanoTime();
+        compile();
+        nextReport = startTime + REPORT_INTERVAL;
+        // 时间上限为INFINITY等很大的值时startTime + limit会溢出，按不限时处理
+        long limit = (long) (timeLimit * 1e9);
+        deadline = limit >= Long.MAX_VALUE - startTime ? Long.MAX_VALUE : startTime + limit;
+        stopped = false;
+        nodeCount = 0;
+        best = null;
+        bestObj = Double.POSITIVE_INFINITY;
+        rootBound = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < rowVars.length; r++) {
+            enqueue(r);
+        }
+        boolean feasible = fixBounds() && propagate();
+        if (feasible) {
+            // 深度优先搜索不维护全部未搜索节点，根节点的下界就是全局下界
+            rootBound = objectiveBound();
+            tryStart();
+            search();
+        }
+        optimal = !stopped;
+        solution = null;
+        if (null != best) {
+            System.arraycopy(best, 0, value, 0, best.length);
+            solution = new double[names.size()];
+            for (int v = 0; v < solution.length; v++) {
+                solution[v] = binIdx[v] >= 0 ? value[binIdx[v]] : defRow[v] >= 0 ? evalRow(defRow[v]) : 0.0;
+            }
+            objVal = bestObj;
+        }
+        // 设置了目标间隙时，搜索完成只说明被剪掉的节点的下界都不小于objVal * (1 - mipGap)
+        if (!optimal) {
+            objBound = rootBound;
+        } else if (null == solution) {
+            objBound = Double.POSITIVE_INFINITY;
+        } else {
+            objBound = mipGap > 0 ? Math.max(rootBound, objVal - mipGap * Math.abs(objVal)) : objVal;
+        }
+    }
+
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public double getObjBound() {
+        return objBound;
+    }
+
+    // 下界与当前最好解相差不超过它时剪枝，保证最终的相对间隙不超过mipGap
+    private double tolerance(double incumbent) {
+        return Double.isInfinite(incumbent) ? EPS : Math.max(EPS, mipGap * Math.abs(incumbent));
+    }
+
+    @Override
+    public void setProgressListener(SolveProgressListener listener) {
+        this.listener = listener;
+    }
+
+    private void report(boolean newIncumbent) {
+        if (null != listener) {
+            listener.onProgress(new SolveProgress((System.nanoTime() - startTime) / 1e9, nodeCount, bestObj,
+                    Math.min(rootBound, bestObj), newIncumbent));
+        }
+    }
+
+    // 报告新可行解时best就是刚找到的解，value也处于该解的状态
+    @Override
+    public double[] getIncumbentValues(ModelVar[] vars) throws SolverException {
+        if (null == best) {
+            throw new SolverException("还没有可行解");
+        }
+        double[] result = new double[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            int v = vars[i].index;
+            result[i] = binIdx[v] >= 0 ? best[binIdx[v]] : defRow[v] >= 0 ? evalRow(defRow[v]) : 0.0;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasSolution() {
+        return null != solution;
+    }
+
+    @Override
+    public double getObjVal() throws SolverException {
+        checkSolution();
+        return objVal;
+    }
+
+    @Override
+    public double getValue(ModelVar var) throws SolverException {
+        checkSolution();
+        return solution[var.index];
+    }
+
+    private void checkSolution() throws SolverException {
+        if (null == solution) {
+            throw new SolverException("没有可行解");
+        }
+    }
+
+    @Override
+    public int getVarNum() {
+        return names.size() - removed.cardinality();
+    }
+
+    @Override
+    public int getConstrNum() {
+        return constraints.size() - removedConstrNum;
+    }
+
+    @Override
+    public int getQConstrNum() {
+        int result = 0;
+        for (Constraint constr : constraints) {
+            if (null != constr && null != constr.quadExpr) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // chgCoeff以追加项的方式修改系数，同一变量的项合并后再计数，已删除的变量不计
+    @Override
+    public long getNonZeroNum() {
+        long result = 0;
+        for (Constraint constr : constraints) {
+            if (null != constr) {
+                result += countNonZeros(constr.linExpr);
+                if (null != constr.quadExpr) {
+                    result += constr.quadExpr.size();
+                }
+            }
+        }
+        return result + countNonZeros(objective.getLinExpr()) + objective.size();
+    }
+
+    private long countNonZeros(LinExpr expr) {
+        Map<Integer, Double> coeffs = new HashMap<>();
+        for (int i = 0; i < expr.size(); i++) {
+            int v = expr.getVar(i).index;
+            if (!removed.get(v)) {
+                coeffs.merge(v, expr.getCoeff(i), Double::sum);
+            }
+        }
+        long result = 0;
+        for (double coeff : coeffs.values()) {
+            if (Math.abs(coeff) >= EPS) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    // ---------------- 编译 ----------------
+
+    private void compile() throws SolverException {
+        if (compactNeeded) {
+            compact();
+        }
+        int varNum = names.size();
+        binIdx = new int[varNum];
+        defRow = new int[varNum];
+        Arrays.fill(defRow, -1);
+        int binNum = 0;
+        for (int v = 0; v < varNum; v++) {
+            binIdx[v] = BINARY == types.get(v) && !removed.get(v) ? binNum++ : -1;
+        }
+        binVar = new int[binNum];
+        for (int v = 0; v < varNum; v++) {
+            if (binIdx[v] >= 0) {
+                binVar[binIdx[v]] = v;
+            }
+        }
+
+        // 找出由线性等式定义的连续变量，定义行排在最前面
+        List<Map<Integer, Double>> termsOfRow = new ArrayList<>();
+        List<double[]> rangeOfRow = new ArrayList<>();
+        List<Integer> quadOfRow = new ArrayList<>();
+        boolean[] isDefinition = new boolean[constraints.size()];
+        for (int i = 0; i < constraints.size(); i++) {
+            Constraint constr = constraints.get(i);
+            if (null == constr || null != constr.quadExpr || EQUAL != constr.sense) {
+                continue;
+            }
+            Map<Integer, Double> terms = collect(constr.linExpr);
+            int contVar = -1;
+            for (Map.Entry<Integer, Double> term : terms.entrySet()) {
+                if (binIdx[term.getKey()] >= 0 || Math.abs(term.getValue()) < EPS) {
+                    continue;
+                }
+                contVar = contVar == -1 && defRow[term.getKey()] == -1 ? term.getKey() : -2;
+            }
+            if (contVar < 0) {
+                continue;
+            }
+            // v = (rhs - sum(c_j * b_j)) / c_v
+            double cv = terms.remove(contVar);
+            Map<Integer, Double> defTerms = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Double> term : terms.entrySet()) {
+                defTerms.put(binIdx[term.getKey()], -term.getValue() / cv);
+            }
+            double[] bound = bounds.get(contVar);
+            double constant = (constr.rhs - constr.linExpr.getConstant()) / cv;
+            defRow[contVar] = termsOfRow.size();
+            termsOfRow.add(defTerms);
+            rangeOfRow.add(new double[]{bound[0] - constant, Math.min(bound[1], INFINITY) - constant, constant});
+            quadOfRow.add(-1);
+            isDefinition[i] = true;
+        }
+        for (int v = 0; v < varNum; v++) {
+            if (binIdx[v] < 0 && defRow[v] < 0 && !removed.get(v)) {
+                throw new SolverException("BranchAndBoundModel只支持由0-1变量的线性等式定义的连续变量：" + names.get(v));
+            }
+        }
+
+        // 其余约束代换连续变量后变为只含0-1变量的行
+        List<int[][]> quadOps = new ArrayList<>();
+        List<double[]> quadCoefs = new ArrayList<>();
+        for (int i = 0; i < constraints.size(); i++) {
+            Constraint constr = constraints.get(i);
+            if (isDefinition[i] || null == constr) {
+                continue;
+            }
+            Map<Integer, Double> terms = new LinkedHashMap<>();
+            double constant = constr.linExpr.getConstant()
+                    + substitute(collect(constr.linExpr), 1.0, terms, rangeOfRow, termsOfRow);
+            int quad = -1;
+            if (null != constr.quadExpr && constr.quadExpr.size() > 0) {
+                quad = quadOps.size();
+                int size = 0;
+                for (int k = 0; k < constr.quadExpr.size(); k++) {
+                    if (!removed.get(constr.quadExpr.getVar1(k).index) && !removed.get(constr.quadExpr.getVar2(k).index)) {
+                        size++;
+                    }
+                }
+                int[][] ops = new int[2][size];
+                double[] coefs = new double[size];
+                int n = 0;
+                for (int k = 0; k < constr.quadExpr.size(); k++) {
+                    if (removed.get(constr.quadExpr.getVar1(k).index) || removed.get(constr.quadExpr.getVar2(k).index)) {
+                        continue;
+                    }
+                    ops[0][n] = operand(constr.quadExpr.getVar1(k));
+                    ops[1][n] = operand(constr.quadExpr.getVar2(k));
+                    coefs[n++] = constr.quadExpr.getCoeff(k);
+                }
+                quadOps.add(ops);
+                quadCoefs.add(coefs);
+            }
+            double lo = GREATER_EQUAL == constr.sense || EQUAL == constr.sense ? constr.rhs : -INFINITY;
+            double hi = LESS_EQUAL == constr.sense || EQUAL == constr.sense ? constr.rhs : INFINITY;
+            termsOfRow.add(terms);
+            rangeOfRow.add(new double[]{lo - constant, hi - constant, 0.0});
+            quadOfRow.add(quad);
+        }
+
+        int rowNum = termsOfRow.size();
+        rowVars = new int[rowNum][];
+        rowCoefs = new double[rowNum][];
+        rowConst = new double[rowNum];
+        rowLo = new double[rowNum];
+        rowHi = new double[rowNum];
+        rowMaxAbs = new double[rowNum];
+        partition = new boolean[rowNum];
+        quadA = new int[rowNum][];
+        quadB = new int[rowNum][];
+        quadC = new double[rowNum][];
+        List<List<Integer>> occ = new ArrayList<>();
+        List<Set<Integer>> watch = new ArrayList<>();
+        for (int j = 0; j < binNum; j++) {
+            occ.add(new ArrayList<>());
+            watch.add(new LinkedHashSet<>());
+        }
+        for (int r = 0; r < rowNum; r++) {
+            Map<Integer, Double> terms = termsOfRow.get(r);
+            rowVars[r] = new int[terms.size()];
+            rowCoefs[r] = new double[terms.size()];
+            int k = 0;
+            boolean allOne = true;
+            for (Map.Entry<Integer, Double> term : terms.entrySet()) {
+                rowVars[r][k] = term.getKey();
+                rowCoefs[r][k] = term.getValue();
+                rowMaxAbs[r] = Math.max(rowMaxAbs[r], Math.abs(term.getValue()));
+                allOne &= Math.abs(term.getValue() - 1) < EPS;
+                occ.get(term.getKey()).add(r);
+                watch.get(term.getKey()).add(r);
+                k++;
+            }
+            double[] range = rangeOfRow.get(r);
+            rowLo[r] = range[0];
+            rowHi[r] = range[1];
+            rowConst[r] = range[2];
+            int quad = quadOfRow.get(r);
+            partition[r] = -1 == quad && allOne && Math.abs(rowLo[r] - 1) < EPS && Math.abs(rowHi[r] - 1) < EPS;
+            if (quad >= 0) {
+                quadA[r] = quadOps.get(quad)[0];
+                quadB[r] = quadOps.get(quad)[1];
+                quadC[r] = quadCoefs.get(quad);
+                for (int[] ops : quadOps.get(quad)) {
+                    for (int op : ops) {
+                        if (op >= 0) {
+                            watch.get(op).add(r);
+                        } else {
+                            for (int j : rowVars[-op - 1]) {
+                                watch.get(j).add(r);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        occRows = new int[binNum][];
+        occCoefs = new double[binNum][];
+        watchRows = new int[binNum][];
+        for (int j = 0; j < binNum; j++) {
+            List<Integer> rows = occ.get(j);
+            occRows[j] = new int[rows.size()];
+            occCoefs[j] = new double[rows.size()];
+            for (int k = 0; k < rows.size(); k++) {
+                int r = rows.get(k);
+                occRows[j][k] = r;
+                occCoefs[j][k] = coefOf(r, j);
+            }
+            watchRows[j] = new int[watch.get(j).size()];
+            int k = 0;
+            for (int r : watch.get(j)) {
+                watchRows[j][k++] = r;
+            }
+        }
+
+        compileObjective();
+
+        value = new byte[binNum];
+        Arrays.fill(value, (byte) -1);
+        fixed = new double[rowNum];
+        minFree = new double[rowNum];
+        maxFree = new double[rowNum];
+        freeCount = new int[rowNum];
+        for (int r = 0; r < rowNum; r++) {
+            for (double c : rowCoefs[r]) {
+                minFree[r] += Math.min(0, c);
+                maxFree[r] += Math.max(0, c);
+            }
+            freeCount[r] = rowVars[r].length;
+        }
+        trail = new int[binNum];
+        trailSize = 0;
+        queue = new int[rowNum];
+        inQueue = new boolean[rowNum];
+        queueHead = queueTail = queueSize = 0;
+    }
+
+    // 在线增删工作流后，线性约束(主要是负载定义)中会留下已删除变量的项，编译前把它们清除
+    private void compact() {
+        for (int i = 0; i < constraints.size(); i++) {
+            Constraint constr = constraints.get(i);
+            if (null == constr || null != constr.quadExpr) {
+                continue;
+            }
+            LinExpr expr = new LinExpr(constr.linExpr.size());
+            for (int k = 0; k < constr.linExpr.size(); k++) {
+                if (!removed.get(constr.linExpr.getVar(k).index)) {
+                    expr.addTerm(constr.linExpr.getCoeff(k), constr.linExpr.getVar(k));
+                }
+            }
+            expr.addConstant(constr.linExpr.getConstant());
+            constraints.set(i, new Constraint(expr, null, constr.sense, constr.rhs));
+        }
+        compactNeeded = false;
+    }
+
+    private void compileObjective() {
+        LinExpr lin = objective.getLinExpr();
+        objConst = lin.getConstant();
+        objLinOps = new int[lin.size()];
+        objLinC = new double[lin.size()];
+        for (int k = 0; k < lin.size(); k++) {
+            objLinOps[k] = operand(lin.getVar(k));
+            objLinC[k] = lin.getCoeff(k);
+        }
+        objQuadA = new int[objective.size()];
+        objQuadB = new int[objective.size()];
+        objQuadC = new double[objective.size()];
+        for (int k = 0; k < objective.size(); k++) {
+            objQuadA[k] = operand(objective.getVar1(k));
+            objQuadB[k] = operand(objective.getVar2(k));
+            objQuadC[k] = objective.getCoeff(k);
+        }
+    }
+
+    private int operand(ModelVar var) {
+        return binIdx[var.index] >= 0 ? binIdx[var.index] : -(defRow[var.index] + 1);
+    }
+
+    private double coefOf(int r, int j) {
+        for (int k = 0; k < rowVars[r].length; k++) {
+            if (rowVars[r][k] == j) {
+                return rowCoefs[r][k];
+            }
+        }
+        return 0.0;
+    }
+
+    // 合并同一变量的项，已删除的变量不计入
+    private Map<Integer, Double> collect(LinExpr expr) {
+        Map<Integer, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < expr.size(); i++) {
+            if (removed.get(expr.getVar(i).index)) {
+                continue;
+            }
+            Double old = result.get(expr.getVar(i).index);
+            result.put(expr.getVar(i).index, (null == old ? 0.0 : old) + expr.getCoeff(i));
+        }
+        return result;
+    }
+
+    // 把原变量上的项代换为0-1变量上的项累加到result中，返回代换产生的常数
+    private double substitute(Map<Integer, Double> terms, double scale, Map<Integer, Double> result,
+                              List<double[]> rangeOfRow, List<Map<Integer, Double>> termsOfRow) {
+        double constant = 0.0;
+        for (Map.Entry<Integer, Double> term : terms.entrySet()) {
+            int v = term.getKey();
+            double c = term.getValue() * scale;
+            if (binIdx[v] >= 0) {
+                Double old = result.get(binIdx[v]);
+                result.put(binIdx[v], (null == old ? 0.0 : old) + c);
+                continue;
+            }
+            constant += c * rangeOfRow.get(defRow[v])[2];
+            for (Map.Entry<Integer, Double> defTerm : termsOfRow.get(defRow[v]).entrySet()) {
+                Double old = result.get(defTerm.getKey());
+                result.put(defTerm.getKey(), (null == old ? 0.0 : old) + c * defTerm.getValue());
+            }
+        }
+        return constant;
+    }
+
+    // ---------------- 搜索 ----------------
+
+    private int queueHead, queueTail, queueSize;
+
+    private void enqueue(int r) {
+        if (inQueue[r]) {
+            return;
+        }
+        inQueue[r] = true;
+        queue[queueTail] = r;
+        queueTail = (queueTail + 1) % queue.length;
+        queueSize++;
+    }
+
+    private void clearQueue() {
+        while (queueSize > 0) {
+            inQueue[queue[queueHead]] = false;
+            queueHead = (queueHead + 1) % queue.length;
+            queueSize--;
+        }
+    }
+
+    private void assign(int j, int val) {
+        value[j] = (byte) val;
+        trail[trailSize++] = j;
+        int[] rows = occRows[j];
+        double[] coefs = occCoefs[j];
+        for (int k = 0; k < rows.length; k++) {
+            int r = rows[k];
+            double c = coefs[k];
+            minFree[r] -= Math.min(0, c);
+            maxFree[r] -= Math.max(0, c);
+            fixed[r] += c * val;
+            freeCount[r]--;
+        }
+        for (int r : watchRows[j]) {
+            enqueue(r);
+        }
+    }
+
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int j = trail[--trailSize];
+            int val = value[j];
+            value[j] = -1;
+            int[] rows = occRows[j];
+            double[] coefs = occCoefs[j];
+            for (int k = 0; k < rows.length; k++) {
+                int r = rows[k];
+                double c = coefs[k];
+                minFree[r] += Math.min(0, c);
+                maxFree[r] += Math.max(0, c);
+                fixed[r] -= c * val;
+                freeCount[r]++;
+            }
+        }
+    }
+
+    private boolean fixBounds() {
+        for (int j = 0; j < binVar.length; j++) {
+            double[] bound = bounds.get(binVar[j]);
+            if (bound[0] > 1 - EPS && bound[1] < EPS) {
+                return false;
+            }
+            if (bound[0] > 1 - EPS) {
+                assign(j, 1);
+            } else if (bound[1] < EPS) {
+                assign(j, 0);
+            }
+        }
+        return true;
+    }
+
+    // 行r(不含常数)在当前状态下的取值区间
+    private double rowMin(int r) {
+        return fixed[r] + minFree[r];
+    }
+
+    private double rowMax(int r) {
+        return fixed[r] + maxFree[r];
+    }
+
+    private double opMin(int op) {
+        if (op >= 0) {
+            return value[op] < 0 ? 0 : value[op];
+        }
+        return rowConst[-op - 1] + rowMin(-op - 1);
+    }
+
+    private double opMax(int op) {
+        if (op >= 0) {
+            return value[op] < 0 ? 1 : value[op];
+        }
+        return rowConst[-op - 1] + rowMax(-op - 1);
+    }
+
+    // coef * a * b 的下界与上界
+    private double productMin(double coef, int a, int b) {
+        double[] range = product(a, b);
+        return coef >= 0 ? coef * range[0] : coef * range[1];
+    }
+
+    private double productMax(double coef, int a, int b) {
+        double[] range = product(a, b);
+        return coef >= 0 ? coef * range[1] : coef * range[0];
+    }
+
+    private double[] product(int a, int b) {
+        double a1 = opMin(a), a2 = opMax(a);
+        if (a == b) {
+            double lo = a1 <= 0 && a2 >= 0 ? 0 : Math.min(a1 * a1, a2 * a2);
+            return new double[]{lo, Math.max(a1 * a1, a2 * a2)};
+        }
+        double b1 = opMin(b), b2 = opMax(b);
+        double p1 = a1 * b1, p2 = a1 * b2, p3 = a2 * b1, p4 = a2 * b2;
+        return new double[]{Math.min(Math.min(p1, p2), Math.min(p3, p4)), Math.max(Math.max(p1, p2), Math.max(p3, p4))};
+    }
+
+    private boolean propagate() {
+        while (queueSize > 0) {
+            int r = queue[queueHead];
+            queueHead = (queueHead + 1) % queue.length;
+            queueSize--;
+            inQueue[r] = false;
+            double lo = rowMin(r), hi = rowMax(r);
+            if (null != quadC[r]) {
+                for (int k = 0; k < quadC[r].length; k++) {
+                    lo += productMin(quadC[r][k], quadA[r][k], quadB[r][k]);
+                    hi += productMax(quadC[r][k], quadA[r][k], quadB[r][k]);
+                }
+            }
+            if (lo > rowHi[r] + EPS || hi < rowLo[r] - EPS) {
+                clearQueue();
+                return false;
+            }
+            if (0 == freeCount[r] || rowMaxAbs[r] <= Math.min(rowHi[r] - lo, hi - rowLo[r]) + EPS) {
+                continue;
+            }
+            int[] vars = rowVars[r];
+            double[] coefs = rowCoefs[r];
+            for (int k = 0; k < vars.length; k++) {
+                int j = vars[k];
+                if (value[j] >= 0) {
+                    continue;
+                }
+                double c = coefs[k];
+                boolean cannotBeOne = c > 0 ? lo + c > rowHi[r] + EPS : hi + c < rowLo[r] - EPS;
+                boolean cannotBeZero = c > 0 ? hi - c < rowLo[r] - EPS : lo - c > rowHi[r] + EPS;
+                if (cannotBeOne && cannotBeZero) {
+                    clearQueue();
+                    return false;
+                }
+                if (cannotBeOne) {
+                    assign(j, 0);
+                } else if (cannotBeZero) {
+                    assign(j, 1);
+                }
+            }
+        }
+        return true;
+    }
+
+    // 目标函数在当前状态下的下界，全部0-1变量确定时即为目标值
+    private double objectiveBound() {
+        double result = objConst;
+        for (int k = 0; k < objLinOps.length; k++) {
+            result += objLinC[k] >= 0 ? objLinC[k] * opMin(objLinOps[k]) : objLinC[k] * opMax(objLinOps[k]);
+        }
+        for (int k = 0; k < objQuadC.length; k++) {
+            result += productMin(objQuadC[k], objQuadA[k], objQuadB[k]);
+        }
+        return result;
+    }
+
+    // 按当前value计算定义行的取值，用于输出最终解
+    private double evalRow(int r) {
+        double result = rowConst[r];
+        for (int k = 0; k < rowVars[r].length; k++) {
+            result += rowCoefs[r][k] * value[rowVars[r][k]];
+        }
+        return result;
+    }
+
+    private boolean timeUp() {
+        if (!stopped && (nodeCount & 63) == 0) {
+            long now = System.nanoTime();
+            stopped = now > deadline;
+            if (null != listener && now >= nextReport) {
+                nextReport = now + REPORT_INTERVAL;
+                report(false);
+            }
+        }
+        return stopped;
+    }
+
+    private void search() {
+        nodeCount++;
+        if (timeUp()) {
+            return;
+        }
+        double bound = objectiveBound();
+        if (bound >= bestObj - tolerance(bestObj)) {
+            return;
+        }
+        int[] candidates = branchCandidates();
+        if (null == candidates) {
+            bestObj = bound;
+            best = Arrays.copyOf(value, value.length);
+            report(true);
+            return;
+        }
+        // candidates中偶数位为变量，奇数位为取值；先计算各子节点的下界，按下界从小到大搜索
+        int childNum = candidates.length / 2;
+        double[] childBounds = new double[childNum];
+        Integer[] order = new Integer[childNum];
+        int mark = trailSize;
+        for (int i = 0; i < childNum; i++) {
+            order[i] = i;
+            assign(candidates[2 * i], candidates[2 * i + 1]);
+            childBounds[i] = propagate() ? objectiveBound() : Double.POSITIVE_INFINITY;
+            undo(mark);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(childBounds[a], childBounds[b]));
+        for (int i : order) {
+            if (childBounds[i] >= bestObj - tolerance(bestObj) || stopped) {
+                break;
+            }
+            assign(candidates[2 * i], candidates[2 * i + 1]);
+            if (propagate()) {
+                search();
+            }
+            undo(mark);
+        }
+    }
+
+    // 初始值给定了全部自由0-1变量且可行时，作为第一个可行解
+    private void tryStart() {
+        int mark = trailSize;
+        boolean feasible = true;
+        for (int j = 0; j < value.length && feasible; j++) {
+            Double start = starts.get(binVar[j]);
+            if (null == start) {
+                feasible = value[j] >= 0;
+                continue;
+            }
+            int val = start > 0.5 ? 1 : 0;
+            if (value[j] < 0) {
+                assign(j, val);
+                feasible = propagate();
+            } else {
+                feasible = value[j] == val;
+            }
+        }
+        if (feasible) {
+            bestObj = objectiveBound();
+            best = Arrays.copyOf(value, value.length);
+            report(true);
+        }
+        clearQueue();
+        undo(mark);
+    }
+
+    // 全部0-1变量确定时返回null
+    private int[] branchCandidates() {
+        int bestRow = -1;
+        for (int r = 0; r < rowVars.length; r++) {
+            if (partition[r] && freeCount[r] > 0 && fixed[r] < 0.5
+                    && (bestRow < 0 || freeCount[r] < freeCount[bestRow])) {
+                bestRow = r;
+            }
+        }
+        if (bestRow >= 0) {
+            int[] result = new int[2 * freeCount[bestRow]];
+            int k = 0;
+            for (int j : rowVars[bestRow]) {
+                if (value[j] < 0) {
+                    result[k++] = j;
+                    result[k++] = 1;
+                }
+            }
+            return result;
+        }
+        for (int j = 0; j < value.length; j++) {
+            if (value[j] < 0) {
+                return new int[]{j, 1, j, 0};
+            }
+        }
+        return null;
+    }
+}
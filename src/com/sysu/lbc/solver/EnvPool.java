@@ -0,0 +1,105 @@
+package com.sysu.lbc.solver;
+
+import com.sysu.lbc.model.SolverException;
+import com.sysu.lbc.model.SolverModel;
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Gurobi环境池。创建GRBEnv需要检查许可证，代价较高，池中的环境按需创建、最多size个，
+ * 模型dispose时只释放模型并把环境还回池中。池中的环境都被占用时create阻塞，直到有模型释放环境。
+ * 分支定界后端不需要环境，create直接新建模型
+ */
+public class EnvPool {
+    private final int size;
+    private final String logPrefix;
+    private final BlockingQueue<GRBEnv> idle;
+    private final List<GRBEnv> created = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * @param logPrefix 日志文件名前缀，第i个环境的日志为logPrefix-i.log
+     */
+    public EnvPool(int size, String logPrefix) {
+        this.size = size;
+        this.logPrefix = logPrefix;
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    public SolverModel create(Backend backend) throws SolverException {
+        if (Backend.GUROBI != backend) {
+            return backend.create(null);
+        }
+        GRBEnv env = acquire();
+        try {
+            return new GurobiModel(env, this);
+        } catch (SolverException | RuntimeException e) {
+            release(env);
+            throw e;
+        }
+    }
+
+    private GRBEnv acquire() throws SolverException {
+        GRBEnv env = idle.poll();
+        if (null != env) {
+            return env;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SolverException("环境池已关闭");
+            }
+            if (created.size() < size) {
+                try {
+                    env = new GRBEnv(logPrefix + "-" + created.size() + ".log");
+                } catch (GRBException e) {
+                    throw GurobiModel.wrap(e);
+                }
+                created.add(env);
+                return env;
+            }
+        }
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolverException("等待Gurobi环境时被中断", e);
+        }
+    }
+
+    void release(GRBEnv env) {
+        idle.offer(env);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 已创建的环境数
+     */
+    public synchronized int getCreatedNum() {
+        return created.size();
+    }
+
+    /**
+     * 释放所有已创建的环境，调用前应先释放从池中创建的模型
+     */
+    public synchronized void close() throws SolverException {
+        closed = true;
+        try {
+            for (GRBEnv env : created) {
+                env.dispose();
+            }
+        } catch (GRBException e) {
+            throw GurobiModel.wrap(e);
+        } finally {
+            created.clear();
+            idle.clear();
+        }
+    }
+}
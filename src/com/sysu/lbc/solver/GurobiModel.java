@@ -0,0 +1,488 @@
+package com.sysu.lbc.solver;
+
+import com.sysu.lbc.model.*;
+import gurobi.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把模型翻译给Gurobi的后端。addVar、addConstr逐个调用对应的GRBModel接口，
+ * addVars、addConstrs把整批变量或约束一次交给GRBModel.addVars、addConstrs；
+ * 模型构建时各工作流的块和负载定义约束都按批添加
+ */
+public class GurobiModel implements SolverModel {
+    private final GRBEnv env;
+    // 环境来自环境池时不为null，dispose时把环境还回池中
+    private final EnvPool pool;
+    private final GRBModel model;
+    private final List<GRBVar> grbVars = new ArrayList<>();
+    private final List<Object> grbConstrs = new ArrayList<>();
+    // 与grbVars对齐的变量类型，求解连续松弛后按它恢复
+    private final StringBuilder varTypes = new StringBuilder();
+    // 已删除的变量、约束在列表中置为null，保证编号不变
+    private int removedVarNum = 0;
+    private int removedConstrNum = 0;
+    // 当前安装的进度回调，没有时为null
+    private ProgressCallback callback;
+    // toGRBLinExpr复用的系数、变量数组
+    private double[] coeffBuf = new double[16];
+    private GRBVar[] varBuf = new GRBVar[16];
+
+    public GurobiModel(String logFile) throws SolverException {
+        try {
+            env = new GRBEnv(logFile);
+            pool = null;
+            model = new GRBModel(env);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    // 使用环境池中的环境
+    GurobiModel(GRBEnv env, EnvPool pool) throws SolverException {
+        this.env = env;
+        this.pool = pool;
+        try {
+            model = new GRBModel(env);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    static SolverException wrap(GRBException e) {
+        return new SolverException("Gurobi error " + e.getErrorCode() + ": " + e.getMessage(), e);
+    }
+
+    public GRBModel getGRBModel() {
+        return model;
+    }
+
+    public GRBVar toGRBVar(ModelVar var) {
+        return grbVars.get(var.index);
+    }
+
+    // 先把系数和变量拷贝到复用的数组中，再用addTerms一次加入表达式
+    GRBLinExpr toGRBLinExpr(LinExpr expr) throws GRBException {
+        int size = expr.size();
+        if (coeffBuf.length < size) {
+            coeffBuf = new double[Math.max(size, coeffBuf.length * 2)];
+            varBuf = new GRBVar[coeffBuf.length];
+        }
+        for (int i = 0; i < size; i++) {
+            coeffBuf[i] = expr.getCoeff(i);
+            varBuf[i] = grbVars.get(expr.getVar(i).index);
+        }
+        GRBLinExpr result = new GRBLinExpr();
+        result.addTerms(coeffBuf, varBuf, 0, size);
+        result.addConstant(expr.getConstant());
+        return result;
+    }
+
+    GRBQuadExpr toGRBQuadExpr(QuadExpr expr) throws GRBException {
+        GRBQuadExpr result = new GRBQuadExpr();
+        result.add(toGRBLinExpr(expr.getLinExpr()));
+        for (int i = 0; i < expr.size(); i++) {
+            result.addTerm(expr.getCoeff(i), grbVars.get(expr.getVar1(i).index), grbVars.get(expr.getVar2(i).index));
+        }
+        return result;
+    }
+
+    @Override
+    public ModelVar addVar(double lb, double ub, char type, String name) throws SolverException {
+        try {
+            GRBVar var = model.addVar(lb, Math.min(ub, GRB.INFINITY), 0.0, type, name);
+            grbVars.add(var);
+            varTypes.append(type);
+            return new ModelVar(grbVars.size() - 1, name);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public ModelConstr addConstr(LinExpr expr, char sense, double rhs, String name) throws SolverException {
+        try {
+            grbConstrs.add(model.addConstr(toGRBLinExpr(expr), sense, rhs, name));
+            return new ModelConstr(grbConstrs.size() - 1, name);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    // 一次JNI调用添加一批变量
+    @Override
+    public ModelVar[] addVars(double[] lb, double[] ub, char[] types, String[] names) throws SolverException {
+        try {
+            double[] grbUb = new double[ub.length];
+            for (int i = 0; i < ub.length; i++) {
+                grbUb[i] = Math.min(ub[i], GRB.INFINITY);
+            }
+            GRBVar[] vars = model.addVars(lb, grbUb, null, types, names);
+            ModelVar[] result = new ModelVar[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                grbVars.add(vars[i]);
+                varTypes.append(types[i]);
+                result[i] = new ModelVar(grbVars.size() - 1, null == names ? null : names[i]);
+            }
+            return result;
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public ModelConstr[] addConstrs(LinExpr[] exprs, char[] senses, double[] rhs, String[] names) throws SolverException {
+        try {
+            GRBLinExpr[] grbExprs = new GRBLinExpr[exprs.length];
+            for (int i = 0; i < exprs.length; i++) {
+                grbExprs[i] = toGRBLinExpr(exprs[i]);
+            }
+            GRBConstr[] constrs = model.addConstrs(grbExprs, senses, rhs, names);
+            ModelConstr[] result = new ModelConstr[constrs.length];
+            for (int i = 0; i < constrs.length; i++) {
+                grbConstrs.add(constrs[i]);
+                result[i] = new ModelConstr(grbConstrs.size() - 1, null == names ? null : names[i]);
+            }
+            return result;
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public ModelConstr addQConstr(QuadExpr expr, char sense, double rhs, String name) throws SolverException {
+        try {
+            grbConstrs.add(model.addQConstr(toGRBQuadExpr(expr), sense, rhs, name));
+            return new ModelConstr(grbConstrs.size() - 1, name);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void remove(ModelVar var) throws SolverException {
+        try {
+            model.remove(grbVars.set(var.index, null));
+            removedVarNum++;
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void remove(ModelConstr constr) throws SolverException {
+        try {
+            Object grbConstr = grbConstrs.set(constr.index, null);
+            if (grbConstr instanceof GRBQConstr) {
+                model.remove((GRBQConstr) grbConstr);
+            } else {
+                model.remove((GRBConstr) grbConstr);
+            }
+            removedConstrNum++;
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void chgCoeff(ModelConstr constr, ModelVar var, double value) throws SolverException {
+        try {
+            model.chgCoeff((GRBConstr) grbConstrs.get(constr.index), grbVars.get(var.index), value);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setRhs(ModelConstr constr, double rhs) throws SolverException {
+        try {
+            ((GRBConstr) grbConstrs.get(constr.index)).set(GRB.DoubleAttr.RHS, rhs);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setStart(ModelVar var, double value) throws SolverException {
+        try {
+            grbVars.get(var.index).set(GRB.DoubleAttr.Start, value);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setObjective(QuadExpr objective) throws SolverException {
+        try {
+            model.setObjective(toGRBQuadExpr(objective), GRB.MINIMIZE);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setTimeLimit(double seconds) throws SolverException {
+        try {
+            model.set(GRB.DoubleParam.TimeLimit, seconds);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setThreads(int threads) throws SolverException {
+        try {
+            model.set(GRB.IntParam.Threads, threads);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setMipGap(double gap) throws SolverException {
+        try {
+            model.set(GRB.DoubleParam.MIPGap, gap);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getMipGap() throws SolverException {
+        try {
+            return model.get(GRB.DoubleParam.MIPGap);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void update() throws SolverException {
+        try {
+            model.update();
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void optimize() throws SolverException {
+        try {
+            model.optimize();
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public boolean hasSolution() throws SolverException {
+        try {
+            return model.get(GRB.IntAttr.SolCount) > 0;
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getObjVal() throws SolverException {
+        try {
+            return model.get(GRB.DoubleAttr.ObjVal);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getValue(ModelVar var) throws SolverException {
+        try {
+            return grbVars.get(var.index).get(GRB.DoubleAttr.X);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    // 一次JNI调用读取一批变量的值
+    @Override
+    public double[] getValues(ModelVar[] vars) throws SolverException {
+        try {
+            GRBVar[] grbVarArr = new GRBVar[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                grbVarArr[i] = grbVars.get(vars[i].index);
+            }
+            return model.get(GRB.DoubleAttr.X, grbVarArr);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public boolean supportsDuals() {
+        return true;
+    }
+
+    // 一次JNI调用修改所有非连续变量的类型
+    @Override
+    public void setRelaxed(boolean relaxed) throws SolverException {
+        try {
+            List<GRBVar> vars = new ArrayList<>();
+            StringBuilder types = new StringBuilder();
+            for (int i = 0; i < grbVars.size(); i++) {
+                if (null != grbVars.get(i) && GRB.CONTINUOUS != varTypes.charAt(i)) {
+                    vars.add(grbVars.get(i));
+                    types.append(relaxed ? GRB.CONTINUOUS : varTypes.charAt(i));
+                }
+            }
+            model.set(GRB.CharAttr.VType, vars.toArray(new GRBVar[0]), types.toString().toCharArray());
+            model.update();
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getDual(ModelConstr constr) throws SolverException {
+        try {
+            return ((GRBConstr) grbConstrs.get(constr.index)).get(GRB.DoubleAttr.Pi);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getReducedCost(ModelVar var) throws SolverException {
+        try {
+            return grbVars.get(var.index).get(GRB.DoubleAttr.RC);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void setProgressListener(SolveProgressListener listener) {
+        callback = null == listener ? null : new ProgressCallback(listener);
+        model.setCallback(callback);
+    }
+
+    @Override
+    public double[] getIncumbentValues(ModelVar[] vars) throws SolverException {
+        if (null == callback || !callback.inMipSol()) {
+            throw new SolverException("只能在报告新可行解时读取它的值");
+        }
+        GRBVar[] grbVarArr = new GRBVar[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            grbVarArr[i] = grbVars.get(vars[i].index);
+        }
+        try {
+            return callback.incumbentValues(grbVarArr);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public long getNodeCount() throws SolverException {
+        try {
+            return (long) model.get(GRB.DoubleAttr.NodeCount);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public double getObjBound() throws SolverException {
+        try {
+            return model.get(GRB.DoubleAttr.ObjBound);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int getVarNum() {
+        return grbVars.size() - removedVarNum;
+    }
+
+    @Override
+    public int getConstrNum() {
+        return grbConstrs.size() - removedConstrNum;
+    }
+
+    @Override
+    public int getQConstrNum() {
+        int result = 0;
+        for (Object constr : grbConstrs) {
+            if (constr instanceof GRBQConstr) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getNonZeroNum() throws SolverException {
+        try {
+            model.update();
+            return (long) model.get(GRB.IntAttr.NumNZs) + model.get(GRB.IntAttr.NumQCNZs) + model.get(GRB.IntAttr.NumQNZs);
+        } catch (GRBException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void dispose() throws SolverException {
+        try {
+            model.dispose();
+            if (null == pool) {
+                env.dispose();
+            }
+        } catch (GRBException e) {
+            throw wrap(e);
+        } finally {
+            if (null != pool) {
+                pool.release(env);
+            }
+        }
+    }
+
+    // MIP回调：找到新的可行解时立即报告，其余时候按节点回调的频率报告
+    private static class ProgressCallback extends GRBCallback {
+        private final SolveProgressListener listener;
+        private double incumbent = Double.POSITIVE_INFINITY;
+
+        ProgressCallback(SolveProgressListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        protected void callback() {
+            try {
+                if (GRB.CB_MIPSOL == where) {
+                    double objVal = getDoubleInfo(GRB.CB_MIPSOL_OBJ);
+                    boolean improved = objVal < incumbent;
+                    incumbent = Math.min(incumbent, objVal);
+                    listener.onProgress(new SolveProgress(getDoubleInfo(GRB.CB_RUNTIME),
+                            (long) getDoubleInfo(GRB.CB_MIPSOL_NODCNT), incumbent,
+                            getDoubleInfo(GRB.CB_MIPSOL_OBJBND), improved));
+                } else if (GRB.CB_MIP == where) {
+                    double objVal = getDoubleInfo(GRB.CB_MIP_OBJBST);
+                    incumbent = Math.min(incumbent, objVal);
+                    listener.onProgress(new SolveProgress(getDoubleInfo(GRB.CB_RUNTIME),
+                            (long) getDoubleInfo(GRB.CB_MIP_NODCNT), objVal >= GRB.INFINITY ? Double.POSITIVE_INFINITY : objVal,
+                            getDoubleInfo(GRB.CB_MIP_OBJBND), false));
+                }
+            } catch (GRBException e) {
+                // 读取回调信息失败时跳过这次报告，不影响求解
+            }
+        }
+
+        boolean inMipSol() {
+            return GRB.CB_MIPSOL == where;
+        }
+
+        // CB_MIPSOL时的可行解
+        double[] incumbentValues(GRBVar[] vars) throws GRBException {
+            return getSolution(vars);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.sysu.lbc.symmetry;
+
+import com.sysu.lbc.cache.Fingerprint;
+import com.sysu.lbc.dataStructure.*;
+import com.sysu.lbc.heuristic.PlacementHeuristic;
+
+import java.util.*;
+
+/**
+ * 放置模型的对称性：可以整体互换的工作流，以及可以互换的节点。
+ * <p>
+ * 两个工作流的DAG、任务资源、流带宽相同，且起始任务固定在同一个节点上(或起始节点都不在拓扑中)时，
+ * 交换它们的放置不改变目标值。同一组内的工作流按关键任务(拓扑序中第一个不固定的任务)所在节点的id排序，
+ * 即 sum_v v * x[w_i, k, v] <= sum_v v * x[w_{i + 1}, k, v]。
+ * <p>
+ * 两个节点容量相同、都不是任何工作流的起始节点，且交换它们后链路集合(含带宽)和路径集合不变时，
+ * 它们可以互换；这样的对换连通的节点构成一个轨道，轨道内任意置换都保持模型不变。
+ * 同一轨道内的节点按负载从大到小排列，即 load(o_i) >= load(o_{i + 1})，o按id升序。
+ * <p>
+ * 两类约束可以同时加入：任意解先置换轨道内的节点使负载有序，再在组内置换工作流使关键任务有序，
+ * 后一步不改变节点负载，因此总存在满足全部约束的最优解。canonicalize按同样的步骤把任意放置变换为满足约束的放置
+ */
+public class Symmetry {
+    /** 可以互换的工作流组，组内按工作流在列表中的顺序排列 */
+    public final List<List<Workflow>> workflowGroups = new ArrayList<>();
+    /** 各组的关键任务id */
+    public final List<Integer> keyTaskIds = new ArrayList<>();
+    /** 可以互换的节点轨道，轨道内按节点id升序排列 */
+    public final List<int[]> nodeOrbits = new ArrayList<>();
+
+    private final Map<Integer, Double> nodes;
+    private final PathTable paths;
+    // 路径节点序列的指纹 -> 路径id，置换节点后按它找到对应的路径
+    private Map<Fingerprint, Integer> pathIdOf;
+
+    private Symmetry(Map<Integer, Double> nodes, PathTable paths) {
+        this.nodes = nodes;
+        this.paths = paths;
+    }
+
+    /**
+     * @param detectNodes 是否检测节点对称；路径集合之后还会变化(列生成)时应为false
+     */
+    public static Symmetry detect(List<Workflow> wfs, Map<Integer, Double> nodes, List<Link> links, PathTable paths,
+                                  boolean detectNodes) {
+        Symmetry result = new Symmetry(nodes, paths);
+        result.detectWorkflows(wfs);
+        if (detectNodes) {
+            result.detectNodes(wfs, links);
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return workflowGroups.isEmpty() && nodeOrbits.isEmpty();
+    }
+
+    private void detectWorkflows(List<Workflow> wfs) {
+        Map<Fingerprint, List<Workflow>> groups = new LinkedHashMap<>();
+        for (Workflow wf : wfs) {
+            int origin = nodes.containsKey(wf.getOriginNodeId()) ? wf.getOriginNodeId() : -1;
+            Fingerprint fingerprint = Fingerprint.of(wf, origin);
+            List<Workflow> group = groups.get(fingerprint);
+            if (null == group) {
+                group = new ArrayList<>();
+                groups.put(fingerprint, group);
+            }
+            group.add(wf);
+        }
+        for (List<Workflow> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            Workflow first = group.get(0);
+            boolean originFixed = nodes.containsKey(first.getOriginNodeId());
+            for (Task task : PlacementHeuristic.topologicalOrder(first)) {
+                if (1 != task.taskId || !originFixed) {
+                    workflowGroups.add(group);
+                    keyTaskIds.add(task.taskId);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void detectNodes(List<Workflow> wfs, List<Link> links) {
+        Set<Integer> origins = new HashSet<>();
+        for (Workflow wf : wfs) {
+            origins.add(wf.getOriginNodeId());
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (int nodeId : new TreeSet<>(nodes.keySet())) {
+            if (!origins.contains(nodeId)) {
+                ids.add(nodeId);
+            }
+        }
+        Set<Fingerprint> linkSet = new HashSet<>();
+        for (Link link : links) {
+            linkSet.add(linkKey(link.srcNodeId, link.dstNodeId, link.bandwidth));
+        }
+        pathIdOf = new HashMap<>();
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            pathIdOf.put(pathKey(pathId, -1, -1), pathId);
+        }
+        // 可以对换的节点对合并为轨道
+        Map<Integer, Integer> parent = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            for (int j = i + 1; j < ids.size(); j++) {
+                int a = ids.get(i);
+                int b = ids.get(j);
+                if (nodes.get(a).equals(nodes.get(b)) && find(parent, a) != find(parent, b)
+                        && swapKeepsLinks(a, b, links, linkSet) && swapKeepsPaths(a, b)) {
+                    parent.put(find(parent, b), find(parent, a));
+                }
+            }
+        }
+        Map<Integer, List<Integer>> orbits = new TreeMap<>();
+        for (int nodeId : ids) {
+            int root = find(parent, nodeId);
+            List<Integer> orbit = orbits.get(root);
+            if (null == orbit) {
+                orbit = new ArrayList<>();
+                orbits.put(root, orbit);
+            }
+            orbit.add(nodeId);
+        }
+        for (List<Integer> orbit : orbits.values()) {
+            if (orbit.size() > 1) {
+                nodeOrbits.add(orbit.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+
+    private static int find(Map<Integer, Integer> parent, int nodeId) {
+        Integer p = parent.get(nodeId);
+        while (null != p && p != nodeId) {
+            nodeId = p;
+            p = parent.get(nodeId);
+        }
+        return nodeId;
+    }
+
+    private static boolean swapKeepsLinks(int a, int b, List<Link> links, Set<Fingerprint> linkSet) {
+        for (Link link : links) {
+            if (!linkSet.contains(linkKey(swap(link.srcNodeId, a, b), swap(link.dstNodeId, a, b), link.bandwidth))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean swapKeepsPaths(int a, int b) {
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            if (!pathIdOf.containsKey(pathKey(pathId, a, b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int swap(int nodeId, int a, int b) {
+        return nodeId == a ? b : nodeId == b ? a : nodeId;
+    }
+
+    // 链路不区分方向
+    private static Fingerprint linkKey(int u, int v, double bandwidth) {
+        return new Fingerprint.Builder().add(Math.min(u, v)).add(Math.max(u, v)).add(bandwidth).build();
+    }
+
+    // 路径对换节点a、b后的节点序列的指纹，a、b为-1时即路径本身
+    private Fingerprint pathKey(int pathId, int a, int b) {
+        int nodeNum = paths.getHopNum(pathId) + 1;
+        Fingerprint.Builder builder = new Fingerprint.Builder().add(nodeNum);
+        for (int i = 0; i < nodeNum; i++) {
+            builder.add(swap(paths.getNode(pathId, i), a, b));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 把完整的放置变换为满足对称性约束的等价放置(代价相同)：先在各轨道内按负载从大到小重排节点，
+     * 再在各组内按关键任务所在节点的id重排工作流。放置不完整时原样返回
+     */
+    public Placement canonicalize(Placement placement) {
+        if (!placement.complete || isEmpty()) {
+            return placement;
+        }
+        Placement result = permuteNodes(placement);
+        for (int g = 0; g < workflowGroups.size(); g++) {
+            permuteWorkflows(workflowGroups.get(g), keyTaskIds.get(g), result);
+        }
+        return result;
+    }
+
+    private Placement permuteNodes(Placement placement) {
+        Placement result = new Placement();
+        result.cost = placement.cost;
+        result.complete = placement.complete;
+        Map<Integer, Integer> image = new HashMap<>();
+        for (int[] orbit : nodeOrbits) {
+            Map<Integer, Double> load = new HashMap<>();
+            for (int nodeId : orbit) {
+                load.put(nodeId, 0.0);
+            }
+            for (Map.Entry<Task, Integer> taskEntry : placement.taskNodes.entrySet()) {
+                Double l = load.get(taskEntry.getValue());
+                if (null != l) {
+                    load.put(taskEntry.getValue(), l + taskEntry.getKey().neededResource);
+                }
+            }
+            Integer[] byLoad = new Integer[orbit.length];
+            for (int i = 0; i < orbit.length; i++) {
+                byLoad[i] = orbit[i];
+            }
+            Arrays.sort(byLoad, (u, v) -> Double.compare(load.get(v), load.get(u)));
+            for (int i = 0; i < orbit.length; i++) {
+                image.put(byLoad[i], orbit[i]);
+            }
+        }
+        for (Map.Entry<Task, Integer> taskEntry : placement.taskNodes.entrySet()) {
+            result.taskNodes.put(taskEntry.getKey(), image.getOrDefault(taskEntry.getValue(), taskEntry.getValue()));
+        }
+        for (Map.Entry<Flow, Integer> flowEntry : placement.flowPaths.entrySet()) {
+            int pathId = flowEntry.getValue();
+            if (!image.isEmpty()) {
+                int nodeNum = paths.getHopNum(pathId) + 1;
+                Fingerprint.Builder builder = new Fingerprint.Builder().add(nodeNum);
+                for (int i = 0; i < nodeNum; i++) {
+                    int nodeId = paths.getNode(pathId, i);
+                    builder.add(image.getOrDefault(nodeId, nodeId));
+                }
+                pathId = pathIdOf.get(builder.build());
+            }
+            result.flowPaths.put(flowEntry.getKey(), pathId);
+        }
+        return result;
+    }
+
+    // 组内第i个工作流取关键任务节点第i小的工作流的放置，任务按id、流按两端任务id对应；组内有工作流未放置时不变换
+    private static void permuteWorkflows(List<Workflow> group, int keyTaskId, Placement placement) {
+        List<Map<Integer, Integer>> taskNodes = new ArrayList<>();
+        List<Map<Long, Integer>> flowPaths = new ArrayList<>();
+        for (Workflow wf : group) {
+            Map<Integer, Integer> nodeOf = new HashMap<>();
+            for (Task task : wf.getTasks()) {
+                Integer node = placement.getNode(task);
+                if (null == node) {
+                    return;
+                }
+                nodeOf.put(task.taskId, node);
+            }
+            taskNodes.add(nodeOf);
+            Map<Long, Integer> pathOf = new HashMap<>();
+            for (Flow flow : wf.getFlows()) {
+                pathOf.put(flowKey(flow), placement.getPath(flow));
+            }
+            flowPaths.add(pathOf);
+        }
+        Integer[] order = new Integer[group.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> taskNodes.get(i).get(keyTaskId)));
+        for (int i = 0; i < group.size(); i++) {
+            Workflow wf = group.get(i);
+            for (Task task : wf.getTasks()) {
+                placement.taskNodes.put(task, taskNodes.get(order[i]).get(task.taskId));
+            }
+            for (Flow flow : wf.getFlows()) {
+                placement.flowPaths.put(flow, flowPaths.get(order[i]).get(flowKey(flow)));
+            }
+        }
+    }
+
+    private static long flowKey(Flow flow) {
+        return ((long) flow.currTask.taskId << 32) | (flow.succTask.taskId & 0xffffffffL);
+    }
+
+    /**
+     * 对称性的概况，用于日志
+     */
+    public String summary() {
+        int wfNum = 0;
+        for (List<Workflow> group : workflowGroups) {
+            wfNum += group.size();
+        }
+        int nodeNum = 0;
+        for (int[] orbit : nodeOrbits) {
+            nodeNum += orbit.length;
+        }
+        return "可互换工作流组" + workflowGroups.size() + "个(共" + wfNum + "个工作流)，节点轨道"
+                + nodeOrbits.size() + "个(共" + nodeNum + "个节点)";
+    }
+}
@@ -0,0 +1,302 @@
+package com.sysu.lbc.tool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 按行读取以tab分隔的数据文件(节点、链路、路径、工作流模板)。
+ * 通过FileChannel把文件分块读入一个可复用的byte数组，整数、小数直接从字节解析，
+ * 读取过程中不为每行或每个字段创建String，文件大小不受内存限制。
+ * 行尾可以是\n或\r\n，只包含空白字符的行和以#开头(前面可以有空白)的注释行被跳过。
+ * <pre>
+ * try (DataFileReader reader = new DataFileReader(file)) {
+ *     while (reader.nextLine()) {
+ *         int u = reader.getInt(1);
+ *     }
+ * }
+ * </pre>
+ */
+public class DataFileReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // 10^0 .. 10^22都可以用double精确表示，尾数与除数都精确时一次除法的结果是正确舍入的
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final String filePath;
+    private final FileChannel channel;
+    private byte[] buf = new byte[BUFFER_SIZE];
+    // buf[pos, limit)为尚未处理的数据，scan之前的部分已确认没有换行符
+    private int pos = 0, limit = 0, scan = 0;
+    private boolean eof = false;
+    private int lineNo = 0;
+    // 当前行各字段在buf中的范围[fieldStart[i], fieldEnd[i])
+    private int[] fieldStart = new int[8];
+    private int[] fieldEnd = new int[8];
+    private int fieldNum = 0;
+    private int[] ints = new int[16];
+
+    public DataFileReader(String filePath) throws IOException {
+        this.filePath = filePath;
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+    }
+
+    /**
+     * 读到下一个非空、非注释行，文件结束时返回false
+     */
+    public boolean nextLine() throws IOException {
+        while (true) {
+            int end = findNewline();
+            if (end < 0) {
+                if (!eof) {
+                    fill();
+                    continue;
+                }
+                if (pos >= limit) {
+                    return false;
+                }
+                end = limit;
+            }
+            int lineStart = pos;
+            int lineEnd = end;
+            pos = end < limit ? end + 1 : limit;
+            scan = pos;
+            lineNo++;
+            if (lineEnd > lineStart && '\r' == buf[lineEnd - 1]) {
+                lineEnd--;
+            }
+            if (split(lineStart, lineEnd)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前行号(从1开始，包括被跳过的空行)
+     */
+    public int getLineNo() {
+        return lineNo;
+    }
+
+    public int getFieldNum() {
+        return fieldNum;
+    }
+
+    public int getInt(int field) {
+        int i = start(field);
+        int end = end(field);
+        boolean negative = false;
+        if (i < end && ('-' == buf[i] || '+' == buf[i])) {
+            negative = '-' == buf[i];
+            i++;
+        }
+        if (i >= end) {
+            throw error(field, "不是整数");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9 || value > Integer.MAX_VALUE) {
+                throw error(field, "不是整数");
+            }
+            value = value * 10 + d;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error(field, "超出int范围");
+        }
+        return (int) value;
+    }
+
+    /**
+     * 解析"55"、"-1.5"这类普通小数，带指数或位数过多时退回Double.parseDouble
+     */
+    public double getDouble(int field) {
+        int i = start(field);
+        int end = end(field);
+        boolean negative = false;
+        if (i < end && ('-' == buf[i] || '+' == buf[i])) {
+            negative = '-' == buf[i];
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            byte c = buf[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (dot) {
+                    scale++;
+                }
+            } else if ('.' == c && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (i < end || 0 == digits || digits > 15 || scale >= POWERS_OF_TEN.length) {
+            try {
+                return Double.parseDouble(getString(field));
+            } catch (NumberFormatException e) {
+                throw error(field, "不是数字");
+            }
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * 把字段中所有连续的数字依次解析为整数(例如路径"1>3>4"、"[]")，结果在getInts()的前n个元素中，返回n
+     */
+    public int readInts(int field) {
+        int end = end(field);
+        int n = 0;
+        int value = 0;
+        boolean inNumber = false;
+        for (int i = start(field); i <= end; i++) {
+            int d = i < end ? buf[i] - '0' : -1;
+            if (d >= 0 && d <= 9) {
+                value = value * 10 + d;
+                inNumber = true;
+            } else if (inNumber) {
+                if (n == ints.length) {
+                    ints = Arrays.copyOf(ints, n * 2);
+                }
+                ints[n++] = value;
+                value = 0;
+                inNumber = false;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * readInts的结果，下一次调用readInts后失效
+     */
+    public int[] getInts() {
+        return ints;
+    }
+
+    public boolean fieldEquals(int field, String value) {
+        int i = start(field);
+        int end = end(field);
+        if (end - i != value.length()) {
+            return false;
+        }
+        for (int k = 0; k < value.length(); k++) {
+            if (buf[i + k] != value.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getString(int field) {
+        int i = start(field);
+        return new String(buf, i, end(field) - i, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int findNewline() {
+        for (; scan < limit; scan++) {
+            if ('\n' == buf[scan]) {
+                return scan;
+            }
+        }
+        return -1;
+    }
+
+    // 把未处理的数据移到数组开头再读入新数据，一行放不下时扩大数组
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            scan -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int n = channel.read(ByteBuffer.wrap(buf, limit, buf.length - limit));
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+
+    // 按tab切分[lineStart, lineEnd)，去掉字段两端的空格；整行为空白或注释时返回false
+    private boolean split(int lineStart, int lineEnd) {
+        fieldNum = 0;
+        int first = lineStart;
+        while (first < lineEnd && (' ' == buf[first] || '\t' == buf[first])) {
+            first++;
+        }
+        if (first < lineEnd && '#' == buf[first]) {
+            return false;
+        }
+        boolean blank = true;
+        int i = lineStart;
+        while (true) {
+            int end = i;
+            while (end < lineEnd && '\t' != buf[end]) {
+                end++;
+            }
+            int s = i, e = end;
+            while (s < e && ' ' == buf[s]) {
+                s++;
+            }
+            while (e > s && ' ' == buf[e - 1]) {
+                e--;
+            }
+            if (e > s) {
+                blank = false;
+            }
+            if (fieldNum == fieldStart.length) {
+                fieldStart = Arrays.copyOf(fieldStart, fieldNum * 2);
+                fieldEnd = Arrays.copyOf(fieldEnd, fieldNum * 2);
+            }
+            fieldStart[fieldNum] = s;
+            fieldEnd[fieldNum] = e;
+            fieldNum++;
+            if (end >= lineEnd) {
+                break;
+            }
+            i = end + 1;
+        }
+        return !blank;
+    }
+
+    private int start(int field) {
+        if (field < 0 || field >= fieldNum) {
+            throw error(field, "字段不存在");
+        }
+        return fieldStart[field];
+    }
+
+    private int end(int field) {
+        return fieldEnd[field];
+    }
+
+    private IllegalArgumentException error(int field, String message) {
+        return new IllegalArgumentException(filePath + " 第" + lineNo + "行第" + field + "个字段" + message);
+    }
+}
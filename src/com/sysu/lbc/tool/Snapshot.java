@@ -0,0 +1,129 @@
+package com.sysu.lbc.tool;
+
+import com.sysu.lbc.dataStructure.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 节点、链路、路径(含链路-路径关联)和一批工作流的二进制快照，启动时代替解析data目录下的文本文件。
+ * <p>
+ * 格式(大端)：MAGIC, VERSION,
+ * 节点段 [n, (id, 容量, 是否无人机节点) * n],
+ * 链路段 [m, (src, dst, 带宽) * m],
+ * 路径段 见PathTable.write,
+ * 工作流段 [w, (id, 时长, 起始节点, 流数, (前驱任务id, 资源, 后继任务id, 资源, 带宽) * 流数) * w]。
+ * 读取时把文件映射到内存，int数组整块拷贝
+ */
+public class Snapshot {
+    static final int MAGIC = 0x47534E50;
+    /** 格式变化时递增，读取时只接受相同版本 */
+    public static final int VERSION = 1;
+
+    public Map<Integer, Double> nodes = new HashMap<>();
+    public List<Integer> uavNodes = new ArrayList<>();
+    public List<Link> links = new ArrayList<>();
+    public PathTable paths = new PathTable();
+    public List<Workflow> workflows = new ArrayList<>();
+
+    public void write(String filePath) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nodes.size());
+            for (Map.Entry<Integer, Double> nodeEntry : nodes.entrySet()) {
+                out.writeInt(nodeEntry.getKey());
+                out.writeDouble(nodeEntry.getValue());
+                out.writeBoolean(uavNodes.contains(nodeEntry.getKey()));
+            }
+            out.writeInt(links.size());
+            for (Link link : links) {
+                out.writeInt(link.srcNodeId);
+                out.writeInt(link.dstNodeId);
+                out.writeDouble(link.bandwidth);
+            }
+            paths.write(out);
+            out.writeInt(workflows.size());
+            for (Workflow wf : workflows) {
+                out.writeInt(wf.getWF_ID());
+                out.writeDouble(null == wf.getDuration() ? Double.NaN : wf.getDuration());
+                out.writeInt(wf.getOriginNodeId());
+                out.writeInt(wf.getFlows().size());
+                for (Flow flow : wf.getFlows()) {
+                    out.writeInt(flow.currTask.taskId);
+                    out.writeDouble(flow.currTask.neededResource);
+                    out.writeInt(flow.succTask.taskId);
+                    out.writeDouble(flow.succTask.neededResource);
+                    out.writeDouble(flow.neededBandwidth);
+                }
+            }
+        }
+    }
+
+    public static Snapshot read(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("快照文件超过2GB：" + filePath);
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 8 || MAGIC != in.getInt()) {
+                throw new IOException("不是快照文件：" + filePath);
+            }
+            int version = in.getInt();
+            if (VERSION != version) {
+                throw new IOException("快照版本" + version + "不受支持，当前版本为" + VERSION + "：" + filePath);
+            }
+            return read(in);
+        }
+    }
+
+    private static Snapshot read(ByteBuffer in) {
+        Snapshot result = new Snapshot();
+        int nodeNum = in.getInt();
+        for (int i = 0; i < nodeNum; i++) {
+            int nodeId = in.getInt();
+            result.nodes.put(nodeId, in.getDouble());
+            if (0 != in.get()) {
+                result.uavNodes.add(nodeId);
+            }
+        }
+        int linkNum = in.getInt();
+        for (int i = 0; i < linkNum; i++) {
+            int src = in.getInt();
+            int dst = in.getInt();
+            result.links.add(new Link(src, dst, in.getDouble()));
+        }
+        result.paths = PathTable.read(in);
+        int workflowNum = in.getInt();
+        for (int i = 0; i < workflowNum; i++) {
+            int wfId = in.getInt();
+            double duration = in.getDouble();
+            Workflow wf = new Workflow(wfId, Double.isNaN(duration) ? null : duration, null);
+            wf.setOriginNodeId(in.getInt());
+            // 同一任务在多个流中出现时共用一个Task对象，与WorkflowGenerator生成的工作流一致
+            Map<Integer, Task> tasks = new HashMap<>();
+            int flowNum = in.getInt();
+            for (int k = 0; k < flowNum; k++) {
+                Task currTask = getTask(tasks, wfId, in.getInt(), in.getDouble());
+                Task succTask = getTask(tasks, wfId, in.getInt(), in.getDouble());
+                wf.addFlow(new Flow(currTask, succTask, in.getDouble()));
+            }
+            result.workflows.add(wf);
+        }
+        return result;
+    }
+
+    private static Task getTask(Map<Integer, Task> tasks, int wfId, int taskId, double neededResource) {
+        Task task = tasks.get(taskId);
+        if (null == task) {
+            task = new Task(wfId, taskId, neededResource);
+            tasks.put(taskId, task);
+        }
+        return task;
+    }
+}
@@ -0,0 +1,29 @@
+package com.sysu.lbc.tool;
+
+import com.sysu.lbc.GurobiSolution;
+
+import java.io.IOException;
+
+/**
+ * 把文本格式的节点、链路、路径文件和生成的一批工作流转换为二进制快照。
+ * 用法：SnapshotConverter 输出文件 [工作流数] [路径文件 节点文件 链路文件]
+ */
+public class SnapshotConverter {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("用法：SnapshotConverter 输出文件 [工作流数] [路径文件 节点文件 链路文件]");
+            return;
+        }
+        GurobiSolution solution = new GurobiSolution();
+        if (args.length > 1) {
+            solution.setWorkflowNum(Integer.parseInt(args[1]));
+        }
+        if (args.length > 4) {
+            solution.setDataFiles(args[2], args[3], args[4]);
+        }
+        long starTime = System.currentTimeMillis();
+        solution.prepareData();
+        solution.saveSnapshot(args[0]);
+        System.out.println("已写入" + args[0] + "，耗时：" + (System.currentTimeMillis() - starTime) + "ms");
+    }
+}
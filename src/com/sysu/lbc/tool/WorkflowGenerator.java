@@ -7,6 +7,7 @@ import com.sysu.lbc.dataStructure.Workflow;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 这个类采用某个模板生产workflow
@@ -30,46 +31,75 @@ public class WorkflowGenerator {
     Double lambda = (double) (1.0 / 1000);
 
     /**
-     * 全局workflow id计数
+     * 全局workflow id计数，多个线程同时生成工作流时id也不重复
      */
-    static int workflow_idx = 0;
+    static final AtomicInteger workflow_idx = new AtomicInteger();
 
     /**
-     * 工作流样例
+     * 工作流模板：模板id -> 每个流的{前驱任务id, 后继任务id}，按文件中的顺序
      */
-    Map<Integer, Vector<Flow>> exampleWorkflows = new HashMap<>();
+    final Map<Integer, int[][]> templates = new HashMap<>();
 
     private WorkflowGenerator() {
         initializeWorkflowModel();
     }
 
-    public static synchronized WorkflowGenerator getWorkflowGenerator() {
+    public static WorkflowGenerator getWorkflowGenerator() {
         return workflowGenerator;
     }
 
+    /**
+     * 重置全局workflow id计数，便于在同一个进程中重复构造相同的实例
+     */
+    public static void resetWorkflowIdx() {
+        workflow_idx.set(0);
+    }
+
+    /**
+     * 从快照等外部来源载入了id不超过usedIdx的工作流后调用，之后生成的工作流id不会与它们重复
+     */
+    public static void skipWorkflowIdx(int usedIdx) {
+        workflow_idx.accumulateAndGet(usedIdx, Math::max);
+    }
+
+    /**
+     * 预留count个连续的工作流id，返回第一个
+     */
+    public static int reserveWorkflowIdx(int count) {
+        return workflow_idx.getAndAdd(count) + 1;
+    }
+
     private void initializeWorkflowModel() {
-        String strFileContent = Tool.getStringFromFile(filePath);
-
-        String[] lineOfContent = strFileContent.split("\r\n");
-        for (String line : lineOfContent) {
-            String[] lineContent = line.split("\t");
-            Integer model_ID = Integer.valueOf(lineContent[1]);
-            Integer currTaskID = Integer.valueOf(lineContent[3]);
-            Integer succTaskID = Integer.valueOf(lineContent[5]);
-            Task currTask = new Task(null, currTaskID, null);
-            Task succTask = new Task(null, succTaskID, null);
-            Flow flow = new Flow(currTask, succTask, null);
-            Vector<Flow> example = exampleWorkflows.get(model_ID);
-            if (example != null) {
-                example.add(flow);
-            } else {
-                Vector<Flow> exam = new Vector<>();
-                exam.add(flow);
-                exampleWorkflows.put(model_ID, exam);
+        Map<Integer, List<int[]>> edges = new LinkedHashMap<>();
+        try (DataFileReader reader = new DataFileReader(filePath)) {
+            while (reader.nextLine()) {
+                int modelId = reader.getInt(1);
+                List<int[]> example = edges.get(modelId);
+                if (null == example) {
+                    example = new ArrayList<>();
+                    edges.put(modelId, example);
+                }
+                example.add(new int[]{reader.getInt(3), reader.getInt(5)});
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取工作流模板失败：" + filePath, e);
+        }
+        for (Map.Entry<Integer, List<int[]>> entry : edges.entrySet()) {
+            templates.put(entry.getKey(), entry.getValue().toArray(new int[0][]));
         }
     }
 
+    public int getTemplateNum() {
+        return templates.size();
+    }
+
+    /**
+     * 第idx个模板的流{前驱任务id, 后继任务id}，idx大于模板数时取余
+     */
+    public int[][] getTemplate(int idx) {
+        return templates.get(idx % templates.size());
+    }
+
     /**
      * 第二个版本
      * 根据WorkflowGenerator里面的工作流模板获取一个工作流，其工作时长符合指数分布。
@@ -81,34 +111,57 @@ public class WorkflowGenerator {
         if (idx < 0) {
             return null;
         }
-        int exampleSetSize = exampleWorkflows.size();
-        idx = idx % exampleSetSize;
-        Integer WF_ID = ++workflow_idx;
+        return generateAWorkflow_V2(idx, workflow_idx.incrementAndGet());
+    }
+
+    /**
+     * 与generateAWorkflow_V2(idx)相同，但工作流id由调用方指定，不占用全局计数
+     */
+    public Workflow generateAWorkflow_V2(int idx, int WF_ID) {
         Workflow wf = new Workflow(WF_ID, null, null);
-        Set<Task> tasks = new HashSet<>();
-        Vector<Flow> exampleWorkflow = exampleWorkflows.get(idx);
-        for (Flow f : exampleWorkflow) {
-            Task currTask = new Task(WF_ID, f.currTask.taskId, taskCap);
-            if (!tasks.add(currTask)) {
-                currTask = getTaskFromSet(tasks, f.currTask.taskId);
-            }
-            Task succTask = new Task(WF_ID, f.succTask.taskId, taskCap);
-            if (!tasks.add(succTask)) {
-                succTask = getTaskFromSet(tasks, f.succTask.taskId);
-            }
-            Flow toAddFlow = new Flow(currTask, succTask, bandwidth);
-            wf.addFlow(toAddFlow);
+        int[][] template = getTemplate(idx);
+        // 任务id都是较小的正整数，按id直接索引，同一任务在多个流中共用一个Task对象
+        int maxTaskId = 0;
+        for (int[] edge : template) {
+            maxTaskId = Math.max(maxTaskId, Math.max(edge[0], edge[1]));
+        }
+        Task[] tasks = new Task[maxTaskId + 1];
+        for (int[] edge : template) {
+            wf.addFlow(new Flow(getTask(tasks, WF_ID, edge[0]), getTask(tasks, WF_ID, edge[1]), bandwidth));
         }
         return wf;
     }
 
-    private Task getTaskFromSet(Set<Task> taskSet, Integer taskId) {
-        for (Task task : taskSet) {
-            if (task.taskId == taskId) {
-                return task;
-            }
+    private Task getTask(Task[] tasks, int wfId, int taskId) {
+        if (null == tasks[taskId]) {
+            tasks[taskId] = new Task(wfId, taskId, taskCap);
         }
-        return null;
+        return tasks[taskId];
+    }
+
+    /**
+     * 生成的工作流中每个任务需要的资源，包括固定在起始节点上的起始任务
+     */
+    public double getTaskCap() {
+        return taskCap;
+    }
+
+    /**
+     * 修改之后生成的工作流中每个任务需要的资源，已生成的工作流不变
+     */
+    public void setTaskCap(double taskCap) {
+        this.taskCap = taskCap;
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    /**
+     * 按参数为lambda的指数分布生成一个工作流的工作时长
+     */
+    public double generateDuration(Random random) {
+        return -Math.log(1 - random.nextDouble()) / lambda;
     }
 
 }
@@ -0,0 +1,281 @@
+package com.sysu.lbc.tool;
+
+import com.sysu.lbc.dataStructure.Flow;
+import com.sysu.lbc.dataStructure.Task;
+import com.sysu.lbc.dataStructure.Workflow;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 可复现的合成负载生成器，用于大规模实验。
+ * <p>
+ * 第i个工作流只由种子和i决定(各自使用由两者派生的随机数流)，因此可以并行生成，结果与线程数、调用顺序无关；
+ * 对象在配置完成后是只读的，多个线程可以同时调用generate。
+ * 工作流的形状从shapes中随机选取：模板(WorkflowGenerator的模板文件)、随机分层DAG、fork-join和流水线，
+ * 任务所需资源、流的带宽和工作时长分别从给定的分布中抽样。
+ * 生成的工作流中任务1是唯一的起始任务，其余任务都可以从它到达
+ */
+public class WorkloadGenerator {
+    public enum Shape {
+        /** WorkflowGenerator模板文件中的模板，随机选取一个 */
+        TEMPLATE,
+        /** 随机分层DAG：每层的任务至少有一个上一层的前驱，并以edgeProbability连到更早层的任务 */
+        LAYERED,
+        /** 交替的分叉与汇合：起始任务分叉到至多maxWidth个并行任务，再汇合到一个任务，重复到任务数用完 */
+        FORK_JOIN,
+        /** 链状流水线 1 -> 2 -> ... -> n */
+        PIPELINE
+    }
+
+    /**
+     * 数值分布
+     */
+    public interface Distribution {
+        double sample(SplittableRandom random);
+
+        static Distribution constant(double value) {
+            return random -> value;
+        }
+
+        static Distribution uniform(double min, double max) {
+            return random -> min + (max - min) * random.nextDouble();
+        }
+
+        static Distribution exponential(double mean) {
+            return random -> -mean * Math.log(1 - random.nextDouble());
+        }
+
+        /**
+         * 对数正态分布，中位数为median，对数的标准差为sigma；用于资源需求的长尾
+         */
+        static Distribution logNormal(double median, double sigma) {
+            return random -> {
+                // Box-Muller变换
+                double u = 1 - random.nextDouble();
+                double z = Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+                return median * Math.exp(sigma * z);
+            };
+        }
+    }
+
+    private final long seed;
+    private Shape[] shapes = {Shape.TEMPLATE};
+    private int minTaskNum = 3;
+    private int maxTaskNum = 6;
+    private int maxWidth = 4;
+    private double edgeProbability = 0.2;
+    private Distribution taskResource = Distribution.constant(60);
+    private Distribution bandwidth = Distribution.constant(15);
+    private Distribution duration = Distribution.exponential(1000);
+    private int[] originNodes;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public WorkloadGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 工作流的形状从shapes中等概率选取
+     */
+    public WorkloadGenerator setShapes(Shape... shapes) {
+        if (0 == shapes.length) {
+            throw new IllegalArgumentException("至少需要一种形状");
+        }
+        this.shapes = shapes.clone();
+        return this;
+    }
+
+    /**
+     * 非模板形状的任务数在[minTaskNum, maxTaskNum]中均匀选取，至少为2。
+     * 路径文件只有源节点id小于目的节点id的路径，相连的任务必须放在id递增的节点上，
+     * 最长任务链超过从起始节点起可用的节点数时实例不可行，默认值保证在自带的拓扑上可行
+     */
+    public WorkloadGenerator setTaskNum(int minTaskNum, int maxTaskNum) {
+        if (minTaskNum < 2 || maxTaskNum < minTaskNum) {
+            throw new IllegalArgumentException("任务数范围错误：[" + minTaskNum + ", " + maxTaskNum + "]");
+        }
+        this.minTaskNum = minTaskNum;
+        this.maxTaskNum = maxTaskNum;
+        return this;
+    }
+
+    /**
+     * 分层DAG每层、fork-join每次分叉的最大任务数
+     */
+    public WorkloadGenerator setMaxWidth(int maxWidth) {
+        this.maxWidth = Math.max(1, maxWidth);
+        return this;
+    }
+
+    public WorkloadGenerator setEdgeProbability(double edgeProbability) {
+        this.edgeProbability = edgeProbability;
+        return this;
+    }
+
+    public WorkloadGenerator setTaskResource(Distribution taskResource) {
+        this.taskResource = taskResource;
+        return this;
+    }
+
+    public WorkloadGenerator setBandwidth(Distribution bandwidth) {
+        this.bandwidth = bandwidth;
+        return this;
+    }
+
+    public WorkloadGenerator setDuration(Distribution duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * 起始任务所在的节点从originNodes中随机选取；不设置时与工作流id相同(与WorkflowGenerator一致)
+     */
+    public WorkloadGenerator setOriginNodes(Collection<Integer> originNodes) {
+        this.originNodes = null == originNodes || originNodes.isEmpty() ? null
+                : originNodes.stream().mapToInt(Integer::intValue).toArray();
+        return this;
+    }
+
+    public WorkloadGenerator setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 生成count个工作流，id从WorkflowGenerator的全局计数中预留，不与其他方式生成的工作流重复。
+     * 工作流的内容只由种子和它在这次调用中的序号决定
+     */
+    public List<Workflow> generate(int count) {
+        return generate(0, count, WorkflowGenerator.reserveWorkflowIdx(count));
+    }
+
+    /**
+     * 生成序号为[from, from + count)的工作流，第k个工作流的id为firstWfId + k - from
+     */
+    public List<Workflow> generate(long from, int count, int firstWfId) {
+        if (parallelism <= 1 || count <= 1) {
+            List<Workflow> result = new ArrayList<>(count);
+            for (int k = 0; k < count; k++) {
+                result.add(generate(from + k, firstWfId + k));
+            }
+            return result;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> IntStream.range(0, count).parallel()
+                    .mapToObj(k -> generate(from + k, firstWfId + k)).collect(Collectors.toList())).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("并行生成工作流失败", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 序号为index的工作流，id为wfId
+     */
+    public Workflow generate(long index, int wfId) {
+        SplittableRandom random = new SplittableRandom(seed ^ mix(index + 0x9E3779B97F4A7C15L * (seed | 1)));
+        Shape shape = shapes[random.nextInt(shapes.length)];
+        int taskNum = minTaskNum + random.nextInt(maxTaskNum - minTaskNum + 1);
+        int[][] edges;
+        switch (shape) {
+            case LAYERED:
+                edges = layered(random, taskNum);
+                break;
+            case FORK_JOIN:
+                edges = forkJoin(random, taskNum);
+                break;
+            case PIPELINE:
+                edges = pipeline(taskNum);
+                break;
+            default:
+                WorkflowGenerator templates = WorkflowGenerator.getWorkflowGenerator();
+                edges = templates.getTemplate(random.nextInt(templates.getTemplateNum()));
+        }
+        Workflow wf = new Workflow(wfId, duration.sample(random), null);
+        int maxTaskId = 0;
+        for (int[] edge : edges) {
+            maxTaskId = Math.max(maxTaskId, Math.max(edge[0], edge[1]));
+        }
+        // 任务的资源按id顺序抽样，保证同一序号得到相同的结果
+        Task[] tasks = new Task[maxTaskId + 1];
+        for (int taskId = 1; taskId <= maxTaskId; taskId++) {
+            tasks[taskId] = new Task(wfId, taskId, taskResource.sample(random));
+        }
+        for (int[] edge : edges) {
+            wf.addFlow(new Flow(tasks[edge[0]], tasks[edge[1]], bandwidth.sample(random)));
+        }
+        if (null != originNodes) {
+            wf.setOriginNodeId(originNodes[random.nextInt(originNodes.length)]);
+        }
+        return wf;
+    }
+
+    // 第0层只有任务1；之后每层1到maxWidth个任务，每个任务连到上一层的一个随机任务，并以edgeProbability连到更早的任务
+    private int[][] layered(SplittableRandom random, int taskNum) {
+        List<int[]> edges = new ArrayList<>();
+        int prevStart = 1;
+        int prevEnd = 2;
+        int next = 2;
+        while (next <= taskNum) {
+            int width = Math.min(1 + random.nextInt(maxWidth), taskNum - next + 1);
+            for (int taskId = next; taskId < next + width; taskId++) {
+                int parent = prevStart + random.nextInt(prevEnd - prevStart);
+                edges.add(new int[]{parent, taskId});
+                for (int earlier = 1; earlier < prevEnd; earlier++) {
+                    if (earlier != parent && random.nextDouble() < edgeProbability) {
+                        edges.add(new int[]{earlier, taskId});
+                    }
+                }
+            }
+            prevStart = next;
+            prevEnd = next + width;
+            next += width;
+        }
+        return edges.toArray(new int[0][]);
+    }
+
+    // 汇合任务作为下一次分叉的起点；最后剩下的任务不足以再分叉时接成链
+    private int[][] forkJoin(SplittableRandom random, int taskNum) {
+        List<int[]> edges = new ArrayList<>();
+        int join = 1;
+        int next = 2;
+        while (next <= taskNum) {
+            int remaining = taskNum - next + 1;
+            if (remaining < 3) {
+                edges.add(new int[]{join, next});
+                join = next++;
+                continue;
+            }
+            int width = Math.min(1 + random.nextInt(maxWidth), remaining - 1);
+            int newJoin = next + width;
+            for (int taskId = next; taskId < newJoin; taskId++) {
+                edges.add(new int[]{join, taskId});
+                edges.add(new int[]{taskId, newJoin});
+            }
+            join = newJoin;
+            next = newJoin + 1;
+        }
+        return edges.toArray(new int[0][]);
+    }
+
+    private static int[][] pipeline(int taskNum) {
+        int[][] edges = new int[taskNum - 1][];
+        for (int taskId = 1; taskId < taskNum; taskId++) {
+            edges[taskId - 1] = new int[]{taskId, taskId + 1};
+        }
+        return edges;
+    }
+
+    // splitmix64的终结函数，把相邻的序号映射到相距很远的种子
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkloadGenerator;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 列生成从每对节点一条路径开始补充路径：受限模型很快求到最优，不差于同样时间内求解全部路径的模型
+ */
+public class ColumnGenerationTest {
+    private static final double TOLERANCE = 1e-6;
+
+    // columnRounds小于0时使用全部路径
+    private static GurobiSolution solve(int columnRounds, int timeLimit) throws Exception {
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkloadGenerator(new WorkloadGenerator(1).setShapes(WorkloadGenerator.Shape.PIPELINE)
+                .setTaskNum(2, 2).setOriginNodes(Arrays.asList(1, 2)));
+        solution.setFirstWorkflowId(1);
+        solution.setWorkflowNum(5);
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setFormulation(Formulation.AGGREGATED);
+        solution.setTimeLimit(timeLimit);
+        if (columnRounds >= 0) {
+            solution.setColumnGeneration(1, columnRounds, Integer.MAX_VALUE);
+        }
+        solution.prepare();
+        solution.doOptimize();
+        assertTrue(solution.getModel().hasSolution());
+        return solution;
+    }
+
+    @Test
+    public void noWorseThanFullPathModel() throws Exception {
+        // 全部路径的模型在时间上限内求不到最优，只比较可行解
+        GurobiSolution full = solve(-1, 5);
+        GurobiSolution generated = solve(10, 60);
+        try {
+            assertTrue(generated.getGeneratedPathNum() > 0);
+            assertTrue(generated.getPaths().size() < full.getPaths().size());
+            assertEquals(generated.getObjVal(), generated.getModel().getObjBound(), TOLERANCE);
+            // 列生成的路径是全部路径的子集，受限模型的解在完整模型中也可行
+            assertTrue(full.getModel().getObjBound() <= generated.getObjVal() + TOLERANCE);
+            assertTrue(generated.getObjVal() <= full.getObjVal() + TOLERANCE);
+        } finally {
+            full.dispose();
+            generated.dispose();
+        }
+    }
+}
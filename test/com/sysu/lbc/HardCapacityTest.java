@@ -0,0 +1,101 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.capacity.CapacityLedger;
+import com.sysu.lbc.dataStructure.*;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 默认数据上的硬容量约束：任务资源改为25，无人机节点(容量55)放得下起始任务
+ */
+public class HardCapacityTest {
+    private static final double EPS = 1e-6;
+
+    private final WorkflowGenerator generator = WorkflowGenerator.getWorkflowGenerator();
+    private double oldTaskCap;
+    private GurobiSolution solution;
+
+    @Before
+    public void setUp() throws Exception {
+        oldTaskCap = generator.getTaskCap();
+        generator.setTaskCap(25);
+        WorkflowGenerator.resetWorkflowIdx();
+        solution = new GurobiSolution();
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setTimeLimit(30);
+        solution.setWorkflowNum(0);
+        solution.setHardCapacity(true);
+        solution.prepare();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        generator.setTaskCap(oldTaskCap);
+        WorkflowGenerator.resetWorkflowIdx();
+        solution.dispose();
+    }
+
+    private Workflow arrival(int origin) {
+        Workflow wf = generator.generateAWorkflow_V2(0);
+        wf.setOriginNodeId(origin);
+        return wf;
+    }
+
+    @Test
+    public void loadUpperBoundIsOneOnlyWithHardCapacity() {
+        assertEquals(1.0, solution.getLoadUpperBound(), 0);
+        solution.setHardCapacity(false);
+        assertTrue(solution.getLoadUpperBound() > 1e20);
+    }
+
+    @Test
+    public void committedLoadsKeepNormalisedLoadsBelowOne() throws Exception {
+        CapacityLedger ledger = solution.getCapacityLedger();
+        int admitted = 0;
+        for (int n = 0; n < 6; n++) {
+            Workflow wf = arrival(1 + n % solution.getUavNodes().size());
+            if (!solution.admitWorkflow(wf)) {
+                continue;
+            }
+            admitted++;
+            // 最后一个接纳的工作流不提交，留在模型中与已提交的负载一起求解
+            if (n < 5) {
+                assertTrue(solution.commitWorkflow(wf.getWF_ID()));
+                solution.doOptimize();
+            }
+        }
+        assertTrue("至少接纳一个工作流", admitted > 0);
+        assertTrue(ledger.size() > 0);
+
+        double[] nodeLoad = new double[solution.getNodeNum()];
+        double[] linkLoad = new double[solution.getLinkNum()];
+        solution.getLoads(nodeLoad, linkLoad);
+        // 负载变量 = 已提交的负载 + 模型中的任务资源/节点容量，即归一化的占用
+        Placement placement = solution.getPlacement();
+        List<Integer> nodeIds = ledger.getNodeIds();
+        for (int i = 0; i < nodeIds.size(); i++) {
+            int nodeId = nodeIds.get(i);
+            double expected = ledger.getNodeLoad(nodeId);
+            for (Workflow wf : solution.workflows) {
+                for (Task task : wf.getTasks()) {
+                    if (nodeId == placement.getNode(task)) {
+                        expected += task.neededResource / ledger.getNodeCapacity(nodeId);
+                    }
+                }
+            }
+            assertEquals("节点" + nodeId, expected, nodeLoad[i], EPS);
+            assertTrue("节点" + nodeId + "超出容量", nodeLoad[i] <= 1 + EPS);
+        }
+        for (int j = 0; j < linkLoad.length; j++) {
+            assertTrue("链路" + j + "的负载不少于已提交的负载", linkLoad[j] >= ledger.getLinkLoad(j) - EPS);
+            assertTrue("链路" + j + "超出带宽", linkLoad[j] <= 1 + EPS);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.cache.SolutionCache;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkloadGenerator;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 解缓存：y变量裁剪计入拓扑指纹，未证明最优的放置只作为初始解
+ */
+public class ModelSolverTest {
+    private static GurobiSolution prepare(SolutionCache cache, int wfNum, boolean pruneYVar, double timeLimit)
+            throws Exception {
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkloadGenerator(new WorkloadGenerator(1).setShapes(WorkloadGenerator.Shape.PIPELINE)
+                .setTaskNum(3, 3).setOriginNodes(Arrays.asList(1, 2)));
+        solution.setFirstWorkflowId(1);
+        solution.setWorkflowNum(wfNum);
+        solution.setPruneYVar(pruneYVar);
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setTimeLimit(timeLimit);
+        solution.setSolutionCache(cache, true);
+        solution.prepare();
+        return solution;
+    }
+
+    @Test
+    public void pruneYVarIsPartOfKey() throws Exception {
+        SolutionCache cache = new SolutionCache();
+        GurobiSolution full = prepare(cache, 1, false, 60);
+        GurobiSolution pruned = prepare(cache, 1, true, 60);
+        GurobiSolution prunedAgain = prepare(cache, 1, true, 60);
+        try {
+            assertNotNull(full.solvePlacement());
+            assertNotNull(pruned.solvePlacement());
+            assertEquals("裁剪与不裁剪的放置分开缓存", 0, cache.getHits());
+            assertEquals(2, cache.size());
+            // 已证明最优的放置直接复用，不再求解
+            assertNotNull(prunedAgain.solvePlacement());
+            assertEquals(1, cache.getHits());
+            assertFalse(prunedAgain.solver.isOptimized());
+        } finally {
+            full.dispose();
+            pruned.dispose();
+            prunedAgain.dispose();
+        }
+    }
+
+    @Test
+    public void incumbentIsOnlyUsedAsStart() throws Exception {
+        SolutionCache cache = new SolutionCache();
+        // 时间上限很短，只能得到启发式初始解附近的可行解
+        GurobiSolution first = prepare(cache, 4, false, 0.05);
+        GurobiSolution second = prepare(cache, 4, false, 0.05);
+        try {
+            first.applyStart(first.placeHeuristically());
+            assertNotNull(first.solvePlacement());
+            assertTrue(first.getObjVal() > first.getModel().getObjBound() * (1 + first.getModel().getMipGap()));
+            second.solvePlacement();
+            assertEquals(1, cache.getHits());
+            assertTrue("未证明最优的放置不能直接复用", second.solver.isOptimized());
+        } finally {
+            first.dispose();
+            second.dispose();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.presolve.PresolveStats;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import com.sysu.lbc.tool.WorkloadGenerator;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 预处理的各项缩减：固定起始任务、删去不可行的x、y变量和约束、把一端固定的二次约束线性化，最优值不变
+ */
+public class PresolveTest {
+    private static final double DELTA = 1e-6;
+
+    private static WorkloadGenerator workload() {
+        return new WorkloadGenerator(1).setShapes(WorkloadGenerator.Shape.PIPELINE).setTaskNum(3, 3)
+                .setOriginNodes(Arrays.asList(1, 2));
+    }
+
+    private static GurobiSolution prepare(int wfNum, Formulation formulation, boolean presolve) throws Exception {
+        WorkflowGenerator.resetWorkflowIdx();
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkflowNum(wfNum);
+        solution.setWorkloadGenerator(workload());
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setFormulation(formulation);
+        solution.setTimeLimit(60);
+        solution.setPresolve(presolve);
+        solution.prepare();
+        return solution;
+    }
+
+    private static void optimize(GurobiSolution solution) throws Exception {
+        solution.doOptimize();
+        // 求到最优才能比较最优值
+        assertEquals(solution.getObjVal(), solution.getModel().getObjBound(), DELTA);
+    }
+
+    private interface Check {
+        void run(GurobiSolution full, GurobiSolution reduced) throws Exception;
+    }
+
+    // 建好完整模型和预处理后的模型，先检查缩减，再比较两者的最优值
+    private static void compareWithFull(Formulation formulation, Check check) throws Exception {
+        GurobiSolution full = prepare(2, formulation, false);
+        GurobiSolution reduced = prepare(2, formulation, true);
+        try {
+            PresolveStats stats = reduced.getPresolveStats();
+            // 每个工作流的起始任务都固定在起始节点上
+            assertTrue(stats.toString(), stats.fixedTaskNum >= 2);
+            assertEquals(0, stats.infeasibleWorkflowNum);
+            check.run(full, reduced);
+            optimize(full);
+            optimize(reduced);
+            assertEquals(formulation.toString(), full.getObjVal(), reduced.getObjVal(), DELTA);
+        } finally {
+            full.dispose();
+            reduced.dispose();
+        }
+    }
+
+    @Test
+    public void quadraticLinearizesFixedEndpoints() throws Exception {
+        compareWithFull(Formulation.QUADRATIC, (full, reduced) -> {
+            assertTrue(reduced.getPresolveStats().linearizedQConstrNum > 0);
+            assertTrue(reduced.getModel().getQConstrNum() < full.getModel().getQConstrNum());
+        });
+    }
+
+    @Test
+    public void mccormickDropsDeadVars() throws Exception {
+        compareWithFull(Formulation.MCCORMICK, (full, reduced) -> {
+            PresolveStats stats = reduced.getPresolveStats();
+            assertTrue(stats.toString(), stats.removedXVarNum > 0 && stats.deadYVarNum > 0);
+            assertEquals(full.xVars.size() - stats.removedXVarNum, reduced.xVars.size());
+            assertTrue(reduced.getYVarNum() < full.getYVarNum());
+        });
+    }
+
+    @Test
+    public void aggregatedDropsConstraints() throws Exception {
+        compareWithFull(Formulation.AGGREGATED, (full, reduced) -> {
+            assertTrue(reduced.getPresolveStats().removedConstrNum > 0);
+            assertTrue(reduced.getModel().getConstrNum() < full.getModel().getConstrNum());
+        });
+    }
+
+    @Test
+    public void metricsRecordPresolveStats() throws Exception {
+        GurobiSolution full = prepare(1, Formulation.MCCORMICK, false);
+        GurobiSolution reduced = prepare(1, Formulation.MCCORMICK, true);
+        try {
+            assertNull(full.getMetrics().presolve);
+            assertSame(reduced.getPresolveStats(), reduced.getMetrics().presolve);
+            assertTrue(reduced.getMetrics().toJson().contains("\"fixedTaskNum\": 1"));
+        } finally {
+            full.dispose();
+            reduced.dispose();
+        }
+    }
+
+    @Test
+    public void columnGenerationSkipsPresolve() throws Exception {
+        WorkflowGenerator.resetWorkflowIdx();
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkflowNum(1);
+        solution.setWorkloadGenerator(workload());
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setFormulation(Formulation.AGGREGATED);
+        solution.setColumnGeneration(1, 1, Integer.MAX_VALUE);
+        solution.setPresolve(true);
+        solution.prepare();
+        try {
+            PresolveStats stats = solution.getPresolveStats();
+            assertTrue(stats.skipped);
+            assertEquals(0, stats.fixedTaskNum + stats.removedXVarNum + stats.deadYVarNum);
+        } finally {
+            solution.dispose();
+        }
+    }
+
+    @Test
+    public void onlineArrivalsArePresolved() throws Exception {
+        GurobiSolution full = prepare(1, Formulation.QUADRATIC, false);
+        GurobiSolution reduced = prepare(1, Formulation.QUADRATIC, true);
+        try {
+            // 在线加入的工作流也先做预处理，省去的负载项在用到时才创建
+            WorkloadGenerator arrivals = workload();
+            full.addWorkflow(arrivals.generate(5, 1, 100).get(0));
+            reduced.addWorkflow(arrivals.generate(5, 1, 100).get(0));
+            optimize(full);
+            optimize(reduced);
+            assertEquals(full.getObjVal(), reduced.getObjVal(), DELTA);
+
+            assertTrue(full.removeWorkflow(full.workflows.get(0).getWF_ID()));
+            assertTrue(reduced.removeWorkflow(reduced.workflows.get(0).getWF_ID()));
+            optimize(full);
+            optimize(reduced);
+            assertEquals(full.getObjVal(), reduced.getObjVal(), DELTA);
+            assertTrue(reduced.getPresolveStats().fixedTaskNum >= 2);
+        } finally {
+            full.dispose();
+            reduced.dispose();
+        }
+    }
+}
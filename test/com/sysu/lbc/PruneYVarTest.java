@@ -0,0 +1,53 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkloadGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 裁剪y变量后任务对没有可用路径时模型不可行
+ */
+public class PruneYVarTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 只有一条路径1 -> 2
+    private String singlePath() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "-Src\t1\t-Dst\t2\t-Path\t1>2\n".getBytes(StandardCharsets.UTF_8));
+        return file.getPath();
+    }
+
+    @Test
+    public void flowWithoutPathIsInfeasible() throws Exception {
+        // 起始任务固定在节点1上；后继任务需要60，候选节点只有8、9、10，唯一的路径终点是容量为55的节点2，被裁剪
+        GurobiSolution solution = new GurobiSolution();
+        solution.setDataFiles(singlePath(), GurobiSolution.NODE_INFO_FILE, GurobiSolution.LINKS_INFO_FILE);
+        solution.setWorkloadGenerator(new WorkloadGenerator(1).setShapes(WorkloadGenerator.Shape.PIPELINE)
+                .setTaskNum(2, 2).setOriginNodes(Collections.singletonList(1)));
+        solution.setFirstWorkflowId(1);
+        solution.setWorkflowNum(1);
+        solution.setPruneYVar(true);
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setTimeLimit(60);
+        solution.prepare();
+        try {
+            assertEquals(0, solution.getYVarNum());
+            assertEquals(1, solution.getPrunedYVarNum());
+            solution.doOptimize();
+            assertFalse(solution.getModel().hasSolution());
+        } finally {
+            solution.dispose();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.sysu.lbc;
+
+import com.sysu.lbc.dataStructure.Flow;
+import com.sysu.lbc.dataStructure.PathTable;
+import com.sysu.lbc.dataStructure.Placement;
+import com.sysu.lbc.dataStructure.Task;
+import com.sysu.lbc.dataStructure.Workflow;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import com.sysu.lbc.tool.WorkloadGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对称性约束：可互换的工作流组按关键任务所在节点排序，节点轨道按负载排序，加入前后最优值相同
+ */
+public class SymmetryBreakingTest {
+    private static final double EPS = 1e-6;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // wfNum个taskNum个任务的流水线，起始节点都是1
+    private static GurobiSolution solve(int wfNum, int taskNum, Formulation formulation, boolean symmetryBreaking)
+            throws Exception {
+        WorkflowGenerator.resetWorkflowIdx();
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkflowNum(wfNum);
+        solution.setWorkloadGenerator(new WorkloadGenerator(1).setShapes(WorkloadGenerator.Shape.PIPELINE)
+                .setTaskNum(taskNum, taskNum).setOriginNodes(Collections.singletonList(1)));
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setFormulation(formulation);
+        solution.setTimeLimit(60);
+        solution.setSymmetryBreaking(symmetryBreaking);
+        solution.prepare();
+        solution.doOptimize();
+        // 对称性约束只删去等价的解，间隙为0时两个模型的最优值才可比
+        assertEquals(solution.getObjVal(), solution.getModel().getObjBound(), EPS);
+        return solution;
+    }
+
+    // 组内工作流的关键任务所在节点的id不减
+    private static void assertGroupOrdered(GurobiSolution solution) throws Exception {
+        Placement placement = solution.getPlacement();
+        int keyTaskId = solution.getSymmetry().keyTaskIds.get(0);
+        int last = Integer.MIN_VALUE;
+        for (Workflow wf : solution.getSymmetry().workflowGroups.get(0)) {
+            for (Task task : wf.getTasks()) {
+                if (keyTaskId == task.taskId) {
+                    int nodeId = placement.getNode(task);
+                    assertTrue(last <= nodeId);
+                    last = nodeId;
+                }
+            }
+        }
+    }
+
+    private static void checkGroupOrdered(int wfNum, int taskNum, Formulation formulation) throws Exception {
+        GurobiSolution plain = solve(wfNum, taskNum, formulation, false);
+        GurobiSolution broken = solve(wfNum, taskNum, formulation, true);
+        try {
+            assertEquals(0, plain.getSymmetryConstrNum());
+            assertFalse(broken.getSymmetry().workflowGroups.isEmpty());
+            assertEquals(wfNum, broken.getSymmetry().workflowGroups.get(0).size());
+            // 起始任务固定，关键任务是第二个任务
+            assertEquals(2, broken.getSymmetry().keyTaskIds.get(0).intValue());
+            assertTrue(broken.getSymmetryConstrNum() >= wfNum - 1);
+            assertEquals(formulation.toString(), plain.getObjVal(), broken.getObjVal(), EPS);
+            assertGroupOrdered(broken);
+        } finally {
+            plain.dispose();
+            broken.dispose();
+        }
+    }
+
+    @Test
+    public void quadraticOrdersWorkflowGroup() throws Exception {
+        checkGroupOrdered(3, 2, Formulation.QUADRATIC);
+    }
+
+    @Test
+    public void mccormickOrdersWorkflowGroup() throws Exception {
+        checkGroupOrdered(2, 3, Formulation.MCCORMICK);
+    }
+
+    @Test
+    public void removalShrinksWorkflowGroup() throws Exception {
+        GurobiSolution plain = solve(3, 2, Formulation.QUADRATIC, false);
+        GurobiSolution broken = solve(3, 2, Formulation.QUADRATIC, true);
+        try {
+            // 删除组内的一个工作流后重新加入对称性约束
+            plain.removeWorkflow(plain.workflows.get(1).getWF_ID());
+            broken.removeWorkflow(broken.workflows.get(1).getWF_ID());
+            plain.doOptimize();
+            broken.doOptimize();
+            assertEquals(plain.getObjVal(), broken.getObjVal(), EPS);
+            assertEquals(2, broken.getSymmetry().workflowGroups.get(0).size());
+            assertGroupOrdered(broken);
+        } finally {
+            plain.dispose();
+            broken.dispose();
+        }
+    }
+
+    @Test
+    public void nodeOrbitOrdersLoads() throws Exception {
+        // 星形拓扑：起始节点1连着容量相同的2、3，对换2、3不改变链路和路径，构成一个轨道
+        String pathFile = write("-Src\t1\t-Dst\t2\t-Path\t1>2\n-Src\t2\t-Dst\t1\t-Path\t2>1\n"
+                + "-Src\t1\t-Dst\t3\t-Path\t1>3\n-Src\t3\t-Dst\t1\t-Path\t3>1\n"
+                + "-Src\t2\t-Dst\t3\t-Path\t2>1>3\n-Src\t3\t-Dst\t2\t-Path\t3>1>2\n");
+        String nodeFile = write("U_ID\t1\tCap\t55\nE_ID\t2\tCap\t100\nE_ID\t3\tCap\t100\n");
+        String linkFile = write("Node_u\t1\tNode_v\t2\t-Cap\t30\nNode_u\t1\tNode_v\t3\t-Cap\t30\n");
+        GurobiSolution plain = solveStar(pathFile, nodeFile, linkFile, false);
+        GurobiSolution broken = solveStar(pathFile, nodeFile, linkFile, true);
+        try {
+            assertTrue(broken.getSymmetry().workflowGroups.isEmpty());
+            assertEquals(1, broken.getSymmetry().nodeOrbits.size());
+            assertArrayEquals(new int[]{2, 3}, broken.getSymmetry().nodeOrbits.get(0));
+            assertEquals(1, broken.getSymmetryConstrNum());
+            assertEquals(plain.getObjVal(), broken.getObjVal(), EPS);
+
+            // 起始任务以外都放在节点3上的放置经canonicalize变换后移到节点2上，路径也随节点一起变换
+            PathTable paths = broken.getPaths();
+            Placement placement = new Placement();
+            placement.cost = plain.getObjVal();
+            Workflow wf = broken.workflows.get(0);
+            for (Task task : wf.getTasks()) {
+                placement.taskNodes.put(task, 1 == task.taskId ? 1 : 3);
+            }
+            for (Flow flow : wf.getFlows()) {
+                if (1 == flow.currTask.taskId) {
+                    placement.flowPaths.put(flow, paths.getPathsBetween(1, 3)[0]);
+                }
+            }
+            Placement canonical = broken.getSymmetry().canonicalize(placement);
+            assertEquals(0, nodeLoad(canonical, 3), EPS);
+            assertEquals(nodeLoad(placement, 3), nodeLoad(canonical, 2), EPS);
+            assertEquals(placement.cost, canonical.cost, EPS);
+            for (Flow flow : wf.getFlows()) {
+                Integer pathId = canonical.getPath(flow);
+                if (null != pathId) {
+                    assertEquals(canonical.getNode(flow.currTask).intValue(), paths.getNode(pathId, 0));
+                    assertEquals(canonical.getNode(flow.succTask).intValue(),
+                            paths.getNode(pathId, paths.getHopNum(pathId)));
+                }
+            }
+            assertTrue(nodeLoad(broken.getPlacement(), 2) >= nodeLoad(broken.getPlacement(), 3));
+        } finally {
+            plain.dispose();
+            broken.dispose();
+        }
+    }
+
+    private String write(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.getPath();
+    }
+
+    private static GurobiSolution solveStar(String pathFile, String nodeFile, String linkFile, boolean symmetryBreaking)
+            throws Exception {
+        GurobiSolution solution = new GurobiSolution();
+        solution.setDataFiles(pathFile, nodeFile, linkFile);
+        solution.setWorkloadGenerator(new WorkloadGenerator(1).setShapes(WorkloadGenerator.Shape.PIPELINE)
+                .setTaskNum(3, 3).setOriginNodes(Collections.singletonList(1)));
+        solution.setFirstWorkflowId(1);
+        solution.setWorkflowNum(1);
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setTimeLimit(60);
+        solution.setSymmetryBreaking(symmetryBreaking);
+        solution.prepare();
+        solution.doOptimize();
+        assertEquals(solution.getObjVal(), solution.getModel().getObjBound(), EPS);
+        return solution;
+    }
+
+    private static double nodeLoad(Placement placement, int nodeId) {
+        double result = 0;
+        for (Map.Entry<Task, Integer> entry : placement.taskNodes.entrySet()) {
+            if (entry.getValue() == nodeId) {
+                result += entry.getKey().neededResource;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,220 @@
+package com.sysu.lbc.cache;
+
+import com.sysu.lbc.dataStructure.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SolutionCacheTest {
+    private Fingerprint topology;
+
+    @Before
+    public void setUp() {
+        Map<Integer, Double> nodes = new LinkedHashMap<>();
+        nodes.put(1, 55.0);
+        nodes.put(2, 100.0);
+        List<Link> links = Collections.singletonList(new Link(1, 2, 30));
+        PathTable paths = new PathTable();
+        paths.add(new int[]{1, 2});
+        topology = Fingerprint.of(nodes, links, paths);
+    }
+
+    // 1 -> 2 -> 3的链状工作流
+    private static Workflow chain(int wfId, int origin, double resource) {
+        Workflow wf = new Workflow(wfId, null, null);
+        Task t1 = new Task(wfId, 1, resource);
+        Task t2 = new Task(wfId, 2, resource);
+        Task t3 = new Task(wfId, 3, resource);
+        wf.addFlow(new Flow(t1, t2, 15));
+        wf.addFlow(new Flow(t2, t3, 15));
+        wf.setOriginNodeId(origin);
+        return wf;
+    }
+
+    // 1 -> 2、1 -> 3的分叉工作流
+    private static Workflow fork(int wfId, int origin) {
+        Workflow wf = new Workflow(wfId, null, null);
+        Task t1 = new Task(wfId, 1, 60);
+        wf.addFlow(new Flow(t1, new Task(wfId, 2, 60), 15));
+        wf.addFlow(new Flow(t1, new Task(wfId, 3, 60), 15));
+        wf.setOriginNodeId(origin);
+        return wf;
+    }
+
+    private static Fingerprint key(long value) {
+        return new Fingerprint.Builder().add(value).build();
+    }
+
+    private static CachedPlacement placementOf(Workflow wf, int node) {
+        return placementOf(wf, node, 0);
+    }
+
+    private static CachedPlacement placementOf(Workflow wf, int node, double gap) {
+        Placement placement = new Placement();
+        for (Task task : wf.getTasks()) {
+            placement.taskNodes.put(task, node);
+        }
+        for (Flow flow : wf.getFlows()) {
+            placement.flowPaths.put(flow, 1);
+        }
+        return CachedPlacement.of(Collections.singletonList(wf), placement, gap);
+    }
+
+    @Test
+    public void keyIgnoresWorkflowIdsAndOrder() {
+        Fingerprint a = SolutionCache.key(Arrays.asList(chain(1, 1, 60), fork(2, 1)), topology, null);
+        Fingerprint b = SolutionCache.key(Arrays.asList(fork(7, 1), chain(9, 1, 60)), topology, null);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(Fingerprint.of(chain(1, 1, 60)), Fingerprint.of(chain(2, 1, 60)));
+    }
+
+    @Test
+    public void keyDependsOnStructureTopologyAndLoads() {
+        List<Workflow> wfs = Collections.singletonList(chain(1, 1, 60));
+        Fingerprint base = SolutionCache.key(wfs, topology, null);
+        assertNotEquals(base, SolutionCache.key(Collections.singletonList(chain(1, 2, 60)), topology, null));
+        assertNotEquals(base, SolutionCache.key(Collections.singletonList(chain(1, 1, 50)), topology, null));
+        assertNotEquals(base, SolutionCache.key(Collections.singletonList(fork(1, 1)), topology, null));
+        assertNotEquals(base, SolutionCache.key(Arrays.asList(chain(1, 1, 60), chain(2, 1, 60)), topology, null));
+
+        Map<Integer, Double> nodes = new LinkedHashMap<>();
+        nodes.put(1, 55.0);
+        nodes.put(2, 150.0);
+        PathTable paths = new PathTable();
+        paths.add(new int[]{1, 2});
+        Fingerprint otherTopology = Fingerprint.of(nodes, Collections.singletonList(new Link(1, 2, 30)), paths);
+        assertNotEquals(base, SolutionCache.key(wfs, otherTopology, null));
+
+        Fingerprint loads = Fingerprint.ofLoads(new double[]{0.5, 0}, new double[]{0.25}, SolutionCache.LOAD_QUANTUM);
+        assertNotEquals(base, SolutionCache.key(wfs, topology, loads));
+        // 取整粒度以内的浮点误差不改变键
+        Fingerprint close = Fingerprint.ofLoads(new double[]{0.5 + 1e-9, 0}, new double[]{0.25 - 1e-9},
+                SolutionCache.LOAD_QUANTUM);
+        assertEquals(SolutionCache.key(wfs, topology, loads), SolutionCache.key(wfs, topology, close));
+        Fingerprint far = Fingerprint.ofLoads(new double[]{0.6, 0}, new double[]{0.25}, SolutionCache.LOAD_QUANTUM);
+        assertNotEquals(SolutionCache.key(wfs, topology, loads), SolutionCache.key(wfs, topology, far));
+    }
+
+    @Test
+    public void smallerGapWins() {
+        Workflow wf = chain(1, 1, 60);
+        List<Workflow> wfs = Collections.singletonList(wf);
+        SolutionCache cache = new SolutionCache();
+        cache.put(key(1), placementOf(wf, 1, 0.2));
+        // 间隙更小的放置替换已有的
+        cache.put(key(1), placementOf(wf, 2, 0));
+        assertEquals(0, cache.get(key(1)).gap, 0);
+        // 未证明最优的放置不替换已证明最优的
+        cache.put(key(1), placementOf(wf, 3, 0.1));
+        CachedPlacement entry = cache.get(key(1));
+        assertEquals(0, entry.gap, 0);
+        assertEquals(Integer.valueOf(2), entry.toPlacement(wfs).getNode(new Task(1, 1, 60)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void canonicalOrderIsStable() {
+        Workflow c1 = chain(1, 1, 60);
+        Workflow f2 = fork(2, 1);
+        Workflow c3 = chain(3, 1, 60);
+        List<Workflow> order = SolutionCache.canonicalOrder(Arrays.asList(c1, f2, c3));
+        assertEquals(order, SolutionCache.canonicalOrder(Arrays.asList(f2, c1, c3)));
+        // 指纹相同的工作流保持原来的相对顺序
+        assertTrue(order.indexOf(c1) < order.indexOf(c3));
+        assertEquals(Arrays.asList(c3, c1), withoutFork(SolutionCache.canonicalOrder(Arrays.asList(c3, f2, c1))));
+    }
+
+    private static List<Workflow> withoutFork(List<Workflow> wfs) {
+        List<Workflow> result = new ArrayList<>();
+        for (Workflow wf : wfs) {
+            if (2 != wf.getWF_ID()) {
+                result.add(wf);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void placementAppliesToWorkflowWithOtherId() {
+        Workflow cached = chain(1, 1, 60);
+        Placement placement = new Placement();
+        int node = 1;
+        for (Task task : cached.getTasks()) {
+            placement.taskNodes.put(task, node++);
+        }
+        for (Flow flow : cached.getFlows()) {
+            placement.flowPaths.put(flow, flow.succTask.taskId);
+        }
+        placement.cost = 2.5;
+        CachedPlacement entry = CachedPlacement.of(Collections.singletonList(cached), placement);
+
+        Workflow arrival = chain(42, 1, 60);
+        Placement applied = entry.toPlacement(Collections.singletonList(arrival));
+        assertNotNull(applied);
+        assertEquals(2.5, applied.cost, 0);
+        for (Task task : arrival.getTasks()) {
+            assertEquals(Integer.valueOf(task.taskId), applied.getNode(task));
+        }
+        for (Flow flow : arrival.getFlows()) {
+            assertEquals(Integer.valueOf(flow.succTask.taskId), applied.getPath(flow));
+        }
+        assertNull("结构不同", entry.toPlacement(Collections.singletonList(fork(43, 1))));
+        assertNull("工作流数不同", entry.toPlacement(Arrays.asList(arrival, chain(44, 1, 60))));
+
+        placement.flowPaths.clear();
+        assertNull("流没有路径", CachedPlacement.of(Collections.singletonList(cached), placement));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() {
+        SolutionCache cache = new SolutionCache(2, Long.MAX_VALUE);
+        CachedPlacement placement = placementOf(chain(1, 1, 60), 1);
+        cache.put(key(1), placement);
+        cache.put(key(2), placement);
+        // 访问1之后2是最久未访问的
+        assertSame(placement, cache.get(key(1)));
+        cache.put(key(3), placement);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key(2)));
+        assertNotNull(cache.get(key(1)));
+        assertNotNull(cache.get(key(3)));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(3, cache.getPuts());
+        assertEquals(0.75, cache.getHitRate(), 1e-12);
+    }
+
+    @Test
+    public void evictsByEstimatedBytes() {
+        CachedPlacement placement = placementOf(chain(1, 1, 60), 1);
+        long size = placement.estimateBytes();
+        SolutionCache cache = new SolutionCache(100, 2 * size);
+        cache.put(key(1), placement);
+        cache.put(key(2), placement);
+        assertEquals(2 * size, cache.getBytes());
+        // 覆盖已有的键不重复计入占用
+        cache.put(key(2), placementOf(chain(1, 1, 60), 2));
+        assertEquals(2, cache.size());
+        assertEquals(2 * size, cache.getBytes());
+        cache.put(key(3), placement);
+        assertEquals(2, cache.size());
+        assertEquals(2 * size, cache.getBytes());
+        assertNull(cache.get(key(1)));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void ignoresNullPlacement() {
+        SolutionCache cache = new SolutionCache();
+        cache.put(key(1), null);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getPuts());
+    }
+}
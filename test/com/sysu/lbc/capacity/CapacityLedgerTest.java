@@ -0,0 +1,132 @@
+package com.sysu.lbc.capacity;
+
+import com.sysu.lbc.dataStructure.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 三个节点的链状拓扑 1 - 2 - 3，链路带宽分别为20、10
+ */
+public class CapacityLedgerTest {
+    private static final double DELTA = 1e-9;
+
+    private Map<Integer, Double> nodes;
+    private List<Link> links;
+    private PathTable paths;
+    private CapacityLedger ledger;
+
+    @Before
+    public void setUp() {
+        nodes = new LinkedHashMap<>();
+        nodes.put(1, 50.0);
+        nodes.put(2, 100.0);
+        nodes.put(3, 100.0);
+        links = Arrays.asList(new Link(1, 2, 20), new Link(2, 3, 10));
+        paths = new PathTable();
+        paths.add(new int[]{1, 2});
+        paths.add(new int[]{2, 3});
+        paths.add(new int[]{1, 2, 3});
+        paths.buildLinkIncidence(links);
+        ledger = new CapacityLedger(nodes, links, paths);
+    }
+
+    // 起始任务1放在origin上，任务2的资源为succResource，流1->2的带宽为bandwidth
+    private static Workflow workflow(int wfId, int origin, double originResource, double succResource, double bandwidth) {
+        Workflow wf = new Workflow(wfId, null, null);
+        wf.addFlow(new Flow(new Task(wfId, 1, originResource), new Task(wfId, 2, succResource), bandwidth));
+        wf.setOriginNodeId(origin);
+        return wf;
+    }
+
+    private static Placement place(Workflow wf, int originNode, int succNode, int pathId) {
+        Placement placement = new Placement();
+        Flow flow = wf.getFlows().get(0);
+        placement.taskNodes.put(flow.currTask, originNode);
+        placement.taskNodes.put(flow.succTask, succNode);
+        placement.flowPaths.put(flow, pathId);
+        return placement;
+    }
+
+    @Test
+    public void commitAndReleaseRoundTrip() {
+        Workflow wf = workflow(1, 1, 40, 30, 15);
+        assertTrue(ledger.commit(wf, place(wf, 1, 3, 3)));
+        assertFalse("重复提交", ledger.commit(wf, place(wf, 1, 3, 3)));
+        assertTrue(ledger.isCommitted(1));
+        assertEquals(1, ledger.size());
+        assertEquals(10, ledger.getNodeResidual(1), DELTA);
+        assertEquals(100, ledger.getNodeResidual(2), DELTA);
+        assertEquals(70, ledger.getNodeResidual(3), DELTA);
+        assertEquals(0.8, ledger.getNodeLoad(1), DELTA);
+        assertEquals(0.3, ledger.getNodeLoad(3), DELTA);
+        // 路径1>2>3经过两条链路
+        assertEquals(5, ledger.getLinkResidual(0), DELTA);
+        assertEquals(-5, ledger.getLinkResidual(1), DELTA);
+        assertEquals(1.5, ledger.getLinkLoad(1), DELTA);
+
+        assertTrue(ledger.release(1));
+        assertFalse("重复释放", ledger.release(1));
+        assertTrue(ledger.isEmpty());
+        for (int nodeId : nodes.keySet()) {
+            assertEquals(nodes.get(nodeId), ledger.getNodeResidual(nodeId), 0);
+            assertEquals(0, ledger.getNodeLoad(nodeId), 0);
+        }
+        for (int j = 0; j < links.size(); j++) {
+            assertEquals(links.get(j).bandwidth, ledger.getLinkResidual(j), 0);
+        }
+        assertEquals(1, ledger.getCommittedNum());
+        assertEquals(1, ledger.getReleasedNum());
+    }
+
+    @Test
+    public void commitRejectsIncompletePlacement() {
+        Workflow wf = workflow(1, 1, 40, 30, 15);
+        Placement placement = place(wf, 1, 3, 3);
+        placement.taskNodes.put(wf.getFlows().get(0).succTask, 99);
+        assertFalse("节点不在拓扑中", ledger.commit(wf, placement));
+        placement = place(wf, 1, 3, 3);
+        placement.flowPaths.clear();
+        assertFalse("流没有路径", ledger.commit(wf, placement));
+        assertTrue(ledger.isEmpty());
+        assertEquals(50, ledger.getNodeResidual(1), 0);
+    }
+
+    @Test
+    public void rejectsOriginTaskLargerThanOriginNode() {
+        // 节点2、3合计还有200的资源，但起始任务固定在容量50的节点1上
+        assertFalse(ledger.canAdmit(workflow(1, 1, 60, 10, 5), Collections.<Workflow>emptyList()));
+        assertTrue(ledger.canAdmit(workflow(2, 1, 50, 10, 5), Collections.<Workflow>emptyList()));
+        // 起始节点不在拓扑中时起始任务不固定
+        assertTrue(ledger.canAdmit(workflow(3, 99, 60, 10, 5), Collections.<Workflow>emptyList()));
+        assertEquals(1, ledger.getRejectedNum());
+        assertEquals(2, ledger.getAdmittedNum());
+    }
+
+    @Test
+    public void rejectsOriginTaskAfterCommittedLoad() {
+        Workflow committed = workflow(1, 1, 40, 30, 5);
+        assertTrue(ledger.commit(committed, place(committed, 1, 2, 1)));
+        assertFalse(ledger.canAdmit(workflow(2, 1, 20, 10, 5), Collections.<Workflow>emptyList()));
+        assertTrue(ledger.canAdmit(workflow(3, 1, 10, 10, 5), Collections.<Workflow>emptyList()));
+        // 同时求解的工作流的起始任务也要计入
+        Workflow pending = workflow(4, 1, 10, 10, 5);
+        assertFalse(ledger.canAdmit(workflow(5, 1, 10, 10, 5), Collections.singletonList(pending)));
+    }
+
+    @Test
+    public void rejectsFlowWithoutPathBandwidth() {
+        Workflow committed = workflow(1, 1, 10, 10, 15);
+        assertTrue(ledger.commit(committed, place(committed, 1, 2, 1)));
+        // 从节点1出发的路径都经过链路1-2，剩余带宽5
+        assertFalse(ledger.canAdmit(workflow(2, 1, 10, 10, 10), Collections.<Workflow>emptyList()));
+        assertTrue(ledger.canAdmit(workflow(3, 1, 10, 10, 5), Collections.<Workflow>emptyList()));
+        // 起始节点为2时可以走路径2>3
+        assertTrue(ledger.canAdmit(workflow(4, 2, 10, 10, 10), Collections.<Workflow>emptyList()));
+        assertTrue(ledger.release(1));
+        assertTrue(ledger.canAdmit(workflow(5, 1, 10, 10, 10), Collections.<Workflow>emptyList()));
+    }
+}
@@ -0,0 +1,153 @@
+package com.sysu.lbc.dataStructure;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PathTableTest {
+    private PathTable paths;
+    private List<Link> links;
+
+    @Before
+    public void setUp() {
+        links = Arrays.asList(new Link(1, 2, 30), new Link(2, 3, 30), new Link(1, 3, 30));
+        paths = new PathTable();
+        paths.add(PathTable.parse("1>2"));
+        paths.add(PathTable.parse("1>2>3"));
+        paths.add(PathTable.parse("1>3"));
+        paths.add(PathTable.parse("2>3"));
+        // 重复经过链路1-2的路径
+        paths.add(PathTable.parse("1>2>1>3"));
+        paths.add(PathTable.parse("4"));
+        paths.buildLinkIncidence(links);
+    }
+
+    @Test
+    public void parse() {
+        assertArrayEquals(new int[]{1, 3, 4}, PathTable.parse("1>3>4"));
+        assertArrayEquals(new int[]{12}, PathTable.parse("12"));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, PathTable.parse("1>2>3>4>5>6>7>8>9>10"));
+        assertArrayEquals(new int[0], PathTable.parse(""));
+    }
+
+    @Test
+    public void nodeOffsets() {
+        assertEquals(6, paths.size());
+        assertEquals(1, paths.getSrc(2));
+        assertEquals(3, paths.getDst(2));
+        assertEquals(2, paths.getHopNum(2));
+        assertEquals(2, paths.getNode(2, 1));
+        assertEquals("1>2>1>3", paths.getContent(5));
+        assertEquals(0, paths.getHopNum(6));
+        assertEquals(4, paths.getSrc(6));
+        assertEquals(4, paths.getDst(6));
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        PathTable table = new PathTable();
+        int[] buffer = new int[40];
+        for (int i = 0; i < 100; i++) {
+            int length = 1 + i % 40;
+            for (int k = 0; k < length; k++) {
+                buffer[k] = i + k;
+            }
+            assertEquals(i + 1, table.add(buffer, length));
+        }
+        for (int i = 0; i < 100; i++) {
+            int length = 1 + i % 40;
+            assertEquals(length - 1, table.getHopNum(i + 1));
+            for (int k = 0; k < length; k++) {
+                assertEquals(i + k, table.getNode(i + 1, k));
+            }
+        }
+    }
+
+    @Test
+    public void hopLinks() {
+        assertEquals(0, paths.getHopLink(2, 0));
+        assertEquals(1, paths.getHopLink(2, 1));
+        // 链路不区分方向；同一路径中第二次经过链路1-2记为-1
+        assertEquals(0, paths.getHopLink(5, 0));
+        assertEquals(-1, paths.getHopLink(5, 1));
+        assertEquals(2, paths.getHopLink(5, 2));
+    }
+
+    @Test
+    public void linkIncidenceMatchesHops() {
+        for (int j = 0; j < links.size(); j++) {
+            Set<Integer> expected = new TreeSet<>();
+            for (int pathId = 1; pathId <= paths.size(); pathId++) {
+                for (int i = 0; i < paths.getHopNum(pathId); i++) {
+                    if (paths.getHopLink(pathId, i) == j) {
+                        expected.add(pathId);
+                    }
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            for (int k = paths.getLinkPathStart(j); k < paths.getLinkPathEnd(j); k++) {
+                actual.add(paths.getLinkPath(k));
+            }
+            assertEquals("链路" + j, new ArrayList<>(expected), actual);
+        }
+        assertEquals(Arrays.asList(1, 2, 5), linkPaths(0));
+        assertEquals(Arrays.asList(2, 4), linkPaths(1));
+        assertEquals(Arrays.asList(3, 5), linkPaths(2));
+    }
+
+    private List<Integer> linkPaths(int j) {
+        List<Integer> result = new ArrayList<>();
+        for (int k = paths.getLinkPathStart(j); k < paths.getLinkPathEnd(j); k++) {
+            result.add(paths.getLinkPath(k));
+        }
+        return result;
+    }
+
+    @Test
+    public void pathsBetween() {
+        assertArrayEquals(new int[]{2, 3, 5}, paths.getPathsBetween(1, 3));
+        assertArrayEquals(new int[]{1}, paths.getPathsBetween(1, 2));
+        assertArrayEquals(new int[]{6}, paths.getPathsBetween(4, 4));
+        assertArrayEquals(new int[0], paths.getPathsBetween(3, 1));
+        // 新加入的路径使索引失效
+        assertEquals(7, paths.add(PathTable.parse("3>1")));
+        assertArrayEquals(new int[]{7}, paths.getPathsBetween(3, 1));
+    }
+
+    @Test
+    public void pathsBetweenKeepsPairsWithNegativeIdsApart() {
+        PathTable table = new PathTable();
+        table.add(new int[]{0, -1});
+        table.add(new int[]{-1, 0});
+        table.add(new int[]{-1, -1});
+        assertArrayEquals(new int[]{1}, table.getPathsBetween(0, -1));
+        assertArrayEquals(new int[]{2}, table.getPathsBetween(-1, 0));
+        assertArrayEquals(new int[]{3}, table.getPathsBetween(-1, -1));
+    }
+
+    @Test
+    public void writeAndReadRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        paths.write(new DataOutputStream(bytes));
+        PathTable read = PathTable.read(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(paths.size(), read.size());
+        for (int pathId = 1; pathId <= paths.size(); pathId++) {
+            assertEquals(paths.getContent(pathId), read.getContent(pathId));
+            for (int i = 0; i < paths.getHopNum(pathId); i++) {
+                assertEquals(paths.getHopLink(pathId, i), read.getHopLink(pathId, i));
+            }
+        }
+        for (int j = 0; j < links.size(); j++) {
+            assertEquals(paths.getLinkPathStart(j), read.getLinkPathStart(j));
+            assertEquals(paths.getLinkPathEnd(j), read.getLinkPathEnd(j));
+        }
+        assertArrayEquals(paths.getPathsBetween(1, 3), read.getPathsBetween(1, 3));
+    }
+}
@@ -0,0 +1,164 @@
+package com.sysu.lbc.dataStructure;
+
+import com.sysu.lbc.heuristic.PlacementHeuristic;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class WorkflowBatchTest {
+    private Map<Integer, Double> nodes;
+    private List<Workflow> workflows;
+    private WorkflowBatch batch;
+
+    @Before
+    public void setUp() {
+        nodes = new LinkedHashMap<>();
+        nodes.put(3, 55.0);
+        nodes.put(1, 55.0);
+        nodes.put(8, 100.0);
+        nodes.put(10, 150.0);
+        workflows = new ArrayList<>();
+        // 与默认模板相同的DAG，流的顺序打乱
+        workflows.add(workflow(5, 1, 60, new int[][]{{4, 6}, {1, 2}, {2, 4}, {1, 3}, {3, 5}, {5, 6}}));
+        // 起始节点不在拓扑中，起始任务不固定
+        workflows.add(workflow(6, 99, 40, new int[][]{{1, 2}, {2, 3}}));
+        // 资源超过所有节点的容量时候选节点不做限制
+        workflows.add(workflow(7, 3, 200, new int[][]{{1, 2}}));
+        batch = new WorkflowBatch(workflows, nodes);
+    }
+
+    private static Workflow workflow(int wfId, int origin, double resource, int[][] edges) {
+        Workflow wf = new Workflow(wfId, null, null);
+        Map<Integer, Task> tasks = new HashMap<>();
+        for (int[] edge : edges) {
+            Task curr = tasks.computeIfAbsent(edge[0], id -> new Task(wfId, id, resource));
+            Task succ = tasks.computeIfAbsent(edge[1], id -> new Task(wfId, id, resource));
+            wf.addFlow(new Flow(curr, succ, 10 + edge[1]));
+        }
+        wf.setOriginNodeId(origin);
+        return wf;
+    }
+
+    @Test
+    public void nodesKeepMapOrder() {
+        assertEquals(nodes.size(), batch.getNodeNum());
+        int v = 0;
+        for (Map.Entry<Integer, Double> entry : nodes.entrySet()) {
+            assertEquals((int) entry.getKey(), batch.nodeIds[v]);
+            assertEquals(entry.getValue(), batch.nodeCap[v], 0);
+            assertEquals(v, batch.indexOfNode(entry.getKey()));
+            v++;
+        }
+        assertEquals(-1, batch.indexOfNode(2));
+        assertEquals(-1, batch.indexOfNode(99));
+        assertEquals(-1, batch.indexOfNode(-1));
+    }
+
+    @Test
+    public void tasksAndFlowsMatchWorkflows() {
+        assertEquals(workflows.size(), batch.getWorkflowNum());
+        int taskNum = 0;
+        int flowNum = 0;
+        for (int w = 0; w < workflows.size(); w++) {
+            Workflow wf = workflows.get(w);
+            assertSame(wf, batch.workflows[w]);
+            assertEquals((int) wf.getWF_ID(), batch.wfIds[w]);
+            assertEquals(batch.indexOfNode(wf.getOriginNodeId()), batch.originNode[w]);
+            // 任务顺序与getTasks()一致
+            List<Task> tasks = new ArrayList<>(wf.getTasks());
+            assertEquals(tasks.size(), batch.taskStart[w + 1] - batch.taskStart[w]);
+            for (int k = 0; k < tasks.size(); k++) {
+                int t = batch.taskStart[w] + k;
+                assertSame(tasks.get(k), batch.tasks[t]);
+                assertEquals(tasks.get(k).taskId, batch.taskIds[t]);
+                assertEquals(tasks.get(k).neededResource, batch.taskResource[t], 0);
+            }
+            List<Flow> flows = wf.getFlows();
+            assertEquals(flows.size(), batch.flowStart[w + 1] - batch.flowStart[w]);
+            for (int k = 0; k < flows.size(); k++) {
+                int f = batch.flowStart[w] + k;
+                assertSame(flows.get(k), batch.flows[f]);
+                assertSame(flows.get(k).currTask, batch.tasks[batch.flowCurr[f]]);
+                assertSame(flows.get(k).succTask, batch.tasks[batch.flowSucc[f]]);
+                assertEquals(flows.get(k).neededBandwidth, batch.flowBandwidth[f], 0);
+            }
+            taskNum += tasks.size();
+            flowNum += flows.size();
+        }
+        assertEquals(taskNum, batch.getTaskNum());
+        assertEquals(flowNum, batch.getFlowNum());
+    }
+
+    @Test
+    public void taskFlowsAreIncidentFlows() {
+        for (int w = 0; w < workflows.size(); w++) {
+            for (int t = batch.taskStart[w]; t < batch.taskStart[w + 1]; t++) {
+                Set<Flow> expected = new HashSet<>();
+                for (Flow flow : workflows.get(w).getFlows()) {
+                    if (flow.currTask == batch.tasks[t] || flow.succTask == batch.tasks[t]) {
+                        expected.add(flow);
+                    }
+                }
+                Set<Flow> actual = new HashSet<>();
+                for (int k = batch.taskFlowStart[t]; k < batch.taskFlowStart[t + 1]; k++) {
+                    assertTrue(batch.taskFlows[k] >= batch.flowStart[w] && batch.taskFlows[k] < batch.flowStart[w + 1]);
+                    actual.add(batch.flows[batch.taskFlows[k]]);
+                }
+                assertEquals(expected, actual);
+                assertEquals(expected.size(), batch.taskFlowStart[t + 1] - batch.taskFlowStart[t]);
+            }
+        }
+    }
+
+    @Test
+    public void candidatesMatchPlacementHeuristic() {
+        for (int w = 0; w < workflows.size(); w++) {
+            Workflow wf = workflows.get(w);
+            for (int t = batch.taskStart[w]; t < batch.taskStart[w + 1]; t++) {
+                Set<Integer> actual = new HashSet<>();
+                for (int k = batch.candStart[t]; k < batch.candStart[t + 1]; k++) {
+                    actual.add(batch.nodeIds[batch.candNodes[k]]);
+                }
+                assertEquals("工作流" + wf.getWF_ID() + "任务" + batch.taskIds[t],
+                        PlacementHeuristic.getCandidateNodes(wf.getOriginNodeId(), batch.tasks[t], nodes), actual);
+            }
+        }
+        // 第一个工作流的任务按在流中首次出现的顺序为4, 6, 1, ...，起始任务固定在起始节点1上
+        assertEquals(4, batch.taskIds[batch.taskStart[0]]);
+        int t = batch.taskStart[0] + 2;
+        assertEquals(1, batch.taskIds[t]);
+        assertEquals(1, batch.candStart[t + 1] - batch.candStart[t]);
+        assertEquals(batch.indexOfNode(1), batch.candNodes[batch.candStart[t]]);
+    }
+
+    @Test
+    public void topoOrderRespectsFlows() {
+        for (int w = 0; w < workflows.size(); w++) {
+            int start = batch.taskStart[w];
+            int end = batch.taskStart[w + 1];
+            int[] position = new int[batch.getTaskNum()];
+            Set<Integer> seen = new HashSet<>();
+            for (int k = start; k < end; k++) {
+                int t = batch.topoOrder[k];
+                assertTrue(t >= start && t < end);
+                assertTrue("重复的任务", seen.add(t));
+                position[t] = k;
+            }
+            for (int f = batch.flowStart[w]; f < batch.flowStart[w + 1]; f++) {
+                assertTrue(position[batch.flowCurr[f]] < position[batch.flowSucc[f]]);
+            }
+        }
+    }
+
+    @Test
+    public void emptyBatch() {
+        WorkflowBatch empty = new WorkflowBatch(Collections.<Workflow>emptyList(), nodes);
+        assertEquals(0, empty.getWorkflowNum());
+        assertEquals(0, empty.getTaskNum());
+        assertEquals(0, empty.getFlowNum());
+        assertEquals(nodes.size(), empty.getNodeNum());
+    }
+}
@@ -0,0 +1,64 @@
+package com.sysu.lbc.decomposition;
+
+import com.sysu.lbc.Formulation;
+import com.sysu.lbc.GurobiSolution;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkloadGenerator;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 拉格朗日对偶给出的下界不超过整体模型的最优值，迭代中的最好放置不优于它
+ */
+public class LagrangianDecompositionTest {
+    private static final double TOLERANCE = 1e-6;
+
+    private static GurobiSolution solveMonolithic(boolean pruneYVar) throws Exception {
+        GurobiSolution solution = new GurobiSolution();
+        solution.setWorkloadGenerator(new WorkloadGenerator(1).setShapes(WorkloadGenerator.Shape.PIPELINE)
+                .setTaskNum(2, 2).setOriginNodes(Arrays.asList(1, 2)));
+        solution.setFirstWorkflowId(1);
+        solution.setWorkflowNum(3);
+        solution.setBackend(Backend.BRANCH_AND_BOUND);
+        solution.setFormulation(Formulation.MCCORMICK);
+        solution.setPruneYVar(pruneYVar);
+        solution.setTimeLimit(60);
+        solution.prepare();
+        solution.doOptimize();
+        // 下界只能和整体模型的最优值比较
+        assertEquals(solution.getObjVal(), solution.getModel().getObjBound(), TOLERANCE);
+        return solution;
+    }
+
+    private static void checkBounds(boolean pruneYVar) throws Exception {
+        GurobiSolution solution = solveMonolithic(pruneYVar);
+        try {
+            double optimum = solution.getObjVal();
+            DecompositionResult result = solution.solveByDecomposition();
+            assertTrue(result.iterations > 0);
+            assertFalse(Double.isInfinite(result.lowerBound));
+            assertTrue(result.lowerBound + " > " + optimum, result.lowerBound <= optimum + TOLERANCE);
+            assertTrue(result.placement.complete);
+            assertEquals(result.upperBound, result.placement.cost, TOLERANCE);
+            assertTrue(result.upperBound + " < " + optimum, result.upperBound >= optimum - TOLERANCE);
+            assertTrue(result.getGap() >= 0);
+            assertTrue(result.getGap(optimum) >= 0);
+            assertTrue(result.getGap(optimum) <= result.getGap() + TOLERANCE);
+        } finally {
+            solution.dispose();
+        }
+    }
+
+    @Test
+    public void boundsEncloseOptimum() throws Exception {
+        checkBounds(false);
+    }
+
+    @Test
+    public void candidateNodesBoundPrunedModel() throws Exception {
+        checkBounds(true);
+    }
+}
@@ -0,0 +1,169 @@
+package com.sysu.lbc.path;
+
+import com.sysu.lbc.dataStructure.Link;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class KShortestPathsTest {
+    private static final double DELTA = 1e-9;
+
+    // 无向链路(u, v) -> 权重
+    private static Map<String, Double> weightsOf(List<Link> links, double[] weights) {
+        Map<String, Double> result = new HashMap<>();
+        for (int j = 0; j < links.size(); j++) {
+            Link link = links.get(j);
+            result.put(link.srcNodeId + "-" + link.dstNodeId, weights[j]);
+            result.put(link.dstNodeId + "-" + link.srcNodeId, weights[j]);
+        }
+        return result;
+    }
+
+    private static double cost(int[] path, Map<String, Double> weights) {
+        double result = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            Double w = weights.get(path[i] + "-" + path[i + 1]);
+            assertNotNull("路径上相邻的节点之间没有链路：" + Arrays.toString(path), w);
+            result += w;
+        }
+        return result;
+    }
+
+    // 深度优先枚举src到dst跳数不超过maxHops的全部无环路径，返回按权重排序的权重
+    private static List<Double> bruteForce(List<Link> links, Map<String, Double> weights, int src, int dst, int maxHops) {
+        Map<Integer, List<Integer>> adj = new HashMap<>();
+        for (Link link : links) {
+            adj.computeIfAbsent(link.srcNodeId, key -> new ArrayList<>()).add(link.dstNodeId);
+            adj.computeIfAbsent(link.dstNodeId, key -> new ArrayList<>()).add(link.srcNodeId);
+        }
+        List<Double> result = new ArrayList<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.addLast(src);
+        dfs(adj, weights, dst, maxHops, stack, 0, result);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static void dfs(Map<Integer, List<Integer>> adj, Map<String, Double> weights, int dst, int maxHops,
+                            Deque<Integer> stack, double cost, List<Double> result) {
+        int u = stack.peekLast();
+        if (u == dst) {
+            result.add(cost);
+            return;
+        }
+        if (stack.size() > maxHops) {
+            return;
+        }
+        for (int v : adj.getOrDefault(u, Collections.<Integer>emptyList())) {
+            if (!stack.contains(v)) {
+                stack.addLast(v);
+                dfs(adj, weights, dst, maxHops, stack, cost + weights.get(u + "-" + v), result);
+                stack.removeLast();
+            }
+        }
+    }
+
+    private static List<Link> randomGraph(Random random, int nodeNum, double density) {
+        List<Link> links = new ArrayList<>();
+        for (int u = 1; u <= nodeNum; u++) {
+            for (int v = u + 1; v <= nodeNum; v++) {
+                if (random.nextDouble() < density) {
+                    links.add(new Link(u, v, 10 + random.nextInt(40)));
+                }
+            }
+        }
+        return links;
+    }
+
+    private static void checkAgainstBruteForce(List<Link> links, double[] weights, int src, int dst, int k, int maxHops) {
+        Map<String, Double> weightOf = weightsOf(links, weights);
+        List<int[]> paths = new KShortestPaths(links, weights).find(src, dst, k, maxHops);
+        List<Double> expected = bruteForce(links, weightOf, src, dst, maxHops);
+        String where = src + "->" + dst + " k=" + k + " maxHops=" + maxHops;
+        assertEquals(where, Math.min(k, expected.size()), paths.size());
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < paths.size(); i++) {
+            int[] path = paths.get(i);
+            assertEquals(where, src, path[0]);
+            assertEquals(where, dst, path[path.length - 1]);
+            assertTrue(where, path.length - 1 <= maxHops);
+            Set<Integer> nodes = new HashSet<>();
+            for (int node : path) {
+                assertTrue(where + " 路径有环：" + Arrays.toString(path), nodes.add(node));
+            }
+            assertTrue(where + " 重复的路径", distinct.add(Arrays.toString(path)));
+            // 权重相同的路径可以以任意顺序返回，只比较第i条路径的权重
+            assertEquals(where + " 第" + i + "条路径", expected.get(i), cost(path, weightOf), DELTA);
+        }
+    }
+
+    @Test
+    public void smallGraph() {
+        // 1 - 2 - 4，1 - 3 - 4，2 - 3
+        List<Link> links = Arrays.asList(new Link(1, 2, 10), new Link(2, 4, 10), new Link(1, 3, 10),
+                new Link(3, 4, 10), new Link(2, 3, 10));
+        double[] weights = {1, 1, 1, 2, 1};
+        List<int[]> paths = new KShortestPaths(links, weights).find(1, 4, 10, 10);
+        assertEquals(4, paths.size());
+        assertArrayEquals(new int[]{1, 2, 4}, paths.get(0));
+        // 权重相同时跳数少的在前
+        assertArrayEquals(new int[]{1, 3, 4}, paths.get(1));
+        assertArrayEquals(new int[]{1, 3, 2, 4}, paths.get(2));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, paths.get(3));
+        // 跳数上限为2时只剩两条
+        assertEquals(2, new KShortestPaths(links, weights).find(1, 4, 10, 2).size());
+    }
+
+    @Test
+    public void degenerateQueries() {
+        List<Link> links = Arrays.asList(new Link(1, 2, 10), new Link(3, 4, 10));
+        KShortestPaths ksp = new KShortestPaths(links, KShortestPaths.hopWeights(links));
+        assertTrue(ksp.find(1, 4, 3, 5).isEmpty());
+        assertTrue(ksp.find(1, 9, 3, 5).isEmpty());
+        assertTrue(ksp.find(1, 1, 3, 5).isEmpty());
+        assertTrue(ksp.find(1, 2, 0, 5).isEmpty());
+        assertTrue(ksp.find(1, 2, 3, 0).isEmpty());
+        assertEquals(1, ksp.find(1, 2, 3, 5).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveWeights() {
+        List<Link> links = Collections.singletonList(new Link(1, 2, 10));
+        new KShortestPaths(links, new double[]{0});
+    }
+
+    @Test
+    public void matchesBruteForceWithHopWeights() {
+        Random random = new Random(5);
+        for (int n = 0; n < 20; n++) {
+            List<Link> links = randomGraph(random, 7, 0.45);
+            int src = 1 + random.nextInt(7);
+            int dst = 1 + random.nextInt(7);
+            if (src != dst) {
+                checkAgainstBruteForce(links, KShortestPaths.hopWeights(links), src, dst, 1 + random.nextInt(12),
+                        1 + random.nextInt(6));
+            }
+        }
+    }
+
+    @Test
+    public void matchesBruteForceWithRandomWeights() {
+        Random random = new Random(9);
+        for (int n = 0; n < 30; n++) {
+            List<Link> links = randomGraph(random, 8, 0.4);
+            double[] weights = new double[links.size()];
+            for (int j = 0; j < weights.length; j++) {
+                weights[j] = 0.1 + random.nextDouble();
+            }
+            int src = 1 + random.nextInt(8);
+            int dst = 1 + random.nextInt(8);
+            if (src != dst) {
+                checkAgainstBruteForce(links, weights, src, dst, 1 + random.nextInt(20), 1 + random.nextInt(7));
+            }
+        }
+        List<Link> links = randomGraph(random, 8, 0.5);
+        checkAgainstBruteForce(links, KShortestPaths.inverseBandwidthWeights(links), 1, 8, 15, 7);
+    }
+}
@@ -0,0 +1,136 @@
+package com.sysu.lbc.service;
+
+import com.sysu.lbc.solver.Backend;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在分支定界后端上通过HTTP接口测试SolveService：一个工作线程、队列容量为1
+ */
+public class SolveHttpServerTest {
+    private SolveService service;
+    private SolveHttpServer server;
+    private ExecutorService clients;
+
+    @Before
+    public void setUp() throws IOException {
+        service = new SolveService(Backend.BRANCH_AND_BOUND, 1, 1);
+        server = new SolveHttpServer(service, 0);
+        server.start();
+        clients = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        clients.shutdownNow();
+        server.stop();
+        service.shutdown();
+    }
+
+    @Test
+    public void validSolveReturns200() throws Exception {
+        Response response = get("/solve?workflows=1&timeLimit=30&gap=0.05");
+        assertEquals(response.body, 200, response.status);
+        assertTrue(response.body, response.body.contains("\"hasSolution\": true"));
+        assertEquals(1, stat("submitted"));
+        assertEquals(1, stat("completed"));
+        assertEquals(0, stat("rejected"));
+    }
+
+    @Test
+    public void badParametersReturn400() throws Exception {
+        assertEquals(400, get("/solve?workflows=0").status);
+        assertEquals(400, get("/solve?workflows=1&formulation=FOO").status);
+        assertEquals(400, get("/solve?workflows=abc").status);
+        // 参数错误的请求不进入队列
+        assertEquals(0, stat("submitted"));
+        assertEquals(0, stat("rejected"));
+    }
+
+    @Test
+    public void fullQueueReturns503() throws Exception {
+        // 占满核数预算，工作线程取到第一个请求后阻塞在申请核数上，第二个请求留在队列中
+        service.getCores().acquire(service.getCoreBudget());
+        Future<Response> running;
+        Future<Response> queued;
+        try {
+            running = clients.submit(() -> get("/solve?workflows=1&timeLimit=30&gap=0.05"));
+            waitFor(() -> service.getActiveNum() == 1 && service.getQueuedNum() == 0);
+            queued = clients.submit(() -> get("/solve?workflows=1&timeLimit=30&gap=0.05"));
+            waitFor(() -> service.getQueuedNum() == 1);
+
+            Response rejected = get("/solve?workflows=1");
+            assertEquals(rejected.body, 503, rejected.status);
+            assertEquals(2, stat("submitted"));
+            assertEquals(1, stat("rejected"));
+            assertEquals(1, stat("queued"));
+            assertEquals(0, stat("completed"));
+        } finally {
+            service.getCores().release(service.getCoreBudget());
+        }
+        assertEquals(200, running.get().status);
+        assertEquals(200, queued.get().status);
+        assertEquals(2, stat("completed"));
+        assertEquals(0, stat("failed"));
+        assertEquals(0, stat("queued"));
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.holds()) {
+            assertTrue("等待超时", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private long stat(String name) throws IOException {
+        Response response = get("/stats");
+        assertEquals(200, response.status);
+        Matcher m = Pattern.compile("\"" + name + "\": (\\d+)").matcher(response.body);
+        assertTrue(response.body, m.find());
+        return Long.parseLong(m.group(1));
+    }
+
+    private static class Response {
+        int status;
+        String body;
+    }
+
+    private Response get(String path) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        try {
+            Response response = new Response();
+            response.status = conn.getResponseCode();
+            InputStream in = response.status < 400 ? conn.getInputStream() : conn.getErrorStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            for (int n; (n = in.read(buf)) > 0; ) {
+                out.write(buf, 0, n);
+            }
+            in.close();
+            response.body = new String(out.toByteArray(), StandardCharsets.UTF_8);
+            return response;
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.sysu.lbc.service;
+
+import com.sysu.lbc.dataStructure.Task;
+import com.sysu.lbc.solver.Backend;
+import com.sysu.lbc.tool.WorkflowGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在分支定界后端上测试每个请求使用自己的工作流id：相同的请求与之前处理过多少请求无关
+ */
+public class SolveServiceTest {
+    private static final double DELTA = 1e-6;
+
+    private SolveService service;
+
+    @Before
+    public void setUp() {
+        service = new SolveService(Backend.BRANCH_AND_BOUND, 2, 4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        service.shutdown();
+    }
+
+    private static SolveRequest request(int workflowNum, long seed) {
+        SolveRequest request = new SolveRequest();
+        request.workflowNum = workflowNum;
+        request.seed = seed;
+        request.timeLimit = 60;
+        request.targetGap = 0;
+        request.withPlacement = true;
+        return request;
+    }
+
+    @Test
+    public void sameRequestTwiceGivesSameObjective() throws Exception {
+        SolveResponse first = service.solve(request(1, 3));
+        // 全局计数的变化不影响请求的工作流
+        WorkflowGenerator.reserveWorkflowIdx(100);
+        SolveResponse second = service.solve(request(1, 3));
+        assertTrue(first.hasSolution);
+        assertTrue(first.targetReached);
+        assertTrue(second.targetReached);
+        assertEquals(first.objVal, second.objVal, DELTA);
+        assertEquals(first.placement.taskNodes, second.placement.taskNodes);
+    }
+
+    @Test
+    public void workflowIdsStartAtOne() throws Exception {
+        SolveResponse response = service.solve(request(1, 3));
+        assertTrue(response.hasSolution);
+        for (Task task : response.placement.taskNodes.keySet()) {
+            assertEquals(1, task.workflowId);
+        }
+    }
+}
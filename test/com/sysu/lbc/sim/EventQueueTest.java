@@ -0,0 +1,65 @@
+package com.sysu.lbc.sim;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EventQueueTest {
+
+    @Test
+    public void popsInTimeOrderPastInitialCapacity() {
+        // 超过初始容量64，数组要翻倍两次
+        Random random = new Random(1);
+        EventQueue queue = new EventQueue();
+        double[] times = new double[200];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = random.nextDouble() * 100;
+            queue.push(times[i], i);
+        }
+        assertEquals(times.length, queue.size());
+        double[] sorted = times.clone();
+        Arrays.sort(sorted);
+        for (double time : sorted) {
+            assertEquals(time, queue.peekTime(), 0);
+            int event = queue.pop();
+            assertEquals(time, times[event], 0);
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void interleavedPushPopMatchesSortedReference() {
+        // 时间只取整数，有相同时间的事件时只比较时间序列和各时间上的事件集合
+        Random random = new Random(2);
+        EventQueue queue = new EventQueue();
+        PriorityQueue<double[]> reference = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+        Map<Double, Set<Integer>> popped = new HashMap<>();
+        Map<Double, Set<Integer>> expected = new HashMap<>();
+        double now = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (reference.isEmpty() || random.nextInt(3) > 0) {
+                // 事件不早于当前时间，与仿真器的用法相同
+                double time = now + random.nextInt(20);
+                queue.push(time, i);
+                reference.add(new double[]{time, i});
+            } else {
+                double[] next = reference.poll();
+                now = queue.peekTime();
+                assertEquals(next[0], now, 0);
+                popped.computeIfAbsent(now, t -> new HashSet<>()).add(queue.pop());
+                expected.computeIfAbsent(next[0], t -> new HashSet<>()).add((int) next[1]);
+            }
+            assertEquals(reference.size(), queue.size());
+        }
+        while (!reference.isEmpty()) {
+            double[] next = reference.poll();
+            assertEquals(next[0], queue.peekTime(), 0);
+            popped.computeIfAbsent(next[0], t -> new HashSet<>()).add(queue.pop());
+            expected.computeIfAbsent(next[0], t -> new HashSet<>()).add((int) next[1]);
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(expected, popped);
+    }
+}
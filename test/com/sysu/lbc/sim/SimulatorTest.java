@@ -0,0 +1,43 @@
+package com.sysu.lbc.sim;
+
+import com.sysu.lbc.capacity.CapacityLedger;
+import com.sysu.lbc.dataStructure.Link;
+import com.sysu.lbc.dataStructure.PathTable;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimulatorTest {
+
+    private static CapacityLedger ledger() {
+        Map<Integer, Double> nodes = new LinkedHashMap<>();
+        nodes.put(1, 55.0);
+        nodes.put(2, 55.0);
+        nodes.put(3, 100.0);
+        nodes.put(4, 150.0);
+        List<Link> links = Collections.singletonList(new Link(1, 3, 30));
+        PathTable paths = new PathTable();
+        paths.add(new int[]{1, 3});
+        paths.buildLinkIncidence(links);
+        return new CapacityLedger(nodes, links, paths);
+    }
+
+    @Test
+    public void keepsUavOriginsThatFit() {
+        assertEquals(Arrays.asList(1, 2), Simulator.selectOriginNodes(ledger(), Arrays.asList(1, 2), 55));
+    }
+
+    @Test
+    public void fallsBackToNodesThatFit() {
+        // 与默认数据相同：无人机节点容量55，起始任务资源60
+        assertEquals(Arrays.asList(3, 4), Simulator.selectOriginNodes(ledger(), Arrays.asList(1, 2), 60));
+        assertEquals(Collections.singletonList(4), Simulator.selectOriginNodes(ledger(), Arrays.asList(1, 2), 120));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsWhenNoNodeFits() {
+        Simulator.selectOriginNodes(ledger(), Arrays.asList(1, 2), 200);
+    }
+}
@@ -0,0 +1,169 @@
+package com.sysu.lbc.solver;
+
+import com.sysu.lbc.model.*;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 小规模的放置模型：每个任务放在一个节点上，节点负载由只含0-1变量的等式定义，目标为负载的平方和
+ */
+public class BranchAndBoundModelTest {
+    private static final double DELTA = 1e-6;
+
+    // x[t][v]为任务t是否放在节点v上；loadUb为负载变量的上界
+    private static SolverModel placementModel(Backend backend, double[] resources, int nodeNum, double loadUb)
+            throws SolverException {
+        SolverModel model = backend.create("");
+        ModelVar[][] x = new ModelVar[resources.length][nodeNum];
+        for (int t = 0; t < resources.length; t++) {
+            LinExpr assign = new LinExpr();
+            for (int v = 0; v < nodeNum; v++) {
+                x[t][v] = model.addVar(0, 1, SolverModel.BINARY, "x" + t + "_" + v);
+                assign.addTerm(1, x[t][v]);
+            }
+            model.addConstr(assign, SolverModel.EQUAL, 1, "assign" + t);
+        }
+        QuadExpr objective = new QuadExpr();
+        for (int v = 0; v < nodeNum; v++) {
+            ModelVar load = model.addVar(0, loadUb, SolverModel.CONTINUOUS, "load" + v);
+            LinExpr def = new LinExpr();
+            def.addTerm(-1, load);
+            for (int t = 0; t < resources.length; t++) {
+                def.addTerm(resources[t], x[t][v]);
+            }
+            model.addConstr(def, SolverModel.EQUAL, 0, "loadDef" + v);
+            objective.addTerm(1, load, load);
+        }
+        model.setObjective(objective);
+        model.update();
+        return model;
+    }
+
+    // 枚举全部放置得到的最优值，没有满足上界的放置时为正无穷
+    private static double bruteForce(double[] resources, int nodeNum, double loadUb) {
+        double best = Double.POSITIVE_INFINITY;
+        int[] assign = new int[resources.length];
+        while (true) {
+            double[] loads = new double[nodeNum];
+            for (int t = 0; t < resources.length; t++) {
+                loads[assign[t]] += resources[t];
+            }
+            double cost = 0;
+            boolean feasible = true;
+            for (double load : loads) {
+                cost += load * load;
+                feasible &= load <= loadUb + DELTA;
+            }
+            if (feasible) {
+                best = Math.min(best, cost);
+            }
+            int t = 0;
+            while (t < assign.length && ++assign[t] == nodeNum) {
+                assign[t++] = 0;
+            }
+            if (t == assign.length) {
+                return best;
+            }
+        }
+    }
+
+    @Test
+    public void knownOptimum() throws SolverException {
+        // {3}、{2, 2}：9 + 16
+        SolverModel model = placementModel(Backend.BRANCH_AND_BOUND, new double[]{3, 2, 2}, 2, SolverModel.INFINITY);
+        model.optimize();
+        assertTrue(model.hasSolution());
+        assertEquals(25, model.getObjVal(), DELTA);
+        assertEquals(25, model.getObjBound(), DELTA);
+        assertEquals(6 + 2, model.getVarNum());
+        assertEquals(3 + 2, model.getConstrNum());
+        model.dispose();
+    }
+
+    @Test
+    public void matchesBruteForce() throws SolverException {
+        Random random = new Random(7);
+        for (int n = 0; n < 20; n++) {
+            int taskNum = 3 + random.nextInt(4);
+            int nodeNum = 2 + random.nextInt(2);
+            double[] resources = new double[taskNum];
+            for (int t = 0; t < taskNum; t++) {
+                resources[t] = 1 + random.nextInt(9);
+            }
+            SolverModel model = placementModel(Backend.BRANCH_AND_BOUND, resources, nodeNum, SolverModel.INFINITY);
+            model.optimize();
+            assertEquals("第" + n + "个实例", bruteForce(resources, nodeNum, SolverModel.INFINITY), model.getObjVal(), DELTA);
+            model.dispose();
+        }
+    }
+
+    @Test
+    public void respectsLoadUpperBound() throws SolverException {
+        double[] resources = {5, 4, 3, 3};
+        // 两个节点不限上界时{5, 3}、{4, 3}最优：64 + 49
+        assertEquals(113, bruteForce(resources, 2, SolverModel.INFINITY), DELTA);
+        // 三个节点上界为6时5、4只能各占一个节点，两个3放在一起
+        SolverModel model = placementModel(Backend.BRANCH_AND_BOUND, resources, 3, 6);
+        model.optimize();
+        assertTrue(model.hasSolution());
+        assertEquals(bruteForce(resources, 3, 6), model.getObjVal(), DELTA);
+        model.dispose();
+
+        model = placementModel(Backend.BRANCH_AND_BOUND, resources, 2, 7);
+        model.optimize();
+        assertFalse("总资源15放不进两个上界为7的节点", model.hasSolution());
+        model.dispose();
+    }
+
+    @Test
+    public void linearConstraintsAndStart() throws SolverException {
+        // 0-1背包：max 6a + 5b + 4c，3a + 2b + 2c <= 4，最优b = c = 1
+        SolverModel model = Backend.BRANCH_AND_BOUND.create("");
+        ModelVar a = model.addVar(0, 1, SolverModel.BINARY, "a");
+        ModelVar b = model.addVar(0, 1, SolverModel.BINARY, "b");
+        ModelVar c = model.addVar(0, 1, SolverModel.BINARY, "c");
+        LinExpr weight = new LinExpr();
+        weight.addTerm(3, a);
+        weight.addTerm(2, b);
+        weight.addTerm(2, c);
+        model.addConstr(weight, SolverModel.LESS_EQUAL, 4, "weight");
+        QuadExpr objective = new QuadExpr();
+        objective.addTerm(-6, a);
+        objective.addTerm(-5, b);
+        objective.addTerm(-4, c);
+        model.setObjective(objective);
+        model.update();
+        model.setStart(a, 1);
+        model.setStart(b, 0);
+        model.setStart(c, 0);
+        model.optimize();
+        assertEquals(-9, model.getObjVal(), DELTA);
+        assertEquals(0, model.getValue(a), DELTA);
+        assertEquals(1, model.getValue(b), DELTA);
+        assertEquals(1, model.getValue(c), DELTA);
+        model.dispose();
+    }
+
+    @Test
+    public void matchesGurobi() throws SolverException {
+        Assume.assumeTrue("没有Gurobi运行库或许可证", Backend.isGurobiAvailable());
+        Random random = new Random(11);
+        for (int n = 0; n < 5; n++) {
+            double[] resources = new double[6];
+            for (int t = 0; t < resources.length; t++) {
+                resources[t] = 1 + random.nextInt(9);
+            }
+            SolverModel bnb = placementModel(Backend.BRANCH_AND_BOUND, resources, 3, SolverModel.INFINITY);
+            SolverModel gurobi = placementModel(Backend.GUROBI, resources, 3, SolverModel.INFINITY);
+            bnb.optimize();
+            gurobi.optimize();
+            assertEquals(gurobi.getObjVal(), bnb.getObjVal(), 1e-4);
+            bnb.dispose();
+            gurobi.dispose();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.sysu.lbc.tool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DataFileReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String write(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.getPath();
+    }
+
+    // 每个非空行的全部字段，按getString读取
+    private static List<List<String>> readAll(String path) throws IOException {
+        List<List<String>> result = new ArrayList<>();
+        try (DataFileReader reader = new DataFileReader(path)) {
+            while (reader.nextLine()) {
+                List<String> fields = new ArrayList<>();
+                for (int i = 0; i < reader.getFieldNum(); i++) {
+                    fields.add(reader.getString(i));
+                }
+                result.add(fields);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void lfAndCrlfGiveSameLines() throws IOException {
+        String lf = "U_ID\t1\tCap\t55\nE_ID\t8\tCap\t100\n";
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("U_ID", "1", "Cap", "55"),
+                Arrays.asList("E_ID", "8", "Cap", "100"));
+        assertEquals(expected, readAll(write(lf)));
+        assertEquals(expected, readAll(write(lf.replace("\n", "\r\n"))));
+        // 最后一行没有换行符
+        assertEquals(expected, readAll(write(lf.trim())));
+        assertEquals(expected, readAll(write(lf.replace("\n", "\r\n").trim())));
+    }
+
+    @Test
+    public void skipsBlankAndCommentLines() throws IOException {
+        String content = "\n# 节点\r\n  \t \n1\t2\n   # 缩进的注释\n\r\n3\t#4\n\n";
+        try (DataFileReader reader = new DataFileReader(write(content))) {
+            assertTrue(reader.nextLine());
+            assertEquals(4, reader.getLineNo());
+            assertEquals(1, reader.getInt(0));
+            assertEquals(2, reader.getInt(1));
+            assertTrue(reader.nextLine());
+            assertEquals(7, reader.getLineNo());
+            assertEquals(3, reader.getInt(0));
+            // 只有行首的#表示注释
+            assertEquals("#4", reader.getString(1));
+            assertFalse(reader.nextLine());
+            assertFalse(reader.nextLine());
+        }
+        assertTrue(readAll(write("")).isEmpty());
+        assertTrue(readAll(write("# 只有注释\r\n")).isEmpty());
+    }
+
+    @Test
+    public void trimsSpacesAroundFields() throws IOException {
+        try (DataFileReader reader = new DataFileReader(write(" Node_u \t 1\t\t-Cap\t30 \r\n"))) {
+            assertTrue(reader.nextLine());
+            assertEquals(5, reader.getFieldNum());
+            assertTrue(reader.fieldEquals(0, "Node_u"));
+            assertEquals(1, reader.getInt(1));
+            assertEquals("", reader.getString(2));
+            assertTrue(reader.fieldEquals(3, "-Cap"));
+            assertEquals(30.0, reader.getDouble(4), 0);
+        }
+    }
+
+    @Test
+    public void parsesNumbers() throws IOException {
+        try (DataFileReader reader = new DataFileReader(write("-12\t+7\t2147483647\t-2147483648\n"))) {
+            assertTrue(reader.nextLine());
+            assertEquals(-12, reader.getInt(0));
+            assertEquals(7, reader.getInt(1));
+            assertEquals(Integer.MAX_VALUE, reader.getInt(2));
+            assertEquals(Integer.MIN_VALUE, reader.getInt(3));
+        }
+        Random random = new Random(3);
+        StringBuilder sb = new StringBuilder();
+        List<String> values = new ArrayList<>(Arrays.asList("55", "-1.5", "0.1", "1e-3", "123456789.123456789", ".5"));
+        for (int i = 0; i < 200; i++) {
+            values.add(String.valueOf(random.nextInt(100000) / 1000.0));
+        }
+        for (String value : values) {
+            sb.append(value).append('\n');
+        }
+        try (DataFileReader reader = new DataFileReader(write(sb.toString()))) {
+            for (String value : values) {
+                assertTrue(reader.nextLine());
+                assertEquals(value, Double.parseDouble(value), reader.getDouble(0), 0);
+            }
+        }
+    }
+
+    @Test
+    public void readsPathFields() throws IOException {
+        try (DataFileReader reader = new DataFileReader(write("1\t10\t1>3>10\t[]\n"))) {
+            assertTrue(reader.nextLine());
+            assertEquals(3, reader.readInts(2));
+            assertArrayEquals(new int[]{1, 3, 10}, Arrays.copyOf(reader.getInts(), 3));
+            assertEquals(0, reader.readInts(3));
+        }
+    }
+
+    @Test
+    public void readsLinesLongerThanBuffer() throws IOException {
+        StringBuilder path = new StringBuilder();
+        int n = 30000;
+        for (int i = 0; i < n; i++) {
+            path.append(i).append(i + 1 < n ? ">" : "");
+        }
+        try (DataFileReader reader = new DataFileReader(write("a\r\n" + path + "\r\nb\r\n"))) {
+            assertTrue(reader.nextLine());
+            assertTrue(reader.nextLine());
+            assertEquals(n, reader.readInts(0));
+            assertEquals(n - 1, reader.getInts()[n - 1]);
+            assertTrue(reader.nextLine());
+            assertEquals("b", reader.getString(0));
+            assertFalse(reader.nextLine());
+        }
+    }
+
+    @Test
+    public void reportsLineOfBadField() throws IOException {
+        try (DataFileReader reader = new DataFileReader(write("\n1\tx\n"))) {
+            assertTrue(reader.nextLine());
+            try {
+                reader.getInt(1);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("第2行第1个字段"));
+            }
+            try {
+                reader.getInt(2);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("字段不存在"));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.sysu.lbc.tool;
+
+import com.sysu.lbc.dataStructure.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.nodes.put(1, 55.0);
+        snapshot.nodes.put(2, 55.0);
+        snapshot.nodes.put(3, 100.0);
+        snapshot.uavNodes.addAll(Arrays.asList(1, 2));
+        snapshot.links.addAll(Arrays.asList(new Link(1, 2, 30), new Link(2, 3, 20), new Link(1, 3, 10)));
+        snapshot.paths.add(PathTable.parse("1>2"));
+        snapshot.paths.add(PathTable.parse("1>2>3"));
+        snapshot.paths.add(PathTable.parse("1>3"));
+        snapshot.paths.add(PathTable.parse("1>2>1>3"));
+        snapshot.paths.buildLinkIncidence(snapshot.links);
+
+        // 菱形DAG：任务1、4各出现在两个流中，共用Task对象；没有时长
+        Task t1 = new Task(7, 1, 10);
+        Task t2 = new Task(7, 2, 20);
+        Task t3 = new Task(7, 3, 30);
+        Task t4 = new Task(7, 4, 40);
+        Workflow diamond = new Workflow(7, null, null);
+        diamond.setOriginNodeId(1);
+        diamond.addFlow(new Flow(t1, t2, 1));
+        diamond.addFlow(new Flow(t1, t3, 2));
+        diamond.addFlow(new Flow(t2, t4, 3));
+        diamond.addFlow(new Flow(t3, t4, 4));
+        snapshot.workflows.add(diamond);
+        Workflow pair = new Workflow(8, 12.5, null);
+        pair.setOriginNodeId(2);
+        pair.addFlow(new Flow(new Task(8, 1, 5), new Task(8, 2, 6), 7));
+        snapshot.workflows.add(pair);
+        return snapshot;
+    }
+
+    private Snapshot roundTrip(Snapshot snapshot) throws IOException {
+        File file = folder.newFile();
+        snapshot.write(file.getPath());
+        return Snapshot.read(file.getPath());
+    }
+
+    @Test
+    public void roundTripKeepsNodesAndLinks() throws IOException {
+        Snapshot expected = snapshot();
+        Snapshot actual = roundTrip(expected);
+        assertEquals(expected.nodes, actual.nodes);
+        assertEquals(new HashSet<>(expected.uavNodes), new HashSet<>(actual.uavNodes));
+        assertEquals(expected.links.size(), actual.links.size());
+        for (int j = 0; j < expected.links.size(); j++) {
+            assertEquals(expected.links.get(j).srcNodeId, actual.links.get(j).srcNodeId);
+            assertEquals(expected.links.get(j).dstNodeId, actual.links.get(j).dstNodeId);
+            assertEquals(expected.links.get(j).bandwidth, actual.links.get(j).bandwidth, 0);
+        }
+    }
+
+    @Test
+    public void roundTripKeepsPathsAndIncidence() throws IOException {
+        PathTable expected = snapshot().paths;
+        PathTable actual = roundTrip(snapshot()).paths;
+        assertEquals(expected.size(), actual.size());
+        for (int pathId = 1; pathId <= expected.size(); pathId++) {
+            assertEquals(expected.getContent(pathId), actual.getContent(pathId));
+            for (int i = 0; i < expected.getHopNum(pathId); i++) {
+                assertEquals(expected.getHopLink(pathId, i), actual.getHopLink(pathId, i));
+            }
+        }
+        for (int j = 0; j < 3; j++) {
+            assertEquals(expected.getLinkPathStart(j), actual.getLinkPathStart(j));
+            assertEquals(expected.getLinkPathEnd(j), actual.getLinkPathEnd(j));
+            for (int k = expected.getLinkPathStart(j); k < expected.getLinkPathEnd(j); k++) {
+                assertEquals(expected.getLinkPath(k), actual.getLinkPath(k));
+            }
+        }
+        assertArrayEquals(expected.getPathsBetween(1, 3), actual.getPathsBetween(1, 3));
+    }
+
+    @Test
+    public void roundTripKeepsWorkflows() throws IOException {
+        Snapshot expected = snapshot();
+        Snapshot actual = roundTrip(expected);
+        assertEquals(expected.workflows.size(), actual.workflows.size());
+        for (int i = 0; i < expected.workflows.size(); i++) {
+            Workflow e = expected.workflows.get(i);
+            Workflow a = actual.workflows.get(i);
+            assertEquals(e.getWF_ID(), a.getWF_ID());
+            assertEquals(e.getDuration(), a.getDuration());
+            assertEquals(e.getOriginNodeId(), a.getOriginNodeId());
+            assertEquals(e.getTasks(), a.getTasks());
+            assertEquals(e.getFlows().size(), a.getFlows().size());
+            for (int k = 0; k < e.getFlows().size(); k++) {
+                Flow ef = e.getFlows().get(k);
+                Flow af = a.getFlows().get(k);
+                assertEquals(ef.currTask, af.currTask);
+                assertEquals(ef.currTask.neededResource, af.currTask.neededResource, 0);
+                assertEquals(ef.succTask, af.succTask);
+                assertEquals(ef.succTask.neededResource, af.succTask.neededResource, 0);
+                assertEquals(ef.neededBandwidth, af.neededBandwidth, 0);
+            }
+        }
+        // 时长为null的工作流写为NaN，读回后仍为null
+        assertNull(actual.workflows.get(0).getDuration());
+        // 同一任务在多个流中是同一个对象
+        List<Flow> flows = actual.workflows.get(0).getFlows();
+        assertSame(flows.get(0).currTask, flows.get(1).currTask);
+        assertSame(flows.get(2).succTask, flows.get(3).succTask);
+        assertEquals(4, actual.workflows.get(0).getTasks().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        Snapshot.read(file.getPath());
+    }
+}
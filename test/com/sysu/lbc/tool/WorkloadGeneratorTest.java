@@ -0,0 +1,86 @@
+package com.sysu.lbc.tool;
+
+import com.sysu.lbc.dataStructure.Flow;
+import com.sysu.lbc.dataStructure.Task;
+import com.sysu.lbc.dataStructure.Workflow;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class WorkloadGeneratorTest {
+
+    private static WorkloadGenerator generator(int parallelism) {
+        return new WorkloadGenerator(42).setShapes(WorkloadGenerator.Shape.values()).setTaskNum(2, 8)
+                .setTaskResource(WorkloadGenerator.Distribution.uniform(10, 60))
+                .setBandwidth(WorkloadGenerator.Distribution.logNormal(15, 0.5))
+                .setOriginNodes(Arrays.asList(1, 2, 3)).setParallelism(parallelism);
+    }
+
+    @Test
+    public void sameWorkflowsForAnyParallelism() {
+        List<Workflow> sequential = generator(1).generate(0, 200, 1);
+        List<Workflow> parallel = generator(4).generate(0, 200, 1);
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            Workflow s = sequential.get(i);
+            Workflow p = parallel.get(i);
+            assertEquals(i + 1, s.getWF_ID().intValue());
+            assertEquals(s.getWF_ID(), p.getWF_ID());
+            assertEquals(s.getDuration(), p.getDuration());
+            assertEquals(s.getOriginNodeId(), p.getOriginNodeId());
+            assertEquals(s.getFlows().size(), p.getFlows().size());
+            for (int k = 0; k < s.getFlows().size(); k++) {
+                Flow sf = s.getFlows().get(k);
+                Flow pf = p.getFlows().get(k);
+                assertEquals(sf.currTask, pf.currTask);
+                assertEquals(sf.succTask, pf.succTask);
+                assertEquals(sf.currTask.neededResource, pf.currTask.neededResource, 0);
+                assertEquals(sf.succTask.neededResource, pf.succTask.neededResource, 0);
+                assertEquals(sf.neededBandwidth, pf.neededBandwidth, 0);
+            }
+        }
+    }
+
+    @Test
+    public void everyShapeIsDagRootedAtTaskOne() {
+        for (WorkloadGenerator.Shape shape : WorkloadGenerator.Shape.values()) {
+            WorkloadGenerator generator = new WorkloadGenerator(7).setShapes(shape).setTaskNum(2, 10).setMaxWidth(3)
+                    .setParallelism(1);
+            for (Workflow wf : generator.generate(0, 100, 1)) {
+                checkRootedDag(shape + " " + wf.getWF_ID(), wf);
+            }
+        }
+    }
+
+    // 任务1没有前驱；按拓扑序(Kahn)能处理完全部任务即无环；从任务1出发可以到达所有任务
+    private static void checkRootedDag(String message, Workflow wf) {
+        Map<Integer, List<Integer>> succ = new HashMap<>();
+        Map<Integer, Integer> inDegree = new HashMap<>();
+        for (Task task : wf.getTasks()) {
+            succ.put(task.taskId, new ArrayList<>());
+            inDegree.put(task.taskId, 0);
+        }
+        assertTrue(message, succ.containsKey(1));
+        for (Flow flow : wf.getFlows()) {
+            succ.get(flow.currTask.taskId).add(flow.succTask.taskId);
+            inDegree.merge(flow.succTask.taskId, 1, Integer::sum);
+        }
+        assertEquals(message, 0, inDegree.get(1).intValue());
+        Deque<Integer> ready = new ArrayDeque<>();
+        ready.add(1);
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            int taskId = ready.poll();
+            visited++;
+            for (int next : succ.get(taskId)) {
+                if (0 == inDegree.merge(next, -1, Integer::sum)) {
+                    ready.add(next);
+                }
+            }
+        }
+        // 只从任务1出发，有环或有任务1以外的起点时都处理不完
+        assertEquals(message, succ.size(), visited);
+    }
+}